@@ -1,9 +1,27 @@
+import Domain.Album;
 import Domain.Artist;
+import Domain.Song;
+import Repository.ArtistDBRepository;
+import Repository.ArtistStatistics;
+import Repository.CatalogCounters;
+import Repository.ConnectionPool;
 import Repository.IRepository;
+import Repository.Criteria;
+import Repository.Field;
 import Repository.InMemoryRepository;
+import Repository.Page;
+import Repository.PageRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class Artist_crud_tests {
@@ -38,4 +56,104 @@ public class Artist_crud_tests {
         assertNull(artistRepository.read(updatedArtist.getId()), "Artist should no longer exist after deletion.");
 
     }
+
+    @Test
+    public void testKeysetPaginationVisitsEveryArtistOnce() {
+        for (String name : new String[]{"Drake", "Adele", "Eminem", "Adele", "Coldplay", "Beyonce", "Drake"}) {
+            artistRepository.create(new Artist(name, name.toLowerCase() + "@example.com"));
+        }
+
+        Page<Artist> page = artistRepository.findPage(PageRequest.sortedBy("name", Artist::getName, 3));
+        assertEquals(3, page.getItems().size());
+        assertTrue(page.hasNext());
+        List<String> visited = new ArrayList<>();
+        page.getItems().forEach(artist -> visited.add(artist.getName() + artist.getId()));
+        artistRepository.create(new Artist("Aaliyah", "aaliyah@example.com"));
+        while (page.hasNext()) {
+            page = artistRepository.findPage(page.next());
+            page.getItems().forEach(artist -> visited.add(artist.getName() + artist.getId()));
+        }
+        assertEquals(List.of("Adele2", "Adele4", "Beyonce6", "Coldplay5", "Drake1", "Drake7", "Eminem3"), visited,
+                "Pages should follow the name and id order, unaffected by an artist added before the position.");
+
+        Page<Artist> byId = artistRepository.findPage(PageRequest.<Artist>byId(5).after(artistRepository.get(6)));
+        assertEquals(List.of(7, 8), byId.getItems().stream().map(Artist::getId).collect(Collectors.toList()));
+        assertFalse(byId.hasNext());
+    }
+
+    @Test
+    public void testCriteriaFilterOrderAndLimitArtists() {
+        Field<Artist, String> name = Field.of("name", Artist::getName);
+        Field<Artist, Integer> id = Field.of("id", Artist::getId);
+        artistRepository.addIndex("name", Artist::getName);
+        for (String artistName : new String[]{"Drake", "Adele", "Dua Lipa", "drake", "Daft Punk", "Eminem"}) {
+            artistRepository.create(new Artist(artistName, "artist@example.com"));
+        }
+
+        List<Artist> drakes = artistRepository.find(Criteria.<Artist>all().equalToIgnoringCase(name, "DRAKE"));
+        assertEquals(List.of(1, 4), drakes.stream().map(Artist::getId).collect(Collectors.toList()),
+                "The indexed lookup should return every artist with the name, in id order.");
+
+        List<Artist> startingWithD = artistRepository.find(Criteria.<Artist>all()
+                .startsWith(name, "d")
+                .atLeast(id, 2)
+                .orderBy(name, false)
+                .limit(2));
+        assertEquals(List.of("drake", "Dua Lipa"), startingWithD.stream().map(Artist::getName).collect(Collectors.toList()));
+
+        assertEquals(2, artistRepository.find(Criteria.<Artist>all().in(id, List.of(2, 6, 42))).size());
+        assertTrue(artistRepository.find(Criteria.<Artist>all().in(id, List.of())).isEmpty());
+    }
+
+    @Test
+    public void testCatalogCountersFollowWritesAndRankTopArtists() {
+        Artist adele = new Artist("Adele", "adele@example.com");
+        Artist drake = new Artist("Drake", "drake@example.com");
+        Artist eminem = new Artist("Eminem", "eminem@example.com");
+        artistRepository.create(adele);
+        artistRepository.create(drake);
+        artistRepository.create(eminem);
+        IRepository<Album> albumRepository = new InMemoryRepository<>();
+        IRepository<Song> songRepository = new InMemoryRepository<>();
+        Album twentyFive = new Album("25", LocalDate.of(2015, 11, 20), adele);
+        albumRepository.create(twentyFive);
+        songRepository.create(new Song("Hello", 4.9f, twentyFive));
+
+        CatalogCounters counters = new CatalogCounters(artistRepository, albumRepository, songRepository);
+        albumRepository = counters.trackAlbums(albumRepository);
+        songRepository = counters.trackSongs(songRepository);
+        Album views = new Album("Views", LocalDate.of(2016, 4, 29), drake);
+        Album scorpion = new Album("Scorpion", LocalDate.of(2018, 6, 29), drake);
+        albumRepository.createAll(List.of(views, scorpion));
+        songRepository.create(new Song("One Dance", 2.9f, views));
+        Song godsPlan = new Song("God's Plan", 3.2f, scorpion);
+        songRepository.create(godsPlan);
+
+        List<ArtistStatistics> top = counters.getTopArtists(2);
+        assertEquals(List.of("Drake", "Adele"), top.stream().map(ArtistStatistics::getArtistName).collect(Collectors.toList()));
+        assertEquals(2, top.get(0).getAlbumCount());
+        assertEquals(2, top.get(0).getSongCount());
+        assertEquals(6.1, top.get(0).getTotalDuration(), 0.001);
+
+        songRepository.delete(godsPlan.getId());
+        albumRepository.delete(scorpion.getId());
+        assertEquals(1, counters.getArtistStatistics(drake.getId()).getAlbumCount());
+        assertEquals(List.of("Adele", "Drake", "Eminem"), counters.getTopArtists(5).stream()
+                .map(ArtistStatistics::getArtistName).collect(Collectors.toList()),
+                "Ties should go to the lower id and artists without albums should come last.");
+    }
+
+    @Test
+    public void testUniqueViolationIsReportedAsIllegalArgument() throws Exception {
+        Map<String, List<Object[]>> committed = new HashMap<>();
+        Connection physical = Fake_jdbc.fakeDatabase(committed, null, "Taken");
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 50, 60_000, 60_000)) {
+            ArtistDBRepository artists = new ArtistDBRepository(pool);
+            artists.create(new Artist("Adele", "adele@example.com"));
+            assertThrows(IllegalArgumentException.class, () -> artists.create(new Artist("Taken", "taken@example.com")),
+                    "A duplicate should be rejected like in the in-memory repositories.");
+            assertEquals(1, committed.get("INSERT INTO Artist (name, email) VALUES (?, ?)").size());
+            assertEquals(0, pool.getMetrics().getActiveCount(), "The connection should be returned after the rollback.");
+        }
+    }
 }
@@ -0,0 +1,234 @@
+import Domain.Album;
+import Domain.Artist;
+import Domain.Song;
+import Exceptions.EntityNotFoundException;
+import Repository.CacheMetrics;
+import Repository.CachingRepository;
+import Repository.ConcurrentInMemoryRepository;
+import Repository.IRepository;
+import Repository.WriteBehindRepository;
+import Service.SongService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Concurrent_repository_tests {
+
+    private IRepository<Artist> artistRepository;
+
+    @BeforeEach
+    public void setup() {
+        artistRepository = new ConcurrentInMemoryRepository<>();
+    }
+
+    @Test
+    public void testConcurrentCreateHandsOutUniqueIds() throws InterruptedException {
+        int threads = 8;
+        int artistsPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < artistsPerThread; i++) {
+                    artistRepository.create(new Artist("Artist " + thread + "-" + i, "artist@example.com"));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "All writers should finish.");
+
+        assertEquals(threads * artistsPerThread, artistRepository.getAll().size(), "No entity should be lost.");
+        Set<Integer> ids = new HashSet<>();
+        for (Artist artist : artistRepository.getAll().values()) {
+            assertTrue(ids.add(artist.getId()), "Id " + artist.getId() + " was handed out twice.");
+        }
+    }
+
+    @Test
+    public void testUpdateAndDeleteOfMissingEntity() {
+        Artist artist = new Artist("Three Days Grace", "threedays@gracemusic.com");
+        artistRepository.create(artist);
+        artistRepository.delete(artist.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> artistRepository.update(artist),
+                "Updating a deleted entity must not bring it back.");
+        assertThrows(IllegalArgumentException.class, () -> artistRepository.delete(artist.getId()));
+        assertNull(artistRepository.get(artist.getId()));
+    }
+
+    @Test
+    public void testCacheLoadsConcurrentMissesOnceAndDropsWrittenEntities() throws Exception {
+        AtomicInteger reads = new AtomicInteger();
+        IRepository<Artist> slowRepository = new ConcurrentInMemoryRepository<>() {
+            @Override
+            public Artist read(int id) {
+                reads.incrementAndGet();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.read(id);
+            }
+        };
+        CachingRepository<Artist> cache = new CachingRepository<>(slowRepository, 2);
+        for (int i = 0; i < 3; i++) {
+            cache.create(new Artist("Artist " + i, "artist@example.com"));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Artist>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(executor.submit(() -> cache.read(1)));
+        }
+        for (Future<Artist> result : results) {
+            assertSame(results.get(0).get(), result.get(), "All readers should share the loaded artist.");
+        }
+        executor.shutdown();
+        assertEquals(1, reads.get(), "Concurrent misses for one id should load it once.");
+
+        Artist renamed = new Artist("Renamed", "artist@example.com");
+        renamed.setId(1);
+        cache.update(renamed);
+        assertEquals("Renamed", cache.read(1).getName());
+        assertEquals(2, reads.get(), "An update should drop the cached artist.");
+
+        cache.read(2);
+        cache.read(1);
+        cache.read(3);
+        cache.read(1);
+        CacheMetrics metrics = cache.getMetrics();
+        assertEquals(2, metrics.getSize());
+        assertEquals(1, metrics.getEvictionCount(), "The least recently used artist should make room for the third one.");
+        assertEquals(4, reads.get(), "The recently read artist should stay cached.");
+        assertEquals(1, metrics.getInvalidationCount());
+        assertEquals(metrics.getLoadCount(), reads.get());
+    }
+
+    @Test
+    public void testWriteBehindCoalescesUpdatesAndFlushesOnClose() throws Exception {
+        AtomicInteger updatesWritten = new AtomicInteger();
+        IRepository<Artist> storage = new ConcurrentInMemoryRepository<>() {
+            @Override
+            public void updateAll(Collection<Artist> artists) {
+                updatesWritten.addAndGet(artists.size());
+                super.updateAll(artists);
+            }
+        };
+        Artist stored = new Artist("Artist", "artist@example.com");
+        storage.create(stored);
+        WriteBehindRepository<Artist> buffer = new WriteBehindRepository<>(storage, 100, 100, 60_000);
+
+        for (int i = 0; i < 50; i++) {
+            Artist renamed = new Artist("Artist " + i, "artist@example.com");
+            renamed.setId(stored.getId());
+            buffer.update(renamed);
+        }
+        buffer.create(new Artist("New artist", "new@example.com"));
+        assertEquals("Artist 49", buffer.read(stored.getId()).getName(), "Reads should see the queued update.");
+        assertEquals("Artist", storage.read(stored.getId()).getName(), "Nothing should be written before the batch is due.");
+
+        buffer.close();
+        assertEquals("Artist 49", storage.read(stored.getId()).getName());
+        assertEquals(1, updatesWritten.get(), "Repeated updates of one artist should be written once.");
+        assertEquals(2, storage.getAll().size(), "close should flush the queued create.");
+        assertEquals(49, buffer.getMetrics().getCoalescedCount());
+        assertThrows(IllegalStateException.class, () -> buffer.delete(stored.getId()));
+    }
+
+    @Test
+    public void testWriteBehindRetriesFailedBatchesAndDropsRejectedWrites() throws Exception {
+        AtomicBoolean available = new AtomicBoolean(false);
+        IRepository<Artist> storage = new ConcurrentInMemoryRepository<>() {
+            @Override
+            public void create(Artist artist) {
+                if (!available.get() || artist.getName().equals("Rejected")) {
+                    throw new IllegalArgumentException("Cannot store " + artist.getName());
+                }
+                super.create(artist);
+            }
+
+            @Override
+            public void createAll(Collection<Artist> artists) {
+                for (Artist artist : artists) {
+                    if (!available.get() || artist.getName().equals("Rejected")) {
+                        throw new IllegalArgumentException("Cannot store " + artist.getName());
+                    }
+                }
+                super.createAll(artists);
+            }
+        };
+
+        WriteBehindRepository<Artist> buffer = new WriteBehindRepository<>(storage, 10, 10, 60_000, 1000, 1);
+        buffer.create(new Artist("First", "first@example.com"));
+        assertThrows(RuntimeException.class, buffer::flush, "The waiting caller should see the failure.");
+        buffer.create(new Artist("Second", "second@example.com"));
+        available.set(true);
+        buffer.flush();
+        assertEquals(2, storage.getAll().size(), "The failed batch should be retried, not dropped.");
+        assertTrue(buffer.getMetrics().getFailedFlushCount() >= 1);
+        buffer.close();
+
+        WriteBehindRepository<Artist> rejecting = new WriteBehindRepository<>(storage, 10, 10, 60_000, 2, 1);
+        rejecting.create(new Artist("Rejected", "rejected@example.com"));
+        rejecting.create(new Artist("Third", "third@example.com"));
+        rejecting.close();
+        assertEquals(3, storage.getAll().size(), "A rejected write should not hold back the rest of its batch.");
+        assertEquals(1, rejecting.getMetrics().getDroppedCount());
+    }
+
+    @Test
+    public void testAsyncLookupsRunConcurrently() throws Exception {
+        int readers = 5;
+        CountDownLatch allStarted = new CountDownLatch(readers);
+        IRepository<Song> blockingRepository = new ConcurrentInMemoryRepository<>() {
+            @Override
+            public Song findByIndex(String field, String value) {
+                allStarted.countDown();
+                try {
+                    if (!allStarted.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("The lookups did not run at the same time.");
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.findByIndex(field, value);
+            }
+        };
+        SongService songs = new SongService(blockingRepository);
+        Album album = new Album("Album", LocalDate.of(2020, 1, 1), new Artist("Artist", "artist@example.com"));
+        for (int i = 0; i < readers; i++) {
+            blockingRepository.create(new Song("Song " + i, 3.5f, album));
+        }
+
+        List<CompletableFuture<Song>> lookups = new ArrayList<>();
+        for (int i = 0; i < readers; i++) {
+            lookups.add(songs.getSongByTitleAsync("Song " + i));
+        }
+        CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0])).get(20, TimeUnit.SECONDS);
+        for (int i = 0; i < readers; i++) {
+            assertEquals("Song " + i, lookups.get(i).get().getTitle());
+        }
+
+        CompletableFuture<Song> failed = songs.getSongByTitleAsync("Missing");
+        ExecutionException error = assertThrows(ExecutionException.class, failed::get);
+        assertTrue(error.getCause() instanceof EntityNotFoundException, "The future should fail with the exception of the lookup.");
+    }
+}
@@ -0,0 +1,180 @@
+import Domain.Artist;
+import Repository.ArtistDBRepository;
+import Repository.ConnectionPool;
+import Repository.PoolMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Connection_pool_tests {
+
+    /**
+     * A fake physical connection that only knows whether it is closed, valid and in a transaction.
+     */
+    private static Connection fakeConnection(List<AtomicBoolean> closedFlags, AtomicBoolean valid) {
+        return fakeConnection(closedFlags, valid, new AtomicInteger());
+    }
+
+    private static Connection fakeConnection(List<AtomicBoolean> closedFlags, AtomicBoolean valid, AtomicInteger prepared) {
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean autoCommit = new AtomicBoolean(true);
+        closedFlags.add(closed);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close": closed.set(true); return null;
+                        case "isClosed": return closed.get();
+                        case "isValid": return valid.get();
+                        case "getAutoCommit": return autoCommit.get();
+                        case "setAutoCommit": autoCommit.set((Boolean) args[0]); return null;
+                        case "rollback": return null;
+                        case "prepareStatement":
+                            prepared.incrementAndGet();
+                            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                                    new Class<?>[]{PreparedStatement.class}, (statement, call, values) -> null);
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    @Test
+    public void testPoolIsBoundedAndReusesConnections() throws Exception {
+        List<AtomicBoolean> physical = new ArrayList<>();
+        AtomicBoolean valid = new AtomicBoolean(true);
+        try (ConnectionPool pool = new ConnectionPool(() -> fakeConnection(physical, valid), 2, 50, 60_000, 60_000)) {
+            Connection first = pool.getConnection();
+            Thread other = new Thread(() -> {
+                try (Connection second = pool.getConnection()) {
+                    assertNotSame(first, second);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            other.start();
+            other.join();
+            first.close();
+            assertTrue(first.isClosed(), "A handle is closed once it is given back.");
+            assertEquals(2, physical.size(), "Two threads should have needed two connections.");
+
+            try (Connection again = pool.getConnection()) {
+                assertFalse(again.isClosed());
+            }
+            assertEquals(2, physical.size(), "A free connection should be reused instead of opening a new one.");
+        }
+    }
+
+    @Test
+    public void testBorrowTimesOutWhenEveryConnectionIsInUse() throws Exception {
+        List<AtomicBoolean> physical = new ArrayList<>();
+        AtomicBoolean valid = new AtomicBoolean(true);
+        try (ConnectionPool pool = new ConnectionPool(() -> fakeConnection(physical, valid), 1, 50, 60_000, 60_000)) {
+            Connection held = pool.getConnection();
+            Throwable[] failure = new Throwable[1];
+            Thread other = new Thread(() -> {
+                try {
+                    pool.getConnection();
+                } catch (Throwable e) {
+                    failure[0] = e;
+                }
+            });
+            other.start();
+            other.join();
+            assertTrue(failure[0] instanceof SQLTransientConnectionException, "The second thread should time out.");
+            held.close();
+            PoolMetrics metrics = pool.getMetrics();
+            assertEquals(1, metrics.getTimeoutCount());
+            assertEquals(1, metrics.getBorrowCount());
+            assertEquals(0, metrics.getActiveCount());
+            assertEquals(1, metrics.getIdleCount());
+        }
+    }
+
+    @Test
+    public void testNestedBorrowSharesTheConnectionAndInvalidOnesAreReplaced() throws Exception {
+        List<AtomicBoolean> physical = new ArrayList<>();
+        AtomicBoolean valid = new AtomicBoolean(true);
+        try (ConnectionPool pool = new ConnectionPool(() -> fakeConnection(physical, valid), 1, 50, 0, 60_000)) {
+            try (Connection outer = pool.getConnection()) {
+                outer.setAutoCommit(false);
+                try (Connection inner = pool.getConnection()) {
+                    assertFalse(inner.getAutoCommit(), "A nested borrow should get the connection the thread already holds.");
+                }
+                assertFalse(outer.isClosed(), "Closing the nested handle should not give the connection back.");
+            }
+            try (Connection next = pool.getConnection()) {
+                assertTrue(next.getAutoCommit(), "An open transaction should be rolled back when the connection is given back.");
+            }
+
+            valid.set(false);
+            try (Connection replaced = pool.getConnection()) {
+                assertEquals(2, physical.size(), "A connection that fails validation should be replaced.");
+                assertTrue(physical.get(0).get(), "The invalid connection should be closed.");
+            }
+            assertEquals(1, pool.getMetrics().getDiscardedCount());
+        }
+    }
+
+    @Test
+    public void testStatementsAreCachedPerConnection() throws Exception {
+        List<AtomicBoolean> physical = new ArrayList<>();
+        AtomicInteger prepared = new AtomicInteger();
+        try (ConnectionPool pool = new ConnectionPool(() -> fakeConnection(physical, new AtomicBoolean(true), prepared),
+                1, 50, 60_000, 60_000, 2)) {
+            String sql = "SELECT * FROM Song WHERE id = ?";
+            for (int i = 0; i < 3; i++) {
+                try (Connection connection = pool.getConnection();
+                     PreparedStatement statement = connection.prepareStatement(sql)) {
+                    statement.setInt(1, i);
+                    try (Connection nestedConnection = pool.getConnection();
+                         PreparedStatement nested = nestedConnection.prepareStatement(sql)) {
+                        assertNotSame(statement, nested, "A statement in use should not be handed out twice.");
+                    }
+                }
+            }
+            assertEquals(4, prepared.get(), "The outer statement should be prepared once; each nested one is prepared anew.");
+            assertEquals(2, pool.getMetrics().getStatementCacheHits());
+
+            try (Connection connection = pool.getConnection()) {
+                connection.prepareStatement("SELECT 1").close();
+                connection.prepareStatement("SELECT 2").close();
+                connection.prepareStatement(sql).close();
+            }
+            assertEquals(7, prepared.get(), "With room for two statements, the least recently used one should be evicted.");
+        }
+    }
+
+    @Test
+    public void testCachedStatementDropsTheRowsOfAFailedBatch() throws Exception {
+        Map<String, List<Object[]>> committed = new HashMap<>();
+        Connection physical = Fake_jdbc.fakeDatabase(committed, null);
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 50, 60_000, 60_000)) {
+            ArtistDBRepository artists = new ArtistDBRepository(pool);
+            Artist adele = new Artist("Adele", "adele@example.com");
+            adele.setId(1);
+            Artist drake = new Artist("Drake", "drake@example.com");
+            drake.setId(2);
+            assertThrows(NullPointerException.class, () -> artists.updateAll(Arrays.asList(adele, null)),
+                    "The binder should fail after the first row is batched.");
+
+            artists.updateAll(List.of(drake));
+            List<Object[]> updated = committed.get("UPDATE Artist SET name = ?, email = ? WHERE id = ?");
+            assertEquals(1, updated.size(), "The row batched before the failure should not be sent with the next batch.");
+            assertEquals("Drake", updated.get(0)[0]);
+            assertEquals(1, pool.getMetrics().getStatementCacheHits(), "The update statement should come from the cache.");
+        }
+    }
+}
@@ -3,8 +3,15 @@ import Domain.*;
 import Exceptions.DatabaseException;
 import Exceptions.EntityNotFoundException;
 import Exceptions.ValidationException;
+import Repository.AlbumSummary;
+import Repository.ArtistStatistics;
+import Repository.Page;
+import Repository.PageRequest;
+import Repository.SongSummary;
 import Service.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * MusicController class is responsible for managing operations related to music entities like
@@ -208,6 +215,21 @@ public class MusicController {
             throw new RuntimeException("An unexpected error occurred while retrieving sorted artists.", e);
         }
     }
+
+    /**
+     * Gets the artists with the most songs and albums, with their totals, without loading their discographies.
+     *
+     * @param limit The largest number of artists to return.
+     * @return The statistics of the top artists, best first.
+     * @throws RuntimeException if an unexpected error occurs.
+     */
+    public List<ArtistStatistics> getArtistLeaderboard(int limit) {
+        try {
+            return artistService.getArtistLeaderboard(limit);
+        } catch (Exception e) {
+            throw new RuntimeException("An unexpected error occurred while retrieving the artist leaderboard.", e);
+        }
+    }
     // ----------------- ALBUM METHODS -----------------
 
     /**
@@ -224,6 +246,41 @@ public class MusicController {
         }
     }
 
+    /**
+     * Retrieves the first page of the available albums.
+     *
+     * @param pageSize The maximum number of albums on the page.
+     * @param sortBy "title", "release_date", or null to list the albums in the order they were added.
+     * @return The first page of albums.
+     * @throws ValidationException if the page size or order is invalid.
+     * @throws EntityNotFoundException if no albums are found.
+     */
+    public Page<Album> getAvailableAlbums(int pageSize, String sortBy) {
+        return albumService.getAvailableAlbums(pageSize, sortBy);
+    }
+
+    /**
+     * Retrieves the page of albums that follows a page already shown.
+     *
+     * @param request The next() request of the previous page.
+     * @return The page of albums.
+     */
+    public Page<Album> getAvailableAlbums(PageRequest<Album> request) {
+        return albumService.getAvailableAlbums(request);
+    }
+
+    /**
+     * Retrieves the summaries of a page of albums in title order, for the album list screen.
+     *
+     * @param after The last album of the previous page, or null for the first page.
+     * @param limit The largest number of albums on the page.
+     * @return The summaries of the albums.
+     * @throws ValidationException if the limit is not positive.
+     */
+    public List<AlbumSummary> getAlbumSummaries(AlbumSummary after, int limit) {
+        return albumService.getAlbumSummaries(after, limit);
+    }
+
     /**
      * Retrieves the songs in an album by the album name.
      *
@@ -243,6 +300,27 @@ public class MusicController {
         return albumService.getSongsInAlbum(album);
     }
 
+    /**
+     * Retrieves the summaries of the songs in an album by the album name, without loading the album.
+     *
+     * @param albumName The name of the album.
+     * @return The summaries of the songs.
+     * @throws ValidationException if the album name is invalid or empty.
+     * @throws EntityNotFoundException if the album does not exist or has no songs.
+     */
+    public List<SongSummary> getSongSummariesInAlbum(String albumName) throws ValidationException, EntityNotFoundException {
+        List<SongSummary> songs = albumService.getSongSummariesInAlbum(albumName);
+        if (songs.isEmpty()) {
+            try {
+                albumService.getAlbumByName(albumName);
+            } catch (EntityNotFoundException e) {
+                throw new EntityNotFoundException("Album not found.");
+            }
+            throw new EntityNotFoundException("No songs found in the album.");
+        }
+        return songs;
+    }
+
     /**
      * Adds an album to the system.
      *
@@ -363,6 +441,39 @@ public class MusicController {
 
     // ----------------- SONG METHODS -----------------
 
+    /**
+     * Retrieves the first page of the songs.
+     *
+     * @param pageSize The maximum number of songs on the page.
+     * @param sortBy "title", or null to list the songs in the order they were added.
+     * @return The first page of songs.
+     */
+    public Page<Song> getAllSongs(int pageSize, String sortBy) {
+        return songService.getAllSongs(pageSize, sortBy);
+    }
+
+    /**
+     * Retrieves the page of songs that follows a page already shown.
+     *
+     * @param request The next() request of the previous page.
+     * @return The page of songs.
+     */
+    public Page<Song> getAllSongs(PageRequest<Song> request) {
+        return songService.getAllSongs(request);
+    }
+
+    /**
+     * Retrieves the summaries of a page of songs in title order, for the song list screens.
+     *
+     * @param after The last song of the previous page, or null for the first page.
+     * @param limit The largest number of songs on the page.
+     * @return The summaries of the songs.
+     * @throws ValidationException if the limit is not positive.
+     */
+    public List<SongSummary> getSongSummaries(SongSummary after, int limit) {
+        return songService.getSongSummaries(after, limit);
+    }
+
     /**
      * Adds a song to the system.
      *
@@ -489,8 +600,10 @@ public class MusicController {
      * @throws EntityNotFoundException if the playlist or song is not found.
      */
     public void addSongToPlaylist(String playlistName, String songTitle) throws EntityNotFoundException {
-        Playlist playlist = playlistService.getPlaylistByName(playlistName);
-        Song song = songService.getSongByTitle(songTitle);
+        CompletableFuture<Playlist> playlistLookup = playlistService.getPlaylistByNameAsync(playlistName);
+        CompletableFuture<Song> songLookup = songService.getSongByTitleAsync(songTitle);
+        Playlist playlist = await(playlistLookup);
+        Song song = await(songLookup);
 
         if (playlist == null) {
             throw new EntityNotFoundException("Playlist " + playlistName + " not found.");
@@ -511,8 +624,10 @@ public class MusicController {
      * @throws EntityNotFoundException if the playlist or song is not found.
      */
     public void removeSongFromPlaylist(String playlistName, String songTitle) throws EntityNotFoundException {
-        Playlist playlist = playlistService.getPlaylistByName(playlistName);
-        Song song = songService.getSongByTitle(songTitle);
+        CompletableFuture<Playlist> playlistLookup = playlistService.getPlaylistByNameAsync(playlistName);
+        CompletableFuture<Song> songLookup = songService.getSongByTitleAsync(songTitle);
+        Playlist playlist = await(playlistLookup);
+        Song song = await(songLookup);
 
         if (playlist == null) {
             throw new EntityNotFoundException("Playlist " + playlistName + " not found.");
@@ -681,6 +796,27 @@ public class MusicController {
         return liveConcertService.getAvailableConcerts();
     }
 
+    /**
+     * Retrieves the first page of the available live concerts.
+     *
+     * @param pageSize The maximum number of concerts on the page.
+     * @param sortBy "title", "date", or null to list the concerts in the order they were added.
+     * @return The first page of concerts.
+     */
+    public Page<LiveConcert> getAvailableConcerts(int pageSize, String sortBy) {
+        return liveConcertService.getAvailableConcerts(pageSize, sortBy);
+    }
+
+    /**
+     * Retrieves the page of live concerts that follows a page already shown.
+     *
+     * @param request The next() request of the previous page.
+     * @return The page of concerts.
+     */
+    public Page<LiveConcert> getAvailableConcerts(PageRequest<LiveConcert> request) {
+        return liveConcertService.getAvailableConcerts(request);
+    }
+
     /**
      * Retrieves a live concert by its title.
      *
@@ -804,8 +940,10 @@ public class MusicController {
         if (listenerName == null || listenerName.trim().isEmpty() || songTitle == null || songTitle.trim().isEmpty()) {
             throw new ValidationException("Listener name and song title cannot be null or empty.");
         }
-        Listener listener = listenerService.getListenerByName(listenerName);
-        Song song = songService.getSongByTitle(songTitle);
+        CompletableFuture<Listener> listenerLookup = listenerService.getListenerByNameAsync(listenerName);
+        CompletableFuture<Song> songLookup = songService.getSongByTitleAsync(songTitle);
+        Listener listener = await(listenerLookup);
+        Song song = await(songLookup);
 
         if (listener == null) {
             throw new EntityNotFoundException("Listener with name " + listenerName + " not found.");
@@ -815,7 +953,7 @@ public class MusicController {
             throw new EntityNotFoundException("Song with title " + songTitle + " not found.");
         }
 
-        listener.getHistory().addSongToHistory(song);
+        listenerService.recordPlay(listener, song);
     }
 
     /**
@@ -911,8 +1049,34 @@ public class MusicController {
         return genreService.getAllGenres();
     }
 
+    public Page<Genre> getAllGenres(int pageSize) {
+        return genreService.getAllGenres(pageSize);
+    }
+
+    public Page<Genre> getAllGenres(PageRequest<Genre> request) {
+        return genreService.getAllGenres(request);
+    }
+
     public void addGenreToSystem(String genreName) {
         Genre genre = new Genre(genreName);
         genreService.addGenre(genre);
     }
-}
\ No newline at end of file
+
+    /**
+     * Waits for a lookup started with one of the asynchronous service methods and rethrows its failure
+     * unwrapped, so callers see the same exceptions as from the blocking methods.
+     *
+     * @param lookup The running lookup.
+     * @return The result of the lookup.
+     */
+    private static <T> T await(CompletableFuture<T> lookup) {
+        try {
+            return lookup.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+import Repository.ConnectionPool;
+import Repository.CsvImporter;
+import Repository.ImportReport;
+
+import java.nio.file.Path;
+
+/**
+ * Seeds the database from the CSV files of the file repositories.
+ * Usage: Csv_import [directory] [jdbc url] [user] [password]; by default the files are read from the working directory
+ * and imported into the database MusicApp uses. If the import fails, run it again: it continues where it stopped.
+ */
+public class Csv_import {
+
+    public static void main(String[] args) {
+        Path directory = Path.of(args.length > 0 ? args[0] : ".");
+        String url = args.length > 1 ? args[1] : "jdbc:postgresql://localhost:5432/MTifyDatabase?reWriteBatchedInserts=true";
+        String user = args.length > 2 ? args[2] : "postgres";
+        String password = args.length > 3 ? args[3] : "1111";
+
+        ConnectionPool pool = new ConnectionPool(url, user, password);
+        boolean failed = false;
+        try {
+            ImportReport report = new CsvImporter(pool, directory).run();
+            System.out.println(report);
+        } catch (RuntimeException e) {
+            System.err.println("Import failed: " + e.getMessage());
+            if (e.getCause() != null) {
+                System.err.println("Cause: " + e.getCause().getMessage());
+            }
+            System.err.println("The rows committed so far are kept; run the import again to continue.");
+            failed = true;
+        } finally {
+            pool.close();
+        }
+        if (failed) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import Repository.ConnectionPool;
+import Repository.CsvImporter;
+import Repository.ImportReport;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Csv_import_tests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testCsvImportRemapsIdsAndResumesAfterAFailedBatch() throws Exception {
+        Files.writeString(directory.resolve("artists.csv"), "1,Adele,adele@example.com\n2,Drake,drake@example.com\n");
+        Files.writeString(directory.resolve("albums.csv"),
+                "10,25,2015-11-20,1\n11,Views,2016-04-29,2\n12,Unknown,2016-01-01,99\n13,Scorpion,2018-06-29,2\n");
+        String albumInsert = "INSERT INTO Album (title, release_date, artist_id) VALUES (?, ?, ?)";
+        Map<String, List<Object[]>> committed = new HashMap<>();
+        Connection physical = Fake_jdbc.fakeDatabase(committed, albumInsert);
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 50, 60_000, 60_000)) {
+            CsvImporter importer = new CsvImporter(pool, directory, 1, 2, quiet);
+            assertThrows(RuntimeException.class, importer::run, "The first album batch should fail.");
+            assertEquals(2, committed.get("INSERT INTO Artist (name, email) VALUES (?, ?)").size());
+            assertNull(committed.get(albumInsert), "The failed batch should be rolled back.");
+
+            ImportReport report = importer.run();
+            ImportReport.TableReport artists = report.getTables().get(0);
+            ImportReport.TableReport albums = report.getTables().get(2);
+            assertEquals(0, artists.getImportedCount());
+            assertEquals(2, artists.getSkippedCount(), "Artists imported by the failed run should not be inserted again.");
+            assertEquals(3, albums.getImportedCount());
+            assertEquals(1, albums.getRejectedCount(), "An album of an unknown artist should be rejected.");
+            assertEquals(2, committed.get("INSERT INTO Artist (name, email) VALUES (?, ?)").size());
+            Object[] scorpion = committed.get(albumInsert).get(2);
+            assertEquals("Scorpion", scorpion[0]);
+            assertEquals(101, scorpion[2], "The artist id should be the id the database gave to Drake.");
+        }
+    }
+
+    @Test
+    public void testCsvImportRejectsRowsThatViolateAConstraintAndContinues() throws Exception {
+        Files.writeString(directory.resolve("artists.csv"),
+                "1,Adele,adele@example.com\n2,Taken,taken@example.com\n3,Drake,drake@example.com\n4,Sia,sia@example.com\n");
+        Map<String, List<Object[]>> committed = new HashMap<>();
+        Connection physical = Fake_jdbc.fakeDatabase(committed, null, "Taken");
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 50, 60_000, 60_000)) {
+            ImportReport report = new CsvImporter(pool, directory, 1, 3, quiet).run();
+            ImportReport.TableReport artists = report.getTables().get(0);
+            assertEquals(3, artists.getImportedCount(), "The rows next to the rejected one should still be imported.");
+            assertEquals(1, artists.getRejectedCount());
+            List<Object[]> inserted = committed.get("INSERT INTO Artist (name, email) VALUES (?, ?)");
+            assertEquals(List.of("Adele", "Drake", "Sia"), inserted.stream().map(row -> row[0]).collect(Collectors.toList()));
+        }
+    }
+}
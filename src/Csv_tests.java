@@ -0,0 +1,106 @@
+import Domain.Album;
+import Domain.Artist;
+import Domain.Song;
+import Repository.CsvLine;
+import Repository.CsvReader;
+import Repository.CsvRecord;
+import Repository.SongCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Csv_tests {
+
+    @TempDir
+    Path directory;
+
+    private List<List<String>> readAll(String content, int bufferSize) throws Exception {
+        Path file = directory.resolve("test.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        List<List<String>> records = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(file, bufferSize)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                List<String> fields = new ArrayList<>();
+                for (int i = 0; i < record.size(); i++) {
+                    fields.add(record.getString(i));
+                }
+                records.add(fields);
+            }
+        }
+        return records;
+    }
+
+    @Test
+    public void testReadsQuotedFieldsAsInRfc4180() throws Exception {
+        String content = "1,\"Hello, Goodbye\",3.5\r\n"
+                + "2,\"She said \"\"yes\"\"\",\r\n"
+                + "3,\"Line one\nline two\",Beyoncé\n"
+                + "4,,\"\"";
+        for (int bufferSize : new int[]{1, 7, 1 << 20}) {
+            List<List<String>> records = readAll(content, bufferSize);
+            assertEquals(List.of(
+                    List.of("1", "Hello, Goodbye", "3.5"),
+                    List.of("2", "She said \"yes\"", ""),
+                    List.of("3", "Line one\nline two", "Beyoncé"),
+                    List.of("4", "", "")), records, "Buffer size " + bufferSize + " should not change the result.");
+        }
+    }
+
+    @Test
+    public void testWrittenLinesReadBackUnchanged() throws Exception {
+        String[] values = {"plain", "comma, inside", "\"quoted\"", "multi\r\nline", "", "Beyoncé"};
+        CsvLine line = new CsvLine();
+        for (String value : values) {
+            line.add(value);
+        }
+        List<List<String>> records = readAll(line + "\n", 4);
+        assertEquals(List.of(List.of(values)), records, "CsvLine output should round-trip through CsvReader.");
+    }
+
+    @Test
+    public void testTypedFieldsMatchTheJdkParsers() throws Exception {
+        Path file = directory.resolve("typed.csv");
+        Files.writeString(file, "-42,3.05,4.2,TRUE,2015-11-20,1e3\n");
+        try (CsvReader reader = new CsvReader(file)) {
+            CsvRecord record = reader.next();
+            assertEquals(-42, record.getInt(0));
+            assertEquals(Float.parseFloat("3.05"), record.getFloat(1));
+            assertEquals(Float.parseFloat("4.2"), record.getFloat(2));
+            assertTrue(record.getBoolean(3));
+            assertEquals(LocalDate.of(2015, 11, 20), record.getLocalDate(4));
+            assertEquals(1000f, record.getFloat(5));
+            assertThrows(NumberFormatException.class, () -> record.getInt(1));
+            assertNull(reader.next(), "There should be only one record.");
+        }
+    }
+
+    @Test
+    public void testSongCodecResolvesTheAlbumById() throws Exception {
+        Album album = new Album("25", LocalDate.of(2015, 11, 20), new Artist("Adele", "adele@gmail.com"));
+        album.setId(3);
+        SongCodec codec = new SongCodec(id -> id == 3 ? album : null);
+        Song song = new Song("Hello, It's Me", 4.55f, album);
+        song.setId(7);
+        CsvLine line = new CsvLine();
+        codec.encode(song, line);
+
+        Path file = directory.resolve("songs.csv");
+        Files.writeString(file, line + "\n7,Orphan,3.0,99\n");
+        try (CsvReader reader = new CsvReader(file)) {
+            Song decoded = codec.decode(reader.next());
+            assertEquals(7, decoded.getId());
+            assertEquals("Hello, It's Me", decoded.getTitle());
+            assertSame(album, decoded.getAlbum(), "The album should be looked up, not copied.");
+            assertNull(codec.decode(reader.next()), "A song of an unknown album should be skipped.");
+        }
+    }
+}
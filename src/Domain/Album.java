@@ -8,7 +8,7 @@ import java.util.List;
  * release date, associated artist, genre, and the songs in the album.
  */
 
-public class Album {
+public class Album implements HasId {
     private int id;
     private String title;
     private LocalDate releaseDate;
@@ -5,7 +5,7 @@ import java.util.List;
  * The Artist class represents an artist user, extending from the User class.
  * It includes information specific to an artist, such as their albums and followers.
  */
-public class Artist extends User  {
+public class Artist extends User implements HasId {
     protected int id;
     private List<Album> albums;
     private List<Listener> followers;
@@ -5,7 +5,7 @@ import java.util.List;
  * The Genre class represents a music genre that categorizes songs.
  * Each genre has a name and a list of songs that belong to it.
  */
-public class Genre {
+public class Genre implements HasId {
     int id;
     private String name;
     private List<Song> songs;
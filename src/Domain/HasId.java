@@ -0,0 +1,20 @@
+package Domain;
+/**
+ * The HasId interface is the identity contract shared by all entities that are stored in a repository.
+ * Repositories use it to read and assign ids directly, without reflection.
+ */
+public interface HasId {
+    /**
+     * Gets the unique identifier of the entity.
+     *
+     * @return The ID of the entity
+     */
+    int getId();
+
+    /**
+     * Sets the unique identifier of the entity.
+     *
+     * @param id The ID to assign to the entity
+     */
+    void setId(int id);
+}
@@ -7,7 +7,7 @@ import java.util.*;
  * This class provides functionality to add songs to the listener's history and
  * retrieve the list of songs along with their playback timestamps.
  */
-public class History {
+public class History implements HasId {
     int id;
     private Listener user;
     private List<Song> songs;
@@ -8,7 +8,7 @@ import java.util.List;
  * listening history, and subscription services.
  * Each listener can log in and out, maintain playlists, and keep track of song history.
  */
-public class Listener extends User {
+public class Listener extends User implements HasId {
     protected int id;
     private List<Playlist> playlists;
     private History history;
@@ -8,7 +8,7 @@ import java.util.List;
  * It provides methods for managing concert attributes, ticket availability, user access,
  * and the start and end of the concert event.
  */
-public class LiveConcert {
+public class LiveConcert implements HasId {
     private String title;
     private int id;
     private Date date;
@@ -7,7 +7,7 @@ import java.util.List;
  * It allows adding, removing, and playing songs within the playlist.
  * This class implements the Playable interface to support playback functionality.
  */
-public class Playlist implements Playable {
+public class Playlist implements Playable, HasId {
     protected int id;
     private String name;
     private Listener user;
@@ -3,7 +3,7 @@ package Domain;
  * The Song class represents a musical track with properties such as title, duration, album, and genre.
  * It implements the Playable interface, providing functionality to play, pause, and stop a song.
  */
-public class Song implements Playable {
+public class Song implements Playable, HasId {
     protected int id;
     private String title;
     private float duration;
@@ -4,7 +4,7 @@ package Domain;
  * It includes information about the subscription type (e.g., Basic, Premium), the price of the subscription,
  * and the associated listener (user). It also provides functionality to upgrade or cancel the subscription.
  */
-public class Subscription  {
+public class Subscription implements HasId {
     private int id;
     private String type;
     private float price;
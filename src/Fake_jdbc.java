@@ -0,0 +1,130 @@
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A fake JDBC database shared by the tests of the database repositories, the importer and the statement cache.
+ */
+final class Fake_jdbc {
+
+    private Fake_jdbc() {
+    }
+
+    /**
+     * A fake database connection that keeps the rows inserted by committed transactions, by INSERT statement,
+     * generates ids for them and answers the query for the import id map.
+     */
+    static Connection fakeDatabase(Map<String, List<Object[]>> committed, String failingSql) {
+        return fakeDatabase(committed, failingSql, null);
+    }
+
+    /**
+     * A fake database that also refuses, as a unique constraint would, every batch holding the given value.
+     */
+    static Connection fakeDatabase(Map<String, List<Object[]>> committed, String failingSql, Object duplicateValue) {
+        AtomicBoolean autoCommit = new AtomicBoolean(true);
+        AtomicInteger nextId = new AtomicInteger(100);
+        AtomicBoolean failed = new AtomicBoolean();
+        List<Object[]> pending = new ArrayList<>();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid": return true;
+                        case "isClosed": return false;
+                        case "getAutoCommit": return autoCommit.get();
+                        case "setAutoCommit": autoCommit.set((Boolean) args[0]); return null;
+                        case "commit":
+                            for (Object[] write : pending) {
+                                committed.computeIfAbsent((String) write[0], sql -> new ArrayList<>()).add((Object[]) write[1]);
+                            }
+                            pending.clear();
+                            return null;
+                        case "rollback": pending.clear(); return null;
+                        case "createStatement":
+                            return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                                    (statement, call, values) -> call.getName().equals("execute") ? false : null);
+                        case "prepareStatement":
+                            String sql = (String) args[0];
+                            boolean returnsIds = args.length > 1;
+                            Map<Integer, Object> parameters = new HashMap<>();
+                            List<Object[]> batch = new ArrayList<>();
+                            List<Object[]> generated = new ArrayList<>();
+                            return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                                    (statement, call, values) -> {
+                                        String name = call.getName();
+                                        if (name.startsWith("set") && values != null && values[0] instanceof Integer) {
+                                            parameters.put((Integer) values[0], name.equals("setNull") ? null : values[1]);
+                                            return null;
+                                        }
+                                        switch (name) {
+                                            case "addBatch":
+                                                Object[] row = new Object[parameters.size()];
+                                                parameters.forEach((index, value) -> row[index - 1] = value);
+                                                batch.add(row);
+                                                return null;
+                                            case "executeBatch":
+                                                if (sql.equals(failingSql) && !failed.getAndSet(true)) {
+                                                    throw new SQLException("Connection reset");
+                                                }
+                                                for (Object[] inserted : batch) {
+                                                    if (duplicateValue != null && Arrays.asList(inserted).contains(duplicateValue)) {
+                                                        batch.clear();
+                                                        throw new SQLException("duplicate key value violates unique constraint", "23505");
+                                                    }
+                                                }
+                                                for (Object[] inserted : batch) {
+                                                    pending.add(new Object[]{sql, inserted});
+                                                    if (returnsIds) {
+                                                        generated.add(new Object[]{nextId.getAndIncrement()});
+                                                    }
+                                                }
+                                                batch.clear();
+                                                return new int[0];
+                                            case "clearBatch":
+                                                batch.clear();
+                                                return null;
+                                            case "getGeneratedKeys":
+                                                return fakeResultSet(generated);
+                                            case "executeQuery":
+                                                List<Object[]> mappings = new ArrayList<>();
+                                                for (Object[] mapping : committed.getOrDefault(
+                                                        "INSERT INTO ImportIdMap (table_name, source_id, target_id) VALUES (?, ?, ?)", List.of())) {
+                                                    if (mapping[0].equals(parameters.get(1))) {
+                                                        mappings.add(new Object[]{mapping[1], mapping[2]});
+                                                    }
+                                                }
+                                                return fakeResultSet(mappings);
+                                            default: return null;
+                                        }
+                                    });
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+    }
+
+    static ResultSet fakeResultSet(List<Object[]> rows) {
+        AtomicInteger cursor = new AtomicInteger(-1);
+        return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                (resultSet, call, values) -> {
+                    switch (call.getName()) {
+                        case "next": return cursor.incrementAndGet() < rows.size();
+                        case "getInt":
+                            int column = values[0] instanceof Integer ? (Integer) values[0] : values[0].equals("source_id") ? 1 : 2;
+                            return rows.get(cursor.get())[column - 1];
+                        default: return null;
+                    }
+                });
+    }
+}
@@ -0,0 +1,260 @@
+import Domain.Album;
+import Domain.Artist;
+import Domain.Song;
+import Repository.AlbumCodec;
+import Repository.ArtistCodec;
+import Repository.DurabilityMode;
+import Repository.EntityRegistry;
+import Repository.FileRepository;
+import Repository.FlushMetrics;
+import Repository.LazyFileRepository;
+import Repository.SongCodec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class File_repository_tests {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testMutationsSurviveRestartThroughTheLog() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        try (FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec())) {
+            repository.create(new Artist("Adele", "adele@gmail.com"));
+            repository.create(new Artist("Drake", "drake@example.com"));
+            Artist renamed = repository.get(1);
+            renamed.setName("Adele Adkins");
+            repository.update(renamed);
+            repository.delete(2);
+        }
+        assertTrue(Files.exists(Path.of(file + ".log")), "Mutations should be appended to the log.");
+
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec())) {
+            assertEquals(1, reopened.getAll().size(), "The deleted artist should stay deleted.");
+            assertEquals("Adele Adkins", reopened.get(1).getName(), "The update should be replayed.");
+            reopened.create(new Artist("Eminem", "eminem@example.com"));
+            assertEquals(3, reopened.get(3).getId(), "Ids should not be reused after a restart.");
+        }
+    }
+
+    @Test
+    public void testCompactionFoldsTheLogIntoTheSnapshot() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        try (FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            for (int i = 0; i < 50; i++) {
+                repository.create(new Artist("Artist " + i, "artist" + i + "@example.com"));
+            }
+        }
+        assertTrue(Files.exists(Path.of(file)), "Compaction should write a snapshot.");
+
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            assertEquals(50, reopened.getAll().size(), "Snapshot and log together should hold every artist.");
+        }
+    }
+
+    @Test
+    public void testBinarySnapshotIsUsedAndFallsBackToCsvWhenCorrupt() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        Path binary = Path.of(file + ".snap");
+        try (FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            for (int i = 0; i < 50; i++) {
+                repository.create(new Artist("Artist, " + i, "artist" + i + "@example.com"));
+            }
+            repository.delete(50);
+        }
+        assertTrue(Files.exists(binary), "Compaction should write a binary snapshot next to the CSV file.");
+
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            assertEquals(49, reopened.getAll().size());
+            assertEquals("Artist, 0", reopened.get(1).getName());
+            reopened.create(new Artist("Adele", "adele@gmail.com"));
+            assertNull(reopened.get(50), "The id of the deleted artist should not be reused.");
+        }
+
+        byte[] bytes = Files.readAllBytes(binary);
+        bytes[bytes.length / 2] ^= 0x7F;
+        Files.write(binary, bytes);
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            assertEquals(50, reopened.getAll().size(), "A corrupt binary snapshot should be ignored in favour of the CSV file.");
+            assertEquals("Artist, 0", reopened.get(1).getName());
+        }
+    }
+
+    @Test
+    public void testLazyRepositoryReadsRecordsOnDemandAndCompacts() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        try (FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            for (int i = 1; i <= 30; i++) {
+                repository.create(new Artist("Artist, " + i, "artist" + i + "@example.com"));
+            }
+        }
+
+        try (LazyFileRepository<Artist> lazy = new LazyFileRepository<>(file, new ArtistCodec(), 2, DurabilityMode.SYNC, 128)) {
+            assertEquals("Artist, 7", lazy.get(7).getName(), "A record should be decoded from its offset.");
+            assertSame(lazy.get(7), lazy.get(7), "A cached entity should be returned as it is.");
+            lazy.addUniqueIndex("name", Artist::getName);
+            assertEquals(12, lazy.findByIndex("name", "ARTIST, 12").getId());
+            assertThrows(IllegalArgumentException.class, () -> lazy.create(new Artist("artist, 3", "copy@example.com")));
+
+            for (int i = 1; i <= 10; i++) {
+                Artist artist = lazy.get(i);
+                artist.setName("Renamed " + i);
+                lazy.update(artist);
+            }
+            lazy.delete(30);
+            lazy.create(new Artist("Adele", "adele@gmail.com"));
+            assertEquals(30, lazy.getAll().size());
+            assertEquals("Renamed 4", lazy.findByIndex("name", "renamed 4").getName());
+            assertNull(lazy.findByIndex("name", "Artist, 4"), "The index should follow updates.");
+        }
+
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec())) {
+            assertEquals(30, reopened.getAll().size(), "The eager repository should read what the lazy one wrote.");
+            assertEquals("Renamed 10", reopened.get(10).getName());
+            assertNull(reopened.get(30));
+            assertEquals("Adele", reopened.get(32).getName());
+        }
+    }
+
+    @Test
+    public void testLazyRepositoryStreamsRecordsOneAtATime() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        try (FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), 256)) {
+            for (int i = 1; i <= 40; i++) {
+                repository.create(new Artist("Artist " + i, "artist" + i + "@example.com"));
+            }
+        }
+
+        try (LazyFileRepository<Artist> lazy = new LazyFileRepository<>(file, new ArtistCodec(), 2, DurabilityMode.SYNC, 1024 * 1024)) {
+            lazy.delete(5);
+            Artist renamed = lazy.get(6);
+            renamed.setName("Renamed");
+            lazy.update(renamed);
+            lazy.create(new Artist("Adele", "adele@gmail.com"));
+
+            try (Stream<Artist> artists = lazy.stream()) {
+                List<String> names = artists.map(Artist::getName).collect(Collectors.toList());
+                assertEquals(40, names.size());
+                assertFalse(names.contains("Artist 5"), "Deleted records should be skipped.");
+                assertFalse(names.contains("Artist 6"), "Updated records should be returned in their new version.");
+                assertTrue(names.contains("Renamed") && names.contains("Adele"), "Unsaved entities should be streamed after the file.");
+            }
+            try (Stream<Artist> artists = lazy.stream()) {
+                assertEquals("Artist 3", artists.filter(artist -> artist.getId() == 3).findFirst().orElseThrow().getName());
+            }
+        }
+
+        try (LazyFileRepository<Artist> lazy = new LazyFileRepository<>(file, new ArtistCodec(), 2, DurabilityMode.SYNC, 128)) {
+            try (Stream<Artist> artists = lazy.stream()) {
+                Iterator<Artist> iterator = artists.iterator();
+                iterator.next();
+                for (int i = 0; i < 10; i++) {
+                    lazy.create(new Artist("Compacting " + i, "artist@example.com"));
+                }
+                assertThrows(ConcurrentModificationException.class, iterator::next, "A compaction should invalidate open streams.");
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentSyncWritesShareFlushes() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        int threads = 4;
+        int artistsPerThread = 200;
+        FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), DurabilityMode.SYNC);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executor.submit(() -> {
+                for (int i = 0; i < artistsPerThread; i++) {
+                    repository.create(new Artist("Artist " + thread + "-" + i, "artist@example.com"));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS), "All writers should finish.");
+        repository.close();
+
+        FlushMetrics metrics = repository.getFlushMetrics();
+        assertEquals(threads * artistsPerThread, metrics.getRecordCount(), "Every record should be flushed.");
+        assertTrue(metrics.getFlushCount() <= metrics.getRecordCount(), "A flush should commit at least one record.");
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec())) {
+            assertEquals(threads * artistsPerThread, reopened.getAll().size(), "Every acknowledged write should survive a restart.");
+        }
+    }
+
+    @Test
+    public void testBatchWritesWaitForOneFlush() throws Exception {
+        String file = directory.resolve("artists.csv").toString();
+        int count = 200;
+        List<Artist> artists = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            artists.add(new Artist("Artist " + i, "artist@example.com"));
+        }
+        List<Integer> evenIds = new ArrayList<>();
+        try (FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), DurabilityMode.SYNC)) {
+            repository.createAll(artists);
+            assertEquals(count, artists.get(count - 1).getId(), "Every artist should get an id.");
+            for (Artist artist : artists) {
+                if (artist.getId() % 2 == 0) {
+                    evenIds.add(artist.getId());
+                }
+            }
+            repository.deleteAll(evenIds);
+
+            FlushMetrics metrics = repository.getFlushMetrics();
+            assertEquals(count + evenIds.size(), metrics.getRecordCount(), "Every record should be flushed.");
+            assertTrue(metrics.getFlushCount() < metrics.getRecordCount() / 4, "A batch should not fsync once per record.");
+        }
+        try (FileRepository<Artist> reopened = new FileRepository<>(file, new ArtistCodec())) {
+            assertEquals(count - evenIds.size(), reopened.getAll().size());
+            assertNull(reopened.get(2));
+            assertEquals("Artist 0", reopened.get(1).getName());
+        }
+    }
+
+    @Test
+    public void testRegistryResolvesReferencesAcrossFiles() throws Exception {
+        String artists = directory.resolve("artists.csv").toString();
+        String albums = directory.resolve("albums.csv").toString();
+        String songs = directory.resolve("songs.csv").toString();
+        EntityRegistry registry = new EntityRegistry();
+        try (FileRepository<Artist> artistRepository = new FileRepository<>(artists, new ArtistCodec(), Artist.class, registry);
+             FileRepository<Album> albumRepository = new FileRepository<>(albums, new AlbumCodec(registry), Album.class, registry);
+             FileRepository<Song> songRepository = new FileRepository<>(songs, new SongCodec(registry), Song.class, registry)) {
+            Artist adele = new Artist("Adele", "adele@gmail.com");
+            artistRepository.create(adele);
+            Album album = new Album("25", LocalDate.of(2015, 11, 20), adele);
+            albumRepository.create(album);
+            songRepository.create(new Song("Hello", 4.55f, album));
+        }
+
+        EntityRegistry reloaded = new EntityRegistry();
+        assertThrows(IllegalStateException.class,
+                () -> new FileRepository<>(songs, new SongCodec(reloaded), Song.class, reloaded),
+                "Songs cannot be loaded before their albums.");
+        try (FileRepository<Artist> artistRepository = new FileRepository<>(artists, new ArtistCodec(), Artist.class, reloaded);
+             FileRepository<Album> albumRepository = new FileRepository<>(albums, new AlbumCodec(reloaded), Album.class, reloaded);
+             FileRepository<Song> songRepository = new FileRepository<>(songs, new SongCodec(reloaded), Song.class, reloaded)) {
+            Song song = songRepository.get(1);
+            assertSame(albumRepository.get(1), song.getAlbum(), "The song should reference the loaded album.");
+            assertSame(artistRepository.get(1), song.getAlbum().getArtist(), "The album should reference the loaded artist.");
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import Repository.IntObjectMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectMap_tests {
+
+    @Test
+    public void testMatchesHashMapUnderRandomOperations() {
+        Random random = new Random(42);
+        IntObjectMap<Integer> intMap = new IntObjectMap<>();
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            int key = random.nextInt(2000) - 100;
+            switch (random.nextInt(3)) {
+                case 0:
+                    assertEquals(expected.put(key, i), intMap.put(key, i), "put(" + key + ")");
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), intMap.remove(key), "remove(" + key + ")");
+                    break;
+                default:
+                    assertEquals(expected.get(key), intMap.get(key), "get(" + key + ")");
+            }
+            assertEquals(expected.size(), intMap.size(), "Sizes should match.");
+        }
+        assertEquals(expected, intMap.asMap(), "The map view should contain the same entries.");
+    }
+
+    @Test
+    public void testMapViewIsReadOnly() {
+        IntObjectMap<String> intMap = new IntObjectMap<>();
+        intMap.put(1, "Abbey Road");
+        Map<Integer, String> view = intMap.asMap();
+        assertThrows(UnsupportedOperationException.class, () -> view.put(2, "Lemonade"));
+        assertThrows(UnsupportedOperationException.class, () -> view.values().clear());
+
+        intMap.put(2, "Lemonade");
+        assertEquals("Lemonade", view.get(2), "The view should reflect later changes.");
+    }
+}
@@ -11,6 +11,10 @@ import java.util.Set;
 
 import Exceptions.EntityNotFoundException;
 import Exceptions.ValidationException;
+import Repository.AlbumSummary;
+import Repository.ArtistStatistics;
+import Repository.Page;
+import Repository.SongSummary;
 
 import static org.junit.jupiter.params.shadow.com.univocity.parsers.conversions.Conversions.toLowerCase;
 
@@ -18,6 +22,9 @@ import static org.junit.jupiter.params.shadow.com.univocity.parsers.conversions.
  * It interacts with the user to allow listeners and artists to manage their accounts, playlists, and concerts.
  * It provides a menu-driven system for navigation between different functionalities.*/
 public class MusicKonsole {
+    /** Number of entries the list screens fetch and show at a time. */
+    private static final int PAGE_SIZE = 20;
+    private static final int LEADERBOARD_SIZE = 10;
     private final MusicController musicController;
     private final Scanner scanner;
     private Listener currentListener = null;
@@ -1011,12 +1018,18 @@ public class MusicKonsole {
     /** Displays the list of available concerts. */
     private void viewAvailableConcerts() {
         try {
-            List<LiveConcert> concerts = musicController.getAvailableConcerts();
+            Page<LiveConcert> page = musicController.getAvailableConcerts(PAGE_SIZE, "title");
 
-            if (concerts != null && !concerts.isEmpty()) {
+            if (!page.isEmpty()) {
                 System.out.println("Available concerts:");
-                for (LiveConcert concert : concerts) {
-                    System.out.println("- " + concert.getTitle());
+                while (true) {
+                    for (LiveConcert concert : page.getItems()) {
+                        System.out.println("- " + concert.getTitle());
+                    }
+                    if (!wantsNextPage(page)) {
+                        break;
+                    }
+                    page = musicController.getAvailableConcerts(page.next());
                 }
             } else {
                 System.out.println("No available concerts found.");
@@ -1305,21 +1318,29 @@ public class MusicKonsole {
         }
     }
 
-    /**5* Lists all available albums in the system. Displays each album's title. */
+    /**5* Lists all available albums in the system. Displays each album's title, read as summaries a page at a time. */
     private void listAvailableAlbums() {
         try {
-            List<Album> albums = musicController.getAvailableAlbums();
-            if (albums.isEmpty()) {
-                throw new EntityNotFoundException("No albums found in the system.");
+            List<AlbumSummary> rows = musicController.getAlbumSummaries(null, PAGE_SIZE + 1);
+            if (rows.isEmpty()) {
+                throw new EntityNotFoundException("No albums found.");
             }
 
             Set<String> seenAlbums = new HashSet<>();
             System.out.println("Available albums:");
-            for (Album album : albums) {
-                if (!seenAlbums.contains(album.getTitle())) {
-                    System.out.println("- " + album.getTitle());
-                    seenAlbums.add(album.getTitle());
+            while (true) {
+                boolean hasNext = rows.size() > PAGE_SIZE;
+                List<AlbumSummary> page = hasNext ? rows.subList(0, PAGE_SIZE) : rows;
+                for (AlbumSummary album : page) {
+                    if (!seenAlbums.contains(album.getTitle())) {
+                        System.out.println("- " + album.getTitle());
+                        seenAlbums.add(album.getTitle());
+                    }
                 }
+                if (!wantsNextPage(hasNext)) {
+                    break;
+                }
+                rows = musicController.getAlbumSummaries(page.get(page.size() - 1), PAGE_SIZE + 1);
             }
         } catch (EntityNotFoundException e) {
             System.out.println("Error: " + e.getMessage());
@@ -1328,24 +1349,40 @@ public class MusicKonsole {
         }
     }
 
-    /**6* Prompts the user to enter the title of an album and retrieves a list of songs in that album. */
+    /**
+     * Asks whether to show the next page of a listing, if there is one.
+     *
+     * @param page The page that was just shown.
+     * @return true if there is a next page and the user wants to see it.
+     */
+    private boolean wantsNextPage(Page<?> page) {
+        return wantsNextPage(page.hasNext());
+    }
+
+    /**
+     * Asks whether to show the next page of a listing, if there is one.
+     *
+     * @param hasNext Whether more entries follow the page that was just shown.
+     * @return true if there is a next page and the user wants to see it.
+     */
+    private boolean wantsNextPage(boolean hasNext) {
+        if (!hasNext) {
+            return false;
+        }
+        System.out.println("Show more? (y/n)");
+        return scanner.nextLine().trim().equalsIgnoreCase("y");
+    }
+
+    /**6* Prompts the user to enter the title of an album and lists the songs in that album from their summaries. */
     private void getSongsInAlbum() {
         try {
             System.out.println("Enter album title:");
             String albumTitle = scanner.nextLine().trim();
 
-            Album album = musicController.getAlbumByName(albumTitle);
-            if (album == null) {
-                throw new EntityNotFoundException("Album not found.");
-            }
-
-            List<Song> songs = musicController.getSongsInAlbum(albumTitle);
-            if (songs.isEmpty()) {
-                throw new EntityNotFoundException("No songs found in the album.");
-            }
+            List<SongSummary> songs = musicController.getSongSummariesInAlbum(albumTitle);
 
-            System.out.println("Songs in " + album.getTitle() + ":");
-            for (Song song : songs) {
+            System.out.println("Songs in " + albumTitle + ":");
+            for (SongSummary song : songs) {
                 System.out.println("- " + song.getTitle());
             }
         } catch (EntityNotFoundException e) {
@@ -1567,22 +1604,19 @@ public class MusicKonsole {
     }
 
     /**
-     * 15* Displays a list of artists sorted by the total number of songs and albums they have.
+     * 15* Displays the artists with the most songs and albums, with their totals.
      */
     private void displayArtistsWithMostSongsAndAlbums() {
         try {
-            List<Artist> artists = musicController.getArtistsWithMostSongsAndAlbums();
-            if (artists.isEmpty()) {
+            List<ArtistStatistics> leaderboard = musicController.getArtistLeaderboard(LEADERBOARD_SIZE);
+            if (leaderboard.isEmpty()) {
                 throw new EntityNotFoundException("No artists found.");
             }
 
             System.out.println("Artists sorted by total number of songs and albums:");
-            for (Artist artist : artists) {
-                int totalSongs = artist.getAlbums().stream()
-                        .mapToInt(album -> album.getSongs().size())
-                        .sum();
-                int totalAlbums = artist.getAlbums().size();
-                System.out.println(artist.getName() + " - Total Songs: " + totalSongs + " - Total Albums: " + totalAlbums);
+            for (ArtistStatistics statistics : leaderboard) {
+                System.out.println(statistics.getArtistName() + " - Total Songs: " + statistics.getSongCount()
+                        + " - Total Albums: " + statistics.getAlbumCount());
             }
         } catch (EntityNotFoundException e) {
             System.out.println("Error: " + e.getMessage());
@@ -1,8 +1,10 @@
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Scanner;
+import java.util.function.Supplier;
 import Controller.MusicController;
 import Domain.*;
 import Konsole.MusicKonsole;
@@ -50,6 +52,9 @@ public class MusicApp {
         IRepository<Subscription> subscriptionRepository = null;
         IRepository<History> historyRepository=null;
         IRepository<Genre> genreRepository=null;
+        Supplier<UnitOfWork> unitOfWork = UnitOfWork::withoutTransaction;
+        CatalogStatistics catalogStatistics = null;
+        CatalogSummaries catalogSummaries = null;
 
         switch (storageChoice) {
             case 1:
@@ -58,47 +63,79 @@ public class MusicApp {
                 albumRepository = createInMemoryAlbumRepository(artistRepository);
                 songRepository = createInMemorySongRepository(albumRepository);
                 concertRepository = createInMemoryLiveConcertRepository(artistRepository);
-                playlistRepository = new InMemoryRepository<>();
+                playlistRepository = new ConcurrentInMemoryRepository<>();
                 listenerRepository = createInMemoryListenerRepository();
                 subscriptionRepository = createInMemorySubscriptionRepository(listenerRepository);
+                // Albums and songs are counted as they are written, so the leaderboard does not recount the catalog
+                CatalogCounters inMemoryCounters = new CatalogCounters(artistRepository, albumRepository, songRepository);
+                albumRepository = inMemoryCounters.trackAlbums(albumRepository);
+                songRepository = inMemoryCounters.trackSongs(songRepository);
+                catalogStatistics = inMemoryCounters;
                 break;
             case 2:
                 // File-based Repositories
-                artistRepository = createFileBasedArtistRepository();
-                albumRepository =  createFileBasedAlbumRepository(artistRepository);
-                songRepository = createFileBasedSongRepository(albumRepository);
-                listenerRepository = createFileBasedListenerRepository();
-                concertRepository = createFileBasedLiveConcertRepository(artistRepository);
-                playlistRepository=new FileRepository<>("playlist.csv");
-                subscriptionRepository = createFileBasedSubscriptionRepository(listenerRepository);
+                // Loaded in dependency order, so every file can resolve the ids it references through the registry
+                EntityRegistry registry = new EntityRegistry();
+                artistRepository = createFileBasedArtistRepository(registry);
+                albumRepository =  createFileBasedAlbumRepository(artistRepository, registry);
+                songRepository = createFileBasedSongRepository(albumRepository, registry);
+                listenerRepository = createFileBasedListenerRepository(registry);
+                concertRepository = createFileBasedLiveConcertRepository(artistRepository, registry);
+                playlistRepository=new FileRepository<>("playlist.csv", new PlaylistCodec(registry), Playlist.class, registry);
+                subscriptionRepository = createFileBasedSubscriptionRepository(listenerRepository, registry);
+                CatalogCounters fileCounters = new CatalogCounters(artistRepository, albumRepository, songRepository);
+                albumRepository = fileCounters.trackAlbums(albumRepository);
+                songRepository = fileCounters.trackSongs(songRepository);
+                catalogStatistics = fileCounters;
                 break;
             case 3:
                 // Database Repositories
-                String url = "jdbc:postgresql://localhost:5432/MTifyDatabase";
+                String url = "jdbc:postgresql://localhost:5432/MTifyDatabase?reWriteBatchedInserts=true";
                 String user = "postgres";
                 String password = "1111";
 
-                artistRepository=new ArtistDBRepository(url,user,password);
-                albumRepository=new AlbumDBRepository(url,user,password);
-                songRepository=new SongDBRepository(url,user,password);
-                concertRepository=new LiveConcertDBRepository(url,user,password);
-                playlistRepository=new PlaylistDBRepository(url,user,password);
-                listenerRepository=new ListenerDBRepository(url,user,password);
-                subscriptionRepository=new SubscriptionDBRepository(url,user,password);
-                historyRepository = new HistoryDBRepository(url,user,password);
-                genreRepository = new GenreDBRepository(url,user,password);
+                // One pool shared by all repositories, including the ones they create internally
+                ConnectionPool pool = new ConnectionPool(url, user, password);
+                // Artists, albums and listeners are read far more often than they change
+                artistRepository=new CachingRepository<>(new ArtistDBRepository(pool), 1000, Duration.ofMinutes(5));
+                albumRepository=new CachingRepository<>(new AlbumDBRepository(pool), 1000, Duration.ofMinutes(5));
+                songRepository=new SongDBRepository(pool);
+                concertRepository=new LiveConcertDBRepository(pool);
+                playlistRepository=new PlaylistDBRepository(pool);
+                listenerRepository=new CachingRepository<>(new ListenerDBRepository(pool), 1000, Duration.ofMinutes(5));
+                subscriptionRepository=new SubscriptionDBRepository(pool);
+                // Plays are saved in the background; whatever is still queued is flushed when the application exits
+                WriteBehindRepository<History> historyBuffer = new WriteBehindRepository<>(new HistoryDBRepository(pool), 200, 5000, 1000);
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    try {
+                        historyBuffer.close();
+                    } catch (Exception e) {
+                        System.err.println("Failed to save the listening histories: " + e.getMessage());
+                    }
+                }, "write-behind-shutdown"));
+                historyRepository = historyBuffer;
+                genreRepository = new GenreDBRepository(pool);
+                // Operations that write to several repositories commit them in one transaction
+                unitOfWork = () -> UnitOfWork.on(pool);
+                // The leaderboard is counted by the database with GROUP BY
+                catalogStatistics = new CatalogDBStatistics(pool);
+                // List screens read summaries from one joined query instead of whole songs and albums
+                catalogSummaries = new CatalogDBSummaries(pool);
                 break;
             case 4:
                 return null;
             default:
                 return null;
         }
-        ArtistService artistService = new ArtistService(artistRepository);
-        AlbumService albumService = new AlbumService(albumRepository);
-        SongService songService = new SongService(songRepository);
+        if (catalogSummaries == null) {
+            catalogSummaries = new InMemoryCatalogSummaries(albumRepository, songRepository);
+        }
+        ArtistService artistService = new ArtistService(artistRepository, albumRepository, songRepository, catalogStatistics);
+        AlbumService albumService = new AlbumService(albumRepository, songRepository, unitOfWork, catalogSummaries);
+        SongService songService = new SongService(songRepository, catalogSummaries);
         LiveConcertService liveConcertService = new LiveConcertService(concertRepository);
         PlaylistService playlistService = new PlaylistService(playlistRepository);
-        ListenerService listenerService = new ListenerService(listenerRepository, subscriptionRepository);
+        ListenerService listenerService = new ListenerService(listenerRepository, subscriptionRepository, historyRepository);
         SubscriptionService subscriptionService = new SubscriptionService(subscriptionRepository);
         GenreService genreService = new GenreService(new InMemoryRepository<Genre>());
 
@@ -124,31 +161,33 @@ public class MusicApp {
         //IRepository<Subscription> subscriptionRepository = createInMemorySubscriptionRepository(listenerRepository);
         //---------------------------------------------------------
         //Repo-File
-        //IRepository<Artist> artistRepository = createFileBasedArtistRepository();
-        //IRepository<Album> albumRepository = createFileBasedAlbumRepository(artistRepository);
-        //IRepository<Song> songRepository = createFileBasedSongRepository(albumRepository);
-        //IRepository<Listener> listenerRepository = createFileBasedListenerRepository();
-        //IRepository<LiveConcert> concertRepository = createFileBasedLiveConcertRepository(artistRepository);
-        //IRepository<Playlist> playlistRepository=new FileRepository<>("playlist.csv");
-        //IRepository<Subscription> subscriptionRepository = createFileBasedSubscriptionRepository(listenerRepository);
+        //EntityRegistry registry = new EntityRegistry();
+        //IRepository<Artist> artistRepository = createFileBasedArtistRepository(registry);
+        //IRepository<Album> albumRepository = createFileBasedAlbumRepository(artistRepository, registry);
+        //IRepository<Song> songRepository = createFileBasedSongRepository(albumRepository, registry);
+        //IRepository<Listener> listenerRepository = createFileBasedListenerRepository(registry);
+        //IRepository<LiveConcert> concertRepository = createFileBasedLiveConcertRepository(artistRepository, registry);
+        //IRepository<Playlist> playlistRepository=new FileRepository<>("playlist.csv", new PlaylistCodec(registry), Playlist.class, registry);
+        //IRepository<Subscription> subscriptionRepository = createFileBasedSubscriptionRepository(listenerRepository, registry);
         //---------------------------------------------------------
         //Repo-DB
-        //String url = "jdbc:postgresql://localhost:5432/MTifyDatabase";
+        //String url = "jdbc:postgresql://localhost:5432/MTifyDatabase?reWriteBatchedInserts=true";
         // String user ="postgres";
         //String password = "1111";
-        //ArtistDBRepository artistRepository=new ArtistDBRepository(url,user,password);
-        //AlbumDBRepository albumRepository=new AlbumDBRepository(url,user,password);
-        //SongDBRepository songRepository=new SongDBRepository(url,user,password);
-        //LiveConcertDBRepository concertRepository=new LiveConcertDBRepository(url,user,password);
-        //PlaylistDBRepository playlistRepository=new PlaylistDBRepository(url,user,password);
-        //ListenerDBRepository listenerRepository=new ListenerDBRepository(url,user,password);
-        //SubscriptionDBRepository subscriptionRepository=new SubscriptionDBRepository(url,user,password);
-        //HistoryDBRepository historyDBRepository=new HistoryDBRepository(url,user,password);
-        //GenreDBRepository genreDBRepository=new GenreDBRepository(url,user,password);
+        //ConnectionPool pool = new ConnectionPool(url, user, password);
+        //ArtistDBRepository artistRepository=new ArtistDBRepository(pool);
+        //AlbumDBRepository albumRepository=new AlbumDBRepository(pool);
+        //SongDBRepository songRepository=new SongDBRepository(pool);
+        //LiveConcertDBRepository concertRepository=new LiveConcertDBRepository(pool);
+        //PlaylistDBRepository playlistRepository=new PlaylistDBRepository(pool);
+        //ListenerDBRepository listenerRepository=new ListenerDBRepository(pool);
+        //SubscriptionDBRepository subscriptionRepository=new SubscriptionDBRepository(pool);
+        //HistoryDBRepository historyDBRepository=new HistoryDBRepository(pool);
+        //GenreDBRepository genreDBRepository=new GenreDBRepository(pool);
         //---------------------------------------------------------
         //Service
-        //ArtistService artistService=new ArtistService(artistRepository);
-        //AlbumService albumService=new AlbumService(albumRepository);
+        //ArtistService artistService=new ArtistService(artistRepository, albumRepository, songRepository);
+        //AlbumService albumService=new AlbumService(albumRepository, songRepository, unitOfWork);
         //SongService songService=new SongService(songRepository);
         //LiveConcertService liveConcertService=new LiveConcertService(concertRepository);
         //PlaylistService playlistService=new PlaylistService(playlistRepository);
@@ -204,7 +243,7 @@ public class MusicApp {
      * @return The in-memory repository for artists.
      */
     private static IRepository<Artist> createInMemoryArtistRepository() {
-        IRepository<Artist> artistRepo = new InMemoryRepository<>();
+        IRepository<Artist> artistRepo = new ConcurrentInMemoryRepository<>();
         Artist theBeatles = new Artist("The Beatles", "beatles@gmail.com");
         theBeatles.setPassword("beatles123");
         artistRepo.create(theBeatles);
@@ -276,7 +315,7 @@ public class MusicApp {
      * @return The in-memory repository for songs.
      */
     private static IRepository<Song> createInMemorySongRepository(IRepository<Album> albumRepo) {
-        IRepository<Song> songRepo = new InMemoryRepository<>();
+        IRepository<Song> songRepo = new ConcurrentInMemoryRepository<>();
         Genre rock = new Genre("Rock");
         Genre pop = new Genre("Pop");
         Genre rap = new Genre("Rap");
@@ -396,7 +435,7 @@ public class MusicApp {
      * @return The in-memory repository for albums.
      */
     private static IRepository<Album> createInMemoryAlbumRepository(IRepository<Artist> artistRepo) {
-        IRepository<Album> albumRepo = new InMemoryRepository<>();
+        IRepository<Album> albumRepo = new ConcurrentInMemoryRepository<>();
         Genre rock = new Genre("Rock");
         Genre pop = new Genre("Pop");
         Genre rap = new Genre("Rap");
@@ -479,7 +518,7 @@ public class MusicApp {
      * @return The in-memory repository for listeners.
      */
     private static IRepository<Listener> createInMemoryListenerRepository() {
-        IRepository<Listener> listenerRepo = new InMemoryRepository<>();
+        IRepository<Listener> listenerRepo = new ConcurrentInMemoryRepository<>();
         Listener john = new Listener("John", "john.doe@email.com");
         john.setPassword("john123");
         listenerRepo.create(john);
@@ -515,7 +554,7 @@ public class MusicApp {
      * @return The in-memory repository for subscriptions.
      */
     private static IRepository<Subscription> createInMemorySubscriptionRepository(IRepository<Listener> listenerRepo) {
-        IRepository<Subscription> subscriptionRepo = new InMemoryRepository<>();
+        IRepository<Subscription> subscriptionRepo = new ConcurrentInMemoryRepository<>();
         Subscription sub1=new Subscription("Basic", 9.99f, listenerRepo.get(1));  // John Doe
         Subscription sub2=new Subscription("Premium", 14.99f, listenerRepo.get(2)); // Jane Smith
         Subscription sub3 =new Subscription("Basic", 9.99f, listenerRepo.get(3));  // Chris Johnson
@@ -575,7 +614,7 @@ public class MusicApp {
      * @return The in-memory repository for live concerts.
      */
     private static IRepository<LiveConcert> createInMemoryLiveConcertRepository( IRepository<Artist> artistRepo) {
-        IRepository<LiveConcert> concertRepo = new InMemoryRepository<>();
+        IRepository<LiveConcert> concertRepo = new ConcurrentInMemoryRepository<>();
         concertRepo.create(new LiveConcert("The Beatles Live at Abbey Road", new Date(), artistRepo.get(1), 5000, true, "Live")); //1
         concertRepo.create(new LiveConcert("Beyoncé World Concert", new Date(), artistRepo.get(2), 10000, true,  "Live")); //2
         concertRepo.create(new LiveConcert("Adele Live Concert", new Date(),artistRepo.get(3), 8000, true,  "Live")); //3
@@ -600,9 +639,9 @@ public class MusicApp {
         return concertRepo;
     }
 
-    private static IRepository<Artist> createFileBasedArtistRepository() {
+    private static IRepository<Artist> createFileBasedArtistRepository(EntityRegistry registry) {
         String filePath = "artists.csv"; // Specify the file to store the data.
-        IRepository<Artist> artistRepo = new FileRepository<>(filePath);
+        IRepository<Artist> artistRepo = new FileRepository<>(filePath, new ArtistCodec(), Artist.class, registry);
         Artist theBeatles = new Artist("The Beatles", "beatles@gmail.com");
         theBeatles.setPassword("beatles123");
         artistRepo.create(theBeatles);
@@ -666,9 +705,9 @@ public class MusicApp {
         artistRepo.getAll().values().forEach(System.out::println);
         return artistRepo;
     }
-    private static IRepository<Song> createFileBasedSongRepository(IRepository<Album>albumRepo) {
+    private static IRepository<Song> createFileBasedSongRepository(IRepository<Album>albumRepo, EntityRegistry registry) {
         String filePath = "songs.csv"; // File for storing song data
-        IRepository<Song> songRepo = new FileRepository<>(filePath);
+        IRepository<Song> songRepo = new FileRepository<>(filePath, new SongCodec(registry), Song.class, registry);
         Genre rock = new Genre("Rock");
         Genre pop = new Genre("Pop");
         Genre rap = new Genre("Rap");
@@ -756,9 +795,9 @@ public class MusicApp {
         return songRepo;
     }
 
-    private static IRepository<Album> createFileBasedAlbumRepository(IRepository<Artist>artistRepo) {
+    private static IRepository<Album> createFileBasedAlbumRepository(IRepository<Artist>artistRepo, EntityRegistry registry) {
         String filePath = "albums.csv"; // File for storing album data
-        IRepository<Album> albumRepo = new FileRepository<>(filePath);
+        IRepository<Album> albumRepo = new FileRepository<>(filePath, new AlbumCodec(registry), Album.class, registry);
         Genre rock = new Genre("Rock");
         Genre pop = new Genre("Pop");
         Genre rap = new Genre("Rap");
@@ -824,9 +863,9 @@ public class MusicApp {
         albumRepo.getAll().values().forEach(System.out::println);
         return albumRepo;
     }
-    private static IRepository<Listener> createFileBasedListenerRepository() {
+    private static IRepository<Listener> createFileBasedListenerRepository(EntityRegistry registry) {
         String filePath = "listeners.csv"; // File for storing listener data
-        IRepository<Listener> listenerRepo = new FileRepository<>(filePath);
+        IRepository<Listener> listenerRepo = new FileRepository<>(filePath, new ListenerCodec(), Listener.class, registry);
         Listener john = new Listener("John", "john.doe@email.com");
         john.setPassword("john123");
         listenerRepo.create(john);
@@ -855,9 +894,9 @@ public class MusicApp {
         return listenerRepo;
     }
 
-    private static IRepository<LiveConcert> createFileBasedLiveConcertRepository(IRepository<Artist>artistRepo) {
+    private static IRepository<LiveConcert> createFileBasedLiveConcertRepository(IRepository<Artist>artistRepo, EntityRegistry registry) {
         String filePath = "liveconcerts.csv"; // File for storing live concert data
-        IRepository<LiveConcert> concertRepo = new FileRepository<>(filePath);
+        IRepository<LiveConcert> concertRepo = new FileRepository<>(filePath, new LiveConcertCodec(registry), LiveConcert.class, registry);
         concertRepo.create(new LiveConcert("The Beatles Live at Abbey Road", new Date(), artistRepo.get(1), 5000, true, "Live")); //1
         concertRepo.create(new LiveConcert("Beyoncé World Concert", new Date(), artistRepo.get(2), 10000, true, "Live")); //2
         concertRepo.create(new LiveConcert("Adele Live Concert", new Date(), artistRepo.get(3), 8000, true, "Live")); //3
@@ -882,9 +921,9 @@ public class MusicApp {
         return concertRepo;
     }
 
-    private static IRepository<Subscription> createFileBasedSubscriptionRepository(IRepository<Listener>listenerRepo) {
+    private static IRepository<Subscription> createFileBasedSubscriptionRepository(IRepository<Listener>listenerRepo, EntityRegistry registry) {
         String filePath = "subscriptions.csv"; // File for storing subscription data
-        IRepository<Subscription> subscriptionRepo = new FileRepository<>(filePath);
+        IRepository<Subscription> subscriptionRepo = new FileRepository<>(filePath, new SubscriptionCodec(registry), Subscription.class, registry);
         Subscription sub1 = new Subscription("Basic", 9.99f, listenerRepo.get(1));  // John Doe
         Subscription sub2 = new Subscription("Premium", 14.99f, listenerRepo.get(2)); // Jane Smith
         Subscription sub3 = new Subscription("Basic", 9.99f, listenerRepo.get(3));  // Chris Johnson
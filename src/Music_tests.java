@@ -9,6 +9,7 @@ import java.time.LocalDate;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.Flow;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -186,4 +187,69 @@ public class Music_tests {
                 "Exception should be thrown when album is not found.");
         assertEquals("Album with ID '" + albumId + "' not found.", exception.getMessage());
     }
+
+    @Test
+    public void testDeleteAlbumDeletesOnlyItsSongs() {
+        IRepository<Album> albumRepository = new InMemoryRepository<>();
+        IRepository<Song> songRepository = new InMemoryRepository<>();
+        AlbumService albums = new AlbumService(albumRepository, songRepository, UnitOfWork::withoutTransaction,
+                new InMemoryCatalogSummaries(albumRepository, songRepository));
+        Artist artist = new Artist("Adele", "adele@example.com");
+        Album twentyFive = new Album("25", LocalDate.of(2015, 11, 20), artist);
+        Album twentyOne = new Album("21", LocalDate.of(2011, 1, 24), artist);
+        albumRepository.create(twentyFive);
+        albumRepository.create(twentyOne);
+        songRepository.create(new Song("Hello", 4.9f, twentyFive));
+        songRepository.create(new Song("Rolling in the Deep", 3.8f, twentyOne));
+
+        assertTrue(albums.deleteAlbum(twentyFive.getId()));
+        assertNull(albumRepository.get(twentyFive.getId()));
+        assertEquals(List.of("Rolling in the Deep"), songRepository.getAll().values().stream()
+                .map(Song::getTitle).collect(Collectors.toList()), "Only the songs of the deleted album should be deleted.");
+    }
+
+    @Test
+    public void testSummariesPageInTitleOrderAndListSongsOfAlbum() {
+        IRepository<Album> albumRepository = new InMemoryRepository<>();
+        IRepository<Song> songRepository = new InMemoryRepository<>();
+        CatalogSummaries summaries = new InMemoryCatalogSummaries(albumRepository, songRepository);
+        AlbumService albums = new AlbumService(albumRepository, songRepository, UnitOfWork::withoutTransaction, summaries);
+        SongService songs = new SongService(songRepository, summaries);
+        Artist artist = new Artist("Adele", "adele@example.com");
+        Album twentyFive = new Album("25", LocalDate.of(2015, 11, 20), artist);
+        Album twentyOne = new Album("21", LocalDate.of(2011, 1, 24), artist);
+        albumRepository.create(twentyFive);
+        albumRepository.create(twentyOne);
+        songRepository.create(new Song("Hello", 4.9f, twentyFive));
+        songRepository.create(new Song("Rolling in the Deep", 3.8f, twentyOne));
+        songRepository.create(new Song("All I Ask", 4.5f, twentyFive));
+
+        List<SongSummary> firstPage = songs.getSongSummaries(null, 2);
+        assertEquals(List.of("All I Ask", "Hello"), firstPage.stream().map(SongSummary::getTitle).collect(Collectors.toList()));
+        List<SongSummary> secondPage = songs.getSongSummaries(firstPage.get(1), 2);
+        assertEquals(1, secondPage.size());
+        assertEquals("21", secondPage.get(0).getAlbumTitle());
+
+        assertEquals("21", albums.getAlbumSummaries(null, 10).get(0).getTitle());
+        assertEquals("Adele", albums.getAlbumSummaries(null, 10).get(0).getArtistName());
+        assertEquals(List.of("Hello", "All I Ask"), albums.getSongSummariesInAlbum("25").stream()
+                .map(SongSummary::getTitle).collect(Collectors.toList()), "Songs of an album should be listed in the order they were added.");
+        assertTrue(albums.getSongSummariesInAlbum("30").isEmpty());
+    }
+
+    @Test
+    public void testRecordPlayAppendsOnePlayPerCall() {
+        IRepository<History> historyRepository = new InMemoryRepository<>();
+        ListenerService service = new ListenerService(new InMemoryRepository<>(), new InMemoryRepository<>(), historyRepository);
+        Listener listener = new Listener("John Doe", "john@example.com");
+        Album album = new Album("25", LocalDate.of(2015, 11, 20), new Artist("Adele", "adele@example.com"));
+        service.recordPlay(listener, new Song("Hello", 4.9f, album));
+        service.recordPlay(listener, new Song("All I Ask", 4.5f, album));
+
+        assertEquals(2, listener.getHistory().size());
+        assertEquals(2, historyRepository.getAll().size(), "Every play should be stored as its own record.");
+        for (History play : historyRepository.getAll().values()) {
+            assertEquals(1, play.size(), "A stored play should not carry the earlier plays of the listener.");
+        }
+    }
 }
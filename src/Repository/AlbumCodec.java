@@ -0,0 +1,93 @@
+package Repository;
+
+import Domain.Album;
+import Domain.Artist;
+import Domain.HasId;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Codec for albums. Columns: id, title, release date (yyyy-MM-dd), artist id.
+ */
+public class AlbumCodec implements EntityCodec<Album> {
+    private final IntFunction<Artist> artists;
+
+    /**
+     * Creates the codec.
+     *
+     * @param artists Looks up the artist of an album by id; returns null if the artist does not exist.
+     */
+    public AlbumCodec(IntFunction<Artist> artists) {
+        this.artists = artists;
+    }
+
+    /**
+     * Creates the codec with references resolved through a registry.
+     *
+     * @param registry The registry of the file repositories that stores the artists.
+     */
+    public AlbumCodec(EntityRegistry registry) {
+        this(registry.resolver(Artist.class));
+    }
+
+    @Override
+    public List<Class<? extends HasId>> dependencies() {
+        return List.of(Artist.class);
+    }
+
+    @Override
+    public Album decode(CsvRecord record) {
+        if (record.size() < 4) {
+            return null;
+        }
+        String title = record.getString(1);
+        LocalDate releaseDate;
+        try {
+            releaseDate = record.getLocalDate(2);
+        } catch (DateTimeException e) {
+            System.out.println("Invalid date format for album: " + record.getString(2));
+            return null;
+        }
+        int artistId = record.getInt(3);
+        Artist artist = artists.apply(artistId);
+        if (artist == null) {
+            System.out.println("Unknown artist " + artistId + " for album: " + title);
+            return null;
+        }
+        Album album = new Album(title, releaseDate, artist);
+        album.setId(record.getInt(0));
+        return album;
+    }
+
+    @Override
+    public void encode(Album album, CsvLine line) {
+        line.add(album.getId()).add(album.getTitle()).add(String.valueOf(album.getReleaseDate())).addReference(album.getArtist());
+    }
+
+    @Override
+    public Album read(SnapshotInput in) {
+        int id = in.readInt();
+        String title = in.readString();
+        LocalDate releaseDate = in.readLocalDate();
+        Artist artist = artists.apply(in.readInt());
+        if (artist == null) {
+            System.out.println("Unknown artist for album: " + title);
+            return null;
+        }
+        Album album = new Album(title, releaseDate, artist);
+        album.setId(id);
+        return album;
+    }
+
+    @Override
+    public void write(Album album, SnapshotOutput out) throws IOException {
+        out.writeInt(album.getId());
+        out.writeString(album.getTitle());
+        out.writeDate(album.getReleaseDate());
+        out.writeReference(album.getArtist());
+    }
+}
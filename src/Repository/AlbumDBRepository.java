@@ -7,6 +7,7 @@ import Domain.Song;
 
 import java.time.LocalDate;
 import java.sql.*;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -16,29 +17,35 @@ import java.util.Map;
  * Repository for Album
  */
 public class AlbumDBRepository extends DBRepository<Album> {
-    GenreDBRepository genreDBRepository;
-    ArtistDBRepository artistDBRepository;
-    public AlbumDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
-        this.artistDBRepository=new ArtistDBRepository(DBUrl,DBUser,DBPassword);
-        this.genreDBRepository=new GenreDBRepository(DBUrl,DBUser,DBPassword);
+    private static final String INSERT_SQL = "INSERT INTO Album ( title, release_date, artist_id, genre_id) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Album SET title = ?, release_date = ?, artist_id = ?, genre_id = ? WHERE id= ?";
+    /** Loads albums together with their artist and genre in one query. */
+    private static final String SELECT_SQL = "SELECT " + RowHydrator.ALBUM_COLUMNS + " FROM Album a" + RowHydrator.ALBUM_JOINS;
 
+    public AlbumDBRepository(ConnectionPool pool) {
+        super(pool);
+
+    }
+
+    @Override
+    protected String getTableName() {
+        return "Album";
     }
 
     @Override
     public void create(Album album) {
-        String SQL = "INSERT INTO Album ( title, release_date, artist_id, genre_id) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, album.getTitle());
-            statement.setDate(2, Date.valueOf(album.getReleaseDate()));
-            statement.setInt(3, album.getArtist().getId());
-            if (album.getGenre() != null) {
-                statement.setInt(4, album.getGenre().getId());
-            } else {
-                statement.setNull(4, Types.INTEGER);
-            }
-            statement.executeUpdate();
+        createAll(List.of(album));
+    }
 
+    /**
+     * Inserts the albums with JDBC batches in one transaction and sets the ids generated for them.
+     *
+     * @param albums The albums to insert.
+     */
+    @Override
+    public void createAll(Collection<Album> albums) {
+        try {
+            inTransaction(connection -> insertBatch(connection, INSERT_SQL, albums, this::bindInsert));
         } catch (SQLException e) {
             throw new RuntimeException("Error create album", e);
         }
@@ -46,9 +53,10 @@ public class AlbumDBRepository extends DBRepository<Album> {
 
     @Override
     public Album read(int id) {
-        String SQL = "SELECT * FROM Album WHERE id = ?";
+        String SQL = SELECT_SQL + " WHERE a.id = ?";
         Album album = null;
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
@@ -64,8 +72,9 @@ public class AlbumDBRepository extends DBRepository<Album> {
 
     @Override
     public Album get(int id) {
-        String SQL = "SELECT * FROM Album WHERE ID = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        String SQL = SELECT_SQL + " WHERE a.id = ?";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
@@ -80,23 +89,50 @@ public class AlbumDBRepository extends DBRepository<Album> {
 
     @Override
     public void update(Album album) {
-        String SQL = "UPDATE Album SET title = ?, release_date = ?, artist_id = ?, genre_id = ? WHERE id= ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, album.getTitle());
-            statement.setDate(2, Date.valueOf(album.getReleaseDate()));
-            statement.setInt(3, album.getArtist().getId());
-            statement.setInt(4, album.getGenre().getId());
-            statement.setInt(5, album.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, album);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error update Album", e);
         }
     }
 
+    /**
+     * Updates the albums with JDBC batches in one transaction.
+     *
+     * @param albums The albums to update.
+     */
+    @Override
+    public void updateAll(Collection<Album> albums) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, albums, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error update Album", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Album album) throws SQLException {
+        statement.setString(1, album.getTitle());
+        statement.setDate(2, Date.valueOf(album.getReleaseDate()));
+        statement.setInt(3, album.getArtist().getId());
+        if (album.getGenre() != null) {
+            statement.setInt(4, album.getGenre().getId());
+        } else {
+            statement.setNull(4, Types.INTEGER);
+        }
+    }
+
+    private void bindUpdate(PreparedStatement statement, Album album) throws SQLException {
+        bindInsert(statement, album);
+        statement.setInt(5, album.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Album WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -106,12 +142,13 @@ public class AlbumDBRepository extends DBRepository<Album> {
 
     @Override
     public Map<Integer, Album> getAll() {
-        String SQL = "SELECT * FROM Album";
         Map<Integer, Album> albumMap = new HashMap<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        RowHydrator hydrator = new RowHydrator();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
             ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
-                Album album = extractFromResultSet(resultSet);
+                Album album = hydrator.album(resultSet);
                 albumMap.put(album.getId(), album);
 
             }
@@ -121,17 +158,22 @@ public class AlbumDBRepository extends DBRepository<Album> {
         return albumMap;
     }
 
-    private Album extractFromResultSet(ResultSet rs) throws  SQLException{
-        String title = rs.getString("title");
-        LocalDate releaseDate = rs.getDate("release_date").toLocalDate();
-        int artistId = rs.getInt("artist_id");
-        int genreId = rs.getInt("genre_id");
-        Artist artist = artistDBRepository.get(artistId);
-        Genre genre = genreDBRepository.get(genreId);
-        Album album = new Album(title, releaseDate, artist);
-        album.setId(rs.getInt("id"));
-        album.setGenre(genre);
-        return album;
+    @Override
+    protected String getSelectSql() {
+        return SELECT_SQL;
+    }
+
+    @Override
+    protected String getColumnPrefix() {
+        return "a.";
+    }
+
+    /**
+     * Builds the album of a row selected with RowHydrator.ALBUM_COLUMNS, including its artist and genre.
+     */
+    @Override
+    protected Album extractFromResultSet(ResultSet rs) throws SQLException {
+        return new RowHydrator().album(rs);
     }
 
 
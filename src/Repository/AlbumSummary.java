@@ -0,0 +1,60 @@
+package Repository;
+
+import Domain.Album;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of an album that listings show: its id, title and release date and the name of its artist.
+ * A summary holds no references to other objects, so listing albums does not load their songs and artists.
+ */
+public final class AlbumSummary {
+    private final int id;
+    private final String title;
+    private final LocalDate releaseDate;
+    private final String artistName;
+
+    AlbumSummary(int id, String title, LocalDate releaseDate, String artistName) {
+        this.id = id;
+        this.title = title;
+        this.releaseDate = releaseDate;
+        this.artistName = artistName;
+    }
+
+    /**
+     * Summarizes an album that is already loaded.
+     *
+     * @param album The album.
+     * @return The summary of the album.
+     */
+    public static AlbumSummary of(Album album) {
+        return new AlbumSummary(album.getId(), album.getTitle(), album.getReleaseDate(),
+                album.getArtist() == null ? null : album.getArtist().getName());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public LocalDate getReleaseDate() {
+        return releaseDate;
+    }
+
+    /**
+     * Gets the name of the album's artist.
+     *
+     * @return The artist name, or null if the album has no artist.
+     */
+    public String getArtistName() {
+        return artistName;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("AlbumSummary{id=%d, title=%s, releaseDate=%s, artist=%s}", id, title, releaseDate, artistName);
+    }
+}
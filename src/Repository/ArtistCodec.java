@@ -0,0 +1,42 @@
+package Repository;
+
+import Domain.Artist;
+
+import java.io.IOException;
+
+/**
+ * Codec for artists. Columns: id, name, email.
+ */
+public class ArtistCodec implements EntityCodec<Artist> {
+
+    @Override
+    public Artist decode(CsvRecord record) {
+        if (record.size() < 2) {
+            return null;
+        }
+        String email = record.size() > 2 ? record.getString(2) : "";
+        Artist artist = new Artist(record.getString(1), email);
+        artist.setId(record.getInt(0));
+        return artist;
+    }
+
+    @Override
+    public void encode(Artist artist, CsvLine line) {
+        line.add(artist.getId()).add(artist.getName()).add(artist.getEmail());
+    }
+
+    @Override
+    public Artist read(SnapshotInput in) {
+        int id = in.readInt();
+        Artist artist = new Artist(in.readString(), in.readString());
+        artist.setId(id);
+        return artist;
+    }
+
+    @Override
+    public void write(Artist artist, SnapshotOutput out) throws IOException {
+        out.writeInt(artist.getId());
+        out.writeString(artist.getName());
+        out.writeString(artist.getEmail());
+    }
+}
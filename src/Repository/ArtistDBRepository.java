@@ -5,28 +5,48 @@ import Domain.Album;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Repository for Artist
  */
 public class ArtistDBRepository extends DBRepository<Artist> {
+    private static final String INSERT_SQL = "INSERT INTO Artist (name, email) VALUES (?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Artist SET name = ?, email = ? WHERE id = ?";
+    /** Loads artists with their albums and the genres of the albums in one query; an artist without albums gives one row. */
+    private static final String SELECT_WITH_ALBUMS_SQL = "SELECT " + RowHydrator.ALBUM_COLUMNS
+            + " FROM Artist ar LEFT JOIN Album a ON a.artist_id = ar.id LEFT JOIN Genre ag ON ag.id = a.genre_id";
 
-    public ArtistDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
+
+    public ArtistDBRepository(ConnectionPool pool) {
+        super(pool);
 
     }
 
+    @Override
+    protected String getTableName() {
+        return "Artist";
+    }
+
     @Override
     public void create(Artist obj) {
-        String SQL = "INSERT INTO Artist (name, email) VALUES (?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getName());
-            statement.setString(2, obj.getEmail());
-            statement.executeUpdate();
+        createAll(List.of(obj));
+    }
+
+    /**
+     * Inserts the artists with JDBC batches in one transaction and sets the ids generated for them.
+     *
+     * @param artists The artists to insert.
+     */
+    @Override
+    public void createAll(Collection<Artist> artists) {
+        try {
+            inTransaction(connection -> insertBatch(connection, INSERT_SQL, artists, this::bindInsert));
         } catch (SQLException e) {
             throw new RuntimeException("Error adding Artist", e);
         }
@@ -34,18 +54,18 @@ public class ArtistDBRepository extends DBRepository<Artist> {
 
     @Override
     public Artist read(int id) {
-        String SQL = "SELECT * FROM Artist WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        String SQL = SELECT_WITH_ALBUMS_SQL + " WHERE ar.id = ?";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
-                if (rs.next()) {
-                    Artist artist = extractFromResultSet(rs);
-                    List<Album> albums = getAlbumsForArtist(artist.getId());
-                    artist.setAlbums(albums);
-                    return artist;
-                }else {
-                    return null;
+                RowHydrator hydrator = new RowHydrator();
+                Artist artist = null;
+                while (rs.next()) {
+                    artist = hydrator.artist(rs);
+                    hydrator.album(rs);
                 }
+                return artist;
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error reading artist", e);
@@ -53,10 +73,24 @@ public class ArtistDBRepository extends DBRepository<Artist> {
 
     }
 
+    /**
+     * Finds an artist by an indexed column and loads it together with its albums.
+     *
+     * @param field The indexed column.
+     * @param value The value to look up, compared case-insensitively.
+     * @return The artist with the lowest id that matches, with its albums, or null if none is found.
+     */
+    @Override
+    public Artist findByIndex(String field, String value) {
+        Artist artist = super.findByIndex(field, value);
+        return artist == null ? null : read(artist.getId());
+    }
+
     @Override
     public Artist get(int id) {
         String SQL = "SELECT * FROM Artist WHERE ID = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
@@ -71,21 +105,44 @@ public class ArtistDBRepository extends DBRepository<Artist> {
 
     @Override
     public void update(Artist obj) {
-        String SQL = "UPDATE Artist SET name = ?, email = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getName());
-            statement.setString(2, obj.getEmail());
-            statement.setInt(3, obj.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, obj);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error update Artist", e);
         }
     }
 
+    /**
+     * Updates the artists with JDBC batches in one transaction.
+     *
+     * @param artists The artists to update.
+     */
+    @Override
+    public void updateAll(Collection<Artist> artists) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, artists, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error update Artist", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Artist obj) throws SQLException {
+        statement.setString(1, obj.getName());
+        statement.setString(2, obj.getEmail());
+    }
+
+    private void bindUpdate(PreparedStatement statement, Artist obj) throws SQLException {
+        bindInsert(statement, obj);
+        statement.setInt(3, obj.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Artist WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -95,13 +152,14 @@ public class ArtistDBRepository extends DBRepository<Artist> {
 
     @Override
     public Map<Integer, Artist> getAll() {
-        String SQL = "SELECT * FROM Artist";
         Map<Integer, Artist> artistMap = new HashMap<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        RowHydrator hydrator = new RowHydrator();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_WITH_ALBUMS_SQL)) {
             ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
-                Artist artist = extractFromResultSet(resultSet);
-                artist.setAlbums(getAlbumsForArtist(artist.getId()));
+                Artist artist = hydrator.artist(resultSet);
+                hydrator.album(resultSet);
                 artistMap.put(artist.getId(), artist);
             }
         } catch (SQLException e) {
@@ -110,7 +168,30 @@ public class ArtistDBRepository extends DBRepository<Artist> {
         return artistMap;
     }
 
-    private static Artist extractFromResultSet(ResultSet resultSet) throws SQLException {
+    /**
+     * Streams the artists with their albums from one query ordered by artist,
+     * building one artist from its consecutive rows at a time.
+     */
+    @Override
+    public Stream<Artist> stream() {
+        return streamQuery(SELECT_WITH_ALBUMS_SQL + " ORDER BY ar.id", new GroupingReader<Artist>("artist_id") {
+            private RowHydrator hydrator;
+
+            @Override
+            protected Artist startElement(int key, ResultSet rs) throws SQLException {
+                hydrator = new RowHydrator();
+                return hydrator.artist(rs);
+            }
+
+            @Override
+            protected void addRow(Artist artist, ResultSet rs) throws SQLException {
+                hydrator.album(rs);
+            }
+        });
+    }
+
+    @Override
+    protected Artist extractFromResultSet(ResultSet resultSet) throws SQLException {
         String name = resultSet.getString("name");
         String email = resultSet.getString("email");
         int id = resultSet.getInt("id");
@@ -119,25 +200,4 @@ public class ArtistDBRepository extends DBRepository<Artist> {
         return artist;
     }
 
-    private List<Album> getAlbumsForArtist(int artistId) {
-        String SQL = "SELECT * FROM Album WHERE artist_id = ?";
-        List<Album> albums = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setInt(1, artistId);
-            ResultSet rs = statement.executeQuery();
-            while (rs.next()) {
-                String title = rs.getString("title");
-                LocalDate releaseDate = rs.getDate("release_date").toLocalDate();
-                Artist artist = get(artistId);
-                if (artist == null) {
-                    throw new RuntimeException("Artist not found for ID: " + artistId);
-                }
-                Album album = new Album(title, releaseDate, artist);
-                albums.add(album);
-            }
-        } catch (SQLException e) {
-            throw new RuntimeException("Error read albums of artist", e);
-        }
-        return albums;
-    }
 }
@@ -0,0 +1,74 @@
+package Repository;
+
+import Domain.Album;
+import Domain.Artist;
+import Domain.Song;
+
+/**
+ * The number of albums and songs of an artist and the total duration of the songs,
+ * computed without loading the albums and songs themselves.
+ */
+public final class ArtistStatistics {
+    private final int artistId;
+    private final String artistName;
+    private final int albumCount;
+    private final int songCount;
+    private final double totalDuration;
+
+    ArtistStatistics(int artistId, String artistName, int albumCount, int songCount, double totalDuration) {
+        this.artistId = artistId;
+        this.artistName = artistName;
+        this.albumCount = albumCount;
+        this.songCount = songCount;
+        this.totalDuration = totalDuration;
+    }
+
+    /**
+     * Counts the statistics of an artist from the albums and songs it holds.
+     *
+     * @param artist The artist, with its discography loaded.
+     * @return The statistics of the artist.
+     */
+    public static ArtistStatistics of(Artist artist) {
+        int songCount = 0;
+        double totalDuration = 0;
+        for (Album album : artist.getAlbums()) {
+            for (Song song : album.getSongs()) {
+                songCount++;
+                totalDuration += song.getDuration();
+            }
+        }
+        return new ArtistStatistics(artist.getId(), artist.getName(), artist.getAlbums().size(), songCount, totalDuration);
+    }
+
+    public int getArtistId() {
+        return artistId;
+    }
+
+    public String getArtistName() {
+        return artistName;
+    }
+
+    public int getAlbumCount() {
+        return albumCount;
+    }
+
+    public int getSongCount() {
+        return songCount;
+    }
+
+    /**
+     * Gets the sum of the durations of the artist's songs.
+     *
+     * @return The total duration, in the unit of Song.getDuration.
+     */
+    public double getTotalDuration() {
+        return totalDuration;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ArtistStatistics{artist=%s, albums=%d, songs=%d, totalDuration=%.2f}",
+                artistName, albumCount, songCount, totalDuration);
+    }
+}
@@ -0,0 +1,45 @@
+package Repository;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates the executors that run the asynchronous service methods.
+ * Every task runs on its own virtual thread, so thousands of sessions waiting for the database cost no platform
+ * thread each; the connection pool caps how many of them query the database at the same time.
+ */
+public final class AsyncExecutors {
+    private static volatile ExecutorService shared;
+
+    private AsyncExecutors() {
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task. The caller must shut it down.
+     *
+     * @return The executor.
+     */
+    public static ExecutorService newTaskExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    /**
+     * Returns the executor shared by the asynchronous service methods, creating it on first use.
+     * It is never shut down; virtual threads do not keep the application from exiting.
+     *
+     * @return The shared executor.
+     */
+    public static ExecutorService shared() {
+        ExecutorService executor = shared;
+        if (executor == null) {
+            synchronized (AsyncExecutors.class) {
+                executor = shared;
+                if (executor == null) {
+                    executor = newTaskExecutor();
+                    shared = executor;
+                }
+            }
+        }
+        return executor;
+    }
+}
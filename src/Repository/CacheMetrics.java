@@ -0,0 +1,119 @@
+package Repository;
+
+/**
+ * A snapshot of the statistics of a CachingRepository.
+ */
+public final class CacheMetrics {
+    private final int size;
+    private final int maxSize;
+    private final long hitCount;
+    private final long missCount;
+    private final long loadCount;
+    private final long evictionCount;
+    private final long expirationCount;
+    private final long invalidationCount;
+
+    CacheMetrics(int size, int maxSize, long hitCount, long missCount, long loadCount,
+                 long evictionCount, long expirationCount, long invalidationCount) {
+        this.size = size;
+        this.maxSize = maxSize;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.loadCount = loadCount;
+        this.evictionCount = evictionCount;
+        this.expirationCount = expirationCount;
+        this.invalidationCount = invalidationCount;
+    }
+
+    /**
+     * Gets the number of entities currently cached.
+     *
+     * @return The number of cached entities.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the largest number of entities the cache keeps.
+     *
+     * @return The cache size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of reads served from the cache.
+     *
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of reads that did not find the entity in the cache, including those that
+     * waited for a load started by another thread.
+     *
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of reads passed on to the underlying repository.
+     * It is lower than the number of misses when concurrent misses for one id shared a load.
+     *
+     * @return The number of loads.
+     */
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    /**
+     * Gets the number of entities removed to make room for others.
+     *
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Gets the number of entities dropped because they outlived the time to live.
+     *
+     * @return The number of expirations.
+     */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    /**
+     * Gets the number of entities dropped because they were updated or deleted.
+     *
+     * @return The number of invalidations.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount;
+    }
+
+    /**
+     * Gets the share of reads served from the cache.
+     *
+     * @return The hit ratio between 0 and 1, or 0 if nothing was read yet.
+     */
+    public double getHitRatio() {
+        long reads = hitCount + missCount;
+        return reads == 0 ? 0 : (double) hitCount / reads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheMetrics{size=%d, max=%d, hits=%d, misses=%d, loads=%d, evictions=%d, "
+                        + "expirations=%d, invalidations=%d, hitRatio=%.3f}",
+                size, maxSize, hitCount, missCount, loadCount, evictionCount, expirationCount, invalidationCount,
+                getHitRatio());
+    }
+}
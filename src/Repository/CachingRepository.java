@@ -0,0 +1,314 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * A read-through cache in front of another repository, meant for the database repositories,
+ * where every read is a query. get and read return the cached entity of an id while it is present,
+ * so repeated reads of the same album, artist or listener hit the database once and share one instance.
+ * A miss loads the entity with read on the underlying repository; concurrent misses for one id wait for that
+ * single load instead of querying too.
+ * <p>
+ * The cache keeps at most maxSize entities and evicts the least recently used one when it is full.
+ * With a time to live, an entity is loaded again once it has been cached for longer than that, which bounds how long
+ * changes made outside this repository stay invisible. update, delete and their batch versions drop the entities they
+ * write, whether the write succeeds or not, so the next read sees the stored state; a load that was running when its
+ * entity was written is not cached. Ids that are not found are not cached.
+ * getAll, stream, findPage, find and findByIndex always go to the underlying repository.
+ * The cache is thread-safe if the underlying repository is.
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
+public class CachingRepository<T extends HasId> implements IRepository<T> {
+    private final IRepository<T> delegate;
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private final LinkedHashMap<Integer, CachedEntity<T>> entries;
+    private final Map<Integer, CompletableFuture<T>> loading = new HashMap<>();
+    private long hitCount;
+    private long missCount;
+    private long loadCount;
+    private long evictionCount;
+    private long expirationCount;
+    private long invalidationCount;
+
+    /**
+     * Creates a cache whose entities never expire.
+     *
+     * @param delegate The repository that stores the entities.
+     * @param maxSize The largest number of entities to keep.
+     */
+    public CachingRepository(IRepository<T> delegate, int maxSize) {
+        this(delegate, maxSize, null);
+    }
+
+    /**
+     * Creates a cache whose entities expire after a time to live.
+     *
+     * @param delegate The repository that stores the entities.
+     * @param maxSize The largest number of entities to keep.
+     * @param timeToLive How long an entity stays cached after it is loaded, or null to keep it until it is evicted.
+     */
+    public CachingRepository(IRepository<T> delegate, int maxSize, Duration timeToLive) {
+        this(delegate, maxSize, timeToLive, System::nanoTime);
+    }
+
+    CachingRepository(IRepository<T> delegate, int maxSize, Duration timeToLive, LongSupplier clock) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The cached repository must not be null.");
+        }
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive.");
+        }
+        if (timeToLive != null && (timeToLive.isNegative() || timeToLive.isZero())) {
+            throw new IllegalArgumentException("The time to live must be positive.");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive == null ? 0 : timeToLive.toNanos();
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, CachedEntity<T>> eldest) {
+                if (size() > CachingRepository.this.maxSize) {
+                    evictionCount++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public void create(T obj) {
+        delegate.create(obj);
+    }
+
+    /**
+     * Retrieves an entity by its id, from the cache if it is present.
+     * A miss is loaded with read, so database repositories return the entity with everything read loads.
+     *
+     * @param id The unique identifier of the entity to retrieve.
+     * @return The entity, or null if not found.
+     */
+    @Override
+    public T get(int id) {
+        return load(id);
+    }
+
+    /**
+     * Reads an entity by its id, from the cache if it is present.
+     *
+     * @param id The unique identifier of the entity to read.
+     * @return The entity, or null if not found.
+     */
+    @Override
+    public T read(int id) {
+        return load(id);
+    }
+
+    @Override
+    public void update(T obj) {
+        try {
+            delegate.update(obj);
+        } finally {
+            invalidate(obj.getId());
+        }
+    }
+
+    @Override
+    public void delete(int id) {
+        try {
+            delegate.delete(id);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void createAll(Collection<T> objects) {
+        delegate.createAll(objects);
+    }
+
+    @Override
+    public void updateAll(Collection<T> objects) {
+        try {
+            delegate.updateAll(objects);
+        } finally {
+            for (T obj : objects) {
+                invalidate(obj.getId());
+            }
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        try {
+            delegate.deleteAll(ids);
+        } finally {
+            for (int id : ids) {
+                invalidate(id);
+            }
+        }
+    }
+
+    @Override
+    public Map<Integer, T> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public Page<T> findPage(PageRequest<T> request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public List<T> find(Criteria<T> criteria) {
+        return delegate.find(criteria);
+    }
+
+    @Override
+    public void addIndex(String field, Function<T, String> keyExtractor) {
+        delegate.addIndex(field, keyExtractor);
+    }
+
+    @Override
+    public void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        delegate.addUniqueIndex(field, keyExtractor);
+    }
+
+    @Override
+    public T findByIndex(String field, String value) {
+        return delegate.findByIndex(field, value);
+    }
+
+    /**
+     * Drops the cached entity of an id, so the next read loads it again.
+     * Call it after the entity was changed without going through this repository.
+     *
+     * @param id The unique identifier of the entity.
+     */
+    public synchronized void invalidate(int id) {
+        if (entries.remove(id) != null) {
+            invalidationCount++;
+        }
+        loading.remove(id);
+    }
+
+    /**
+     * Drops every cached entity.
+     */
+    public synchronized void invalidateAll() {
+        invalidationCount += entries.size();
+        entries.clear();
+        loading.clear();
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return The current cache metrics.
+     */
+    public synchronized CacheMetrics getMetrics() {
+        return new CacheMetrics(entries.size(), maxSize, hitCount, missCount, loadCount,
+                evictionCount, expirationCount, invalidationCount);
+    }
+
+    /**
+     * Returns the cached entity of an id, or loads it. The first thread that misses registers a pending load
+     * and reads the entity outside the lock; threads that miss meanwhile wait for that load.
+     * The loader caches the result only if its load is still registered, which invalidate prevents.
+     */
+    private T load(int id) {
+        CompletableFuture<T> pending;
+        boolean owner = false;
+        synchronized (this) {
+            CachedEntity<T> cached = entries.get(id);
+            if (cached != null) {
+                if (!isExpired(cached)) {
+                    hitCount++;
+                    return cached.value;
+                }
+                entries.remove(id);
+                expirationCount++;
+            }
+            missCount++;
+            pending = loading.get(id);
+            if (pending == null) {
+                pending = new CompletableFuture<>();
+                loading.put(id, pending);
+                loadCount++;
+                owner = true;
+            }
+        }
+        if (!owner) {
+            return await(pending);
+        }
+        T value;
+        try {
+            value = delegate.read(id);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(id, pending);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            if (loading.remove(id, pending) && value != null) {
+                entries.put(id, new CachedEntity<>(value, clock.getAsLong()));
+            }
+        }
+        pending.complete(value);
+        return value;
+    }
+
+    private boolean isExpired(CachedEntity<T> cached) {
+        return timeToLiveNanos > 0 && clock.getAsLong() - cached.loadedAt >= timeToLiveNanos;
+    }
+
+    /**
+     * Waits for a load started by another thread and rethrows its failure unwrapped.
+     */
+    private T await(CompletableFuture<T> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class CachedEntity<T> {
+        private final T value;
+        private final long loadedAt;
+
+        private CachedEntity(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
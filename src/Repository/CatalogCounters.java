@@ -0,0 +1,264 @@
+package Repository;
+
+import Domain.Album;
+import Domain.Artist;
+import Domain.Song;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+/**
+ * Catalog statistics for the in-memory and file repositories, kept as counters that are updated on every write
+ * instead of being recounted on every request. The counters are filled once from the current contents of the album
+ * and song repositories; after that, albums and songs must be written through the repositories returned by
+ * trackAlbums and trackSongs. For every album the counters keep its artist, and for every song its album and duration,
+ * so updates that move an album or a song are counted correctly even when the repository holds the updated instance.
+ * All methods are synchronized.
+ */
+public class CatalogCounters implements CatalogStatistics {
+    private static final Comparator<Totals> RANKING = Comparator.comparingInt((Totals totals) -> totals.songCount)
+            .thenComparingInt(totals -> totals.albumCount)
+            .thenComparing(Comparator.comparingInt((Totals totals) -> totals.id).reversed());
+
+    private final IRepository<Artist> artistRepository;
+    private final IntObjectMap<Integer> artistOfAlbum = new IntObjectMap<>();
+    private final IntObjectMap<SongEntry> songs = new IntObjectMap<>();
+    private final IntObjectMap<Totals> albumTotals = new IntObjectMap<>();
+    private final IntObjectMap<Totals> artistTotals = new IntObjectMap<>();
+
+    /**
+     * Creates the counters and fills them from the albums and songs already stored.
+     *
+     * @param artistRepository The repository of the artists, read for the names of the reported artists.
+     * @param albumRepository The repository of the albums.
+     * @param songRepository The repository of the songs.
+     */
+    public CatalogCounters(IRepository<Artist> artistRepository, IRepository<Album> albumRepository, IRepository<Song> songRepository) {
+        this.artistRepository = artistRepository;
+        try (Stream<Album> albums = albumRepository.stream()) {
+            albums.forEach(this::albumSaved);
+        }
+        try (Stream<Song> stored = songRepository.stream()) {
+            stored.forEach(this::songSaved);
+        }
+    }
+
+    /**
+     * Wraps the album repository so that every album written through it is counted.
+     *
+     * @param albumRepository The repository the counters were filled from.
+     * @return The repository to use for albums from now on.
+     */
+    public IRepository<Album> trackAlbums(IRepository<Album> albumRepository) {
+        return new ObservedRepository<>(albumRepository, new ObservedRepository.Observer<Album>() {
+            @Override
+            public void created(Album album) {
+                albumSaved(album);
+            }
+
+            @Override
+            public void updated(Album album) {
+                albumSaved(album);
+            }
+
+            @Override
+            public void deleted(int id) {
+                albumDeleted(id);
+            }
+        });
+    }
+
+    /**
+     * Wraps the song repository so that every song written through it is counted.
+     *
+     * @param songRepository The repository the counters were filled from.
+     * @return The repository to use for songs from now on.
+     */
+    public IRepository<Song> trackSongs(IRepository<Song> songRepository) {
+        return new ObservedRepository<>(songRepository, new ObservedRepository.Observer<Song>() {
+            @Override
+            public void created(Song song) {
+                songSaved(song);
+            }
+
+            @Override
+            public void updated(Song song) {
+                songSaved(song);
+            }
+
+            @Override
+            public void deleted(int id) {
+                songDeleted(id);
+            }
+        });
+    }
+
+    /**
+     * Returns the artists with the most songs, then the most albums, then the lowest id,
+     * keeping only the best limit artists in a heap while going through the counters.
+     * Artists without albums are reported after the others if fewer than limit artists have albums.
+     */
+    @Override
+    public synchronized List<ArtistStatistics> getTopArtists(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+        PriorityQueue<Totals> best = new PriorityQueue<>(RANKING);
+        for (Totals totals : artistTotals.values()) {
+            if (artistRepository.get(totals.id) == null) {
+                continue;
+            }
+            best.add(totals);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        List<Totals> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING.reversed());
+        List<ArtistStatistics> statistics = new ArrayList<>();
+        for (Totals totals : ranked) {
+            statistics.add(toStatistics(totals.id, totals));
+        }
+        if (statistics.size() < limit) {
+            try (Stream<Artist> artists = artistRepository.stream()) {
+                artists.filter(artist -> artistTotals.get(artist.getId()) == null)
+                        .sorted(Comparator.comparingInt(Artist::getId))
+                        .limit(limit - statistics.size())
+                        .forEach(artist -> statistics.add(new ArtistStatistics(artist.getId(), artist.getName(), 0, 0, 0)));
+            }
+        }
+        return statistics;
+    }
+
+    @Override
+    public synchronized ArtistStatistics getArtistStatistics(int artistId) {
+        if (artistRepository.get(artistId) == null) {
+            return null;
+        }
+        return toStatistics(artistId, artistTotals.get(artistId));
+    }
+
+    private ArtistStatistics toStatistics(int artistId, Totals totals) {
+        String name = artistRepository.get(artistId).getName();
+        if (totals == null) {
+            return new ArtistStatistics(artistId, name, 0, 0, 0);
+        }
+        return new ArtistStatistics(artistId, name, totals.albumCount, totals.songCount, totals.totalDuration);
+    }
+
+    private synchronized void albumSaved(Album album) {
+        int albumId = album.getId();
+        int artistId = album.getArtist() == null ? 0 : album.getArtist().getId();
+        Integer previousArtist = artistOfAlbum.get(albumId);
+        if (previousArtist != null && previousArtist == artistId) {
+            return;
+        }
+        if (previousArtist != null) {
+            albumDeleted(albumId);
+        }
+        artistOfAlbum.put(albumId, artistId);
+        if (artistId != 0) {
+            Totals artist = totalsOf(artistTotals, artistId);
+            artist.albumCount++;
+            Totals songsOfAlbum = albumTotals.get(albumId);
+            if (songsOfAlbum != null) {
+                artist.add(songsOfAlbum.songCount, songsOfAlbum.totalDuration);
+            }
+        }
+    }
+
+    private synchronized void albumDeleted(int albumId) {
+        Integer artistId = artistOfAlbum.remove(albumId);
+        if (artistId == null || artistId == 0) {
+            return;
+        }
+        Totals artist = artistTotals.get(artistId);
+        artist.albumCount--;
+        Totals album = albumTotals.get(albumId);
+        if (album != null) {
+            artist.add(-album.songCount, -album.totalDuration);
+        }
+        if (artist.albumCount == 0) {
+            artistTotals.remove(artistId);
+        }
+    }
+
+    private synchronized void songSaved(Song song) {
+        int albumId = song.getAlbum() == null ? 0 : song.getAlbum().getId();
+        SongEntry previous = songs.get(song.getId());
+        if (previous != null) {
+            if (previous.albumId == albumId && previous.duration == song.getDuration()) {
+                return;
+            }
+            songDeleted(song.getId());
+        }
+        songs.put(song.getId(), new SongEntry(albumId, song.getDuration()));
+        countSong(albumId, 1, song.getDuration());
+    }
+
+    private synchronized void songDeleted(int songId) {
+        SongEntry song = songs.remove(songId);
+        if (song != null) {
+            countSong(song.albumId, -1, -song.duration);
+        }
+    }
+
+    private void countSong(int albumId, int songs, double duration) {
+        if (albumId == 0) {
+            return;
+        }
+        Totals album = totalsOf(albumTotals, albumId);
+        album.add(songs, duration);
+        if (album.songCount == 0) {
+            albumTotals.remove(albumId);
+        }
+        Integer artistId = artistOfAlbum.get(albumId);
+        if (artistId != null && artistId != 0) {
+            totalsOf(artistTotals, artistId).add(songs, duration);
+        }
+    }
+
+    private static Totals totalsOf(IntObjectMap<Totals> totals, int id) {
+        Totals found = totals.get(id);
+        if (found == null) {
+            found = new Totals(id);
+            totals.put(id, found);
+        }
+        return found;
+    }
+
+    /**
+     * The album and song counts of an artist, or the song count of an album.
+     */
+    private static final class Totals {
+        final int id;
+        int albumCount;
+        int songCount;
+        double totalDuration;
+
+        Totals(int id) {
+            this.id = id;
+        }
+
+        void add(int songs, double duration) {
+            songCount += songs;
+            totalDuration += duration;
+        }
+    }
+
+    /**
+     * What the counters remember of a song: its album and its duration.
+     */
+    private static final class SongEntry {
+        final int albumId;
+        final float duration;
+
+        SongEntry(int albumId, float duration) {
+            this.albumId = albumId;
+            this.duration = duration;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package Repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes catalog statistics with GROUP BY queries, so the database returns one row per artist
+ * instead of every album and song.
+ */
+public class CatalogDBStatistics implements CatalogStatistics {
+    private static final String STATISTICS_SQL = "SELECT ar.id, ar.name, COUNT(DISTINCT a.id) AS album_count, "
+            + "COUNT(s.id) AS song_count, COALESCE(SUM(s.duration), 0) AS total_duration "
+            + "FROM Artist ar LEFT JOIN Album a ON a.artist_id = ar.id LEFT JOIN Song s ON s.album_id = a.id";
+    private static final String TOP_ARTISTS_SQL = STATISTICS_SQL
+            + " GROUP BY ar.id, ar.name ORDER BY song_count DESC, album_count DESC, ar.id LIMIT ?";
+    private static final String ARTIST_SQL = STATISTICS_SQL + " WHERE ar.id = ? GROUP BY ar.id, ar.name";
+
+    private final ConnectionPool pool;
+
+    public CatalogDBStatistics(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public List<ArtistStatistics> getTopArtists(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(TOP_ARTISTS_SQL)) {
+            statement.setInt(1, limit);
+            List<ArtistStatistics> statistics = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    statistics.add(extractFromResultSet(rs));
+                }
+            }
+            return statistics;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading the artist leaderboard", e);
+        }
+    }
+
+    @Override
+    public ArtistStatistics getArtistStatistics(int artistId) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(ARTIST_SQL)) {
+            statement.setInt(1, artistId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? extractFromResultSet(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading the statistics of artist " + artistId, e);
+        }
+    }
+
+    private ArtistStatistics extractFromResultSet(ResultSet rs) throws SQLException {
+        return new ArtistStatistics(rs.getInt("id"), rs.getString("name"), rs.getInt("album_count"),
+                rs.getInt("song_count"), rs.getDouble("total_duration"));
+    }
+}
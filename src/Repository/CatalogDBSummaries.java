@@ -0,0 +1,120 @@
+package Repository;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads album and song summaries with one joined query each, selecting only the columns the summaries hold,
+ * so a listing neither hydrates the albums and artists of the songs nor loads the songs of the albums.
+ */
+public class CatalogDBSummaries implements CatalogSummaries {
+    private static final String ALBUM_SQL = "SELECT a.id, a.title, a.release_date, ar.name AS artist_name "
+            + "FROM Album a LEFT JOIN Artist ar ON ar.id = a.artist_id";
+    private static final String SONG_SQL = "SELECT s.id, s.title, s.duration, s.album_id, a.title AS album_title "
+            + "FROM Song s LEFT JOIN Album a ON a.id = s.album_id";
+
+    private final ConnectionPool pool;
+
+    public CatalogDBSummaries(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public List<AlbumSummary> listAlbums(AlbumSummary after, int limit) {
+        String SQL = ALBUM_SQL + (after == null ? "" : " WHERE (a.title, a.id) > (?, ?)") + " ORDER BY a.title, a.id LIMIT ?";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
+            if (after == null) {
+                bindPosition(statement, limit);
+            } else {
+                bindPosition(statement, after.getTitle(), after.getId(), limit);
+            }
+            List<AlbumSummary> albums = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Date releaseDate = rs.getDate("release_date");
+                    albums.add(new AlbumSummary(rs.getInt("id"), rs.getString("title"),
+                            releaseDate == null ? null : releaseDate.toLocalDate(), rs.getString("artist_name")));
+                }
+            }
+            return albums;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error listing albums", e);
+        }
+    }
+
+    @Override
+    public List<SongSummary> listSongs(SongSummary after, int limit) {
+        String SQL = SONG_SQL + (after == null ? "" : " WHERE (s.title, s.id) > (?, ?)") + " ORDER BY s.title, s.id LIMIT ?";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
+            if (after == null) {
+                bindPosition(statement, limit);
+            } else {
+                bindPosition(statement, after.getTitle(), after.getId(), limit);
+            }
+            return readSongs(statement);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error listing songs", e);
+        }
+    }
+
+    @Override
+    public List<SongSummary> listSongsInAlbum(String albumTitle) {
+        String SQL = SONG_SQL + " WHERE LOWER(a.title) = LOWER(?) ORDER BY s.id";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
+            statement.setString(1, albumTitle);
+            return readSongs(statement);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error listing the songs of album " + albumTitle, e);
+        }
+    }
+
+    /**
+     * Binds the limit of the query for the first page of a listing.
+     *
+     * @param statement The statement.
+     * @param limit The largest number of rows.
+     */
+    private void bindPosition(PreparedStatement statement, int limit) throws SQLException {
+        statement.setInt(1, requirePositive(limit));
+    }
+
+    /**
+     * Binds the keyset position and the limit of the query for a following page of a listing.
+     *
+     * @param statement The statement.
+     * @param lastTitle The title of the last row of the previous page.
+     * @param lastId The id of that row.
+     * @param limit The largest number of rows.
+     */
+    private void bindPosition(PreparedStatement statement, String lastTitle, int lastId, int limit) throws SQLException {
+        statement.setString(1, lastTitle);
+        statement.setInt(2, lastId);
+        statement.setInt(3, requirePositive(limit));
+    }
+
+    private static int requirePositive(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+        return limit;
+    }
+
+    private List<SongSummary> readSongs(PreparedStatement statement) throws SQLException {
+        List<SongSummary> songs = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                songs.add(new SongSummary(rs.getInt("id"), rs.getString("title"), rs.getFloat("duration"),
+                        rs.getInt("album_id"), rs.getString("album_title")));
+            }
+        }
+        return songs;
+    }
+}
@@ -0,0 +1,30 @@
+package Repository;
+
+import Domain.Album;
+import Domain.Song;
+
+import java.time.LocalDate;
+
+/**
+ * The fields of albums and songs that services query with Criteria.
+ * Fields of referenced entities that are not stored as a foreign key column use the aliases of the tables
+ * that AlbumDBRepository and SongDBRepository join: ar for the artist of the album and ag for the genre of the album.
+ */
+public final class CatalogFields {
+    public static final Field<Album, String> ALBUM_TITLE = Field.of("title", Album::getTitle);
+    public static final Field<Album, LocalDate> ALBUM_RELEASE_DATE = Field.of("release_date", Album::getReleaseDate);
+    public static final Field<Album, Integer> ALBUM_ARTIST_ID = Field.of("artist_id",
+            album -> album.getArtist() == null ? null : album.getArtist().getId());
+    public static final Field<Album, String> ALBUM_GENRE_NAME = Field.of("ag.name",
+            album -> album.getGenre() == null ? null : album.getGenre().getName());
+
+    public static final Field<Song, String> SONG_TITLE = Field.of("title", Song::getTitle);
+    public static final Field<Song, Float> SONG_DURATION = Field.of("duration", Song::getDuration);
+    public static final Field<Song, Integer> SONG_ALBUM_ID = Field.of("album_id",
+            song -> song.getAlbum() == null ? null : song.getAlbum().getId());
+    public static final Field<Song, Integer> SONG_ARTIST_ID = Field.of("ar.id",
+            song -> song.getAlbum() == null || song.getAlbum().getArtist() == null ? null : song.getAlbum().getArtist().getId());
+
+    private CatalogFields() {
+    }
+}
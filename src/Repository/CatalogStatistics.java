@@ -0,0 +1,26 @@
+package Repository;
+
+import java.util.List;
+
+/**
+ * Counts and sums over the catalog of artists, albums and songs, answered without loading the catalog:
+ * the database implementation runs GROUP BY queries, the in-memory one keeps counters up to date on every write.
+ * Only albums of an existing artist and songs of such an album are counted.
+ */
+public interface CatalogStatistics {
+    /**
+     * Returns the artists with the most songs, then the most albums, then the lowest id.
+     *
+     * @param limit The largest number of artists to return.
+     * @return The statistics of the top artists, best first.
+     */
+    List<ArtistStatistics> getTopArtists(int limit);
+
+    /**
+     * Returns the statistics of one artist.
+     *
+     * @param artistId The id of the artist.
+     * @return The statistics, or null if there is no such artist.
+     */
+    ArtistStatistics getArtistStatistics(int artistId);
+}
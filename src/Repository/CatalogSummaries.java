@@ -0,0 +1,38 @@
+package Repository;
+
+import java.util.List;
+
+/**
+ * Reads the summaries that list screens show instead of whole albums and songs:
+ * the database implementation fills them from one joined query that selects only the shown columns,
+ * the in-memory one projects the entities it already holds.
+ * Listings are ordered by title, then by id, and continue after the last summary of the previous call,
+ * so a database serves every page from an index however deep it is.
+ */
+public interface CatalogSummaries {
+    /**
+     * Lists the albums that follow a given album in title order.
+     *
+     * @param after The last album of the previous page, or null for the first page.
+     * @param limit The largest number of albums to return.
+     * @return The summaries of the albums.
+     */
+    List<AlbumSummary> listAlbums(AlbumSummary after, int limit);
+
+    /**
+     * Lists the songs that follow a given song in title order.
+     *
+     * @param after The last song of the previous page, or null for the first page.
+     * @param limit The largest number of songs to return.
+     * @return The summaries of the songs.
+     */
+    List<SongSummary> listSongs(SongSummary after, int limit);
+
+    /**
+     * Lists the songs of the albums with a title, in the order they were added.
+     *
+     * @param albumTitle The title of the album.
+     * @return The summaries of the songs, empty if there is no such album or it has no songs.
+     */
+    List<SongSummary> listSongsInAlbum(String albumTitle);
+}
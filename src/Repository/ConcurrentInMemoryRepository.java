@@ -0,0 +1,152 @@
+package Repository;
+import Domain.HasId;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+/**
+ * This class provides a thread-safe in-memory implementation of the IRepository interface.
+ * Entities are stored in a ConcurrentHashMap and ids are handed out by an AtomicInteger,
+ * so several sessions can create, update and delete entities at the same time without external locking.
+ *
+ * @param <T> The type of the entity being managed by this repository.
+ */
+public class ConcurrentInMemoryRepository<T extends HasId> implements IRepository<T> {
+    private final ConcurrentHashMap<Integer, T> data = new ConcurrentHashMap<>();
+    private final Map<Integer, T> view = Collections.unmodifiableMap(data);
+    private final SecondaryIndexes<T> indexes = new SecondaryIndexes<>();
+    private final AtomicInteger currentId = new AtomicInteger(1);
+
+    /**
+     * Creates a new entity and adds it to the repository.
+     * The id is allocated atomically, so two concurrent calls never receive the same id.
+     *
+     * @param entity The entity to be created and added to the repository.
+     * @throws IllegalArgumentException if a unique index already holds the entity's key.
+     */
+    @Override
+    public void create(T entity) {
+        int id = currentId.getAndIncrement();
+        entity.setId(id);
+        indexes.onCreate(entity);
+        data.put(id, entity);
+    }
+
+    /**
+     * Retrieves an entity by its id.
+     *
+     * @param id The id of the entity to retrieve.
+     * @return The entity associated with the given id, or null if not found.
+     */
+    @Override
+    public T get(int id) {
+        return data.get(id);
+    }
+
+    /**
+     * Reads an entity from the repository by its id.
+     *
+     * @param id The id of the entity to read.
+     * @return The entity associated with the given id, or null if not found.
+     */
+    @Override
+    public T read(int id) {
+        return data.get(id);
+    }
+
+    /**
+     * Updates an existing entity in the repository.
+     * The replacement only happens if the id is still present, so an update racing with a delete
+     * never brings a deleted entity back.
+     *
+     * @param entity The entity to update.
+     * @throws IllegalArgumentException if the entity with the specified id does not exist in the repository,
+     *                                  or if a unique index holds the entity's key for another entity.
+     */
+    @Override
+    public void update(T entity) {
+        int id = entity.getId();
+        indexes.onUpdate(entity);
+        if (data.replace(id, entity) == null) {
+            indexes.onDelete(id);
+            throw new IllegalArgumentException("Cannot update: Entity with id " + id + " does not exist.");
+        }
+    }
+
+    /**
+     * Deletes an entity from the repository by its id.
+     *
+     * @param id The id of the entity to delete.
+     * @throws IllegalArgumentException if the entity with the specified id does not exist in the repository.
+     */
+    @Override
+    public void delete(int id) {
+        if (data.remove(id) == null) {
+            throw new IllegalArgumentException("Cannot delete: Entity with id " + id + " does not exist.");
+        }
+        indexes.onDelete(id);
+        System.out.println("Entity with ID " + id + " has been deleted.");
+    }
+
+    /**
+     * Retrieves all entities stored in the repository.
+     * The returned map is a read-only view whose iteration is weakly consistent: it never throws
+     * ConcurrentModificationException and reflects some of the writes made while iterating.
+     *
+     * @return A read-only view of all entities, keyed by their ids.
+     */
+    @Override
+    public Map<Integer, T> getAll() {
+        return view;
+    }
+
+    /**
+     * Registers a case-insensitive secondary index on a field of the stored entities.
+     * The index is filled with the entities already in the repository.
+     *
+     * @param field The name of the indexed field.
+     * @param keyExtractor Function that reads the indexed value from an entity.
+     */
+    @Override
+    public void addIndex(String field, Function<T, String> keyExtractor) {
+        indexes.add(field, keyExtractor, false, data.values());
+    }
+
+    /**
+     * Registers a case-insensitive unique index on a field of the stored entities.
+     * Creates and updates that would give two entities the same normalized key are rejected.
+     *
+     * @param field The name of the indexed field.
+     * @param keyExtractor Function that reads the indexed value from an entity.
+     */
+    @Override
+    public void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        indexes.add(field, keyExtractor, true, data.values());
+    }
+
+    /**
+     * Finds an entity by the value of an indexed field with a single hash lookup.
+     *
+     * @param field The name of the indexed field.
+     * @param value The value to look up, compared case-insensitively.
+     * @return The first matching entity, or null if none is found.
+     * @throws IllegalArgumentException if no index is registered for the field.
+     */
+    @Override
+    public T findByIndex(String field, String value) {
+        return indexes.findFirst(field, value);
+    }
+
+    /**
+     * Finds the entities that match criteria, looking equality conditions on indexed fields up in the index.
+     *
+     * @param criteria The conditions, order and limit.
+     * @return The matching entities, in the order of the criteria.
+     */
+    @Override
+    public List<T> find(Criteria<T> criteria) {
+        return indexes.find(criteria, data.values());
+    }
+}
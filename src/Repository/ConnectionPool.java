@@ -0,0 +1,410 @@
+package Repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A bounded pool of JDBC connections shared by the database repositories.
+ * getConnection borrows a connection and returns a handle whose close() gives it back to the pool,
+ * so repositories borrow in a try-with-resources block around every operation and can be used from many threads.
+ * At most maxSize physical connections are open at a time; a borrower waits up to the borrow timeout for one
+ * to become free and then fails with an SQLTransientConnectionException.
+ * A connection that has been idle longer than the validation interval is checked with isValid before it is
+ * handed out, and replaced if the check fails.
+ * A connection held longer than the leak threshold is reported once, with the stack trace of the code that borrowed it.
+ * A thread that borrows while it already holds a connection gets the same connection, so a repository that
+ * reads related entities through other repositories uses one connection per operation and cannot deadlock
+ * waiting for a second one.
+ * Each physical connection keeps an LRU cache of its prepared statements, keyed by SQL text, so the repositories'
+ * prepareStatement(SQL) calls reuse statements the server has already parsed and planned.
+ */
+public class ConnectionPool implements AutoCloseable {
+    /** Default number of physical connections the pool may open. */
+    public static final int DEFAULT_MAX_SIZE = 10;
+    /** Default time, in milliseconds, a borrower waits for a free connection. */
+    public static final long DEFAULT_BORROW_TIMEOUT_MILLIS = 30_000;
+    /** Default idle time, in milliseconds, after which a connection is validated before it is handed out. */
+    public static final long DEFAULT_VALIDATION_INTERVAL_MILLIS = 30_000;
+    /** Default time, in milliseconds, a connection may be held before it is reported as a possible leak. */
+    public static final long DEFAULT_LEAK_THRESHOLD_MILLIS = 60_000;
+    /** Default number of prepared statements cached per connection. */
+    public static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens new physical connections for the pool.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+        /**
+         * Opens a new connection to the database.
+         *
+         * @return The new connection.
+         * @throws SQLException if the connection cannot be opened.
+         */
+        Connection open() throws SQLException;
+    }
+
+    private final ConnectionFactory factory;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final long validationIntervalNanos;
+    private final long leakThresholdNanos;
+    private final int statementCacheSize;
+    private final Semaphore permits;
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+    private final Set<Lease> leases = ConcurrentHashMap.newKeySet();
+    private final ThreadLocal<Lease> currentLease = new ThreadLocal<>();
+    private final ScheduledExecutorService leakDetector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connection-pool-leak-detector");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    private long borrowCount;
+    private long timeoutCount;
+    private long createdCount;
+    private long discardedCount;
+    private long leakCount;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    /**
+     * Creates a pool for the given database with the default settings.
+     *
+     * @param DBUrl The JDBC url of the database.
+     * @param DBUser The database user.
+     * @param DBPassword The password of the database user.
+     */
+    public ConnectionPool(String DBUrl, String DBUser, String DBPassword) {
+        this(() -> DriverManager.getConnection(DBUrl, DBUser, DBPassword), DEFAULT_MAX_SIZE, DEFAULT_BORROW_TIMEOUT_MILLIS,
+                DEFAULT_VALIDATION_INTERVAL_MILLIS, DEFAULT_LEAK_THRESHOLD_MILLIS);
+    }
+
+    /**
+     * Creates a pool with the default statement cache size. Connections are opened when they are first needed.
+     *
+     * @param factory Opens new physical connections.
+     * @param maxSize The largest number of physical connections open at a time.
+     * @param borrowTimeoutMillis How long, in milliseconds, a borrower waits for a free connection.
+     * @param validationIntervalMillis The idle time, in milliseconds, after which a connection is validated before use.
+     * @param leakThresholdMillis How long, in milliseconds, a connection may be held before it is reported as a leak.
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis, long validationIntervalMillis,
+                          long leakThresholdMillis) {
+        this(factory, maxSize, borrowTimeoutMillis, validationIntervalMillis, leakThresholdMillis, DEFAULT_STATEMENT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a pool. Connections are opened when they are first needed.
+     *
+     * @param factory Opens new physical connections.
+     * @param maxSize The largest number of physical connections open at a time.
+     * @param borrowTimeoutMillis How long, in milliseconds, a borrower waits for a free connection.
+     * @param validationIntervalMillis The idle time, in milliseconds, after which a connection is validated before use.
+     * @param leakThresholdMillis How long, in milliseconds, a connection may be held before it is reported as a leak.
+     * @param statementCacheSize The number of prepared statements cached per connection; 0 disables the cache.
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxSize, long borrowTimeoutMillis, long validationIntervalMillis,
+                          long leakThresholdMillis, int statementCacheSize) {
+        if (maxSize < 1 || borrowTimeoutMillis < 0 || validationIntervalMillis < 0 || leakThresholdMillis < 1
+                || statementCacheSize < 0) {
+            throw new IllegalArgumentException("Pool size and leak threshold must be positive and timeouts cannot be negative.");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationIntervalNanos = TimeUnit.MILLISECONDS.toNanos(validationIntervalMillis);
+        this.leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+        long period = Math.max(100, leakThresholdMillis / 2);
+        leakDetector.scheduleAtFixedRate(this::reportLeaks, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection. Closing the returned connection gives it back to the pool.
+     * If the calling thread already holds a connection from this pool, the same connection is returned.
+     *
+     * @return A connection that stays reserved for the caller until it is closed.
+     * @throws SQLTransientConnectionException if no connection becomes free within the borrow timeout.
+     * @throws SQLException if a new connection cannot be opened or the pool is closed.
+     */
+    public Connection getConnection() throws SQLException {
+        Lease lease = currentLease.get();
+        if (lease != null && !lease.released) {
+            lease.holds++;
+            return lease.newHandle();
+        }
+        if (closed) {
+            throw new SQLException("The connection pool is closed.");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            synchronized (this) {
+                timeoutCount++;
+            }
+            throw new SQLTransientConnectionException("No database connection became free within " + borrowTimeoutMillis
+                    + " ms; all " + maxSize + " connections are in use.");
+        }
+        PooledConnection physical;
+        try {
+            physical = takeValidConnection();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        lease = new Lease(physical);
+        currentLease.set(lease);
+        leases.add(lease);
+        synchronized (this) {
+            borrowCount++;
+            totalWaitNanos += waited;
+            maxWaitNanos = Math.max(maxWaitNanos, waited);
+        }
+        return lease.newHandle();
+    }
+
+    /**
+     * Gets a snapshot of the pool statistics.
+     *
+     * @return The current pool metrics.
+     */
+    public synchronized PoolMetrics getMetrics() {
+        return new PoolMetrics(maxSize, leases.size(), idle.size(), permits.getQueueLength(), borrowCount, timeoutCount,
+                createdCount, discardedCount, leakCount, totalWaitNanos, maxWaitNanos,
+                statementCacheHits.sum(), statementCacheMisses.sum());
+    }
+
+    /**
+     * Closes the idle connections and stops handing out new ones.
+     * Connections that are still borrowed are closed when they are given back.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        leakDetector.shutdownNow();
+        synchronized (this) {
+            for (IdleConnection connection : idle) {
+                connection.pooled.closeQuietly();
+            }
+            idle.clear();
+        }
+    }
+
+    /**
+     * Takes the most recently used idle connection, validating it if it has been idle for long,
+     * or opens a new one if none is idle. Called while holding a permit.
+     */
+    private PooledConnection takeValidConnection() throws SQLException {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (this) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                Connection physical = factory.open();
+                synchronized (this) {
+                    createdCount++;
+                }
+                return new PooledConnection(physical, new StatementCache(statementCacheSize, statementCacheHits, statementCacheMisses));
+            }
+            if (System.nanoTime() - candidate.idleSinceNanos < validationIntervalNanos || isValid(candidate.pooled.physical)) {
+                return candidate.pooled;
+            }
+            discard(candidate.pooled);
+        }
+    }
+
+    private boolean isValid(Connection physical) {
+        try {
+            return physical.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Gives a connection back once its last handle is closed. A transaction left open is rolled back,
+     * and a connection that cannot be reset is closed instead of being reused.
+     */
+    private void release(Lease lease) {
+        if (--lease.holds > 0) {
+            return;
+        }
+        lease.released = true;
+        if (currentLease.get() == lease) {
+            currentLease.remove();
+        }
+        leases.remove(lease);
+        Connection physical = lease.pooled.physical;
+        boolean reusable;
+        try {
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            reusable = !physical.isClosed();
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (!reusable) {
+            discard(lease.pooled);
+        } else if (closed) {
+            lease.pooled.closeQuietly();
+        } else {
+            synchronized (this) {
+                idle.addFirst(new IdleConnection(lease.pooled, System.nanoTime()));
+            }
+        }
+        permits.release();
+    }
+
+    private void discard(PooledConnection pooled) {
+        pooled.closeQuietly();
+        synchronized (this) {
+            discardedCount++;
+        }
+    }
+
+    private void reportLeaks() {
+        long now = System.nanoTime();
+        for (Lease lease : leases) {
+            if (!lease.leakReported && now - lease.borrowedNanos > leakThresholdNanos) {
+                lease.leakReported = true;
+                synchronized (this) {
+                    leakCount++;
+                }
+                System.out.println("Possible connection leak: a connection has been held by thread " + lease.thread.getName()
+                        + " for " + TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedNanos) + " ms.");
+                lease.borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * A physical connection together with its statement cache.
+     */
+    private static final class PooledConnection {
+        private final Connection physical;
+        private final StatementCache statements;
+
+        PooledConnection(Connection physical, StatementCache statements) {
+            this.physical = physical;
+            this.statements = statements;
+        }
+
+        void closeQuietly() {
+            statements.closeAll();
+            try {
+                physical.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static final class IdleConnection {
+        private final PooledConnection pooled;
+        private final long idleSinceNanos;
+
+        IdleConnection(PooledConnection pooled, long idleSinceNanos) {
+            this.pooled = pooled;
+            this.idleSinceNanos = idleSinceNanos;
+        }
+    }
+
+    /**
+     * One borrowing of a physical connection by a thread, which may hand out several nested handles.
+     */
+    private final class Lease {
+        private final PooledConnection pooled;
+        private final Thread thread = Thread.currentThread();
+        private final long borrowedNanos = System.nanoTime();
+        private final Throwable borrowSite = new Throwable("Connection borrowed here");
+        private int holds = 1;
+        private volatile boolean released;
+        private volatile boolean leakReported;
+
+        Lease(PooledConnection pooled) {
+            this.pooled = pooled;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /**
+     * The connection seen by a borrower: every call goes to the physical connection, except close,
+     * which gives the connection back to the pool, and prepareStatement(String), which goes through the statement cache.
+     * A closed handle cannot be used again.
+     */
+    private final class Handle implements InvocationHandler {
+        private final Lease lease;
+        private boolean handleClosed;
+
+        Handle(Lease lease) {
+            this.lease = lease;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!handleClosed) {
+                        handleClosed = true;
+                        release(lease);
+                    }
+                    return null;
+                case "isClosed":
+                    return handleClosed || lease.pooled.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled " + lease.pooled.physical;
+                default:
+                    if (handleClosed) {
+                        throw new SQLException("The connection was already given back to the pool.");
+                    }
+                    if (method.getName().equals("prepareStatement") && args.length == 1) {
+                        return lease.pooled.statements.prepare(lease.pooled.physical, (Connection) proxy, (String) args[0]);
+                    }
+                    try {
+                        return method.invoke(lease.pooled.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * A query on the entities of a repository: conditions on fields that must all hold, an order and a limit.
+ * Database repositories compile it into one parameterized SELECT, so only the matching rows are read;
+ * the in-memory and file repositories answer equality conditions on indexed fields from the index
+ * and evaluate the rest against the entities they hold.
+ * An entity whose field is null matches no condition on that field, as in SQL.
+ * Results are ordered by the order fields and then by id; null values sort after the others in ascending order.
+ * Criteria are immutable: every method returns a new one.
+ *
+ * @param <T> The type of the queried entities.
+ */
+public final class Criteria<T extends HasId> {
+    private final List<Condition<T>> conditions;
+    private final List<Order<T>> orders;
+    private final int limit;
+
+    private Criteria(List<Condition<T>> conditions, List<Order<T>> orders, int limit) {
+        this.conditions = conditions;
+        this.orders = orders;
+        this.limit = limit;
+    }
+
+    /**
+     * Creates criteria that match every entity, in id order.
+     *
+     * @return The criteria.
+     */
+    public static <T extends HasId> Criteria<T> all() {
+        return new Criteria<>(Collections.emptyList(), Collections.emptyList(), 0);
+    }
+
+    /**
+     * Adds the condition that a field equals a value.
+     *
+     * @param field The field.
+     * @param value The value.
+     * @return The new criteria.
+     */
+    public <V extends Comparable<? super V>> Criteria<T> equalTo(Field<T, V> field, V value) {
+        return with(new Condition<>(field, Operator.EQUAL, List.of(requireValue(value))));
+    }
+
+    /**
+     * Adds the condition that a text field equals a value, ignoring case.
+     *
+     * @param field The field.
+     * @param value The value.
+     * @return The new criteria.
+     */
+    public Criteria<T> equalToIgnoringCase(Field<T, String> field, String value) {
+        return with(new Condition<>(field, Operator.EQUAL_IGNORING_CASE, List.of(requireValue(value))));
+    }
+
+    /**
+     * Adds the condition that a field is at least a value.
+     *
+     * @param field The field.
+     * @param value The smallest accepted value.
+     * @return The new criteria.
+     */
+    public <V extends Comparable<? super V>> Criteria<T> atLeast(Field<T, V> field, V value) {
+        return with(new Condition<>(field, Operator.AT_LEAST, List.of(requireValue(value))));
+    }
+
+    /**
+     * Adds the condition that a field is at most a value.
+     *
+     * @param field The field.
+     * @param value The largest accepted value.
+     * @return The new criteria.
+     */
+    public <V extends Comparable<? super V>> Criteria<T> atMost(Field<T, V> field, V value) {
+        return with(new Condition<>(field, Operator.AT_MOST, List.of(requireValue(value))));
+    }
+
+    /**
+     * Adds the condition that a field lies in a range, both ends included.
+     *
+     * @param field The field.
+     * @param from The smallest accepted value.
+     * @param to The largest accepted value.
+     * @return The new criteria.
+     */
+    public <V extends Comparable<? super V>> Criteria<T> between(Field<T, V> field, V from, V to) {
+        return atLeast(field, from).atMost(field, to);
+    }
+
+    /**
+     * Adds the condition that a text field starts with a prefix, ignoring case.
+     *
+     * @param field The field.
+     * @param prefix The prefix.
+     * @return The new criteria.
+     */
+    public Criteria<T> startsWith(Field<T, String> field, String prefix) {
+        return with(new Condition<>(field, Operator.STARTS_WITH, List.of(requireValue(prefix))));
+    }
+
+    /**
+     * Adds the condition that a field equals one of several values. An empty collection matches nothing.
+     *
+     * @param field The field.
+     * @param values The accepted values.
+     * @return The new criteria.
+     */
+    public <V extends Comparable<? super V>> Criteria<T> in(Field<T, V> field, Collection<V> values) {
+        List<Object> accepted = new ArrayList<>();
+        for (V value : values) {
+            accepted.add(requireValue(value));
+        }
+        return with(new Condition<>(field, Operator.IN, Collections.unmodifiableList(accepted)));
+    }
+
+    /**
+     * Orders the results by a field, after the fields already ordered by.
+     *
+     * @param field The field.
+     * @param ascending true for ascending order, false for descending order.
+     * @return The new criteria.
+     */
+    public Criteria<T> orderBy(Field<T, ?> field, boolean ascending) {
+        List<Order<T>> newOrders = new ArrayList<>(orders);
+        newOrders.add(new Order<>(field, ascending));
+        return new Criteria<>(conditions, Collections.unmodifiableList(newOrders), limit);
+    }
+
+    /**
+     * Limits the number of results.
+     *
+     * @param maxResults The largest number of entities to return.
+     * @return The new criteria.
+     */
+    public Criteria<T> limit(int maxResults) {
+        if (maxResults <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+        return new Criteria<>(conditions, orders, maxResults);
+    }
+
+    /**
+     * Tells whether an entity meets every condition.
+     *
+     * @param entity The entity.
+     * @return true if the entity matches.
+     */
+    public boolean matches(T entity) {
+        for (Condition<T> condition : conditions) {
+            if (!condition.matches(entity)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the order of the results: by the order fields, then by id.
+     *
+     * @return The comparator.
+     */
+    public Comparator<T> comparator() {
+        Comparator<T> comparator = null;
+        for (Order<T> order : orders) {
+            Comparator<T> next = order.comparator();
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        Comparator<T> byId = Comparator.comparingInt(HasId::getId);
+        return comparator == null ? byId : comparator.thenComparing(byId);
+    }
+
+    /**
+     * Selects the matching entities from a collection, in order and up to the limit.
+     *
+     * @param candidates The entities to choose from.
+     * @return The matching entities.
+     */
+    List<T> select(Collection<T> candidates) {
+        return candidates.stream()
+                .filter(this::matches)
+                .sorted(comparator())
+                .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                .collect(Collectors.toList());
+    }
+
+    List<Condition<T>> getConditions() {
+        return conditions;
+    }
+
+    List<Order<T>> getOrders() {
+        return orders;
+    }
+
+    /**
+     * Gets the largest number of results.
+     *
+     * @return The limit, or 0 if the results are not limited.
+     */
+    int getLimit() {
+        return limit;
+    }
+
+    private Criteria<T> with(Condition<T> condition) {
+        List<Condition<T>> newConditions = new ArrayList<>(conditions);
+        newConditions.add(condition);
+        return new Criteria<>(Collections.unmodifiableList(newConditions), orders, limit);
+    }
+
+    private static <V> V requireValue(V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Criteria values must not be null.");
+        }
+        return value;
+    }
+
+    /**
+     * The comparisons a condition can make.
+     */
+    enum Operator {
+        EQUAL, EQUAL_IGNORING_CASE, AT_LEAST, AT_MOST, STARTS_WITH, IN
+    }
+
+    /**
+     * One condition on a field.
+     */
+    static final class Condition<T extends HasId> {
+        private final Field<T, ?> field;
+        private final Operator operator;
+        private final List<Object> values;
+
+        Condition(Field<T, ?> field, Operator operator, List<Object> values) {
+            if (field == null) {
+                throw new IllegalArgumentException("The field of a condition must not be null.");
+            }
+            this.field = field;
+            this.operator = operator;
+            this.values = values;
+        }
+
+        Field<T, ?> getField() {
+            return field;
+        }
+
+        Operator getOperator() {
+            return operator;
+        }
+
+        List<Object> getValues() {
+            return values;
+        }
+
+        @SuppressWarnings("unchecked")
+        boolean matches(T entity) {
+            Object actual = field.get(entity);
+            if (actual == null) {
+                return false;
+            }
+            Object expected = values.isEmpty() ? null : values.get(0);
+            switch (operator) {
+                case EQUAL:
+                    return ((Comparable<Object>) actual).compareTo(expected) == 0;
+                case EQUAL_IGNORING_CASE:
+                    return ((String) actual).equalsIgnoreCase((String) expected);
+                case AT_LEAST:
+                    return ((Comparable<Object>) actual).compareTo(expected) >= 0;
+                case AT_MOST:
+                    return ((Comparable<Object>) actual).compareTo(expected) <= 0;
+                case STARTS_WITH:
+                    return ((String) actual).toLowerCase(Locale.ROOT).startsWith(((String) expected).toLowerCase(Locale.ROOT));
+                case IN:
+                    return values.contains(actual);
+                default:
+                    throw new IllegalStateException("Unknown operator " + operator);
+            }
+        }
+    }
+
+    /**
+     * One field the results are ordered by.
+     */
+    static final class Order<T extends HasId> {
+        private final Field<T, ?> field;
+        private final boolean ascending;
+
+        Order(Field<T, ?> field, boolean ascending) {
+            if (field == null) {
+                throw new IllegalArgumentException("The field of an order must not be null.");
+            }
+            this.field = field;
+            this.ascending = ascending;
+        }
+
+        Field<T, ?> getField() {
+            return field;
+        }
+
+        boolean isAscending() {
+            return ascending;
+        }
+
+        @SuppressWarnings("unchecked")
+        Comparator<T> comparator() {
+            Comparator<T> comparator = Comparator.comparing(entity -> (Comparable<Object>) field.get(entity),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            return ascending ? comparator : comparator.reversed();
+        }
+    }
+}
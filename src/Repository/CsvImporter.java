@@ -0,0 +1,565 @@
+package Repository;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads the CSV files of the file repositories into the tables of the database repositories, in three stages.
+ * <p>
+ * Parsing: every file is parsed on a thread of its own into flat rows that hold the column values and the file ids
+ * the row references, in the columns the codecs of the file repositories define. No entities are built, so nothing
+ * is linked or printed per row. Files are parsed while earlier tables are still loading.
+ * <p>
+ * Id remapping: the database generates the ids of the new rows, so a map from file id to database id is kept
+ * for every table, and the references of a row are replaced by the database ids of the rows they point to.
+ * Tables are loaded in foreign-key order (artists, listeners, albums, songs, subscriptions, concerts, playlists),
+ * so a referenced row is always imported first. Records that are malformed, repeat an id or reference a row that
+ * was not imported are rejected and counted, as the codecs skip them when loading the files.
+ * <p>
+ * Loading: the rows are inserted as JDBC batches, which the PostgreSQL driver sends as multi-row INSERTs when the
+ * connection URL sets reWriteBatchedInserts=true. Every batch commits in its own transaction together with its id
+ * mappings, which are stored in the table ImportIdMap. A batch the database rejects with a constraint violation,
+ * such as a duplicate value of a unique column, is inserted again one row at a time, and the rows that still violate
+ * a constraint are rejected and counted. An import that fails for any other reason keeps what it committed, and
+ * running it again reloads the mappings, skips the rows already imported and continues with the next batch.
+ * The mappings belong to the files that were imported; clear ImportIdMap before importing other files.
+ * <p>
+ * Progress and throughput are printed at most once per second and table, and at the end of every table.
+ * Only the CSV snapshots are read: changes that are still in the log file of a file repository are not imported.
+ */
+public class CsvImporter {
+    /** Default number of rows inserted and committed together. */
+    public static final int DEFAULT_BATCH_SIZE = 500;
+    private static final long PROGRESS_INTERVAL_NANOS = 1_000_000_000L;
+    private static final int[] NO_IDS = new int[0];
+    private static final String CREATE_ID_MAP_SQL = "CREATE TABLE IF NOT EXISTS ImportIdMap (table_name VARCHAR(64) NOT NULL, "
+            + "source_id INT NOT NULL, target_id INT NOT NULL, PRIMARY KEY (table_name, source_id))";
+    private static final String SELECT_ID_MAP_SQL = "SELECT source_id, target_id FROM ImportIdMap WHERE table_name = ?";
+    private static final String INSERT_ID_MAP_SQL = "INSERT INTO ImportIdMap (table_name, source_id, target_id) VALUES (?, ?, ?)";
+    private static final ThreadLocal<SimpleDateFormat> CONCERT_DATE_FORMAT = ThreadLocal.withInitial(
+            () -> new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy", Locale.ENGLISH));
+
+    private static final Table ARTISTS = new Table("Artist", "artists.csv",
+            "INSERT INTO Artist (name, email) VALUES (?, ?)", List.of(), null,
+            record -> record.size() < 3 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1), record.getString(2)}, NO_IDS, NO_IDS));
+    private static final Table LISTENERS = new Table("Listener", "listeners.csv",
+            "INSERT INTO Listener (name, email) VALUES (?, ?)", List.of(), null,
+            record -> record.size() < 3 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1), record.getString(2)}, NO_IDS, NO_IDS));
+    private static final Table ALBUMS = new Table("Album", "albums.csv",
+            "INSERT INTO Album (title, release_date, artist_id) VALUES (?, ?, ?)", List.of(ARTISTS), null,
+            record -> record.size() < 4 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1), record.getLocalDate(2)},
+                    new int[]{record.getInt(3)}, NO_IDS));
+    private static final Table SONGS = new Table("Song", "songs.csv",
+            "INSERT INTO Song (title, duration, album_id) VALUES (?, ?, ?)", List.of(ALBUMS), null,
+            record -> record.size() < 4 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1), record.getFloat(2)},
+                    new int[]{record.getInt(3)}, NO_IDS));
+    private static final Table SUBSCRIPTIONS = new Table("Subscription", "subscriptions.csv",
+            "INSERT INTO Subscription (type, price, user_id) VALUES (?, ?, ?)", List.of(LISTENERS), null,
+            record -> record.size() < 4 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1), record.getFloat(2)},
+                    new int[]{record.getInt(3)}, NO_IDS));
+    private static final Table CONCERTS = new Table("LiveConcert", "liveconcerts.csv",
+            "INSERT INTO LiveConcert (title, date, ticket_count, is_available_post_live, event_type, artist_id) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", List.of(ARTISTS), null,
+            record -> record.size() < 7 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1), parseConcertDate(record.getString(2)),
+                    record.getInt(4), record.getBoolean(5), record.getString(6)}, new int[]{record.getInt(3)}, NO_IDS));
+    private static final Table PLAYLISTS = new Table("Playlist", "playlist.csv",
+            "INSERT INTO Playlist (name, user_id) VALUES (?, ?)", List.of(LISTENERS),
+            new Link("INSERT INTO PlaylistSongs (playlist_id, song_id) VALUES (?, ?)", SONGS),
+            record -> record.size() < 4 ? null
+                    : new Row(record.getInt(0), new Object[]{record.getString(1)}, new int[]{record.getInt(3)},
+                    record.isEmpty(2) ? NO_IDS : parseIds(record.getString(2))));
+    /** The imported tables, in foreign-key order. */
+    private static final List<Table> TABLES = List.of(ARTISTS, LISTENERS, ALBUMS, SONGS, SUBSCRIPTIONS, CONCERTS, PLAYLISTS);
+
+    private final ConnectionPool pool;
+    private final Path directory;
+    private final int batchSize;
+    private final int parserThreads;
+    private final PrintStream progress;
+
+    /**
+     * Creates an importer with the default batch size that parses on one thread per processor, up to one per file,
+     * and prints its progress to the standard output.
+     *
+     * @param pool The pool of the database to import into.
+     * @param directory The directory that holds the CSV files.
+     */
+    public CsvImporter(ConnectionPool pool, Path directory) {
+        this(pool, directory, DEFAULT_BATCH_SIZE, Math.min(TABLES.size(), Runtime.getRuntime().availableProcessors()), System.out);
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param pool The pool of the database to import into.
+     * @param directory The directory that holds the CSV files.
+     * @param batchSize The number of rows inserted and committed together.
+     * @param parserThreads The number of files parsed at the same time.
+     * @param progress Where progress is printed.
+     * @throws IllegalArgumentException if an argument is null or a number is not positive.
+     */
+    public CsvImporter(ConnectionPool pool, Path directory, int batchSize, int parserThreads, PrintStream progress) {
+        if (pool == null || directory == null || progress == null) {
+            throw new IllegalArgumentException("The pool, directory and progress stream must not be null.");
+        }
+        if (batchSize <= 0 || parserThreads <= 0) {
+            throw new IllegalArgumentException("The batch size and number of parser threads must be positive.");
+        }
+        this.pool = pool;
+        this.directory = directory;
+        this.batchSize = batchSize;
+        this.parserThreads = parserThreads;
+        this.progress = progress;
+    }
+
+    /**
+     * Imports the files. Missing files are treated as empty.
+     *
+     * @return What happened to the rows of every table.
+     * @throws RuntimeException if a file cannot be read or a batch fails for another reason than a constraint
+     * violation; the batches committed before are kept, and a new run continues after them.
+     */
+    public ImportReport run() {
+        long start = System.nanoTime();
+        ExecutorService parsers = Executors.newFixedThreadPool(parserThreads, runnable -> {
+            Thread thread = new Thread(runnable, "csv-import-parser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<Table, Future<ParsedFile>> parsedFiles = new LinkedHashMap<>();
+            for (Table table : TABLES) {
+                parsedFiles.put(table, parsers.submit(() -> parse(table)));
+            }
+            createIdMap();
+            Map<Table, IntObjectMap<Integer>> ids = new LinkedHashMap<>();
+            List<ImportReport.TableReport> reports = new ArrayList<>();
+            for (Table table : TABLES) {
+                reports.add(load(table, await(table, parsedFiles.get(table)), ids));
+            }
+            return new ImportReport(reports, System.nanoTime() - start);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    private ParsedFile parse(Table table) throws IOException {
+        Path path = directory.resolve(table.fileName);
+        List<Row> rows = new ArrayList<>();
+        int recordCount = 0;
+        int rejectedCount = 0;
+        if (!Files.exists(path)) {
+            return new ParsedFile(rows, recordCount, rejectedCount);
+        }
+        try (CsvReader reader = new CsvReader(path)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                if (record.size() == 1 && record.isEmpty(0)) {
+                    continue;
+                }
+                recordCount++;
+                Row row;
+                try {
+                    row = table.parser.parse(record);
+                } catch (RuntimeException e) {
+                    row = null;
+                }
+                if (row == null) {
+                    rejectedCount++;
+                } else {
+                    rows.add(row);
+                }
+            }
+        }
+        return new ParsedFile(rows, recordCount, rejectedCount);
+    }
+
+    private ParsedFile await(Table table, Future<ParsedFile> parsedFile) {
+        try {
+            return parsedFile.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while parsing " + table.fileName, e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error reading " + table.fileName, e.getCause());
+        }
+    }
+
+    private ImportReport.TableReport load(Table table, ParsedFile file, Map<Table, IntObjectMap<Integer>> ids) {
+        long start = System.nanoTime();
+        long lastProgress = start;
+        IntObjectMap<Integer> tableIds = readIdMap(table);
+        ids.put(table, tableIds);
+        IntObjectMap<Boolean> seen = new IntObjectMap<>(file.rows.size());
+        List<MappedRow> batch = new ArrayList<>(batchSize);
+        int importedCount = 0;
+        int skippedCount = 0;
+        int rejectedCount = file.rejectedCount;
+        int done = 0;
+        for (Row row : file.rows) {
+            done++;
+            if (seen.put(row.sourceId, Boolean.TRUE) != null) {
+                rejectedCount++;
+            } else if (tableIds.containsKey(row.sourceId)) {
+                skippedCount++;
+            } else {
+                MappedRow mapped = remap(table, row, ids);
+                if (mapped == null) {
+                    rejectedCount++;
+                } else {
+                    batch.add(mapped);
+                }
+            }
+            if (batch.size() == batchSize) {
+                int inserted = insertBatch(table, batch, tableIds);
+                importedCount += inserted;
+                rejectedCount += batch.size() - inserted;
+                batch.clear();
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    printProgress(table, done, file.rows.size(), importedCount, now - start);
+                    lastProgress = now;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            int inserted = insertBatch(table, batch, tableIds);
+            importedCount += inserted;
+            rejectedCount += batch.size() - inserted;
+        }
+        long loadNanos = System.nanoTime() - start;
+        printProgress(table, done, file.rows.size(), importedCount, loadNanos);
+        return new ImportReport.TableReport(table.name, file.recordCount, importedCount, skippedCount, rejectedCount, loadNanos);
+    }
+
+    /**
+     * Replaces the file ids a row references with database ids.
+     *
+     * @return The row to insert, or null if a referenced row was not imported. Linked rows that were not imported are left out.
+     */
+    private MappedRow remap(Table table, Row row, Map<Table, IntObjectMap<Integer>> ids) {
+        Object[] parameters = Arrays.copyOf(row.values, row.values.length + row.references.length);
+        for (int i = 0; i < row.references.length; i++) {
+            Integer target = ids.get(table.references.get(i)).get(row.references[i]);
+            if (target == null) {
+                return null;
+            }
+            parameters[row.values.length + i] = target;
+        }
+        int[] links = NO_IDS;
+        if (row.links.length > 0) {
+            IntObjectMap<Integer> linkIds = ids.get(table.link.target);
+            links = Arrays.stream(row.links)
+                    .mapToObj(linkIds::get)
+                    .filter(target -> target != null)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        return new MappedRow(row.sourceId, parameters, links);
+    }
+
+    /**
+     * Inserts a batch of rows, their id mappings and their linked rows in one transaction,
+     * then records the new ids for the tables that reference this one. If the database rejects the batch
+     * with a constraint violation, its rows are inserted one at a time and the rejected ones are left out.
+     *
+     * @return The number of inserted rows.
+     */
+    private int insertBatch(Table table, List<MappedRow> batch, IntObjectMap<Integer> tableIds) {
+        int[] generated;
+        try {
+            generated = insertInTransaction(table, batch);
+        } catch (SQLException e) {
+            if (!isConstraintViolation(e)) {
+                throw new RuntimeException("Error importing " + table.name + "; the rows committed so far are kept "
+                        + "and the next import continues after them", e);
+            }
+            if (batch.size() == 1) {
+                progress.println("Rejected " + table.name + " row " + batch.get(0).sourceId + ": " + e.getMessage());
+                return 0;
+            }
+            int inserted = 0;
+            for (MappedRow row : batch) {
+                inserted += insertBatch(table, List.of(row), tableIds);
+            }
+            return inserted;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            tableIds.put(batch.get(i).sourceId, generated[i]);
+        }
+        return batch.size();
+    }
+
+    private int[] insertInTransaction(Table table, List<MappedRow> batch) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int[] generated = insertRows(connection, table, batch);
+                insertIdMap(connection, table, batch, generated);
+                if (table.link != null) {
+                    insertLinks(connection, table.link, batch, generated);
+                }
+                connection.commit();
+                return generated;
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Tells whether the database refused the statement because of a constraint, SQLState class 23,
+     * looking also at the exceptions chained to a failed batch.
+     */
+    private static boolean isConstraintViolation(SQLException e) {
+        for (SQLException current = e; current != null; current = current.getNextException()) {
+            String state = current.getSQLState();
+            if (state != null && state.startsWith("23")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int[] insertRows(Connection connection, Table table, List<MappedRow> batch) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(table.insertSql, new String[]{"id"})) {
+            for (MappedRow row : batch) {
+                for (int i = 0; i < row.parameters.length; i++) {
+                    bind(statement, i + 1, row.parameters[i]);
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            int[] generated = new int[batch.size()];
+            try (ResultSet keys = statement.getGeneratedKeys()) {
+                for (int i = 0; i < generated.length; i++) {
+                    if (!keys.next()) {
+                        throw new SQLException("The database returned fewer ids than rows inserted into " + table.name);
+                    }
+                    generated[i] = keys.getInt(1);
+                }
+            }
+            return generated;
+        }
+    }
+
+    private void insertIdMap(Connection connection, Table table, List<MappedRow> batch, int[] generated) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(INSERT_ID_MAP_SQL)) {
+            for (int i = 0; i < generated.length; i++) {
+                statement.setString(1, table.name);
+                statement.setInt(2, batch.get(i).sourceId);
+                statement.setInt(3, generated[i]);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private void insertLinks(Connection connection, Link link, List<MappedRow> batch, int[] generated) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(link.insertSql)) {
+            boolean pending = false;
+            for (int i = 0; i < generated.length; i++) {
+                for (int target : batch.get(i).links) {
+                    statement.setInt(1, generated[i]);
+                    statement.setInt(2, target);
+                    statement.addBatch();
+                    pending = true;
+                }
+            }
+            if (pending) {
+                statement.executeBatch();
+            }
+        }
+    }
+
+    private void createIdMap() {
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_ID_MAP_SQL);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating the import id map", e);
+        }
+    }
+
+    /**
+     * Reads the ids of the rows of a table that earlier imports inserted.
+     *
+     * @return The database ids of the imported rows, by file id.
+     */
+    private IntObjectMap<Integer> readIdMap(Table table) {
+        IntObjectMap<Integer> tableIds = new IntObjectMap<>();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_ID_MAP_SQL)) {
+            statement.setString(1, table.name);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    tableIds.put(rs.getInt("source_id"), rs.getInt("target_id"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading the import id map of " + table.name, e);
+        }
+        return tableIds;
+    }
+
+    private void printProgress(Table table, int done, int total, int importedCount, long elapsedNanos) {
+        double rowsPerSecond = elapsedNanos == 0 ? 0 : importedCount * 1_000_000_000.0 / elapsedNanos;
+        progress.printf("%-12s %d/%d rows, %d imported, %.0f rows/s%n", table.name, done, total, importedCount, rowsPerSecond);
+    }
+
+    private static void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null) {
+            statement.setNull(index, Types.NULL);
+        } else if (value instanceof LocalDate) {
+            statement.setDate(index, Date.valueOf((LocalDate) value));
+        } else {
+            statement.setObject(index, value);
+        }
+    }
+
+    private static Date parseConcertDate(String text) {
+        try {
+            return new Date(CONCERT_DATE_FORMAT.get().parse(text).getTime());
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid concert date: " + text, e);
+        }
+    }
+
+    /**
+     * Parses the ids of a list separated by ';', leaving out the ones that are not numbers, as PlaylistCodec does.
+     */
+    private static int[] parseIds(String text) {
+        return Arrays.stream(text.split(";"))
+                .map(String::trim)
+                .filter(id -> id.matches("-?\\d+"))
+                .mapToInt(Integer::parseInt)
+                .toArray();
+    }
+
+    /**
+     * Reads one record of a file into a row, or returns null if the record is incomplete.
+     * It may throw a RuntimeException for a malformed value; the record is then rejected as well.
+     */
+    private interface RowParser {
+        Row parse(CsvRecord record);
+    }
+
+    /**
+     * One imported table: its file, its INSERT statement and the tables its rows reference.
+     * The INSERT statement lists the value columns first and then one column per referenced table.
+     */
+    private static final class Table {
+        final String name;
+        final String fileName;
+        final String insertSql;
+        final List<Table> references;
+        final Link link;
+        final RowParser parser;
+
+        Table(String name, String fileName, String insertSql, List<Table> references, Link link, RowParser parser) {
+            this.name = name;
+            this.fileName = fileName;
+            this.insertSql = insertSql;
+            this.references = references;
+            this.link = link;
+            this.parser = parser;
+        }
+    }
+
+    /**
+     * A join table filled for the rows of an imported table, such as the songs of a playlist.
+     * Its INSERT statement takes the id of the row and the id of the linked row.
+     */
+    private static final class Link {
+        final String insertSql;
+        final Table target;
+
+        Link(String insertSql, Table target) {
+            this.insertSql = insertSql;
+            this.target = target;
+        }
+    }
+
+    /**
+     * A record as it was parsed: its values and the file ids it references.
+     */
+    private static final class Row {
+        final int sourceId;
+        final Object[] values;
+        final int[] references;
+        final int[] links;
+
+        Row(int sourceId, Object[] values, int[] references, int[] links) {
+            this.sourceId = sourceId;
+            this.values = values;
+            this.references = references;
+            this.links = links;
+        }
+    }
+
+    /**
+     * A row ready to insert: its parameters with the references replaced by database ids,
+     * and the database ids of its linked rows.
+     */
+    private static final class MappedRow {
+        final int sourceId;
+        final Object[] parameters;
+        final int[] links;
+
+        MappedRow(int sourceId, Object[] parameters, int[] links) {
+            this.sourceId = sourceId;
+            this.parameters = parameters;
+            this.links = links;
+        }
+    }
+
+    /**
+     * The rows of one file, with the number of records read and rejected.
+     */
+    private static final class ParsedFile {
+        final List<Row> rows;
+        final int recordCount;
+        final int rejectedCount;
+
+        ParsedFile(List<Row> rows, int recordCount, int rejectedCount) {
+            this.rows = rows;
+            this.recordCount = recordCount;
+            this.rejectedCount = rejectedCount;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package Repository;
+
+import Domain.HasId;
+
+/**
+ * Builds one RFC 4180 CSV line field by field.
+ * Text fields that contain a comma, a quote or a line break are quoted, with embedded quotes doubled,
+ * so CsvReader reads back exactly the values that were added.
+ */
+public class CsvLine {
+    private final StringBuilder text = new StringBuilder(64);
+    private boolean empty = true;
+
+    /**
+     * Appends a text field. A null value is written as an empty field.
+     *
+     * @param value The value of the field.
+     * @return This line, for chaining.
+     */
+    public CsvLine add(String value) {
+        separate();
+        if (value == null) {
+            return this;
+        }
+        if (needsQuotes(value)) {
+            text.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    text.append('"');
+                }
+                text.append(c);
+            }
+            text.append('"');
+        } else {
+            text.append(value);
+        }
+        return this;
+    }
+
+    /**
+     * Appends an int field.
+     *
+     * @param value The value of the field.
+     * @return This line, for chaining.
+     */
+    public CsvLine add(int value) {
+        separate();
+        text.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a float field.
+     *
+     * @param value The value of the field.
+     * @return This line, for chaining.
+     */
+    public CsvLine add(float value) {
+        separate();
+        text.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a boolean field.
+     *
+     * @param value The value of the field.
+     * @return This line, for chaining.
+     */
+    public CsvLine add(boolean value) {
+        separate();
+        text.append(value);
+        return this;
+    }
+
+    /**
+     * Appends the id of a referenced entity, or 0 if there is no reference.
+     *
+     * @param reference The referenced entity, may be null.
+     * @return This line, for chaining.
+     */
+    public CsvLine addReference(HasId reference) {
+        return add(reference == null ? 0 : reference.getId());
+    }
+
+    /**
+     * Clears the line so it can be reused.
+     *
+     * @return This line, for chaining.
+     */
+    public CsvLine reset() {
+        text.setLength(0);
+        empty = true;
+        return this;
+    }
+
+    /**
+     * Returns the line, without a line terminator.
+     *
+     * @return The CSV text of the line.
+     */
+    @Override
+    public String toString() {
+        return text.toString();
+    }
+
+    private void separate() {
+        if (!empty) {
+            text.append(',');
+        }
+        empty = false;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,213 @@
+package Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A streaming RFC 4180 CSV reader.
+ * The file is read through a FileChannel into one reusable byte buffer and tokenized in a single pass:
+ * every byte is looked at once and copied at most once, into the reusable CsvRecord.
+ * Fields may be quoted; inside quotes, commas and line breaks are part of the field and "" stands for one quote.
+ * Records end at LF or CRLF. A record longer than the buffer makes the buffer grow.
+ * The returned CsvRecord is reused, so its values must be read before the next call to next.
+ */
+public class CsvReader implements AutoCloseable {
+    /** Default size, in bytes, of the read buffer. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final CsvRecord record = new CsvRecord();
+    private byte[] buffer;
+    private int position;
+    private int limit;
+    private long bufferOffset;
+    private boolean endOfInput;
+    private long recordOffset;
+    private boolean recordTerminated;
+
+    /**
+     * Opens a CSV file with the default buffer size.
+     *
+     * @param path The file to read.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvReader(Path path) throws IOException {
+        this(path, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a CSV file.
+     *
+     * @param path The file to read.
+     * @param bufferSize The initial size of the read buffer, in bytes.
+     * @throws IOException if the file cannot be opened.
+     */
+    public CsvReader(Path path, int bufferSize) throws IOException {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive.");
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Reads the next record.
+     *
+     * @return The next record, or null at the end of the file. The object is reused by the next call.
+     * @throws IOException if the file cannot be read.
+     */
+    public CsvRecord next() throws IOException {
+        while (true) {
+            if (position >= limit) {
+                if (endOfInput) {
+                    return null;
+                }
+                fill();
+                continue;
+            }
+            int end = parse();
+            if (end >= 0) {
+                recordOffset = bufferOffset + position;
+                position = end;
+                return record;
+            }
+            fill();
+        }
+    }
+
+    /**
+     * Moves the reader to a byte offset, so that the next call to next reads the record starting there.
+     * Used to read single records through an index of record offsets.
+     *
+     * @param offset The byte offset of a record start.
+     * @throws IOException if the position cannot be changed.
+     */
+    public void seek(long offset) throws IOException {
+        channel.position(offset);
+        bufferOffset = offset;
+        position = 0;
+        limit = 0;
+        endOfInput = false;
+    }
+
+    /**
+     * Gets the offset in the file at which the last returned record starts.
+     *
+     * @return The byte offset of the last record.
+     */
+    public long recordOffset() {
+        return recordOffset;
+    }
+
+    /**
+     * Checks whether the last returned record ended with a line break.
+     * Only the last record of a file can be unterminated, for example when a write was cut short.
+     *
+     * @return true if the record was followed by LF or CRLF.
+     */
+    public boolean recordTerminated() {
+        return recordTerminated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Tokenizes one record starting at the current position.
+     *
+     * @return The position just after the record, or -1 if the buffer ends before the record does.
+     */
+    private int parse() {
+        record.reset();
+        byte[] bytes = buffer;
+        int i = position;
+        while (true) {
+            if (i < limit && bytes[i] == '"') {
+                i++;
+                while (true) {
+                    if (i >= limit) {
+                        if (!endOfInput) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    byte b = bytes[i];
+                    if (b == '"') {
+                        if (i + 1 >= limit && !endOfInput) {
+                            return -1;
+                        }
+                        if (i + 1 < limit && bytes[i + 1] == '"') {
+                            record.append((byte) '"');
+                            i += 2;
+                        } else {
+                            i++;
+                            break;
+                        }
+                    } else {
+                        record.append(b);
+                        i++;
+                    }
+                }
+            }
+            while (i < limit) {
+                byte b = bytes[i];
+                if (b == ',' || b == '\n' || b == '\r') {
+                    break;
+                }
+                record.append(b);
+                i++;
+            }
+            if (i >= limit) {
+                if (!endOfInput) {
+                    return -1;
+                }
+                record.endField();
+                recordTerminated = false;
+                return i;
+            }
+            record.endField();
+            byte b = bytes[i];
+            if (b == ',') {
+                i++;
+                continue;
+            }
+            if (b == '\r') {
+                if (i + 1 >= limit && !endOfInput) {
+                    return -1;
+                }
+                i += (i + 1 < limit && bytes[i + 1] == '\n') ? 2 : 1;
+            } else {
+                i++;
+            }
+            recordTerminated = true;
+            return i;
+        }
+    }
+
+    /**
+     * Moves the unread bytes to the front of the buffer, growing it if it is full, and reads more input.
+     */
+    private void fill() throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            bufferOffset += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = channel.read(ByteBuffer.wrap(buffer, limit, buffer.length - limit));
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+}
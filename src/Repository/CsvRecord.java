@@ -0,0 +1,227 @@
+package Repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * One record read by a CsvReader.
+ * The unescaped bytes of all fields are kept in one reusable array, so reading a record allocates nothing;
+ * a String is created only when a field is read with getString. Numbers, booleans and ISO dates
+ * are parsed straight from the bytes.
+ */
+public class CsvRecord {
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private byte[] bytes = new byte[256];
+    private int length;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private int firstField;
+
+    /**
+     * Gets the number of fields in the record.
+     *
+     * @return The number of fields.
+     */
+    public int size() {
+        return fieldCount - firstField;
+    }
+
+    /**
+     * Checks whether a field is empty.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return true if the field has no characters.
+     */
+    public boolean isEmpty(int index) {
+        return start(index) == end(index);
+    }
+
+    /**
+     * Reads a field as text.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return The unescaped value of the field.
+     */
+    public String getString(int index) {
+        int start = start(index);
+        return new String(bytes, start, end(index) - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a field as a decimal int.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return The value of the field.
+     * @throws NumberFormatException if the field is not a valid int.
+     */
+    public int getInt(int index) {
+        int i = start(index);
+        int end = end(index);
+        boolean negative = i < end && bytes[i] == '-';
+        if (negative) {
+            i++;
+        }
+        if (i == end || end - i > 10) {
+            return Integer.parseInt(getString(index).trim());
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(getString(index).trim());
+            }
+            value = value * 10 + digit;
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + getString(index));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads a field as a float.
+     * Plain decimals such as "3.05" are parsed from the bytes; any other notation is handed to Float.parseFloat.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return The value of the field.
+     * @throws NumberFormatException if the field is not a valid float.
+     */
+    public float getFloat(int index) {
+        int i = start(index);
+        int end = end(index);
+        boolean negative = i < end && bytes[i] == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return Float.parseFloat(getString(index));
+            }
+        }
+        if (digits == 0) {
+            return Float.parseFloat(getString(index));
+        }
+        double value = mantissa / POWERS_OF_TEN[Math.max(scale, 0)];
+        return (float) (negative ? -value : value);
+    }
+
+    /**
+     * Reads a field as a boolean, with the rules of Boolean.parseBoolean.
+     *
+     * @param index The index of the field, starting at 0.
+     * @return true if the field is "true", ignoring case.
+     */
+    public boolean getBoolean(int index) {
+        int start = start(index);
+        if (end(index) - start != 4) {
+            return false;
+        }
+        return (bytes[start] | 0x20) == 't' && (bytes[start + 1] | 0x20) == 'r'
+                && (bytes[start + 2] | 0x20) == 'u' && (bytes[start + 3] | 0x20) == 'e';
+    }
+
+    /**
+     * Reads a field as an ISO date (yyyy-MM-dd).
+     *
+     * @param index The index of the field, starting at 0.
+     * @return The date in the field.
+     * @throws java.time.DateTimeException if the field is not a valid date.
+     */
+    public LocalDate getLocalDate(int index) {
+        int start = start(index);
+        if (end(index) - start == 10 && bytes[start + 4] == '-' && bytes[start + 7] == '-') {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(getString(index));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < size(); i++) {
+            if (i > 0) {
+                text.append(',');
+            }
+            text.append(getString(i));
+        }
+        return text.toString();
+    }
+
+    /**
+     * Hides the first fields of the record, so that field 0 becomes the field at the given index.
+     * Used for log records, whose first field is the operation.
+     */
+    void skipFields(int count) {
+        firstField += count;
+    }
+
+    void reset() {
+        length = 0;
+        fieldCount = 0;
+        firstField = 0;
+    }
+
+    void append(byte b) {
+        if (length == bytes.length) {
+            bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        bytes[length++] = b;
+    }
+
+    void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        }
+        fieldEnds[fieldCount++] = length;
+    }
+
+    private int start(int index) {
+        int field = checkIndex(index);
+        return field == 0 ? 0 : fieldEnds[field - 1];
+    }
+
+    private int end(int index) {
+        return fieldEnds[checkIndex(index)];
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Field " + index + " does not exist; the record has " + size() + " fields.");
+        }
+        return firstField + index;
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
@@ -1,21 +1,627 @@
 package Repository;
+import Domain.HasId;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-public abstract class  DBRepository<T> implements IRepository<T>, AutoCloseable{
-    protected Connection connection;
-    DBRepository(String DBUrl, String DBUser, String DBPassword) {
-        try
-        {
-            this.connection = DriverManager.getConnection(DBUrl, DBUser, DBPassword);
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+/**
+ * Base class of the repositories that store their entities in a relational database.
+ * Every operation borrows a connection from the shared ConnectionPool and gives it back when it is done,
+ * so one repository can be used by several threads and all repositories share a bounded number of connections.
+ * Bulk writes go through JDBC batches inside one transaction: with reWriteBatchedInserts=true in the JDBC url,
+ * the PostgreSQL driver also folds each batch of inserts into multi-row INSERT statements.
+ *
+ * @param <T> The type of objects stored in the repository.
+ */
+public abstract class  DBRepository<T extends HasId> implements IRepository<T>, AutoCloseable{
+    private static final Pattern COLUMN_NAME = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+    private static final String UNIQUE_VIOLATION = "23505";
+    /** Number of rows sent to the database by one executeBatch call. */
+    protected static final int BATCH_SIZE = 500;
+    /** Number of rows a streaming query fetches from the server cursor at a time. */
+    protected static final int FETCH_SIZE = 1000;
+    protected final ConnectionPool pool;
+    private final Set<String> indexedColumns = ConcurrentHashMap.newKeySet();
+    DBRepository(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the parameters of a statement for one item of a batch.
+     *
+     * @param <E> The type of the items.
+     */
+    @FunctionalInterface
+    protected interface StatementBinder<E> {
+        void bind(PreparedStatement statement, E item) throws SQLException;
+    }
+
+    /**
+     * Database work that runs on one connection inside a transaction.
+     */
+    @FunctionalInterface
+    protected interface TransactionWork {
+        void run(Connection connection) throws SQLException;
+    }
+
+    /**
+     * Reads the next element of a streamed query.
+     *
+     * @param <R> The type of the elements.
+     */
+    @FunctionalInterface
+    protected interface CursorReader<R> {
+        /**
+         * Reads the next element, moving the result set forward itself.
+         *
+         * @param rs The result set of the query, before its first row on the first call.
+         * @return The next element, or null once the result set is exhausted.
+         * @throws SQLException if a row cannot be read.
+         */
+        R next(ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * A CursorReader for queries ordered by a key column, where the consecutive rows with the same key
+     * make up one element, such as an artist and its albums.
+     *
+     * @param <R> The type of the elements.
+     */
+    protected abstract static class GroupingReader<R> implements CursorReader<R> {
+        private final String keyColumn;
+        private boolean started;
+        private boolean exhausted;
+
+        protected GroupingReader(String keyColumn) {
+            this.keyColumn = keyColumn;
+        }
+
+        @Override
+        public final R next(ResultSet rs) throws SQLException {
+            if (!started) {
+                started = true;
+                exhausted = !rs.next();
+            }
+            if (exhausted) {
+                return null;
+            }
+            int key = rs.getInt(keyColumn);
+            R element = startElement(key, rs);
+            while (true) {
+                addRow(element, rs);
+                if (!rs.next()) {
+                    exhausted = true;
+                    return element;
+                }
+                if (rs.getInt(keyColumn) != key) {
+                    return element;
+                }
+            }
+        }
+
+        /**
+         * Creates the element for a new key, from the first of its rows.
+         */
+        protected abstract R startElement(int key, ResultSet rs) throws SQLException;
+
+        /**
+         * Adds one row, including the first one, to the element of its key.
+         */
+        protected abstract void addRow(R element, ResultSet rs) throws SQLException;
+    }
+
+    /**
+     * Returns the name of the table that stores the entities of this repository.
+     *
+     * @return The table name.
+     */
+    protected abstract String getTableName();
+
+    /**
+     * Builds an entity from the current row of a result set.
+     *
+     * @param rs The result set, positioned on the row to read.
+     * @return The entity built from the row.
+     * @throws SQLException if a column cannot be read.
+     */
+    protected abstract T extractFromResultSet(ResultSet rs) throws SQLException;
+
+    /**
+     * Returns the SELECT statement, without a WHERE clause, whose rows extractFromResultSet reads.
+     * Repositories that load referenced entities with joins override it together with getColumnPrefix.
+     *
+     * @return The SELECT statement.
+     */
+    protected String getSelectSql() {
+        return "SELECT * FROM " + getTableName();
+    }
+
+    /**
+     * Returns the prefix that qualifies the columns of this table in getSelectSql, such as "s." for a table aliased s.
+     *
+     * @return The prefix, empty if the statement reads a single table.
+     */
+    protected String getColumnPrefix() {
+        return "";
+    }
+
+    /**
+     * Registers a case-insensitive index on a column of this repository's table.
+     * The field name is used as column name, and a database index on LOWER(column) is created
+     * if it does not exist yet, so findByIndex becomes a single indexed lookup.
+     * The key extractor is not needed here because the database evaluates the column itself.
+     *
+     * @param field The column to index.
+     * @param keyExtractor Function that reads the indexed value from an entity (unused by the database).
+     */
+    @Override
+    public void addIndex(String field, Function<T, String> keyExtractor) {
+        try {
+            createLowerCaseIndex(field, false);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error creating index on " + getTableName() + "." + field, e);
+        }
+        indexedColumns.add(field);
+    }
+
+    /**
+     * Registers a case-insensitive unique index on a column of this repository's table.
+     * A unique database index on LOWER(column) is created if it does not exist yet, so the database
+     * rejects inserts and updates that duplicate an existing value; batched writes report them as an
+     * IllegalArgumentException, like the in-memory repositories do.
+     * If the table already contains duplicates the unique index cannot be built; a warning is printed to
+     * the error stream and a plain index is created instead, so lookups stay indexed but the database no longer
+     * rejects duplicates.
+     *
+     * @param field The column to index.
+     * @param keyExtractor Function that reads the indexed value from an entity (unused by the database).
+     */
+    @Override
+    public void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        try {
+            createLowerCaseIndex(field, true);
+            indexedColumns.add(field);
+        } catch (SQLException e) {
+            System.err.println("WARNING: could not create a unique index on " + getTableName() + "." + field
+                    + ", probably because the table already holds duplicates. Duplicate values are not rejected"
+                    + " by the database until they are removed and the index is created. Cause: " + e.getMessage());
+            addIndex(field, keyExtractor);
+        }
+    }
+
+    private void createLowerCaseIndex(String field, boolean unique) throws SQLException {
+        if (!COLUMN_NAME.matcher(field).matches()) {
+            throw new IllegalArgumentException("Invalid column name: " + field);
+        }
+        String indexName = "idx_" + getTableName().toLowerCase() + "_" + field.toLowerCase() + (unique ? "_unique" : "_lower");
+        String SQL = "CREATE " + (unique ? "UNIQUE " : "") + "INDEX IF NOT EXISTS " + indexName
+                + " ON " + getTableName() + " (LOWER(" + field + "))";
+        try (Connection connection = pool.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.executeUpdate(SQL);
+        }
+    }
+
+    /**
+     * Finds an entity by the value of an indexed column with a single WHERE query.
+     *
+     * @param field The indexed column.
+     * @param value The value to look up, compared case-insensitively.
+     * @return The matching entity with the lowest id, or null if none is found.
+     * @throws IllegalArgumentException if no index is registered for the column.
+     */
+    @Override
+    public T findByIndex(String field, String value) {
+        if (!indexedColumns.contains(field)) {
+            throw new IllegalArgumentException("No index registered for field '" + field + "'.");
+        }
+        String SQL = getSelectSql() + " WHERE LOWER(" + getColumnPrefix() + field + ") = LOWER(?)"
+                + " ORDER BY " + getColumnPrefix() + "id LIMIT 1";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
+            statement.setString(1, value);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? extractFromResultSet(rs) : null;
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding " + getTableName() + " by " + field, e);
+        }
+    }
+
+    /**
+     * Streams the rows of getSelectSql through a server-side cursor, FETCH_SIZE rows at a time,
+     * building each entity with extractFromResultSet.
+     */
+    @Override
+    public Stream<T> stream() {
+        return streamQuery(getSelectSql(), rs -> rs.next() ? extractFromResultSet(rs) : null);
+    }
+
+    /**
+     * Reads one page with WHERE (field, id) &gt; (?, ?) ORDER BY field, id LIMIT ?, asking for one extra row
+     * to know whether another page follows. With an index on the sort field, the cost of a page does not depend
+     * on how deep into the listing it is.
+     *
+     * @param request The order, size and position of the page.
+     * @return The page.
+     * @throws IllegalArgumentException if the sort field is not a valid column name.
+     */
+    @Override
+    public Page<T> findPage(PageRequest<T> request) {
+        String sortField = request.getSortField();
+        if (sortField != null && !COLUMN_NAME.matcher(sortField).matches()) {
+            throw new IllegalArgumentException("Invalid column name: " + sortField);
+        }
+        String id = getColumnPrefix() + "id";
+        String order = sortField == null ? id : getColumnPrefix() + sortField + ", " + id;
+        StringBuilder SQL = new StringBuilder(getSelectSql());
+        if (!request.isFirstPage()) {
+            SQL.append(sortField == null ? " WHERE " + id + " > ?" : " WHERE (" + order + ") > (?, ?)");
+        }
+        SQL.append(" ORDER BY ").append(order).append(" LIMIT ?");
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL.toString())) {
+            int parameter = 1;
+            if (!request.isFirstPage()) {
+                if (sortField != null) {
+                    statement.setObject(parameter++, toSqlValue(request.getLastKey()));
+                }
+                statement.setInt(parameter++, request.getLastId());
+            }
+            statement.setInt(parameter, request.getLimit() + 1);
+            List<T> rows = new ArrayList<>(request.getLimit() + 1);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(extractFromResultSet(rs));
+                }
+            }
+            return Page.fromRows(rows, request);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error reading a page of " + getTableName(), e);
         }
-        catch (SQLException e) {
-            throw new RuntimeException(e);
+    }
+
+    /**
+     * Finds the entities that match criteria with one parameterized query, so only the matching rows are read.
+     * Unqualified columns are qualified with getColumnPrefix; qualified ones must name a table that getSelectSql joins.
+     *
+     * @param criteria The conditions, order and limit.
+     * @return The matching entities, in the order of the criteria.
+     */
+    @Override
+    public List<T> find(Criteria<T> criteria) {
+        StringBuilder SQL = new StringBuilder(getSelectSql());
+        List<Object> parameters = new ArrayList<>();
+        String separator = " WHERE ";
+        for (Criteria.Condition<T> condition : criteria.getConditions()) {
+            SQL.append(separator).append(toSqlCondition(condition, parameters));
+            separator = " AND ";
+        }
+        SQL.append(" ORDER BY ");
+        for (Criteria.Order<T> order : criteria.getOrders()) {
+            SQL.append(column(order.getField())).append(order.isAscending() ? " ASC" : " DESC").append(", ");
+        }
+        SQL.append(getColumnPrefix()).append("id");
+        if (criteria.getLimit() > 0) {
+            SQL.append(" LIMIT ?");
+            parameters.add(criteria.getLimit());
+        }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL.toString())) {
+            for (int i = 0; i < parameters.size(); i++) {
+                statement.setObject(i + 1, toSqlValue(parameters.get(i)));
+            }
+            List<T> rows = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(extractFromResultSet(rs));
+                }
+            }
+            return rows;
+        } catch (SQLException e) {
+            throw new RuntimeException("Error finding " + getTableName(), e);
         }
     }
 
+    /**
+     * Compiles one condition into SQL, adding the values it compares with to the parameters.
+     */
+    private String toSqlCondition(Criteria.Condition<T> condition, List<Object> parameters) {
+        String column = column(condition.getField());
+        List<Object> values = condition.getValues();
+        switch (condition.getOperator()) {
+            case EQUAL:
+                parameters.add(values.get(0));
+                return column + " = ?";
+            case EQUAL_IGNORING_CASE:
+                parameters.add(values.get(0));
+                return "LOWER(" + column + ") = LOWER(?)";
+            case AT_LEAST:
+                parameters.add(values.get(0));
+                return column + " >= ?";
+            case AT_MOST:
+                parameters.add(values.get(0));
+                return column + " <= ?";
+            case STARTS_WITH:
+                String prefix = ((String) values.get(0)).toLowerCase(Locale.ROOT)
+                        .replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+                parameters.add(prefix + "%");
+                return "LOWER(" + column + ") LIKE ? ESCAPE '\\'";
+            case IN:
+                if (values.isEmpty()) {
+                    return "FALSE";
+                }
+                parameters.addAll(values);
+                return column + " IN (" + String.join(", ", Collections.nCopies(values.size(), "?")) + ")";
+            default:
+                throw new IllegalArgumentException("Unsupported operator " + condition.getOperator());
+        }
+    }
+
+    private String column(Field<T, ?> field) {
+        return field.isQualified() ? field.getColumn() : getColumnPrefix() + field.getColumn();
+    }
+
+    /**
+     * Converts a key read from an entity into a value the driver can bind; java.util.Date and LocalDate have no JDBC mapping
+     * that every driver accepts.
+     */
+    private static Object toSqlValue(Object key) {
+        if (key instanceof java.util.Date && !(key instanceof java.sql.Date) && !(key instanceof java.sql.Timestamp)) {
+            return new java.sql.Timestamp(((java.util.Date) key).getTime());
+        }
+        if (key instanceof java.time.LocalDate) {
+            return java.sql.Date.valueOf((java.time.LocalDate) key);
+        }
+        return key;
+    }
+
+    /**
+     * Runs a query and returns its elements as a stream backed by a server-side cursor.
+     * PostgreSQL only uses a cursor inside a transaction, so the borrowed connection leaves auto-commit mode
+     * until the stream is closed or read to the end. The stream must be read and closed on the thread that opened it;
+     * repository calls that thread makes in the meantime share the connection and its transaction.
+     *
+     * @param sql The query.
+     * @param reader Builds the elements from the rows.
+     * @return A sequential stream of the elements.
+     */
+    protected <R> Stream<R> streamQuery(String sql, CursorReader<R> reader) {
+        try {
+            Cursor<R> cursor = new Cursor<>(pool.getConnection(), sql, reader);
+            return StreamSupport.stream(cursor, false).onClose(cursor::close);
+        } catch (SQLException e) {
+            throw new RuntimeException("Error streaming " + getTableName(), e);
+        }
+    }
+
+    /**
+     * Deletes the rows with the given ids with batched DELETE statements in one transaction.
+     *
+     * @param ids The ids of the entities to delete.
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        try {
+            inTransaction(connection -> executeBatch(connection, "DELETE FROM " + getTableName() + " WHERE id = ?", ids,
+                    (statement, id) -> statement.setInt(1, id)));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error deleting from " + getTableName(), e);
+        }
+    }
+
+    /**
+     * Runs the work in one transaction on a borrowed connection, committing if it completes and rolling back if it throws.
+     * If the current thread is already in a transaction on a connection of the pool, the work joins that transaction,
+     * which is then committed or rolled back by whoever started it.
+     *
+     * @param work The statements to run.
+     * @throws SQLException if a statement, the commit or the rollback fails.
+     */
+    protected void inTransaction(TransactionWork work) throws SQLException {
+        try (Connection connection = pool.getConnection()) {
+            if (!connection.getAutoCommit()) {
+                work.run(connection);
+                return;
+            }
+            connection.setAutoCommit(false);
+            try {
+                work.run(connection);
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Executes a statement once for every item, sending the rows to the database BATCH_SIZE at a time.
+     *
+     * @param connection The connection to use, usually the one of the current transaction.
+     * @param sql The statement to execute.
+     * @param items The items, one execution each.
+     * @param binder Sets the parameters of the statement for one item.
+     * @throws SQLException if a batch fails.
+     * @throws IllegalArgumentException if a row duplicates the value of a unique column.
+     */
+    protected <E> void executeBatch(Connection connection, String sql, Iterable<E> items, StatementBinder<E> binder)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            int pending = 0;
+            for (E item : items) {
+                binder.bind(statement, item);
+                statement.addBatch();
+                if (++pending == BATCH_SIZE) {
+                    executeStatementBatch(statement);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                executeStatementBatch(statement);
+            }
+        }
+    }
+
+    /**
+     * Inserts entities in batches like executeBatch and gives every entity the id generated for its row.
+     *
+     * @param connection The connection to use, usually the one of the current transaction.
+     * @param sql The INSERT statement.
+     * @param entities The entities to insert.
+     * @param binder Sets the parameters of the statement for one entity.
+     * @throws SQLException if a batch fails.
+     * @throws IllegalArgumentException if an entity duplicates the value of a unique column.
+     */
+    protected void insertBatch(Connection connection, String sql, Collection<T> entities, StatementBinder<T> binder)
+            throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql, new String[]{"id"})) {
+            List<T> pending = new ArrayList<>(Math.min(entities.size(), BATCH_SIZE));
+            for (T entity : entities) {
+                binder.bind(statement, entity);
+                statement.addBatch();
+                pending.add(entity);
+                if (pending.size() == BATCH_SIZE) {
+                    executeInsertBatch(statement, pending);
+                }
+            }
+            if (!pending.isEmpty()) {
+                executeInsertBatch(statement, pending);
+            }
+        }
+    }
+
+    private void executeInsertBatch(PreparedStatement statement, List<T> pending) throws SQLException {
+        executeStatementBatch(statement);
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (T entity : pending) {
+                if (!keys.next()) {
+                    break;
+                }
+                entity.setId(keys.getInt(1));
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Executes the batch of a statement, turning a unique violation (SQLState 23505) into an IllegalArgumentException.
+     */
+    private void executeStatementBatch(PreparedStatement statement) throws SQLException {
+        try {
+            statement.executeBatch();
+        } catch (SQLException e) {
+            for (SQLException current = e; current != null; current = current.getNextException()) {
+                if (UNIQUE_VIOLATION.equals(current.getSQLState())) {
+                    throw new IllegalArgumentException("A row of " + getTableName() + " duplicates a unique value: "
+                            + current.getMessage(), e);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Does nothing: the connections belong to the shared pool, which is closed by whoever created it.
+     */
     @Override
     public void close() throws Exception {
-        connection.close();
+    }
+
+    /**
+     * The spliterator of streamQuery. It owns the connection, statement and result set of the query
+     * and releases them when the stream is closed or its last element has been read.
+     */
+    private static final class Cursor<R> extends Spliterators.AbstractSpliterator<R> {
+        private final Connection connection;
+        private final CursorReader<R> reader;
+        private boolean ownsTransaction;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private boolean closed;
+
+        Cursor(Connection connection, String sql, CursorReader<R> reader) throws SQLException {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            this.connection = connection;
+            this.reader = reader;
+            try {
+                if (connection.getAutoCommit()) {
+                    connection.setAutoCommit(false);
+                    ownsTransaction = true;
+                }
+                statement = connection.prepareStatement(sql);
+                statement.setFetchSize(FETCH_SIZE);
+                resultSet = statement.executeQuery();
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    close();
+                } catch (RuntimeException closeFailure) {
+                    e.addSuppressed(closeFailure);
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super R> action) {
+            if (closed) {
+                return false;
+            }
+            R next;
+            try {
+                next = reader.next(resultSet);
+            } catch (SQLException | RuntimeException e) {
+                close();
+                throw e instanceof SQLException ? new RuntimeException("Error reading the next row", e) : (RuntimeException) e;
+            }
+            if (next == null) {
+                close();
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+        /**
+         * Closes the result set and statement, ends the read-only transaction if the cursor started it
+         * and gives the connection back to the pool. Later calls do nothing.
+         */
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try (Connection ignored = connection) {
+                if (resultSet != null) {
+                    resultSet.close();
+                }
+                if (statement != null) {
+                    statement.close();
+                }
+                if (ownsTransaction) {
+                    connection.commit();
+                    connection.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                throw new RuntimeException("Error closing the cursor", e);
+            }
+        }
     }
 }
@@ -0,0 +1,18 @@
+package Repository;
+
+/**
+ * Controls when a write to a FileRepository returns relative to the moment its log record reaches the disk.
+ */
+public enum DurabilityMode {
+    /**
+     * The caller waits until its record has been written and forced to disk.
+     * Concurrent callers share one flush, so a batch of mutations is committed with a single fsync.
+     */
+    SYNC,
+
+    /**
+     * The caller returns as soon as its record is queued. The writer thread flushes it with the next batch,
+     * so mutations made shortly before a crash can be lost.
+     */
+    RELAXED
+}
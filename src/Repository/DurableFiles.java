@@ -0,0 +1,77 @@
+package Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * File operations of the file repositories that are on disk when they return, so a snapshot that replaces
+ * a log is never lost or left partial by a power failure.
+ */
+final class DurableFiles {
+    private static final boolean WINDOWS = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("windows");
+
+    private DurableFiles() {
+    }
+
+    /**
+     * Replaces a file with new content: the content is written to a temporary file and forced to disk,
+     * the temporary file is moved over the target atomically, and the directory is forced so the move survives a crash.
+     *
+     * @param target The file to replace.
+     * @param content The new content of the file.
+     * @throws IOException if the file cannot be written, forced or moved.
+     */
+    static void replace(Path target, byte[] content) throws IOException {
+        Path temp = Path.of(target + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target);
+    }
+
+    /**
+     * Replaces a text file with the given lines, each followed by a line separator, like Files.write.
+     *
+     * @param target The file to replace.
+     * @param lines The lines of the new file.
+     * @throws IOException if the file cannot be written, forced or moved.
+     */
+    static void replace(Path target, List<String> lines) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (String line : lines) {
+            text.append(line).append(System.lineSeparator());
+        }
+        replace(target, text.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Forces the directory that holds a file, so a file created, renamed or deleted in it stays so after a crash.
+     * Windows cannot open a directory as a channel; there the file system journals the change itself.
+     *
+     * @param file A file of the directory.
+     * @throws IOException if the directory cannot be forced.
+     */
+    static void forceDirectory(Path file) throws IOException {
+        if (WINDOWS) {
+            return;
+        }
+        Path directory = file.toAbsolutePath().getParent();
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Converts one entity type to and from a CSV record and a binary snapshot record, for FileRepository.
+ * Field 0 of every CSV record is the id of the entity; the other columns are defined by each codec.
+ * Binary records hold the same values in the same order, with references stored as ids and dates as epoch values.
+ * Codecs of entities that reference other entities are given a lookup for the referenced type,
+ * usually from an EntityRegistry, and list the referenced types in dependencies.
+ *
+ * @param <T> The type of entity handled by the codec.
+ */
+public interface EntityCodec<T extends HasId> {
+
+    /**
+     * Builds an entity from a record.
+     *
+     * @param record The record to read. It is reused by the reader, so values must not be kept.
+     * @return The entity, with its id set, or null if the record is incomplete or references a missing entity.
+     * @throws IllegalArgumentException if a field holds an invalid number.
+     * @throws java.time.DateTimeException if a field holds an invalid date.
+     */
+    T decode(CsvRecord record);
+
+    /**
+     * Writes an entity as the fields of a record, starting with its id.
+     *
+     * @param entity The entity to write.
+     * @param line The line the fields are appended to.
+     */
+    void encode(T entity, CsvLine line);
+
+    /**
+     * Builds an entity from the next record of a binary snapshot.
+     * The whole record must be consumed, even when the entity is skipped.
+     *
+     * @param in The snapshot to read from.
+     * @return The entity, with its id set, or null if it references a missing entity.
+     */
+    T read(SnapshotInput in);
+
+    /**
+     * Writes an entity as one record of a binary snapshot, starting with its id.
+     *
+     * @param entity The entity to write.
+     * @param out The snapshot to write to.
+     * @throws IOException if the record cannot be written.
+     */
+    void write(T entity, SnapshotOutput out) throws IOException;
+
+    /**
+     * Lists the entity types this codec resolves references to.
+     * A FileRepository using the codec can only be loaded once these types are registered.
+     *
+     * @return The referenced entity types; empty by default.
+     */
+    default List<Class<? extends HasId>> dependencies() {
+        return List.of();
+    }
+}
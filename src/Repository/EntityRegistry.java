@@ -0,0 +1,73 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Connects the file repositories of one application, so that a repository can resolve the ids
+ * of entities stored in another file.
+ * Each repository registers itself under its entity type once it has loaded its file; codecs resolve
+ * references with a direct id lookup in the registered repository. Because a repository can only
+ * resolve types that are already registered, files must be loaded in dependency order:
+ * artists before albums, albums before songs, and songs and listeners before playlists.
+ */
+public class EntityRegistry {
+    private final Map<Class<?>, IRepository<?>> repositories = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the repository that stores the given entity type.
+     *
+     * @param type The entity type.
+     * @param repository The repository holding the entities of that type.
+     * @param <T> The entity type.
+     * @throws IllegalStateException if a repository is already registered for the type.
+     */
+    public <T extends HasId> void register(Class<T> type, IRepository<T> repository) {
+        if (repositories.putIfAbsent(type, repository) != null) {
+            throw new IllegalStateException("A repository for " + type.getSimpleName() + " is already registered.");
+        }
+    }
+
+    /**
+     * Checks whether a repository is registered for the given entity type.
+     *
+     * @param type The entity type.
+     * @return true if the type can be resolved.
+     */
+    public boolean isRegistered(Class<?> type) {
+        return repositories.containsKey(type);
+    }
+
+    /**
+     * Looks up an entity by type and id.
+     *
+     * @param type The entity type.
+     * @param id The id of the entity.
+     * @param <T> The entity type.
+     * @return The entity, or null if no entity with that id exists.
+     * @throws IllegalStateException if no repository is registered for the type.
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends HasId> T get(Class<T> type, int id) {
+        IRepository<T> repository = (IRepository<T>) repositories.get(type);
+        if (repository == null) {
+            throw new IllegalStateException(type.getSimpleName() + " is not loaded yet; load it before the entities that reference it.");
+        }
+        return repository.get(id);
+    }
+
+    /**
+     * Returns a lookup function for one entity type, for use by a codec.
+     * The repository is looked up on every call, so the function may be created before the type is registered.
+     *
+     * @param type The entity type.
+     * @param <T> The entity type.
+     * @return A function from id to entity, returning null for unknown ids.
+     */
+    public <T extends HasId> IntFunction<T> resolver(Class<T> type) {
+        return id -> get(type, id);
+    }
+}
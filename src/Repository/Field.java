@@ -0,0 +1,73 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * A field of an entity that criteria can filter and sort on: the column that stores it and the function that reads it.
+ * Database repositories compare the column in SQL, the other repositories compare the value the function returns.
+ * The column is a column of the repository's table, or a column of a table it joins qualified with the alias
+ * of that table, such as "ar.id" for the artist of an album or a song.
+ *
+ * @param <T> The type of the entities.
+ * @param <V> The type of the field values.
+ */
+public final class Field<T extends HasId, V extends Comparable<? super V>> {
+    private static final Pattern COLUMN = Pattern.compile("([A-Za-z_][A-Za-z0-9_]*\\.)?[A-Za-z_][A-Za-z0-9_]*");
+
+    private final String column;
+    private final Function<T, V> getter;
+
+    private Field(String column, Function<T, V> getter) {
+        this.column = column;
+        this.getter = getter;
+    }
+
+    /**
+     * Creates a field.
+     *
+     * @param column The column that stores the field, optionally qualified by a table alias.
+     * @param getter Reads the value of the field from an entity; it may return null.
+     * @return The field.
+     * @throws IllegalArgumentException if the column is not a valid column name or the getter is null.
+     */
+    public static <T extends HasId, V extends Comparable<? super V>> Field<T, V> of(String column, Function<T, V> getter) {
+        if (column == null || !COLUMN.matcher(column).matches()) {
+            throw new IllegalArgumentException("Invalid column name: " + column);
+        }
+        if (getter == null) {
+            throw new IllegalArgumentException("The getter of field " + column + " must not be null.");
+        }
+        return new Field<>(column, getter);
+    }
+
+    /**
+     * Gets the column that stores the field.
+     *
+     * @return The column name, possibly qualified by a table alias.
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Tells whether the column belongs to a joined table rather than to the repository's own table.
+     *
+     * @return true if the column is qualified by a table alias.
+     */
+    public boolean isQualified() {
+        return column.indexOf('.') >= 0;
+    }
+
+    /**
+     * Reads the value of the field from an entity.
+     *
+     * @param entity The entity.
+     * @return The value, or null if the entity has none.
+     */
+    public V get(T entity) {
+        return getter.apply(entity);
+    }
+}
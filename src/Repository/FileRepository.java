@@ -1,312 +1,588 @@
 package Repository;
 
-import Domain.Artist;
-import Domain.Album;
-import Domain.Song;
-import Domain.Listener;
-import Domain.Subscription;
-import Domain.LiveConcert;
-import Domain.Playlist;
-
-import java.io.*;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.*;
-import java.util.stream.Collectors;
-
-public class FileRepository<T> implements IRepository<T> {
+import Domain.HasId;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A repository that persists its objects in a CSV file.
+ * The columns of the file are defined by the EntityCodec of the stored type, and the file is read
+ * with a streaming RFC 4180 tokenizer, so values may contain commas, quotes and line breaks.
+ * The CSV file is a snapshot; mutations are not written to it directly but appended to a log file
+ * next to it ("&lt;file&gt;.log") as CSV records whose first field is "+" (store) or "-" (delete), so a create, update or delete writes one small record instead of the whole file.
+ * On startup the snapshot is loaded and the log is replayed on top of it.
+ * Once the log grows past the compaction threshold, a background thread folds the current state
+ * into a new snapshot and the log starts over.
+ * Next to the CSV snapshot a binary snapshot ("&lt;file&gt;.snap") is kept, with length-prefixed strings,
+ * integer references, epoch dates and a checksum. It is loaded instead of the CSV file when it is at least
+ * as new, which avoids parsing text on startup; the CSV file remains the format to exchange data in.
+ * Log records are written by a dedicated writer thread that commits them in batches, with one fsync per batch.
+ * In SYNC durability mode a mutation returns once its batch is on disk, so concurrent writers share a flush;
+ * in RELAXED mode it returns as soon as the record is queued.
+ * Mutations, lookups by id, index and criteria are synchronized, so the repository can be read from the executor
+ * threads of the asynchronous service methods while the console writes to it. getAll returns a live read-only view.
+ *
+ * @param <T> The type of objects stored in the repository.
+ */
+public class FileRepository<T extends HasId> implements IRepository<T>, AutoCloseable {
+    /** Default log size, in bytes, after which the log is compacted into the snapshot. */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+    /** Default number of queued log records that triggers a flush. */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    /**
+     * Default time, in milliseconds, a log record may wait before it is flushed in SYNC mode.
+     * Zero means the writer thread flushes as soon as it is free; records that arrive while an fsync
+     * is running are committed together by the next one.
+     */
+    public static final long DEFAULT_SYNC_FLUSH_DELAY_MILLIS = 0;
+    /** Default time, in milliseconds, a log record may wait before it is flushed in RELAXED mode. */
+    public static final long DEFAULT_RELAXED_FLUSH_DELAY_MILLIS = 10;
+    private static final String UPSERT = "+";
+    private static final String DELETE = "-";
+
     private final String filePath;
-    private final Map<Integer, T> data = new HashMap<>();
+    private final Path logPath;
+    private final Path compactingLogPath;
+    private final Path binarySnapshotPath;
+    private final long compactionThreshold;
+    private final DurabilityMode durabilityMode;
+    private final EntityCodec<T> codec;
+    private final CsvLine line = new CsvLine();
+    private final IntObjectMap<T> data = new IntObjectMap<>();
+    private final SecondaryIndexes<T> indexes = new SecondaryIndexes<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "file-repository-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final LogWriter logWriter;
+    private Future<?> pendingCompaction;
     private int currentId = 1;
 
-    public FileRepository(String filePath) {
-        this.filePath = filePath;
-        loadDataFromFile();
+    /**
+     * Opens the repository stored in the given CSV file, with SYNC durability and the default settings.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     */
+    public FileRepository(String filePath, EntityCodec<T> codec) {
+        this(filePath, codec, DurabilityMode.SYNC);
     }
 
-    @Override
-    public void create(T obj) {
-        int id = currentId++;
+    /**
+     * Opens the repository stored in the given CSV file, with the default batching and compaction settings.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param durabilityMode Whether mutations wait for their log record to reach the disk.
+     */
+    public FileRepository(String filePath, EntityCodec<T> codec, DurabilityMode durabilityMode) {
+        this(filePath, codec, durabilityMode, DEFAULT_MAX_BATCH_SIZE,
+                durabilityMode == DurabilityMode.SYNC ? DEFAULT_SYNC_FLUSH_DELAY_MILLIS : DEFAULT_RELAXED_FLUSH_DELAY_MILLIS,
+                DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the repository stored in the given CSV file, with SYNC durability and the default batching settings.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param compactionThreshold The log size, in bytes, after which the log is compacted into the snapshot.
+     */
+    public FileRepository(String filePath, EntityCodec<T> codec, long compactionThreshold) {
+        this(filePath, codec, DurabilityMode.SYNC, DEFAULT_MAX_BATCH_SIZE, DEFAULT_SYNC_FLUSH_DELAY_MILLIS, compactionThreshold);
+    }
 
+    /**
+     * Opens the repository stored in the given CSV file.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param durabilityMode Whether mutations wait for their log record to reach the disk.
+     * @param maxBatchSize The number of queued log records that triggers a flush.
+     * @param maxFlushDelayMillis The longest time, in milliseconds, a log record waits before it is flushed.
+     * @param compactionThreshold The log size, in bytes, after which the log is compacted into the snapshot.
+     */
+    public FileRepository(String filePath, EntityCodec<T> codec, DurabilityMode durabilityMode, int maxBatchSize,
+                          long maxFlushDelayMillis, long compactionThreshold) {
+        this(filePath, codec, null, null, durabilityMode, maxBatchSize, maxFlushDelayMillis, compactionThreshold);
+    }
+
+    /**
+     * Opens the repository stored in the given CSV file as part of a set of file repositories that reference
+     * each other, with SYNC durability and the default settings.
+     * The types the codec depends on must already be registered; once loaded, this repository registers
+     * itself under its type, so that repositories loaded later can resolve its ids.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param type The stored entity type.
+     * @param registry The registry shared by the file repositories.
+     * @throws IllegalStateException if a type the codec depends on is not registered yet.
+     */
+    public FileRepository(String filePath, EntityCodec<T> codec, Class<T> type, EntityRegistry registry) {
+        this(filePath, codec, type, registry, DurabilityMode.SYNC, DEFAULT_MAX_BATCH_SIZE, DEFAULT_SYNC_FLUSH_DELAY_MILLIS,
+                DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    private FileRepository(String filePath, EntityCodec<T> codec, Class<T> type, EntityRegistry registry,
+                           DurabilityMode durabilityMode, int maxBatchSize, long maxFlushDelayMillis, long compactionThreshold) {
+        if (registry != null) {
+            for (Class<? extends HasId> dependency : codec.dependencies()) {
+                if (!registry.isRegistered(dependency)) {
+                    throw new IllegalStateException(filePath + " references " + dependency.getSimpleName()
+                            + ", which must be loaded first.");
+                }
+            }
+        }
+        this.filePath = filePath;
+        this.codec = codec;
+        this.logPath = Path.of(filePath + ".log");
+        this.compactingLogPath = Path.of(filePath + ".log.compacting");
+        this.binarySnapshotPath = Path.of(filePath + ".snap");
+        this.compactionThreshold = compactionThreshold;
+        this.durabilityMode = durabilityMode;
+        recover();
         try {
-            obj.getClass().getMethod("setId", int.class).invoke(obj, id);
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Object must have a setId() method.", e);
+            this.logWriter = new LogWriter(logPath, maxBatchSize, maxFlushDelayMillis);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening log " + logPath, e);
         }
+        if (registry != null) {
+            registry.register(type, this);
+        }
+    }
 
-        data.put(id, obj);
-        saveDataToFile();
+    @Override
+    public void create(T obj) {
+        long sequence;
+        synchronized (this) {
+            sequence = applyCreate(obj);
+        }
+        awaitDurable(sequence);
     }
 
     @Override
-    public T get(int id) {
+    public synchronized T get(int id) {
         return data.get(id);
     }
 
     @Override
     public void update(T obj) {
-        int id = extractId(obj);
-        if (!data.containsKey(id)) {
-            throw new IllegalArgumentException("No object with ID " + id + " exists.");
+        long sequence;
+        synchronized (this) {
+            sequence = applyUpdate(obj);
         }
-        data.put(id, obj);
-        saveDataToFile();
+        awaitDurable(sequence);
     }
 
     @Override
     public void delete(int id) {
-        if (!data.containsKey(id)) {
-            throw new IllegalArgumentException("No object with ID " + id + " exists.");
+        long sequence;
+        synchronized (this) {
+            sequence = applyDelete(id);
         }
-        data.remove(id);
-        saveDataToFile();
+        awaitDurable(sequence);
     }
 
+    /**
+     * Creates all objects under one lock and waits once for the log, so in SYNC mode the whole batch
+     * costs one fsync instead of one per object. The batch is not atomic: if an object is rejected,
+     * for example by a unique index, the objects before it stay created and are still flushed.
+     *
+     * @param objects The objects to create.
+     */
     @Override
-    public Map<Integer, T> getAll() {
-        return new HashMap<>(data);
+    public void createAll(Collection<T> objects) {
+        long sequence = 0;
+        try {
+            synchronized (this) {
+                for (T obj : objects) {
+                    sequence = applyCreate(obj);
+                }
+            }
+        } finally {
+            awaitDurable(sequence);
+        }
     }
 
+    /**
+     * Updates all objects under one lock and waits once for the log, like createAll.
+     *
+     * @param objects The objects to update.
+     */
     @Override
-    public T read(int id) {
-        return data.get(id);
+    public void updateAll(Collection<T> objects) {
+        long sequence = 0;
+        try {
+            synchronized (this) {
+                for (T obj : objects) {
+                    sequence = applyUpdate(obj);
+                }
+            }
+        } finally {
+            awaitDurable(sequence);
+        }
     }
 
-    private int extractId(T obj) {
+    /**
+     * Deletes all objects under one lock and waits once for the log, like createAll.
+     *
+     * @param ids The ids of the objects to delete.
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        long sequence = 0;
         try {
-            return (int) obj.getClass().getMethod("getId").invoke(obj);
-        } catch (Exception e) {
-            throw new IllegalStateException("Object must have a getId() method.", e);
+            synchronized (this) {
+                for (int id : ids) {
+                    sequence = applyDelete(id);
+                }
+            }
+        } finally {
+            awaitDurable(sequence);
         }
     }
 
+    /**
+     * Returns the flush statistics of the log: how many records each fsync committed and how long it took.
+     *
+     * @return A snapshot of the flush metrics.
+     */
+    public FlushMetrics getFlushMetrics() {
+        return logWriter.metrics();
+    }
 
-    private void loadDataFromFile() {
-        SimpleDateFormat sdf = new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy");
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] dataFields = line.split(",");
-                if (dataFields.length > 1) {
-                    int id = Integer.parseInt(dataFields[0]);
-                    String name = dataFields[1];
-
-                    if (filePath.contains("artists.csv")) {
-                        String email = (dataFields.length > 2) ? dataFields[2] : "";
-                        Artist artist = new Artist(name, email);
-                        artist.setId(id);
-                        data.put(id, (T) artist);
-
-                    } else if (filePath.contains("albums.csv")) {
-                        String title = dataFields[1];
-
-                        LocalDate releaseDate = null;
-                        try {
-                            releaseDate = LocalDate.parse(dataFields[2], DateTimeFormatter.ofPattern("yyyy-MM-dd"));
-                        } catch (DateTimeParseException e) {
-                            System.out.println("Invalid date format for album: " + dataFields[2]);
-                            continue;
-                        }
-
-                        if (dataFields.length > 3) {
-                            int artistId = Integer.parseInt(dataFields[3]);
-                            Artist artist = findArtistById(artistId);
-
-                            Album album = new Album(title, releaseDate, artist);
-                            album.setId(id);
-                            data.put(id, (T) album);
-                        }
-
-                    } else if (filePath.contains("songs.csv")) {
-                        String title = dataFields[1];
-
-                        float duration = 0;
-                        try {
-                            duration = Float.parseFloat(dataFields[2]);
-                        } catch (NumberFormatException e) {
-                            System.out.println("Invalid duration format for song: " + dataFields[2]);
-                            continue;
-                        }
-
-                        if (dataFields.length > 3) {
-                            int albumId = Integer.parseInt(dataFields[3]);
-                            Album album = findAlbumById(albumId);
-
-                            Song song = new Song(title, duration, album);
-                            song.setId(id);
-                            data.put(id, (T) song);
-                        }
-
-                    } else if (filePath.contains("listeners.csv")) {
-                        String email = (dataFields.length > 2) ? dataFields[2] : "";
-                        Listener listener = new Listener(name, email);
-                        listener.setId(id);
-                        data.put(id, (T) listener);
-
-                    } else if (filePath.contains("subscriptions.csv")) {
-                        String type = dataFields[1];
-                        float price = 0;
-                        try {
-                            price = Float.parseFloat(dataFields[2]);
-                        } catch (NumberFormatException e) {
-                            System.out.println("Invalid price format for subscription: " + dataFields[2]);
-                            continue;
-                        }
-                        if (dataFields.length > 3) {
-                            int listenerId = Integer.parseInt(dataFields[3]);
-                            Listener listener = findListenerById(listenerId);
-
-                            Subscription subscription = new Subscription(type, price, listener);
-                            subscription.setId(id);
-                            data.put(id, (T) subscription);
-                        }
-
-                    } else if (filePath.contains("liveconcerts.csv")) {
-                        String title = dataFields[1];
-                        Date date = sdf.parse(dataFields[2]);
-                        if (dataFields.length > 3) {
-                            int artistId = Integer.parseInt(dataFields[3]);
-                            Artist artist = findArtistById(artistId);
-                            int ticketCount = Integer.parseInt(dataFields[4]);
-                            boolean isAvailablePostLive = Boolean.parseBoolean(dataFields[5]);
-                            String eventType = dataFields[6];
-
-                            LiveConcert liveConcert = new LiveConcert(title, date, artist, ticketCount, isAvailablePostLive, eventType);
-                            liveConcert.setId(id);
-                            data.put(id, (T) liveConcert);
-                        }
-                        else if (filePath.contains("playlists.csv")) {
-                            String playlistName = dataFields[1];
-                            List<Song> songs = new ArrayList<>();
-                            if (dataFields.length > 2 && !dataFields[2].isEmpty()) {
-                                String[] songIds = dataFields[2].split(";");
-                                for (String songIdStr : songIds) {
-                                    try {
-                                        int songId = Integer.parseInt(songIdStr.trim());
-                                        Song song = findSongById(songId);
-                                        if (song != null) {
-                                            songs.add(song);
-                                        }
-                                    } catch (NumberFormatException e) {
-                                        System.out.println("Invalid song ID in playlist: " + songIdStr);
-                                    }
-                                }
-                            }
-                            Listener listener = null;
-                            if (dataFields.length > 3) {
-                                try {
-                                    int listenerId = Integer.parseInt(dataFields[3].trim());
-                                    listener = findListenerById(listenerId);
-                                } catch (NumberFormatException e) {
-                                    System.out.println("Invalid Listener ID in playlist: " + dataFields[3]);
-                                }
-                            }
-                            if (listener == null) {
-                                listener = new Listener("Default Listener", "default@example.com");
-                            }
-                            Playlist playlist = new Playlist(playlistName, listener);
-                            playlist.setSongs(songs);
-                            playlist.setId(id);
-                            data.put(id, (T) playlist);
-                        }
+    @Override
+    public Map<Integer, T> getAll() {
+        return data.asMap();
+    }
 
-                    }
+    @Override
+    public synchronized T read(int id) {
+        return data.get(id);
+    }
+
+    @Override
+    public synchronized void addIndex(String field, Function<T, String> keyExtractor) {
+        indexes.add(field, keyExtractor, false, data.values());
+    }
+
+    @Override
+    public synchronized void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        indexes.add(field, keyExtractor, true, data.values());
+    }
+
+    @Override
+    public synchronized T findByIndex(String field, String value) {
+        return indexes.findFirst(field, value);
+    }
+
+    /**
+     * Finds the entities that match criteria, looking equality conditions on indexed fields up in the index.
+     *
+     * @param criteria The conditions, order and limit.
+     * @return The matching entities, in the order of the criteria.
+     */
+    @Override
+    public synchronized List<T> find(Criteria<T> criteria) {
+        return indexes.find(criteria, data.values());
+    }
 
-                    if (id >= currentId) {
-                        currentId = id + 1;
+    /**
+     * Loads the last snapshot from the CSV file and replays the log on top of it.
+     * A log left behind by an interrupted compaction is replayed first and folded into a new snapshot.
+     */
+    private void recover() {
+        boolean loadedBinary = loadBinarySnapshot();
+        if (!loadedBinary) {
+            loadDataFromFile();
+        }
+        boolean interruptedCompaction = Files.exists(compactingLogPath);
+        replayLog(compactingLogPath);
+        replayLog(logPath);
+        try {
+            if (interruptedCompaction) {
+                writeSnapshot(formatAll(), encodeAll());
+                Files.delete(compactingLogPath);
+            } else if (!loadedBinary && !data.isEmpty()) {
+                byte[] binary = encodeAll();
+                compactor.submit(() -> {
+                    try {
+                        replaceFile(binarySnapshotPath, binary);
+                    } catch (IOException e) {
+                        e.printStackTrace();
                     }
-                }
+                });
             }
-        } catch (IOException | ParseException e) {
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-
-    private void saveDataToFile() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
-            for (T obj : data.values()) {
-                if (obj instanceof Artist) {
-                    Artist artist = (Artist) obj;
-                    writer.write(artist.getId() + "," + artist.getName() + "," + artist.getEmail() + "\n");
-                } else if (obj instanceof Album) {
-                    Album album = (Album) obj;
-                    writer.write(album.getId() + "," + album.getTitle() + "," + album.getGenre() + "\n");
-                } else if (obj instanceof Song) {
-                    Song song = (Song) obj;
-                    writer.write(song.getId() + "," + song.getTitle() + "," + song.getDuration() + "\n");
-                } else if (obj instanceof Listener) {
-                    Listener listener = (Listener) obj;
-                    writer.write(listener.getId() + "," + listener.getName() + "," + listener.getEmail() + "\n");
-                } else if (obj instanceof Subscription) {
-                    Subscription subscription = (Subscription) obj;
-                    writer.write(subscription.getId() + "," + subscription.getUser() + "," + subscription.getType() + "\n");
-                } else if (obj instanceof LiveConcert) {
-                    LiveConcert liveConcert = (LiveConcert) obj;
-                    writer.write(liveConcert.getId() + "," + liveConcert.getTitle() + "," + liveConcert.getDate() + "\n");
-                } else if (obj instanceof Playlist) {
-                    Playlist playlist = (Playlist) obj;
-                    String songIds = playlist.getSongs().stream()
-                            .map(song -> String.valueOf(song.getId()))
-                            .collect(Collectors.joining(";"));
-                    writer.write(playlist.getId() + "," + playlist.getName() + "," + songIds + "\n");
+    /**
+     * Loads the binary snapshot if it exists, is at least as new as the CSV file and passes its checksum.
+     * Replaying the log afterwards is safe even when the binary snapshot already contains some of its records,
+     * because every record stores or deletes one id with its final values.
+     *
+     * @return true if the state was loaded from the binary snapshot.
+     */
+    private boolean loadBinarySnapshot() {
+        Path csv = Path.of(filePath);
+        try {
+            if (!Files.exists(binarySnapshotPath)
+                    || (Files.exists(csv) && Files.getLastModifiedTime(binarySnapshotPath).compareTo(Files.getLastModifiedTime(csv)) < 0)) {
+                return false;
+            }
+            SnapshotInput in = new SnapshotInput(Files.readAllBytes(binarySnapshotPath), codec.getClass().getSimpleName());
+            currentId = Math.max(currentId, in.getNextId());
+            for (int i = in.getEntityCount(); i > 0; i--) {
+                T obj = codec.read(in);
+                if (obj != null) {
+                    data.put(obj.getId(), obj);
+                    currentId = Math.max(currentId, obj.getId() + 1);
                 }
             }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring the binary snapshot " + binarySnapshotPath + ": " + e.getMessage());
+            data.clear();
+            currentId = 1;
+            return false;
+        }
+    }
 
+    private void loadDataFromFile() {
+        Path snapshot = Path.of(filePath);
+        if (!Files.exists(snapshot)) {
+            return;
+        }
+        try (CsvReader reader = new CsvReader(snapshot)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                putDecoded(record);
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
-    private Artist findArtistById(int artistId) {
-        for (T obj : data.values()) {
-            if (obj instanceof Artist) {
-                Artist artist = (Artist) obj;
-                if (artist.getId() == artistId) {
-                    return artist;
+    /**
+     * Replays a log file: "+" records store the object in the remaining fields, "-" records delete the id.
+     * A torn last record, left by a crash in the middle of an append, is discarded and cut off the file.
+     */
+    private void replayLog(Path log) {
+        if (!Files.exists(log)) {
+            return;
+        }
+        try (CsvReader reader = new CsvReader(log)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                if (!reader.recordTerminated()) {
+                    System.out.println("Discarding incomplete record at the end of " + log);
+                    try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                        channel.truncate(reader.recordOffset());
+                    }
+                    break;
+                }
+                String operation = record.getString(0);
+                record.skipFields(1);
+                if (operation.equals(UPSERT)) {
+                    putDecoded(record);
+                } else if (operation.equals(DELETE) && record.size() > 0) {
+                    try {
+                        data.remove(record.getInt(0));
+                    } catch (NumberFormatException e) {
+                        System.out.println("Skipping invalid log record: " + record);
+                    }
                 }
             }
+        } catch (IOException e) {
+            e.printStackTrace();
         }
-        return null;
     }
 
-    private Album findAlbumById(int albumId) {
-        for (T obj : data.values()) {
-            if (obj instanceof Album) {
-                Album album = (Album) obj;
-                if (album.getId() == albumId) {
-                    return album;
-                }
+    private void putDecoded(CsvRecord record) {
+        if (record.size() < 2) {
+            return;
+        }
+        int id;
+        try {
+            id = record.getInt(0);
+        } catch (NumberFormatException e) {
+            System.out.println("Skipping invalid line: " + record);
+            return;
+        }
+        try {
+            T obj = codec.decode(record);
+            if (obj != null) {
+                data.put(id, obj);
             }
+        } catch (IllegalArgumentException | DateTimeException e) {
+            System.out.println("Skipping invalid line: " + record + " (" + e.getMessage() + ")");
+        }
+        if (id >= currentId) {
+            currentId = id + 1;
         }
-        return null;
     }
 
-    private Listener findListenerById(int listenerId) {
+    /**
+     * Formats an object as one snapshot line, with the columns of the codec.
+     */
+    private String formatLine(T obj) {
+        line.reset();
+        codec.encode(obj, line);
+        return line.toString();
+    }
+
+    /**
+     * Formats an object as one log record: the operation followed by the columns of the codec.
+     */
+    private String formatRecord(String operation, T obj) {
+        line.reset().add(operation);
+        codec.encode(obj, line);
+        return line.toString();
+    }
+
+    private byte[] encodeAll() throws IOException {
+        SnapshotOutput out = new SnapshotOutput(codec.getClass().getSimpleName(), data.size(), currentId);
         for (T obj : data.values()) {
-            if (obj instanceof Listener) {
-                Listener listener = (Listener) obj;
-                if (listener.getId() == listenerId) {
-                    return listener;
-                }
-            }
+            codec.write(obj, out);
         }
-        return null;
+        return out.finish();
     }
 
-    private Song findSongById(int songId) {
+    private List<String> formatAll() {
+        List<String> lines = new ArrayList<>(data.size());
         for (T obj : data.values()) {
-            if (obj instanceof Song) {
-                Song song = (Song) obj;
-                if (song.getId() == songId) {
-                    return song;
-                }
-            }
+            lines.add(formatLine(obj));
         }
-        return null;
+        return lines;
     }
 
-}
\ No newline at end of file
+    /**
+     * Assigns the next id to the object, indexes it and queues its record. Called while holding the repository lock.
+     *
+     * @return The sequence number of the queued record.
+     */
+    private long applyCreate(T obj) {
+        int id = currentId++;
+        obj.setId(id);
+        indexes.onCreate(obj);
+        data.put(id, obj);
+        return appendToLog(formatRecord(UPSERT, obj));
+    }
+
+    /**
+     * Replaces the stored object and queues its record. Called while holding the repository lock.
+     *
+     * @return The sequence number of the queued record.
+     */
+    private long applyUpdate(T obj) {
+        int id = obj.getId();
+        if (!data.containsKey(id)) {
+            throw new IllegalArgumentException("No object with ID " + id + " exists.");
+        }
+        indexes.onUpdate(obj);
+        data.put(id, obj);
+        return appendToLog(formatRecord(UPSERT, obj));
+    }
+
+    /**
+     * Removes the object and queues a delete record. Called while holding the repository lock.
+     *
+     * @return The sequence number of the queued record.
+     */
+    private long applyDelete(int id) {
+        if (!data.containsKey(id)) {
+            throw new IllegalArgumentException("No object with ID " + id + " exists.");
+        }
+        data.remove(id);
+        indexes.onDelete(id);
+        return appendToLog(line.reset().add(DELETE).add(id).toString());
+    }
+
+    /**
+     * Queues one record for the log and starts a compaction once the log has outgrown the threshold.
+     * Called while holding the repository lock, so records are queued in the order the mutations were applied.
+     */
+    private long appendToLog(String record) {
+        long sequence = logWriter.append(record);
+        if (logWriter.size() >= compactionThreshold && (pendingCompaction == null || pendingCompaction.isDone())) {
+            startCompaction();
+        }
+        return sequence;
+    }
+
+    /**
+     * Waits, outside the repository lock, until the record is on disk when the durability mode requires it.
+     * Writers that wait at the same time are released by the same flush.
+     */
+    private void awaitDurable(long sequence) {
+        if (durabilityMode == DurabilityMode.SYNC) {
+            logWriter.awaitFlushed(sequence);
+        }
+    }
+
+    /**
+     * Captures the current state and rotates the log, then writes the snapshot on the compaction thread.
+     * The rotated log is deleted only after the new snapshot has been moved into place,
+     * so a crash at any point leaves a snapshot and logs that together hold every mutation.
+     */
+    private void startCompaction() {
+        List<String> lines = formatAll();
+        byte[] binary;
+        try {
+            binary = encodeAll();
+            logWriter.rotate(compactingLogPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Error rotating log " + logPath, e);
+        }
+        pendingCompaction = compactor.submit(() -> {
+            try {
+                writeSnapshot(lines, binary);
+                Files.delete(compactingLogPath);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Writes the CSV snapshot and then the binary snapshot, so the binary one is never older than the CSV
+     * file it matches. If the binary snapshot cannot be written, the next start falls back to the CSV file.
+     * Both are forced to disk and moved into place before this returns, so the rotated log may then be deleted.
+     */
+    private void writeSnapshot(List<String> lines, byte[] binary) throws IOException {
+        DurableFiles.replace(Path.of(filePath), lines);
+        replaceFile(binarySnapshotPath, binary);
+    }
+
+    private static void replaceFile(Path target, byte[] content) throws IOException {
+        DurableFiles.replace(target, content);
+    }
+
+    /**
+     * Flushes the queued log records, closes the log and waits for a running compaction to finish.
+     */
+    @Override
+    public synchronized void close() throws Exception {
+        logWriter.close();
+        compactor.shutdown();
+        compactor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,81 @@
+package Repository;
+
+/**
+ * A snapshot of the flush statistics of a FileRepository log.
+ * Every flush writes one batch of queued records and forces it to disk.
+ */
+public final class FlushMetrics {
+    private final long flushCount;
+    private final long recordCount;
+    private final int maxBatchSize;
+    private final long totalFlushNanos;
+    private final long maxFlushNanos;
+
+    FlushMetrics(long flushCount, long recordCount, int maxBatchSize, long totalFlushNanos, long maxFlushNanos) {
+        this.flushCount = flushCount;
+        this.recordCount = recordCount;
+        this.maxBatchSize = maxBatchSize;
+        this.totalFlushNanos = totalFlushNanos;
+        this.maxFlushNanos = maxFlushNanos;
+    }
+
+    /**
+     * Gets the number of flushes performed so far.
+     *
+     * @return The number of flushes.
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Gets the number of records written by all flushes.
+     *
+     * @return The number of flushed records.
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the average number of records committed by one flush.
+     *
+     * @return The average batch size, or 0 if nothing was flushed yet.
+     */
+    public double getAverageBatchSize() {
+        return flushCount == 0 ? 0 : (double) recordCount / flushCount;
+    }
+
+    /**
+     * Gets the largest number of records committed by one flush.
+     *
+     * @return The largest batch size.
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Gets the average time one flush took to write and force its batch.
+     *
+     * @return The average flush latency in milliseconds, or 0 if nothing was flushed yet.
+     */
+    public double getAverageFlushMillis() {
+        return flushCount == 0 ? 0 : totalFlushNanos / 1_000_000.0 / flushCount;
+    }
+
+    /**
+     * Gets the longest time one flush took to write and force its batch.
+     *
+     * @return The largest flush latency in milliseconds.
+     */
+    public double getMaxFlushMillis() {
+        return maxFlushNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("FlushMetrics{flushes=%d, records=%d, avgBatch=%.1f, maxBatch=%d, avgFlush=%.3f ms, maxFlush=%.3f ms}",
+                flushCount, recordCount, getAverageBatchSize(), maxBatchSize, getAverageFlushMillis(), getMaxFlushMillis());
+    }
+}
@@ -2,6 +2,8 @@ package Repository;
 
 import Domain.Genre;
 import java.sql.*;
+import java.util.List;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -9,18 +11,34 @@ import java.util.Map;
  * Repository-ul for Genre
  */
 public class GenreDBRepository extends DBRepository<Genre> {
+    private static final String INSERT_SQL = "INSERT INTO Genre (name) VALUES (?)";
+    private static final String UPDATE_SQL = "UPDATE Genre SET name = ? WHERE id = ?";
 
-    public GenreDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
+
+    public GenreDBRepository(ConnectionPool pool) {
+        super(pool);
 
     }
 
+    @Override
+    protected String getTableName() {
+        return "Genre";
+    }
+
     @Override
     public void create(Genre obj) {
-        String SQL = "INSERT INTO Genre (name) VALUES (?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getName());
-            statement.executeUpdate();
+        createAll(List.of(obj));
+    }
+
+    /**
+     * Inserts the genres with JDBC batches in one transaction and sets the ids generated for them.
+     *
+     * @param genres The genres to insert.
+     */
+    @Override
+    public void createAll(Collection<Genre> genres) {
+        try {
+            inTransaction(connection -> insertBatch(connection, INSERT_SQL, genres, this::bindInsert));
         } catch (SQLException e) {
             throw new RuntimeException("Error create Genre", e);
         }
@@ -29,7 +47,8 @@ public class GenreDBRepository extends DBRepository<Genre> {
     @Override
     public Genre read(int id) {
         String SQL = "SELECT * FROM Genre WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             ResultSet rs = statement.executeQuery();
             if (rs.next()) {
@@ -42,7 +61,8 @@ public class GenreDBRepository extends DBRepository<Genre> {
         }
     }
 
-    private Genre extractFromResultSet(ResultSet rs) throws SQLException {
+    @Override
+    protected Genre extractFromResultSet(ResultSet rs) throws SQLException {
         String name = rs.getString("name");
         Genre genre = new Genre(name);
         genre.setId(rs.getInt("id"));
@@ -51,20 +71,43 @@ public class GenreDBRepository extends DBRepository<Genre> {
 
     @Override
     public void update(Genre obj) {
-        String SQL = "UPDATE Genre SET name = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getName());
-            statement.setInt(2, obj.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, obj);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error update Genre", e);
         }
     }
 
+    /**
+     * Updates the genres with JDBC batches in one transaction.
+     *
+     * @param genres The genres to update.
+     */
+    @Override
+    public void updateAll(Collection<Genre> genres) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, genres, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error update Genre", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Genre obj) throws SQLException {
+        statement.setString(1, obj.getName());
+    }
+
+    private void bindUpdate(PreparedStatement statement, Genre obj) throws SQLException {
+        bindInsert(statement, obj);
+        statement.setInt(2, obj.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Genre WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -76,7 +119,8 @@ public class GenreDBRepository extends DBRepository<Genre> {
     @Override
     public Map<Integer, Genre> getAll() {
         String SQL = "SELECT * FROM Genre";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             ResultSet resultSet = statement.executeQuery();
             Map<Integer, Genre> genres = new HashMap<>();
             while (resultSet.next()) {
@@ -5,33 +5,57 @@ import Domain.*;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * Repository for History
  */
 public class HistoryDBRepository extends DBRepository<History> {
-    private SongDBRepository songDBRepository;
+    private static final String INSERT_SQL = "INSERT INTO History (user_id, song_id, play_time) VALUES (?, ?, ?)";
+    /** Appends a play unless the same play is already stored, so saving a history again adds only its new plays. */
+    private static final String APPEND_SQL = "INSERT INTO History (user_id, song_id, play_time) SELECT ?, ?, ? "
+            + "WHERE NOT EXISTS (SELECT 1 FROM History WHERE user_id = ? AND song_id = ? AND play_time = ?)";
+    private static final String DELETE_SQL = "DELETE FROM History WHERE user_id = ?";
+    /** Loads plays together with the song, album, artist and genres they reference in one query. */
+    private static final String SELECT_SQL = "SELECT h.user_id, h.play_time, " + RowHydrator.SONG_COLUMNS
+            + " FROM History h LEFT JOIN Song s ON s.id = h.song_id" + RowHydrator.SONG_JOINS;
+
     private ListenerDBRepository listenerDBRepository;
-    public HistoryDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
-        this.songDBRepository = new SongDBRepository(DBUrl, DBUser, DBPassword);
-        this.listenerDBRepository = new ListenerDBRepository(DBUrl, DBUser, DBPassword);
+    public HistoryDBRepository(ConnectionPool pool) {
+        super(pool);
+        this.listenerDBRepository = new ListenerDBRepository(pool);
 
 
     }
+    @Override
+    protected String getTableName() {
+        return "History";
+    }
+
     @Override
     public void create(History history) {
-        String SQL = "INSERT INTO History (user_id, song_id, play_time) VALUES (?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            for (Map.Entry<Song, LocalDateTime> entry : history.getSongHistory().entrySet()) {
-                statement.setInt(1, history.getUser().getId()); // user_id
-                statement.setInt(2, entry.getKey().getId()); // song_id
-                statement.setTimestamp(3, Timestamp.valueOf(entry.getValue())); // play_time
-                statement.executeUpdate();
-            }
+        createAll(List.of(history));
+    }
 
+    /**
+     * Inserts one row per played song of every history with JDBC batches in one transaction.
+     * Recorded plays are created as histories that hold only the new play, so each one appends a single row.
+     *
+     * @param histories The histories to insert.
+     */
+    @Override
+    public void createAll(Collection<History> histories) {
+        try {
+            inTransaction(connection -> executeBatch(connection, INSERT_SQL, plays(histories), (statement, play) -> {
+                statement.setInt(1, play.userId); // user_id
+                statement.setInt(2, play.songId); // song_id
+                statement.setTimestamp(3, play.playTime); // play_time
+            }));
         } catch (SQLException e) {
             throw new RuntimeException("Error create History", e);
         }
@@ -39,8 +63,9 @@ public class HistoryDBRepository extends DBRepository<History> {
 
     @Override
     public History read(int id) {
-        String SQL = "SELECT * FROM History WHERE user_id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        String SQL = SELECT_SQL + " WHERE h.user_id = ?";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             ResultSet rs = statement.executeQuery();
             if (rs.next()) {
@@ -54,23 +79,60 @@ public class HistoryDBRepository extends DBRepository<History> {
 
     @Override
     public void update(History history) {
-        String SQL = "UPDATE History SET song_id = ?, play_time = ? WHERE user_id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            for (Map.Entry<Song, LocalDateTime> entry : history.getSongHistory().entrySet()) {
-                statement.setInt(1, entry.getKey().getId()); // song_id
-                statement.setTimestamp(2, Timestamp.valueOf(entry.getValue())); // play_time
-                statement.setInt(3, history.getUser().getId()); // user_id
-                statement.executeUpdate();
-            }
+        updateAll(List.of(history));
+    }
+
+    /**
+     * Appends the plays of every history that are not stored yet, as JDBC batches in one transaction.
+     * Stored plays are never deleted or replaced, so saving a history that holds only some of the plays
+     * of its user keeps the others.
+     *
+     * @param histories The histories to save.
+     */
+    @Override
+    public void updateAll(Collection<History> histories) {
+        try {
+            inTransaction(connection -> executeBatch(connection, APPEND_SQL, plays(histories), (statement, play) -> {
+                statement.setInt(1, play.userId); // user_id
+                statement.setInt(2, play.songId); // song_id
+                statement.setTimestamp(3, play.playTime); // play_time
+                statement.setInt(4, play.userId);
+                statement.setInt(5, play.songId);
+                statement.setTimestamp(6, play.playTime);
+            }));
         } catch (SQLException e) {
             throw new RuntimeException("Error update History", e);
         }
     }
 
+    /**
+     * Deletes the histories of the given users with batched DELETE statements in one transaction.
+     *
+     * @param ids The ids of the users whose histories are deleted.
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        try {
+            inTransaction(connection -> executeBatch(connection, DELETE_SQL, ids, (statement, id) -> statement.setInt(1, id)));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error delete History", e);
+        }
+    }
+
+    private static List<Play> plays(Collection<History> histories) {
+        List<Play> plays = new ArrayList<>();
+        for (History history : histories) {
+            for (Map.Entry<Song, LocalDateTime> entry : history.getSongHistory().entrySet()) {
+                plays.add(new Play(history.getUser().getId(), entry.getKey().getId(), Timestamp.valueOf(entry.getValue())));
+            }
+        }
+        return plays;
+    }
+
     @Override
     public void delete(int id) {
-        String SQL = "DELETE FROM History WHERE user_id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(DELETE_SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -80,15 +142,13 @@ public class HistoryDBRepository extends DBRepository<History> {
 
     @Override
     public Map<Integer, History> getAll() {
-        String SQL = "SELECT * FROM History";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
             ResultSet resultSet = statement.executeQuery();
-            Map<Integer, History> histories = new HashMap<>();
-            while (resultSet.next()) {
-                History history = extractFromResultSet(resultSet);
-                histories.put(history.getUser().getId(), history);
+            if (!resultSet.next()) {
+                return new HashMap<>();
             }
-            return histories;
+            return readHistories(resultSet);
         } catch (SQLException e) {
             throw new RuntimeException("Error get_all History", e);
         }
@@ -100,18 +160,76 @@ public class HistoryDBRepository extends DBRepository<History> {
         return read(id);
     }
 
-    private History extractFromResultSet(ResultSet rs) throws SQLException {
+    /**
+     * Streams one history per user from one query ordered by user. The rows of a user are grouped as they arrive,
+     * and the listener of each history is read when its first row is reached.
+     */
+    @Override
+    public Stream<History> stream() {
+        return streamQuery(SELECT_SQL + " ORDER BY h.user_id", new GroupingReader<History>("user_id") {
+            private RowHydrator hydrator;
+
+            @Override
+            protected History startElement(int userId, ResultSet rs) {
+                hydrator = new RowHydrator();
+                return new History(listenerDBRepository.read(userId));
+            }
+
+            @Override
+            protected void addRow(History history, ResultSet rs) throws SQLException {
+                history.getSongHistory().put(hydrator.song(rs), rs.getTimestamp("play_time").toLocalDateTime());
+            }
+        });
+    }
+
+    /**
+     * Builds the history of the user of the current row from the rows up to the end of the result set,
+     * which must all belong to that user.
+     */
+    @Override
+    protected History extractFromResultSet(ResultSet rs) throws SQLException {
         int userId = rs.getInt("user_id");
-        Listener user = listenerDBRepository.read(userId);
-        Map<Song, LocalDateTime> songHistory = new HashMap<>();
+        return readHistories(rs).get(userId);
+    }
+
+    /**
+     * Builds one history per user from the rows from the current one to the end of the result set.
+     * The rows are selected with SELECT_SQL, so each one already carries its song, and rows that reference
+     * the same song, album, artist or genre share one instance. The listeners of all histories are read with one query.
+     *
+     * @param rs The result set, positioned on its first row.
+     * @return The histories by user id.
+     */
+    private Map<Integer, History> readHistories(ResultSet rs) throws SQLException {
+        RowHydrator hydrator = new RowHydrator();
+        Map<Integer, Map<Song, LocalDateTime>> songHistories = new HashMap<>();
         do {
-            int songId = rs.getInt("song_id");
+            int userId = rs.getInt("user_id");
             LocalDateTime playTime = rs.getTimestamp("play_time").toLocalDateTime();
-            Song song = songDBRepository.read(songId);
-            songHistory.put(song, playTime);
+            songHistories.computeIfAbsent(userId, id -> new HashMap<>()).put(hydrator.song(rs), playTime);
         } while (rs.next());
-        History history = new History(user);
-        history.setSongHistory(songHistory);
-        return history;
+        Map<Integer, Listener> users = listenerDBRepository.readAll(songHistories.keySet());
+        Map<Integer, History> histories = new HashMap<>();
+        for (Map.Entry<Integer, Map<Song, LocalDateTime>> entry : songHistories.entrySet()) {
+            History history = new History(users.get(entry.getKey()));
+            history.setSongHistory(entry.getValue());
+            histories.put(entry.getKey(), history);
+        }
+        return histories;
+    }
+
+    /**
+     * One History row: a song played by a user.
+     */
+    private static final class Play {
+        final int userId;
+        final int songId;
+        final Timestamp playTime;
+
+        Play(int userId, int songId, Timestamp playTime) {
+            this.userId = userId;
+            this.songId = songId;
+            this.playTime = playTime;
+        }
     }
 }
@@ -1,14 +1,20 @@
 package Repository;
 
+import Domain.HasId;
+
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * An interface that defines the basic CRUD operations for a repository.
  *
  * @param <T> The type of objects stored in the repository, which must implement HasId.
  */
-public interface IRepository <T>{
+public interface IRepository <T extends HasId>{
     /**
      * Creates a new object in the repository.
      *
@@ -38,6 +44,44 @@ public interface IRepository <T>{
      */
     void delete(int id);
 
+    /**
+     * Creates several objects, assigning each of them an id as create does.
+     * The default implementation calls create for every object. File repositories queue all log records
+     * under one lock and wait for one flush; database repositories insert them with JDBC batches in one transaction,
+     * so either all of them are stored or none is.
+     *
+     * @param objects The objects to create, in the order their ids are assigned.
+     */
+    default void createAll(Collection<T> objects) {
+        for (T obj : objects) {
+            create(obj);
+        }
+    }
+
+    /**
+     * Updates several existing objects.
+     * The default implementation calls update for every object; file and database repositories batch the writes as in createAll.
+     *
+     * @param objects The objects to update.
+     */
+    default void updateAll(Collection<T> objects) {
+        for (T obj : objects) {
+            update(obj);
+        }
+    }
+
+    /**
+     * Deletes several objects by their IDs.
+     * The default implementation calls delete for every id; file and database repositories batch the writes as in createAll.
+     *
+     * @param ids The unique identifiers of the objects to delete.
+     */
+    default void deleteAll(Collection<Integer> ids) {
+        for (int id : ids) {
+            delete(id);
+        }
+    }
+
     /**
      * Retrieves all objects from the repository.
      *
@@ -45,7 +89,82 @@ public interface IRepository <T>{
      */
     Map<Integer, T> getAll();
 
+    /**
+     * Returns the objects of the repository one at a time, so a caller can scan all of them
+     * without the repository building a map of the whole contents first.
+     * The stream must be closed, preferably with try-with-resources: database streams hold a connection
+     * and file streams hold the file open until then. Streams that are read to the end close themselves.
+     * The default implementation streams the values of getAll.
+     *
+     * @return A sequential stream of the objects.
+     */
+    default Stream<T> stream() {
+        return getAll().values().stream();
+    }
+
+    /**
+     * Returns one page of a keyset-paginated listing.
+     * The default implementation sorts the stream of all objects, which suits the repositories that keep them in memory;
+     * database repositories read only the rows of the page.
+     *
+     * @param request The order, size and position of the page.
+     * @return The page, with the request for the next page if there is one.
+     */
+    default Page<T> findPage(PageRequest<T> request) {
+        try (Stream<T> all = stream()) {
+            List<T> rows = all.filter(request::isAfterPosition)
+                    .sorted(request.comparator())
+                    .limit(request.getLimit() + 1L)
+                    .collect(Collectors.toList());
+            return Page.fromRows(rows, request);
+        }
+    }
+
+    /**
+     * Finds the objects that match criteria.
+     * The default implementation scans the stream of all objects; the in-memory and file repositories
+     * look equality conditions on indexed fields up in the index, and database repositories run one query
+     * that reads only the matching rows.
+     *
+     * @param criteria The conditions, order and limit.
+     * @return The matching objects, in the order of the criteria.
+     */
+    default List<T> find(Criteria<T> criteria) {
+        try (Stream<T> all = stream()) {
+            return criteria.select(all.collect(Collectors.toList()));
+        }
+    }
+
     T read(int id);
 
+    /**
+     * Registers a case-insensitive secondary index on a field of the stored objects.
+     * Once registered, the index is kept up to date on every create, update and delete.
+     * Database repositories use the field name as column name and create a matching database index.
+     *
+     * @param field The name of the indexed field, for example "title" or "name".
+     * @param keyExtractor Function that reads the indexed value from an object.
+     */
+    void addIndex(String field, Function<T, String> keyExtractor);
+
+    /**
+     * Registers a case-insensitive unique index on a field of the stored objects.
+     * Like addIndex, but create and update reject an object whose field value is already
+     * used by another object, ignoring case. Database repositories back it with a unique database index.
+     *
+     * @param field The name of the indexed field.
+     * @param keyExtractor Function that reads the indexed value from an object.
+     */
+    void addUniqueIndex(String field, Function<T, String> keyExtractor);
+
+    /**
+     * Finds an object by the value of an indexed field, ignoring case.
+     *
+     * @param field The name of a field registered with addIndex.
+     * @param value The value to look up.
+     * @return The first object whose field matches the value, or null if none is found.
+     * @throws IllegalArgumentException if no index is registered for the field.
+     */
+    T findByIndex(String field, String value);
 
 }
@@ -0,0 +1,153 @@
+package Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The result of a CsvImporter run: what happened to the rows of every table, and how fast they were loaded.
+ */
+public final class ImportReport {
+    private final List<TableReport> tables;
+    private final long elapsedNanos;
+
+    ImportReport(List<TableReport> tables, long elapsedNanos) {
+        this.tables = Collections.unmodifiableList(tables);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the results of the tables, in the order they were loaded.
+     *
+     * @return An unmodifiable list of the table results.
+     */
+    public List<TableReport> getTables() {
+        return tables;
+    }
+
+    /**
+     * Gets the number of rows inserted by this run, in all tables.
+     *
+     * @return The number of inserted rows.
+     */
+    public long getImportedCount() {
+        long imported = 0;
+        for (TableReport table : tables) {
+            imported += table.getImportedCount();
+        }
+        return imported;
+    }
+
+    /**
+     * Gets the number of rows that could not be imported, in all tables.
+     *
+     * @return The number of rejected rows.
+     */
+    public long getRejectedCount() {
+        long rejected = 0;
+        for (TableReport table : tables) {
+            rejected += table.getRejectedCount();
+        }
+        return rejected;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the number of rows inserted per second over the whole run, parsing included.
+     *
+     * @return The throughput, or 0 if nothing was imported.
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getImportedCount() * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (TableReport table : tables) {
+            text.append(table).append(System.lineSeparator());
+        }
+        text.append(String.format("ImportReport{imported=%d, rejected=%d, elapsed=%.1fs, rowsPerSecond=%.0f}",
+                getImportedCount(), getRejectedCount(), elapsedNanos / 1e9, getRowsPerSecond()));
+        return text.toString();
+    }
+
+    /**
+     * What happened to the rows of one table.
+     */
+    public static final class TableReport {
+        private final String table;
+        private final int parsedCount;
+        private final int importedCount;
+        private final int skippedCount;
+        private final int rejectedCount;
+        private final long loadNanos;
+
+        TableReport(String table, int parsedCount, int importedCount, int skippedCount, int rejectedCount, long loadNanos) {
+            this.table = table;
+            this.parsedCount = parsedCount;
+            this.importedCount = importedCount;
+            this.skippedCount = skippedCount;
+            this.rejectedCount = rejectedCount;
+            this.loadNanos = loadNanos;
+        }
+
+        public String getTable() {
+            return table;
+        }
+
+        /**
+         * Gets the number of records read from the file, valid or not.
+         *
+         * @return The number of records.
+         */
+        public int getParsedCount() {
+            return parsedCount;
+        }
+
+        /**
+         * Gets the number of rows inserted by this run.
+         *
+         * @return The number of inserted rows.
+         */
+        public int getImportedCount() {
+            return importedCount;
+        }
+
+        /**
+         * Gets the number of rows skipped because an earlier run already imported them.
+         *
+         * @return The number of skipped rows.
+         */
+        public int getSkippedCount() {
+            return skippedCount;
+        }
+
+        /**
+         * Gets the number of records that were malformed, repeated an id, referenced a row that was not imported,
+         * or violated a constraint of the database.
+         *
+         * @return The number of rejected records.
+         */
+        public int getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * Gets the time spent inserting the rows of the table, without the time spent waiting for its file to be parsed.
+         *
+         * @return The load time, in nanoseconds.
+         */
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s{parsed=%d, imported=%d, skipped=%d, rejected=%d, load=%.1fms}",
+                    table, parsedCount, importedCount, skippedCount, rejectedCount, loadNanos / 1e6);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package Repository;
+
+import Domain.Album;
+import Domain.Song;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Projects the albums and songs of the in-memory and file repositories into summaries.
+ * The entities are already loaded, so this only spares the list screens from holding on to whole object graphs.
+ */
+public class InMemoryCatalogSummaries implements CatalogSummaries {
+    private static final Comparator<AlbumSummary> ALBUM_ORDER = Comparator
+            .comparing(AlbumSummary::getTitle, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingInt(AlbumSummary::getId);
+    private static final Comparator<SongSummary> SONG_ORDER = Comparator
+            .comparing(SongSummary::getTitle, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+            .thenComparingInt(SongSummary::getId);
+
+    private final IRepository<Album> albumRepository;
+    private final IRepository<Song> songRepository;
+
+    /**
+     * Creates the summaries of the albums and songs of two repositories.
+     *
+     * @param albumRepository The repository of the albums, or null if only songs are listed.
+     * @param songRepository The repository of the songs, or null to read the songs from their albums.
+     */
+    public InMemoryCatalogSummaries(IRepository<Album> albumRepository, IRepository<Song> songRepository) {
+        this.albumRepository = albumRepository;
+        this.songRepository = songRepository;
+    }
+
+    @Override
+    public List<AlbumSummary> listAlbums(AlbumSummary after, int limit) {
+        requirePositive(limit);
+        if (albumRepository == null) {
+            throw new IllegalStateException("Albums cannot be listed without an album repository.");
+        }
+        try (Stream<Album> albums = albumRepository.stream()) {
+            return albums.map(AlbumSummary::of)
+                    .filter(album -> after == null || ALBUM_ORDER.compare(album, after) > 0)
+                    .sorted(ALBUM_ORDER)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public List<SongSummary> listSongs(SongSummary after, int limit) {
+        requirePositive(limit);
+        try (Stream<Song> songs = songs()) {
+            return songs.map(SongSummary::of)
+                    .filter(song -> after == null || SONG_ORDER.compare(song, after) > 0)
+                    .sorted(SONG_ORDER)
+                    .limit(limit)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Override
+    public List<SongSummary> listSongsInAlbum(String albumTitle) {
+        try (Stream<Song> songs = songs()) {
+            return songs.map(SongSummary::of)
+                    .filter(song -> albumTitle != null && albumTitle.equalsIgnoreCase(song.getAlbumTitle()))
+                    .sorted(Comparator.comparingInt(SongSummary::getId))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Stream<Song> songs() {
+        if (songRepository != null) {
+            return songRepository.stream();
+        }
+        if (albumRepository == null) {
+            throw new IllegalStateException("Songs cannot be listed without a song or album repository.");
+        }
+        return albumRepository.stream().flatMap(album -> album.getSongs().stream());
+    }
+
+    private static void requirePositive(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The limit must be positive.");
+        }
+    }
+}
@@ -1,35 +1,32 @@
 package Repository;
-import java.lang.reflect.Field;
-import java.util.HashMap;
+import Domain.HasId;
 import java.util.List;
-import java.util.ArrayList;
 import java.util.Map;
+import java.util.function.Function;
 /**
  * This class provides an in-memory implementation of the IRepository interface.
- * It stores entities in a HashMap and supports CRUD operations: create, read, update, and delete.
+ * It stores entities in an int-keyed IntObjectMap and supports CRUD operations: create, read, update, and delete.
+ * It is not thread-safe; repositories read from the asynchronous service methods should be a
+ * ConcurrentInMemoryRepository, a FileRepository or a DBRepository instead.
  *
  * @param <T> The type of the entity being managed by this repository.
  */
-public class InMemoryRepository<T> implements IRepository<T> {
-    private Map<Integer, T> data = new HashMap<>();
+public class InMemoryRepository<T extends HasId> implements IRepository<T> {
+    private final IntObjectMap<T> data = new IntObjectMap<>();
+    private final SecondaryIndexes<T> indexes = new SecondaryIndexes<>();
     private int currentId = 1;
     /**
      * Creates a new entity and adds it to the repository.
-     * The entity must have an 'id' field, which will be set automatically when the entity is created.
+     * The id of the entity is set automatically through its HasId contract when the entity is created.
      *
      * @param entity The entity to be created and added to the repository.
-     * @throws RuntimeException if the entity does not have an 'id' field or it is inaccessible.
+     * @throws IllegalArgumentException if a unique index already holds the entity's key.
      */
     @Override
     public void create(T entity) {
-        try {
-            Field idField = entity.getClass().getDeclaredField("id");
-            idField.setAccessible(true);
-            idField.set(entity, currentId);
-            data.put(currentId++, entity);
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException("Entity does not have an 'id' field or cannot access it.", e);
-        }
+        entity.setId(currentId);
+        indexes.onCreate(entity);
+        data.put(currentId++, entity);
     }
     /**
      * Retrieves an entity by its id.
@@ -58,28 +55,21 @@ public class InMemoryRepository<T> implements IRepository<T> {
     }
     /**
      * Updates an existing entity in the repository.
-     * The entity must have a valid 'id' field. If the entity with the given id exists in the repository,
-     * it will be updated. Otherwise, an exception will be thrown.
+     * If the entity with the given id exists in the repository, it will be updated.
+     * Otherwise, an exception will be thrown.
      *
      * @param entity The entity to update.
-     * @throws RuntimeException if the entity does not have an 'id' field or cannot access it.
-     * @throws IllegalArgumentException if the entity with the specified id does not exist in the repository.
+     * @throws IllegalArgumentException if the entity with the specified id does not exist in the repository,
+     *                                  or if a unique index holds the entity's key for another entity.
      */
     @Override
     public void update(T entity) {
-        try {
-
-            Field idField = entity.getClass().getDeclaredField("id");
-            idField.setAccessible(true);
-            Integer id = (Integer) idField.get(entity);
-
-            if (data.containsKey(id)) {
-                data.put(id, entity);
-            } else {
-                throw new IllegalArgumentException("Cannot update: Entity with id " + id + " does not exist.");
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            throw new RuntimeException("Entity does not have an 'id' field or cannot access it.", e);
+        int id = entity.getId();
+        if (data.containsKey(id)) {
+            indexes.onUpdate(entity);
+            data.put(id, entity);
+        } else {
+            throw new IllegalArgumentException("Cannot update: Entity with id " + id + " does not exist.");
         }
     }
     /**
@@ -93,6 +83,7 @@ public class InMemoryRepository<T> implements IRepository<T> {
     public void delete(int id) {
         if (data.containsKey(id)) {
             data.remove(id);
+            indexes.onDelete(id);
             System.out.println("Entity with ID " + id + " has been deleted.");
         } else {
             throw new IllegalArgumentException("Cannot delete: Entity with id " + id + " does not exist.");
@@ -102,11 +93,59 @@ public class InMemoryRepository<T> implements IRepository<T> {
     /**
      * Retrieves all entities stored in the repository.
      *
-     * @return A map containing all entities, where the keys are the entity ids and the values are the entities themselves.
+     * @return A read-only view of all entities, where the keys are the entity ids and the values are the entities themselves.
      */
     @Override
     public Map<Integer, T> getAll() {
-        return data;
+        return data.asMap();
+    }
+
+    /**
+     * Registers a case-insensitive secondary index on a field of the stored entities.
+     * The index is filled with the entities already in the repository.
+     *
+     * @param field The name of the indexed field.
+     * @param keyExtractor Function that reads the indexed value from an entity.
+     */
+    @Override
+    public void addIndex(String field, Function<T, String> keyExtractor) {
+        indexes.add(field, keyExtractor, false, data.values());
+    }
+
+    /**
+     * Registers a case-insensitive unique index on a field of the stored entities.
+     * Creates and updates that would give two entities the same normalized key are rejected.
+     *
+     * @param field The name of the indexed field.
+     * @param keyExtractor Function that reads the indexed value from an entity.
+     */
+    @Override
+    public void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        indexes.add(field, keyExtractor, true, data.values());
+    }
+
+    /**
+     * Finds an entity by the value of an indexed field with a single hash lookup.
+     *
+     * @param field The name of the indexed field.
+     * @param value The value to look up, compared case-insensitively.
+     * @return The first matching entity, or null if none is found.
+     * @throws IllegalArgumentException if no index is registered for the field.
+     */
+    @Override
+    public T findByIndex(String field, String value) {
+        return indexes.findFirst(field, value);
+    }
+
+    /**
+     * Finds the entities that match criteria, looking equality conditions on indexed fields up in the index.
+     *
+     * @param criteria The conditions, order and limit.
+     * @return The matching entities, in the order of the criteria.
+     */
+    @Override
+    public List<T> find(Criteria<T> criteria) {
+        return indexes.find(criteria, data.values());
     }
 
 
@@ -0,0 +1,316 @@
+package Repository;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An open-addressing hash map from primitive int keys to object values.
+ * Keys are kept in an int[] and values in a parallel Object[], so unlike a HashMap&lt;Integer, V&gt;
+ * there is no boxed Integer and no Node object per entry. Collisions are resolved with linear probing
+ * and removals use backward-shift deletion, so the table never fills up with tombstones.
+ * Null values are not supported; a null slot marks a free position.
+ * The map is not thread-safe.
+ *
+ * @param <V> The type of the values stored in the map.
+ */
+public class IntObjectMap<V> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+    private final Map<Integer, V> view = new MapView();
+
+    /**
+     * Creates an empty map with the default capacity.
+     */
+    public IntObjectMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty map sized to hold the given number of entries without resizing.
+     *
+     * @param expectedSize The number of entries the map is expected to hold.
+     */
+    public IntObjectMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(DEFAULT_CAPACITY, (int) (expectedSize / LOAD_FACTOR) + 1) - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Returns the value mapped to the key, or null if there is none.
+     *
+     * @param key The key to look up.
+     * @return The value, or null if the key is not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slot];
+    }
+
+    /**
+     * Checks whether the key is present in the map.
+     *
+     * @param key The key to look up.
+     * @return true if the key is present, false otherwise.
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Maps the key to the value, replacing any previous value.
+     *
+     * @param key The key.
+     * @param value The value, which must not be null.
+     * @return The previous value, or null if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("IntObjectMap does not support null values.");
+        }
+        int slot = hash(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                V previous = (V) values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold) {
+            rehash(keys.length << 1);
+        }
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the key.
+     *
+     * @param key The key to remove.
+     * @return The removed value, or null if the key was not present.
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        V previous = (V) values[slot];
+        shiftBack(slot);
+        size--;
+        return previous;
+    }
+
+    /**
+     * Returns the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the map is empty.
+     *
+     * @return true if the map has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all entries from the map, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Returns a read-only collection of the values, backed by this map.
+     *
+     * @return The values of the map.
+     */
+    public Collection<V> values() {
+        return view.values();
+    }
+
+    /**
+     * Returns a read-only Map view backed by this map.
+     * The view allocates boxed keys only for the entries a caller actually touches,
+     * and reflects later changes to this map.
+     *
+     * @return A read-only view of the map.
+     */
+    public Map<Integer, V> asMap() {
+        return view;
+    }
+
+    private int findSlot(int key) {
+        int slot = hash(key);
+        while (values[slot] != null) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Closes the gap left at the given slot by moving later entries of the same probe run back,
+     * so lookups never stop early at an empty slot.
+     */
+    private void shiftBack(int gap) {
+        int slot = (gap + 1) & mask;
+        while (values[slot] != null) {
+            int home = hash(keys[slot]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = keys[slot];
+                values[gap] = values[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        values[gap] = null;
+    }
+
+    private int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void rehash(int newCapacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+
+    private class MapView extends AbstractMap<Integer, V> {
+        private final Set<Entry<Integer, V>> entrySet = new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<Integer, V>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+        private final Collection<V> valueCollection = new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+
+        @Override
+        public V get(Object key) {
+            return key instanceof Integer ? IntObjectMap.this.get((Integer) key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Integer && IntObjectMap.this.containsKey((Integer) key);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<Integer, V>> entrySet() {
+            return entrySet;
+        }
+
+        @Override
+        public Collection<V> values() {
+            return valueCollection;
+        }
+    }
+
+    /**
+     * Walks the occupied slots of the table that was current when the iteration started.
+     */
+    private abstract class SlotIterator<E> implements Iterator<E> {
+        final int[] tableKeys = keys;
+        final Object[] table = values;
+        private int next = advance(0);
+
+        private int advance(int from) {
+            while (from < table.length && table[from] == null) {
+                from++;
+            }
+            return from;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < table.length;
+        }
+
+        int nextSlot() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slot = next;
+            next = advance(slot + 1);
+            return slot;
+        }
+    }
+
+    private class EntryIterator extends SlotIterator<Map.Entry<Integer, V>> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public Map.Entry<Integer, V> next() {
+            int slot = nextSlot();
+            return new AbstractMap.SimpleImmutableEntry<>(tableKeys[slot], (V) table[slot]);
+        }
+    }
+
+    private class ValueIterator extends SlotIterator<V> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            return (V) table[nextSlot()];
+        }
+    }
+}
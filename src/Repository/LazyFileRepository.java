@@ -0,0 +1,807 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A repository over the same files as FileRepository that keeps only an index of the CSV snapshot in memory
+ * and decodes entities when they are asked for.
+ * On open, the snapshot is scanned once without decoding anything, to map every id to the byte offset of its record;
+ * get and read seek to that offset and decode the one record. The most recently used entities are kept in a bounded cache.
+ * Mutations are appended to the same log as in FileRepository, and the entities created or updated since the
+ * last compaction stay in memory until the log is compacted into the snapshot. The heap therefore depends on the
+ * cache capacity, the compaction threshold and about 16 bytes per stored id, not on the size of the file.
+ * Secondary indexes keep the key and id of every entity instead of the entity.
+ * getAll still decodes every record, reading the file sequentially, and returns a new map on every call;
+ * stream decodes them one at a time instead.
+ * An entity evicted from the cache is decoded again on its next read, so the same id can yield different objects over time.
+ * All operations are synchronized; compaction rewrites the snapshot while holding the lock.
+ * The repository is opt-in: the file storage of MusicApp keeps using FileRepository, whose entities stay the same
+ * objects for as long as the application runs, which the console relies on when it links albums, songs and artists.
+ * Use this class directly for files too large to hold in memory.
+ *
+ * @param <T> The type of objects stored in the repository.
+ */
+public class LazyFileRepository<T extends HasId> implements IRepository<T>, AutoCloseable {
+    /** Default number of decoded entities kept in the cache. */
+    public static final int DEFAULT_CACHE_CAPACITY = 10_000;
+    private static final String UPSERT = "+";
+    private static final String DELETE = "-";
+    private static final int RECORD_BUFFER_SIZE = 4096;
+
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final Path compactingLogPath;
+    private final Path binarySnapshotPath;
+    private final EntityCodec<T> codec;
+    private final DurabilityMode durabilityMode;
+    private final long compactionThreshold;
+    private final CsvLine line = new CsvLine();
+    private final Map<Integer, T> cache;
+    private final IntObjectMap<T> unsaved = new IntObjectMap<>();
+    private final Map<String, KeyIndex> indexes = new HashMap<>();
+    private final LogWriter logWriter;
+    private OffsetIndex offsets = new OffsetIndex();
+    private CsvReader recordReader;
+    private int currentId = 1;
+    private int compactions;
+
+    /**
+     * Opens the repository stored in the given CSV file, with SYNC durability and the default settings.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param cacheCapacity The number of decoded entities kept in memory.
+     */
+    public LazyFileRepository(String filePath, EntityCodec<T> codec, int cacheCapacity) {
+        this(filePath, codec, cacheCapacity, DurabilityMode.SYNC, FileRepository.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the repository stored in the given CSV file.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param cacheCapacity The number of decoded entities kept in memory.
+     * @param durabilityMode Whether mutations wait for their log record to reach the disk.
+     * @param compactionThreshold The log size, in bytes, after which the log is compacted into the snapshot.
+     */
+    public LazyFileRepository(String filePath, EntityCodec<T> codec, int cacheCapacity, DurabilityMode durabilityMode,
+                              long compactionThreshold) {
+        this(filePath, codec, cacheCapacity, null, null, durabilityMode, compactionThreshold);
+    }
+
+    /**
+     * Opens the repository stored in the given CSV file as part of a set of file repositories that reference
+     * each other, with SYNC durability and the default compaction threshold.
+     * The types the codec depends on must already be registered; references are resolved when an entity is decoded.
+     *
+     * @param filePath The path of the CSV snapshot file.
+     * @param codec The codec that reads and writes the stored type.
+     * @param cacheCapacity The number of decoded entities kept in memory.
+     * @param type The stored entity type.
+     * @param registry The registry shared by the file repositories.
+     * @throws IllegalStateException if a type the codec depends on is not registered yet.
+     */
+    public LazyFileRepository(String filePath, EntityCodec<T> codec, int cacheCapacity, Class<T> type, EntityRegistry registry) {
+        this(filePath, codec, cacheCapacity, type, registry, DurabilityMode.SYNC, FileRepository.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    private LazyFileRepository(String filePath, EntityCodec<T> codec, int cacheCapacity, Class<T> type, EntityRegistry registry,
+                               DurabilityMode durabilityMode, long compactionThreshold) {
+        if (cacheCapacity < 0) {
+            throw new IllegalArgumentException("Cache capacity cannot be negative.");
+        }
+        if (registry != null) {
+            for (Class<? extends HasId> dependency : codec.dependencies()) {
+                if (!registry.isRegistered(dependency)) {
+                    throw new IllegalStateException(filePath + " references " + dependency.getSimpleName()
+                            + ", which must be loaded first.");
+                }
+            }
+        }
+        this.snapshotPath = Path.of(filePath);
+        this.logPath = Path.of(filePath + ".log");
+        this.compactingLogPath = Path.of(filePath + ".log.compacting");
+        this.binarySnapshotPath = Path.of(filePath + ".snap");
+        this.codec = codec;
+        this.durabilityMode = durabilityMode;
+        this.compactionThreshold = compactionThreshold;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+                return size() > cacheCapacity;
+            }
+        };
+
+        indexSnapshot();
+        boolean interruptedCompaction = Files.exists(compactingLogPath);
+        replayLog(compactingLogPath);
+        replayLog(logPath);
+        try {
+            this.recordReader = openRecordReader();
+            this.logWriter = new LogWriter(logPath, FileRepository.DEFAULT_MAX_BATCH_SIZE,
+                    durabilityMode == DurabilityMode.SYNC ? FileRepository.DEFAULT_SYNC_FLUSH_DELAY_MILLIS
+                            : FileRepository.DEFAULT_RELAXED_FLUSH_DELAY_MILLIS);
+        } catch (IOException e) {
+            throw new RuntimeException("Error opening " + filePath, e);
+        }
+        if (interruptedCompaction) {
+            compact();
+        }
+        if (registry != null) {
+            registry.register(type, this);
+        }
+    }
+
+    @Override
+    public void create(T obj) {
+        long sequence;
+        synchronized (this) {
+            sequence = applyCreate(obj);
+        }
+        awaitDurable(sequence);
+    }
+
+    @Override
+    public synchronized T get(int id) {
+        T obj = unsaved.get(id);
+        if (obj == null) {
+            obj = cache.get(id);
+        }
+        if (obj == null) {
+            long offset = offsets.get(id);
+            if (offset < 0) {
+                return null;
+            }
+            obj = readRecord(offset);
+            if (obj != null) {
+                cache.put(id, obj);
+            }
+        }
+        return obj;
+    }
+
+    @Override
+    public void update(T obj) {
+        long sequence;
+        synchronized (this) {
+            sequence = applyUpdate(obj);
+        }
+        awaitDurable(sequence);
+    }
+
+    @Override
+    public void delete(int id) {
+        long sequence;
+        synchronized (this) {
+            sequence = applyDelete(id);
+        }
+        awaitDurable(sequence);
+    }
+
+    /**
+     * Creates all objects under one lock and waits once for the log, so in SYNC mode the whole batch
+     * costs one fsync instead of one per object. The batch is not atomic: if an object is rejected,
+     * for example by a unique index, the objects before it stay created and are still flushed.
+     *
+     * @param objects The objects to create.
+     */
+    @Override
+    public void createAll(Collection<T> objects) {
+        long sequence = 0;
+        try {
+            synchronized (this) {
+                for (T obj : objects) {
+                    sequence = applyCreate(obj);
+                }
+            }
+        } finally {
+            awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Updates all objects under one lock and waits once for the log, like createAll.
+     *
+     * @param objects The objects to update.
+     */
+    @Override
+    public void updateAll(Collection<T> objects) {
+        long sequence = 0;
+        try {
+            synchronized (this) {
+                for (T obj : objects) {
+                    sequence = applyUpdate(obj);
+                }
+            }
+        } finally {
+            awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Deletes all objects under one lock and waits once for the log, like createAll.
+     *
+     * @param ids The ids of the objects to delete.
+     */
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        long sequence = 0;
+        try {
+            synchronized (this) {
+                for (int id : ids) {
+                    sequence = applyDelete(id);
+                }
+            }
+        } finally {
+            awaitDurable(sequence);
+        }
+    }
+
+    /**
+     * Decodes every stored entity. Cached entities are returned as they are; the others are decoded
+     * from the snapshot but not added to the cache.
+     *
+     * @return A new map of all entities by id.
+     */
+    @Override
+    public synchronized Map<Integer, T> getAll() {
+        IntObjectMap<T> all = new IntObjectMap<>(offsets.size() + unsaved.size());
+        forEachStored(obj -> all.put(obj.getId(), obj));
+        return all.asMap();
+    }
+
+    /**
+     * Streams the stored entities in the order of getAll, decoding one snapshot record per element,
+     * so only the entities the caller keeps stay in memory. Every element takes the repository lock briefly.
+     * The stream is weakly consistent: an entity updated while the stream is open can be returned in either version,
+     * or in both if it had already been returned. If the snapshot is compacted meanwhile, the next element throws
+     * ConcurrentModificationException.
+     */
+    @Override
+    public Stream<T> stream() {
+        Cursor cursor = new Cursor();
+        return StreamSupport.stream(cursor, false).onClose(cursor::close);
+    }
+
+    @Override
+    public T read(int id) {
+        return get(id);
+    }
+
+    /**
+     * Registers a case-insensitive index on a field, reading every stored entity once to fill it.
+     * The index keeps only the key and id of each entity; findByIndex loads the entity through get.
+     */
+    @Override
+    public synchronized void addIndex(String field, Function<T, String> keyExtractor) {
+        addKeyIndex(field, keyExtractor, false);
+    }
+
+    @Override
+    public synchronized void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        addKeyIndex(field, keyExtractor, true);
+    }
+
+    @Override
+    public synchronized T findByIndex(String field, String value) {
+        KeyIndex index = indexes.get(field);
+        if (index == null) {
+            throw new IllegalArgumentException("No index registered for field '" + field + "'.");
+        }
+        int id = index.findFirst(value);
+        return id < 0 ? null : get(id);
+    }
+
+    /**
+     * Returns the flush statistics of the log.
+     *
+     * @return A snapshot of the flush metrics.
+     */
+    public FlushMetrics getFlushMetrics() {
+        return logWriter.metrics();
+    }
+
+    /**
+     * Flushes the queued log records and closes the log and the snapshot file.
+     */
+    @Override
+    public synchronized void close() throws Exception {
+        logWriter.close();
+        if (recordReader != null) {
+            recordReader.close();
+        }
+    }
+
+    private boolean exists(int id) {
+        return unsaved.containsKey(id) || offsets.get(id) >= 0;
+    }
+
+    /**
+     * Scans the snapshot and records the offset of every record, without decoding the entities.
+     */
+    private void indexSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return;
+        }
+        try (CsvReader reader = new CsvReader(snapshotPath)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                if (record.size() < 2) {
+                    continue;
+                }
+                int id;
+                try {
+                    id = record.getInt(0);
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping invalid line: " + record);
+                    continue;
+                }
+                offsets.put(id, reader.recordOffset());
+                currentId = Math.max(currentId, id + 1);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading " + snapshotPath, e);
+        }
+    }
+
+    /**
+     * Replays a log file into the unsaved entities, in the same format as FileRepository.
+     * A torn last record is discarded and cut off the file.
+     */
+    private void replayLog(Path log) {
+        if (!Files.exists(log)) {
+            return;
+        }
+        try (CsvReader reader = new CsvReader(log)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                if (!reader.recordTerminated()) {
+                    System.out.println("Discarding incomplete record at the end of " + log);
+                    try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+                        channel.truncate(reader.recordOffset());
+                    }
+                    break;
+                }
+                String operation = record.getString(0);
+                record.skipFields(1);
+                try {
+                    if (operation.equals(UPSERT) && record.size() > 1) {
+                        int id = record.getInt(0);
+                        T obj = decode(record);
+                        if (obj != null) {
+                            unsaved.put(id, obj);
+                        }
+                        currentId = Math.max(currentId, id + 1);
+                    } else if (operation.equals(DELETE) && record.size() > 0) {
+                        int id = record.getInt(0);
+                        unsaved.remove(id);
+                        offsets.remove(id);
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Skipping invalid log record: " + record);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private T readRecord(long offset) {
+        try {
+            recordReader.seek(offset);
+            CsvRecord record = recordReader.next();
+            return record == null ? null : decode(record);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading " + snapshotPath, e);
+        }
+    }
+
+    private T decode(CsvRecord record) {
+        try {
+            return codec.decode(record);
+        } catch (IllegalArgumentException | DateTimeException e) {
+            System.out.println("Skipping invalid line: " + record + " (" + e.getMessage() + ")");
+            return null;
+        }
+    }
+
+    /**
+     * Passes every stored entity to the action: the live records of the snapshot in file order, then the unsaved entities.
+     * A snapshot record is live if the offset index still points at it and it has no unsaved version.
+     */
+    private void forEachStored(Consumer<T> action) {
+        if (Files.exists(snapshotPath)) {
+            try (CsvReader reader = new CsvReader(snapshotPath)) {
+                CsvRecord record;
+                while ((record = reader.next()) != null) {
+                    int id = liveId(record, reader.recordOffset());
+                    if (id < 0) {
+                        continue;
+                    }
+                    T obj = cache.get(id);
+                    if (obj == null) {
+                        obj = decode(record);
+                    }
+                    if (obj != null) {
+                        action.accept(obj);
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading " + snapshotPath, e);
+            }
+        }
+        for (T obj : unsaved.values()) {
+            action.accept(obj);
+        }
+    }
+
+    /**
+     * The spliterator of stream: a reader of its own over the snapshot, then a copy of the unsaved entities.
+     */
+    private final class Cursor extends Spliterators.AbstractSpliterator<T> {
+        private final int generation;
+        private CsvReader reader;
+        private Iterator<T> unsavedEntities;
+        private boolean closed;
+
+        Cursor() {
+            super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+            synchronized (LazyFileRepository.this) {
+                generation = compactions;
+                try {
+                    reader = Files.exists(snapshotPath) ? new CsvReader(snapshotPath) : null;
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading " + snapshotPath, e);
+                }
+            }
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (closed) {
+                return false;
+            }
+            T next;
+            synchronized (LazyFileRepository.this) {
+                if (compactions != generation) {
+                    close();
+                    throw new ConcurrentModificationException("The repository was compacted while it was being streamed.");
+                }
+                next = nextStored();
+            }
+            if (next == null) {
+                close();
+                return false;
+            }
+            action.accept(next);
+            return true;
+        }
+
+        /**
+         * Returns the next live snapshot record, decoded unless it is cached, then the unsaved entities.
+         * Called while holding the repository lock.
+         */
+        private T nextStored() {
+            if (unsavedEntities == null && reader != null) {
+                try {
+                    CsvRecord record;
+                    while ((record = reader.next()) != null) {
+                        int id = liveId(record, reader.recordOffset());
+                        if (id < 0) {
+                            continue;
+                        }
+                        T obj = cache.get(id);
+                        if (obj == null) {
+                            obj = decode(record);
+                        }
+                        if (obj != null) {
+                            return obj;
+                        }
+                    }
+                } catch (IOException e) {
+                    close();
+                    throw new RuntimeException("Error reading " + snapshotPath, e);
+                }
+            }
+            if (unsavedEntities == null) {
+                closeReader();
+                unsavedEntities = new ArrayList<>(unsaved.values()).iterator();
+            }
+            return unsavedEntities.hasNext() ? unsavedEntities.next() : null;
+        }
+
+        void close() {
+            closed = true;
+            unsavedEntities = null;
+            closeReader();
+        }
+
+        private void closeReader() {
+            if (reader == null) {
+                return;
+            }
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new RuntimeException("Error closing " + snapshotPath, e);
+            } finally {
+                reader = null;
+            }
+        }
+    }
+
+    private int liveId(CsvRecord record, long offset) {
+        if (record.size() < 2) {
+            return -1;
+        }
+        try {
+            int id = record.getInt(0);
+            return offsets.get(id) == offset && !unsaved.containsKey(id) ? id : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void addKeyIndex(String field, Function<T, String> keyExtractor, boolean unique) {
+        KeyIndex index = new KeyIndex(keyExtractor, unique);
+        forEachStored(index::put);
+        indexes.put(field, index);
+    }
+
+    /**
+     * Checks every unique index before any of them is changed, so a rejected write leaves all indexes as they were.
+     */
+    private void checkIndexes(T obj) {
+        for (KeyIndex index : indexes.values()) {
+            index.check(obj);
+        }
+    }
+
+    private String formatRecord(String operation, T obj) {
+        line.reset().add(operation);
+        codec.encode(obj, line);
+        return line.toString();
+    }
+
+    /**
+     * Assigns the next id to the object, indexes it and queues its record. Called while holding the repository lock.
+     *
+     * @return The sequence number of the queued record.
+     */
+    private long applyCreate(T obj) {
+        int id = currentId++;
+        obj.setId(id);
+        checkIndexes(obj);
+        for (KeyIndex index : indexes.values()) {
+            index.put(obj);
+        }
+        unsaved.put(id, obj);
+        return appendToLog(formatRecord(UPSERT, obj));
+    }
+
+    /**
+     * Replaces the stored object and queues its record. Called while holding the repository lock.
+     *
+     * @return The sequence number of the queued record.
+     */
+    private long applyUpdate(T obj) {
+        int id = obj.getId();
+        if (!exists(id)) {
+            throw new IllegalArgumentException("No object with ID " + id + " exists.");
+        }
+        checkIndexes(obj);
+        for (KeyIndex index : indexes.values()) {
+            index.put(obj);
+        }
+        unsaved.put(id, obj);
+        cache.remove(id);
+        return appendToLog(formatRecord(UPSERT, obj));
+    }
+
+    /**
+     * Removes the object and queues a delete record. Called while holding the repository lock.
+     *
+     * @return The sequence number of the queued record.
+     */
+    private long applyDelete(int id) {
+        if (!exists(id)) {
+            throw new IllegalArgumentException("No object with ID " + id + " exists.");
+        }
+        unsaved.remove(id);
+        offsets.remove(id);
+        cache.remove(id);
+        for (KeyIndex index : indexes.values()) {
+            index.remove(id);
+        }
+        return appendToLog(line.reset().add(DELETE).add(id).toString());
+    }
+
+    private long appendToLog(String record) {
+        long sequence = logWriter.append(record);
+        if (logWriter.size() >= compactionThreshold) {
+            compact();
+        }
+        return sequence;
+    }
+
+    private void awaitDurable(long sequence) {
+        if (durabilityMode == DurabilityMode.SYNC) {
+            logWriter.awaitFlushed(sequence);
+        }
+    }
+
+    /**
+     * Rewrites the snapshot with the live records of the old one, copied field by field without decoding them,
+     * followed by the unsaved entities, and starts a new log. Runs while holding the lock.
+     * The rotated log is deleted only after the new snapshot is forced to disk and in place, as in FileRepository.
+     * A binary snapshot left by FileRepository no longer matches and is deleted.
+     */
+    private void compact() {
+        Path temp = Path.of(snapshotPath + ".tmp");
+        OffsetIndex compacted = new OffsetIndex();
+        try {
+            logWriter.rotate(compactingLogPath);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+                 OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel))) {
+                long position = 0;
+                if (Files.exists(snapshotPath)) {
+                    try (CsvReader reader = new CsvReader(snapshotPath)) {
+                        CsvRecord record;
+                        while ((record = reader.next()) != null) {
+                            int id = liveId(record, reader.recordOffset());
+                            if (id < 0) {
+                                continue;
+                            }
+                            line.reset();
+                            for (int i = 0; i < record.size(); i++) {
+                                line.add(record.getString(i));
+                            }
+                            compacted.put(id, position);
+                            position += writeLine(out);
+                        }
+                    }
+                }
+                for (T obj : unsaved.values()) {
+                    line.reset();
+                    codec.encode(obj, line);
+                    compacted.put(obj.getId(), position);
+                    position += writeLine(out);
+                }
+                out.flush();
+                channel.force(true);
+            }
+            if (recordReader != null) {
+                recordReader.close();
+                recordReader = null;
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            DurableFiles.forceDirectory(snapshotPath);
+            compactions++;
+            offsets = compacted;
+            for (T obj : unsaved.values()) {
+                cache.put(obj.getId(), obj);
+            }
+            unsaved.clear();
+            Files.deleteIfExists(binarySnapshotPath);
+            Files.delete(compactingLogPath);
+        } catch (IOException e) {
+            throw new RuntimeException("Error compacting " + snapshotPath, e);
+        } finally {
+            if (recordReader == null) {
+                try {
+                    recordReader = openRecordReader();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading " + snapshotPath, e);
+                }
+            }
+        }
+    }
+
+    private long writeLine(OutputStream out) throws IOException {
+        byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        out.write(bytes);
+        out.write('\n');
+        return bytes.length + 1;
+    }
+
+    private CsvReader openRecordReader() throws IOException {
+        return Files.exists(snapshotPath) ? new CsvReader(snapshotPath, RECORD_BUFFER_SIZE) : null;
+    }
+
+    /**
+     * A case-insensitive index from the keys of one field to the ids of the entities, with the function that reads
+     * the key from an entity. It keeps the key of every id, like SecondaryIndex, so an entity modified in place
+     * can still be moved to its new key, but it stores ids instead of entities.
+     */
+    private final class KeyIndex {
+        private final Function<T, String> keyExtractor;
+        private final boolean unique;
+        private final Map<String, List<Integer>> idsByKey = new HashMap<>();
+        private final IntObjectMap<String> keysById = new IntObjectMap<>();
+
+        KeyIndex(Function<T, String> keyExtractor, boolean unique) {
+            this.keyExtractor = keyExtractor;
+            this.unique = unique;
+        }
+
+        /**
+         * Throws if the index is unique and the key of the object belongs to another id.
+         */
+        void check(T obj) {
+            String key = SecondaryIndex.normalize(keyExtractor.apply(obj));
+            if (!unique || key == null) {
+                return;
+            }
+            List<Integer> ids = idsByKey.get(key);
+            if (ids != null) {
+                for (int id : ids) {
+                    if (id != obj.getId()) {
+                        throw new IllegalArgumentException("Duplicate value '" + keyExtractor.apply(obj)
+                                + "': already used by the entity with id " + id + ".");
+                    }
+                }
+            }
+        }
+
+        /**
+         * Indexes the object under its current key, replacing the key its id had before.
+         */
+        void put(T obj) {
+            int id = obj.getId();
+            remove(id);
+            String key = SecondaryIndex.normalize(keyExtractor.apply(obj));
+            if (key != null) {
+                idsByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(id);
+                keysById.put(id, key);
+            }
+        }
+
+        void remove(int id) {
+            String key = keysById.remove(id);
+            if (key == null) {
+                return;
+            }
+            List<Integer> ids = idsByKey.get(key);
+            ids.remove(Integer.valueOf(id));
+            if (ids.isEmpty()) {
+                idsByKey.remove(key);
+            }
+        }
+
+        /**
+         * Gets the first id stored under a key, compared case-insensitively, or -1 if there is none.
+         */
+        int findFirst(String value) {
+            List<Integer> ids = idsByKey.get(SecondaryIndex.normalize(value));
+            return ids == null ? -1 : ids.get(0);
+        }
+    }
+}
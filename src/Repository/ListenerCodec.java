@@ -0,0 +1,42 @@
+package Repository;
+
+import Domain.Listener;
+
+import java.io.IOException;
+
+/**
+ * Codec for listeners. Columns: id, name, email.
+ */
+public class ListenerCodec implements EntityCodec<Listener> {
+
+    @Override
+    public Listener decode(CsvRecord record) {
+        if (record.size() < 2) {
+            return null;
+        }
+        String email = record.size() > 2 ? record.getString(2) : "";
+        Listener listener = new Listener(record.getString(1), email);
+        listener.setId(record.getInt(0));
+        return listener;
+    }
+
+    @Override
+    public void encode(Listener listener, CsvLine line) {
+        line.add(listener.getId()).add(listener.getName()).add(listener.getEmail());
+    }
+
+    @Override
+    public Listener read(SnapshotInput in) {
+        int id = in.readInt();
+        Listener listener = new Listener(in.readString(), in.readString());
+        listener.setId(id);
+        return listener;
+    }
+
+    @Override
+    public void write(Listener listener, SnapshotOutput out) throws IOException {
+        out.writeInt(listener.getId());
+        out.writeString(listener.getName());
+        out.writeString(listener.getEmail());
+    }
+}
@@ -5,6 +5,7 @@ import Domain.*;
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,19 +15,42 @@ import java.util.Map;
  * Repository for Listener
  */
 public class ListenerDBRepository extends DBRepository<Listener> {
-    SubscriptionDBRepository subscriptionDBRepository;
-    public ListenerDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
-        this.subscriptionDBRepository=new SubscriptionDBRepository( DBUrl, DBUser,DBPassword);
+    private static final String INSERT_SQL = "INSERT INTO Listener (name, email) VALUES (?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Listener SET name = ?, email = ? WHERE id = ?";
+    /**
+     * Loads listeners with their subscription and the subscription's user in one query.
+     * The subscription is the one whose id is the listener id, as SubscriptionDBRepository.read(listenerId) returned.
+     */
+    private static final String SELECT_SQL = "SELECT l.id, l.name, l.email, "
+            + "sub.id AS subscription_id, sub.type AS subscription_type, sub.price AS subscription_price, "
+            + "su.id AS subscriber_id, su.name AS subscriber_name, su.email AS subscriber_email "
+            + "FROM Listener l "
+            + "LEFT JOIN Subscription sub ON sub.id = l.id "
+            + "LEFT JOIN Listener su ON su.id = sub.user_id";
+
+    public ListenerDBRepository(ConnectionPool pool) {
+        super(pool);
 
     }
+    @Override
+    protected String getTableName() {
+        return "Listener";
+    }
+
     @Override
     public void create(Listener listener) {
-        String SQL = "INSERT INTO Listener (name, email) VALUES (?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, listener.getName());
-            statement.setString(2, listener.getEmail());
-            statement.executeUpdate();
+        createAll(List.of(listener));
+    }
+
+    /**
+     * Inserts the listeners with JDBC batches in one transaction and sets the ids generated for them.
+     *
+     * @param listeners The listeners to insert.
+     */
+    @Override
+    public void createAll(Collection<Listener> listeners) {
+        try {
+            inTransaction(connection -> insertBatch(connection, INSERT_SQL, listeners, this::bindInsert));
         } catch (SQLException e) {
             throw new RuntimeException("Error create Listener", e);
         }
@@ -34,8 +58,9 @@ public class ListenerDBRepository extends DBRepository<Listener> {
 
     @Override
     public Listener read(int id) {
-        String SQL = "SELECT * FROM Listener WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        String SQL = SELECT_SQL + " WHERE l.id = ?";
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             ResultSet rs = statement.executeQuery();
             if (rs.next()) {
@@ -49,21 +74,44 @@ public class ListenerDBRepository extends DBRepository<Listener> {
 
     @Override
     public void update(Listener listener) {
-        String SQL = "UPDATE Listener SET name = ?, email = ?, WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, listener.getName());
-            statement.setString(2, listener.getEmail());
-            statement.setInt(3, listener.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, listener);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error update Listener", e);
         }
     }
 
+    /**
+     * Updates the listeners with JDBC batches in one transaction.
+     *
+     * @param listeners The listeners to update.
+     */
+    @Override
+    public void updateAll(Collection<Listener> listeners) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, listeners, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error update Listener", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Listener listener) throws SQLException {
+        statement.setString(1, listener.getName());
+        statement.setString(2, listener.getEmail());
+    }
+
+    private void bindUpdate(PreparedStatement statement, Listener listener) throws SQLException {
+        bindInsert(statement, listener);
+        statement.setInt(3, listener.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Listener WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -73,9 +121,9 @@ public class ListenerDBRepository extends DBRepository<Listener> {
 
     @Override
     public Map<Integer, Listener> getAll() {
-        String SQL = "SELECT * FROM Listener";
         Map<Integer, Listener> listeners = new HashMap<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL);
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL);
              ResultSet resultSet = statement.executeQuery()) {
             while (resultSet.next()) {
                 Listener listener = extractFromResultSet(resultSet);
@@ -92,14 +140,60 @@ public class ListenerDBRepository extends DBRepository<Listener> {
         return read(id);
     }
 
-    private Listener extractFromResultSet(ResultSet rs) throws SQLException {
+    /**
+     * Reads the listeners with the given ids, with their subscriptions, in one query.
+     *
+     * @param ids The ids of the listeners.
+     * @return The listeners that exist, by id.
+     */
+    public Map<Integer, Listener> readAll(Collection<Integer> ids) {
+        String SQL = SELECT_SQL + " WHERE l.id = ANY(?)";
+        Map<Integer, Listener> listeners = new HashMap<>();
+        if (ids.isEmpty()) {
+            return listeners;
+        }
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
+            statement.setArray(1, connection.createArrayOf("integer", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Listener listener = extractFromResultSet(resultSet);
+                    listeners.put(listener.getId(), listener);
+                }
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error read Listeners", e);
+        }
+        return listeners;
+    }
+
+    @Override
+    protected String getSelectSql() {
+        return SELECT_SQL;
+    }
+
+    @Override
+    protected String getColumnPrefix() {
+        return "l.";
+    }
+
+    @Override
+    protected Listener extractFromResultSet(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         String name = rs.getString("name");
         String email = rs.getString("email");
         Listener listener = new Listener(name, email);
         listener.setId(id);
-        Subscription subscription = subscriptionDBRepository.read(id);
-        if (subscription != null) {
+        int subscriptionId = rs.getInt("subscription_id");
+        if (!rs.wasNull()) {
+            Listener user = null;
+            int userId = rs.getInt("subscriber_id");
+            if (!rs.wasNull()) {
+                user = new Listener(rs.getString("subscriber_name"), rs.getString("subscriber_email"));
+                user.setId(userId);
+            }
+            Subscription subscription = new Subscription(rs.getString("subscription_type"), rs.getFloat("subscription_price"), user);
+            subscription.setId(subscriptionId);
             listener.setSubscription(subscription);
         }
         return listener;
@@ -108,7 +202,8 @@ public class ListenerDBRepository extends DBRepository<Listener> {
     public List<Listener> getListenersByConcertId(int concertId, String accessType) {
         String SQL = "SELECT * FROM ConcertListeners WHERE concert_id = ? AND access_type = ?";
         List<Listener> listeners = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, concertId);
             statement.setString(2, accessType);
             ResultSet rs = statement.executeQuery();
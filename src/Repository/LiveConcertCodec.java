@@ -0,0 +1,91 @@
+package Repository;
+
+import Domain.Artist;
+import Domain.HasId;
+import Domain.LiveConcert;
+
+import java.io.IOException;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.IntFunction;
+
+/**
+ * Codec for live concerts.
+ * Columns: id, title, date (as printed by Date.toString), artist id, ticket count, replay available, event type.
+ * The codec keeps its own date format, so it must not be used by several threads at once.
+ */
+public class LiveConcertCodec implements EntityCodec<LiveConcert> {
+    private final IntFunction<Artist> artists;
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss z yyyy", Locale.ENGLISH);
+
+    /**
+     * Creates the codec.
+     *
+     * @param artists Looks up the artist of a concert by id; returns null if the artist does not exist.
+     */
+    public LiveConcertCodec(IntFunction<Artist> artists) {
+        this.artists = artists;
+    }
+
+    /**
+     * Creates the codec with references resolved through a registry.
+     *
+     * @param registry The registry of the file repositories that stores the artists.
+     */
+    public LiveConcertCodec(EntityRegistry registry) {
+        this(registry.resolver(Artist.class));
+    }
+
+    @Override
+    public List<Class<? extends HasId>> dependencies() {
+        return List.of(Artist.class);
+    }
+
+    @Override
+    public LiveConcert decode(CsvRecord record) {
+        if (record.size() < 7) {
+            return null;
+        }
+        Date date;
+        try {
+            date = dateFormat.parse(record.getString(2));
+        } catch (ParseException e) {
+            System.out.println("Invalid date format for live concert: " + record.getString(2));
+            return null;
+        }
+        LiveConcert liveConcert = new LiveConcert(record.getString(1), date, artists.apply(record.getInt(3)),
+                record.getInt(4), record.getBoolean(5), record.getString(6));
+        liveConcert.setId(record.getInt(0));
+        return liveConcert;
+    }
+
+    @Override
+    public void encode(LiveConcert liveConcert, CsvLine line) {
+        line.add(liveConcert.getId()).add(liveConcert.getTitle()).add(dateFormat.format(liveConcert.getDate()))
+                .addReference(liveConcert.getArtist()).add(liveConcert.getTicketCount())
+                .add(liveConcert.replayAvailable()).add(liveConcert.getEventType());
+    }
+
+    @Override
+    public LiveConcert read(SnapshotInput in) {
+        int id = in.readInt();
+        LiveConcert liveConcert = new LiveConcert(in.readString(), in.readDate(), artists.apply(in.readInt()),
+                in.readInt(), in.readBoolean(), in.readString());
+        liveConcert.setId(id);
+        return liveConcert;
+    }
+
+    @Override
+    public void write(LiveConcert liveConcert, SnapshotOutput out) throws IOException {
+        out.writeInt(liveConcert.getId());
+        out.writeString(liveConcert.getTitle());
+        out.writeDate(liveConcert.getDate());
+        out.writeReference(liveConcert.getArtist());
+        out.writeInt(liveConcert.getTicketCount());
+        out.writeBoolean(liveConcert.replayAvailable());
+        out.writeString(liveConcert.getEventType());
+    }
+}
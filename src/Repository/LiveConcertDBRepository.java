@@ -5,6 +5,7 @@ import Domain.Listener;
 import Domain.Artist;
 
 import java.sql.*;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
@@ -15,61 +16,69 @@ import java.util.List;
  * This class handles the database operations for live concerts.
  */
 public class LiveConcertDBRepository extends DBRepository<LiveConcert> implements IRepository<LiveConcert> {
+    private static final String INSERT_SQL = "INSERT INTO LiveConcert (title, date, artist_id, ticket_count, is_available_post_live, event_type) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_LISTENER_SQL = "INSERT INTO ConcertListeners (concert_id, listener_id, access_type) VALUES (?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE LiveConcert SET title = ?, date = ?, artist_id = ?, ticket_count = ?, is_available_post_live = ?, event_type = ? WHERE id = ?";
+
 
     private ListenerDBRepository listenerDBRepository;
     private ArtistDBRepository artistDBRepository;
-    public LiveConcertDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
-        this.listenerDBRepository = new ListenerDBRepository(DBUrl, DBUser, DBPassword);
-        this.artistDBRepository = new ArtistDBRepository(DBUrl, DBUser, DBPassword);
+    public LiveConcertDBRepository(ConnectionPool pool) {
+        super(pool);
+        this.listenerDBRepository = new ListenerDBRepository(pool);
+        this.artistDBRepository = new ArtistDBRepository(pool);
 
     }
     @Override
-    public void create(LiveConcert concert) {
-        String SQL = "INSERT INTO LiveConcert (title, date, artist_id, ticket_count, is_available_post_live, event_type) VALUES (?, ?, ?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, concert.getTitle());
-            statement.setDate(2, new java.sql.Date(concert.getDate().getTime()));
-            statement.setInt(3, concert.getArtist().getId());
-            statement.setInt(4, concert.getTicketCount());
-            statement.setBoolean(5, concert.replayAvailable());
-            statement.setString(6, concert.getEventType());
-            statement.executeUpdate();
-            addListenersToConcert(concert);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error create Concert", e);
-        }
+    protected String getTableName() {
+        return "LiveConcert";
     }
 
-    private void addListenersToConcert(LiveConcert concert) {
-        String SQL = "INSERT INTO ConcertListeners (concert_id, listener_id, access_type) VALUES (?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            for (Listener listener : concert.getEarlyAccessList()) {
-                statement.setInt(1, concert.getId());
-                statement.setInt(2, listener.getId());
-                statement.setString(3, "early");
-                statement.executeUpdate();
-            }
+    @Override
+    public void create(LiveConcert concert) {
+        createAll(List.of(concert));
+    }
 
-            for (Listener listener : concert.getRegularAccesList()) {
-                statement.setInt(1, concert.getId());
-                statement.setInt(2, listener.getId());
-                statement.setString(3, "regular");
-                statement.executeUpdate();
-            }
+    /**
+     * Inserts the concerts and their ConcertListeners rows with JDBC batches in one transaction
+     * and sets the ids generated for the concerts.
+     *
+     * @param concerts The concerts to insert.
+     */
+    @Override
+    public void createAll(Collection<LiveConcert> concerts) {
+        try {
+            inTransaction(connection -> {
+                insertBatch(connection, INSERT_SQL, concerts, this::bindInsert);
+                List<ConcertAccess> accesses = new ArrayList<>();
+                for (LiveConcert concert : concerts) {
+                    for (Listener listener : concert.getEarlyAccessList()) {
+                        accesses.add(new ConcertAccess(concert.getId(), listener.getId(), "early"));
+                    }
+                    for (Listener listener : concert.getRegularAccesList()) {
+                        accesses.add(new ConcertAccess(concert.getId(), listener.getId(), "regular"));
+                    }
+                }
+                executeBatch(connection, INSERT_LISTENER_SQL, accesses, (statement, access) -> {
+                    statement.setInt(1, access.concertId);
+                    statement.setInt(2, access.listenerId);
+                    statement.setString(3, access.accessType);
+                });
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("Error add listener to concert", e);
+            throw new RuntimeException("Error create Concert", e);
         }
     }
 
     @Override
     public LiveConcert read(int id) {
         String SQL = "SELECT * FROM LiveConcert WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             ResultSet rs = statement.executeQuery();
             if (rs.next()) {
-                return readFromResultSet(rs);
+                return extractFromResultSet(rs);
             } else {
                 return null;
             }
@@ -80,25 +89,48 @@ public class LiveConcertDBRepository extends DBRepository<LiveConcert> implement
 
     @Override
     public void update(LiveConcert concert) {
-        String SQL = "UPDATE LiveConcert SET title = ?, date = ?, artist_id = ?, ticket_count = ?, is_available_post_live = ?, event_type = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, concert.getTitle());
-            statement.setDate(2, new java.sql.Date(concert.getDate().getTime()));
-            statement.setInt(3, concert.getArtist().getId());
-            statement.setInt(4, concert.getTicketCount());
-            statement.setBoolean(5, concert.replayAvailable());
-            statement.setString(6, concert.getEventType());
-            statement.setInt(7, concert.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, concert);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error update Concert", e);
         }
     }
 
+    /**
+     * Updates the concerts with JDBC batches in one transaction.
+     *
+     * @param concerts The concerts to update.
+     */
+    @Override
+    public void updateAll(Collection<LiveConcert> concerts) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, concerts, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error update Concert", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, LiveConcert concert) throws SQLException {
+        statement.setString(1, concert.getTitle());
+        statement.setDate(2, new java.sql.Date(concert.getDate().getTime()));
+        statement.setInt(3, concert.getArtist().getId());
+        statement.setInt(4, concert.getTicketCount());
+        statement.setBoolean(5, concert.replayAvailable());
+        statement.setString(6, concert.getEventType());
+    }
+
+    private void bindUpdate(PreparedStatement statement, LiveConcert concert) throws SQLException {
+        bindInsert(statement, concert);
+        statement.setInt(7, concert.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM LiveConcert WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -110,7 +142,8 @@ public class LiveConcertDBRepository extends DBRepository<LiveConcert> implement
     public Map<Integer, LiveConcert> getAll() {
         String SQL = "SELECT * FROM LiveConcert";
         Map<Integer, LiveConcert> concertsMap = new HashMap<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
                 int id = resultSet.getInt("id");
@@ -128,7 +161,8 @@ public class LiveConcertDBRepository extends DBRepository<LiveConcert> implement
         return read(id);
     }
 
-    private  LiveConcert readFromResultSet(ResultSet rs) throws SQLException {
+    @Override
+    protected LiveConcert extractFromResultSet(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         String title = rs.getString("title");
         Date date = rs.getDate("date");
@@ -146,4 +180,18 @@ public class LiveConcertDBRepository extends DBRepository<LiveConcert> implement
         return concert;
     }
 
+    /**
+     * One ConcertListeners row.
+     */
+    private static final class ConcertAccess {
+        final int concertId;
+        final int listenerId;
+        final String accessType;
+
+        ConcertAccess(int concertId, int listenerId, String accessType) {
+            this.concertId = concertId;
+            this.listenerId = listenerId;
+            this.accessType = accessType;
+        }
+    }
 }
@@ -0,0 +1,280 @@
+package Repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Appends records to a log file from a dedicated writer thread, committing them in batches.
+ * Callers queue records with append, which returns a sequence number; the writer thread flushes
+ * the queue once it holds maxBatchSize records or its oldest record has waited maxFlushDelayMillis,
+ * writes the whole batch with one write and forces it to disk with one fsync.
+ * Callers that need durability wait for their sequence number with awaitFlushed.
+ */
+class LogWriter implements AutoCloseable {
+    private final Path path;
+    private final int maxBatchSize;
+    private final long maxFlushDelayNanos;
+    private final Object queueLock = new Object();
+    private final Object ioLock = new Object();
+    private final Thread writerThread;
+
+    private List<String> pending = new ArrayList<>();
+    private long oldestPendingNanos;
+    private long appendedSequence;
+    private long flushedSequence;
+    private IOException failure;
+    private boolean closed;
+
+    private FileChannel channel;
+    private long size;
+
+    private long flushCount;
+    private long recordCount;
+    private int maxBatch;
+    private long totalFlushNanos;
+    private long maxFlushNanos;
+
+    /**
+     * Opens the log for appending and starts the writer thread.
+     *
+     * @param path The log file, created if it does not exist.
+     * @param maxBatchSize The number of queued records that triggers a flush.
+     * @param maxFlushDelayMillis The longest time a record waits in the queue before it is flushed.
+     * @throws IOException if the log file cannot be opened.
+     */
+    LogWriter(Path path, int maxBatchSize, long maxFlushDelayMillis) throws IOException {
+        if (maxBatchSize < 1 || maxFlushDelayMillis < 0) {
+            throw new IllegalArgumentException("Batch size must be positive and flush delay cannot be negative.");
+        }
+        this.path = path;
+        this.maxBatchSize = maxBatchSize;
+        this.maxFlushDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxFlushDelayMillis);
+        openChannel();
+        this.writerThread = new Thread(this::run, "file-repository-log-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Queues a record for the next flush.
+     *
+     * @param record The record, without a line terminator.
+     * @return The sequence number of the record, to be passed to awaitFlushed.
+     */
+    long append(String record) {
+        synchronized (queueLock) {
+            checkUsable();
+            if (closed) {
+                throw new IllegalStateException("The log " + path + " is closed.");
+            }
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pending.add(record);
+            if (pending.size() == 1 || pending.size() >= maxBatchSize) {
+                queueLock.notifyAll();
+            }
+            return ++appendedSequence;
+        }
+    }
+
+    /**
+     * Blocks until the record with the given sequence number has been forced to disk.
+     *
+     * @param sequence The sequence number returned by append.
+     * @throws RuntimeException if writing the log failed or the wait was interrupted.
+     */
+    void awaitFlushed(long sequence) {
+        synchronized (queueLock) {
+            while (flushedSequence < sequence) {
+                if (failure != null) {
+                    throw new RuntimeException("Error writing to log " + path, failure);
+                }
+                if (closed && writerThread.getState() == Thread.State.TERMINATED) {
+                    throw new IllegalStateException("The log " + path + " was closed before the record was flushed.");
+                }
+                try {
+                    queueLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the log " + path + " to be flushed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the size of the log file, including the records flushed so far.
+     *
+     * @return The size of the log in bytes.
+     */
+    long size() {
+        synchronized (ioLock) {
+            return size;
+        }
+    }
+
+    /**
+     * Flushes every queued record, moves the log file to the target path and starts a new, empty log.
+     * If the target is left over from a compaction that did not finish, the log is appended to it and the target
+     * is forced to disk before the log is deleted. The caller must make sure no records are appended while
+     * the log is rotated.
+     *
+     * @param target The path the current log file is moved to.
+     * @throws IOException if the log cannot be flushed, moved or reopened.
+     */
+    void rotate(Path target) throws IOException {
+        synchronized (ioLock) {
+            flushPending();
+            channel.close();
+            if (Files.exists(target)) {
+                // The records of the log were forced to disk; they must be again in the target before the log goes
+                try (FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(path));
+                    while (records.hasRemaining()) {
+                        targetChannel.write(records);
+                    }
+                    targetChannel.force(true);
+                }
+                Files.delete(path);
+            } else {
+                Files.move(path, target);
+            }
+            DurableFiles.forceDirectory(target);
+            openChannel();
+        }
+    }
+
+    /**
+     * Gets a snapshot of the flush statistics.
+     *
+     * @return The current flush metrics.
+     */
+    FlushMetrics metrics() {
+        synchronized (ioLock) {
+            return new FlushMetrics(flushCount, recordCount, maxBatch, totalFlushNanos, maxFlushNanos);
+        }
+    }
+
+    /**
+     * Flushes the queued records, stops the writer thread and closes the log file.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        synchronized (queueLock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queueLock.notifyAll();
+        }
+        writerThread.join();
+        synchronized (ioLock) {
+            channel.close();
+        }
+        synchronized (queueLock) {
+            queueLock.notifyAll();
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void run() {
+        while (true) {
+            synchronized (queueLock) {
+                try {
+                    while (!closed && !batchDue()) {
+                        if (pending.isEmpty()) {
+                            queueLock.wait();
+                        } else {
+                            long remaining = maxFlushDelayNanos - (System.nanoTime() - oldestPendingNanos);
+                            TimeUnit.NANOSECONDS.timedWait(queueLock, Math.max(remaining, 1));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (closed && pending.isEmpty()) {
+                    return;
+                }
+            }
+            synchronized (ioLock) {
+                try {
+                    flushPending();
+                } catch (IOException e) {
+                    synchronized (queueLock) {
+                        failure = e;
+                        queueLock.notifyAll();
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean batchDue() {
+        return pending.size() >= maxBatchSize
+                || (!pending.isEmpty() && System.nanoTime() - oldestPendingNanos >= maxFlushDelayNanos);
+    }
+
+    /**
+     * Takes the queued records, writes them with one write and forces them to disk.
+     * Must be called while holding ioLock.
+     */
+    private void flushPending() throws IOException {
+        List<String> batch;
+        long batchSequence;
+        synchronized (queueLock) {
+            checkUsable();
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            batchSequence = appendedSequence;
+            pending = new ArrayList<>();
+        }
+        long start = System.nanoTime();
+        StringBuilder text = new StringBuilder();
+        for (String record : batch) {
+            text.append(record).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        size += buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        channel.force(false);
+        long elapsed = System.nanoTime() - start;
+
+        flushCount++;
+        recordCount += batch.size();
+        maxBatch = Math.max(maxBatch, batch.size());
+        totalFlushNanos += elapsed;
+        maxFlushNanos = Math.max(maxFlushNanos, elapsed);
+        synchronized (queueLock) {
+            flushedSequence = batchSequence;
+            queueLock.notifyAll();
+        }
+    }
+
+    private void checkUsable() {
+        if (failure != null) {
+            throw new RuntimeException("Error writing to log " + path, failure);
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = channel.size();
+    }
+}
@@ -0,0 +1,121 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Passes every call to another repository and reports the writes that succeeded to an observer,
+ * which keeps derived data such as counters in step with the repository.
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
+class ObservedRepository<T extends HasId> implements IRepository<T> {
+    /**
+     * Receives the writes made through an ObservedRepository, after the underlying repository accepted them.
+     * Objects may be the same instances the repository already held, so observers must not rely on old state
+     * read from the objects and keep what they need themselves.
+     *
+     * @param <T> The type of the written objects.
+     */
+    interface Observer<T> {
+        void created(T obj);
+
+        void updated(T obj);
+
+        void deleted(int id);
+    }
+
+    private final IRepository<T> delegate;
+    private final Observer<T> observer;
+
+    ObservedRepository(IRepository<T> delegate, Observer<T> observer) {
+        this.delegate = delegate;
+        this.observer = observer;
+    }
+
+    @Override
+    public void create(T obj) {
+        delegate.create(obj);
+        observer.created(obj);
+    }
+
+    @Override
+    public void createAll(Collection<T> objects) {
+        delegate.createAll(objects);
+        objects.forEach(observer::created);
+    }
+
+    @Override
+    public T get(int id) {
+        return delegate.get(id);
+    }
+
+    @Override
+    public T read(int id) {
+        return delegate.read(id);
+    }
+
+    @Override
+    public void update(T obj) {
+        delegate.update(obj);
+        observer.updated(obj);
+    }
+
+    @Override
+    public void updateAll(Collection<T> objects) {
+        delegate.updateAll(objects);
+        objects.forEach(observer::updated);
+    }
+
+    @Override
+    public void delete(int id) {
+        delegate.delete(id);
+        observer.deleted(id);
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        delegate.deleteAll(ids);
+        ids.forEach(observer::deleted);
+    }
+
+    @Override
+    public Map<Integer, T> getAll() {
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        return delegate.stream();
+    }
+
+    @Override
+    public Page<T> findPage(PageRequest<T> request) {
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public List<T> find(Criteria<T> criteria) {
+        return delegate.find(criteria);
+    }
+
+    @Override
+    public void addIndex(String field, Function<T, String> keyExtractor) {
+        delegate.addIndex(field, keyExtractor);
+    }
+
+    @Override
+    public void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        delegate.addUniqueIndex(field, keyExtractor);
+    }
+
+    @Override
+    public T findByIndex(String field, String value) {
+        return delegate.findByIndex(field, value);
+    }
+}
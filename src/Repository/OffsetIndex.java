@@ -0,0 +1,125 @@
+package Repository;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing hash map from entity ids to the byte offsets of their records in a file.
+ * Keys and offsets are kept in two primitive arrays, so an entry costs about 16 bytes of heap
+ * and there is no object per entry. A negative offset marks a free slot.
+ * Like IntObjectMap, it uses linear probing with backward-shift deletion. The map is not thread-safe.
+ */
+class OffsetIndex {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private int[] ids;
+    private long[] offsets;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    OffsetIndex() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Returns the offset of the record with the given id.
+     *
+     * @param id The id to look up.
+     * @return The byte offset of the record, or -1 if the id is not indexed.
+     */
+    long get(int id) {
+        int slot = hash(id);
+        while (offsets[slot] >= 0) {
+            if (ids[slot] == id) {
+                return offsets[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Maps the id to the offset, replacing any previous offset.
+     *
+     * @param id The id of the record.
+     * @param offset The byte offset of the record, which must not be negative.
+     */
+    void put(int id, long offset) {
+        int slot = hash(id);
+        while (offsets[slot] >= 0) {
+            if (ids[slot] == id) {
+                offsets[slot] = offset;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        ids[slot] = id;
+        offsets[slot] = offset;
+        if (++size > resizeThreshold) {
+            rehash(ids.length << 1);
+        }
+    }
+
+    /**
+     * Removes the id from the index.
+     *
+     * @param id The id to remove.
+     * @return true if the id was indexed.
+     */
+    boolean remove(int id) {
+        int slot = hash(id);
+        while (offsets[slot] >= 0) {
+            if (ids[slot] == id) {
+                shiftBack(slot);
+                size--;
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void shiftBack(int gap) {
+        int slot = (gap + 1) & mask;
+        while (offsets[slot] >= 0) {
+            int home = hash(ids[slot]);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                ids[gap] = ids[slot];
+                offsets[gap] = offsets[slot];
+                gap = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        offsets[gap] = -1;
+    }
+
+    private int hash(int id) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        ids = new int[capacity];
+        offsets = new long[capacity];
+        Arrays.fill(offsets, -1);
+        mask = capacity - 1;
+        resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void rehash(int newCapacity) {
+        int[] oldIds = ids;
+        long[] oldOffsets = offsets;
+        allocate(newCapacity);
+        size = 0;
+        for (int i = 0; i < oldOffsets.length; i++) {
+            if (oldOffsets[i] >= 0) {
+                put(oldIds[i], oldOffsets[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing, with the request for the page that follows it.
+ *
+ * @param <T> The type of the listed entities.
+ */
+public final class Page<T extends HasId> {
+    private final List<T> items;
+    private final PageRequest<T> next;
+
+    private Page(List<T> items, PageRequest<T> next) {
+        this.items = Collections.unmodifiableList(items);
+        this.next = next;
+    }
+
+    /**
+     * Builds a page from the rows of a query that asked for one more row than the page size,
+     * which tells whether another page follows without a second query.
+     *
+     * @param rows The rows in listing order, at most request.getLimit() + 1 of them.
+     * @param request The request the rows were read for.
+     * @return The page.
+     */
+    static <T extends HasId> Page<T> fromRows(List<T> rows, PageRequest<T> request) {
+        if (rows.size() <= request.getLimit()) {
+            return new Page<>(rows, null);
+        }
+        List<T> items = rows.subList(0, request.getLimit());
+        return new Page<>(items, request.after(items.get(items.size() - 1)));
+    }
+
+    /**
+     * Gets the entities of this page.
+     *
+     * @return An unmodifiable list of the entities, in listing order.
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    /**
+     * Tells whether more entities follow this page.
+     *
+     * @return true if next returns a request.
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    /**
+     * Gets the request for the following page.
+     *
+     * @return The request, or null if this is the last page.
+     */
+    public PageRequest<T> next() {
+        return next;
+    }
+}
@@ -0,0 +1,148 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+/**
+ * Describes one page of a keyset-paginated listing: at most limit entities, ordered by a sort field and then by id,
+ * that come after the last entity of the previous page. The position is the sort key and id of that entity
+ * rather than an offset, so a database serves every page from an index with WHERE (field, id) &gt; (?, ?) ... LIMIT ?,
+ * however deep the page is, and entities added or removed meanwhile do not shift the pages.
+ * The sort field is the name of the column in the database and is read with the key function by the other repositories;
+ * its value must not be null. Requests are immutable: the next one is returned by Page.next.
+ *
+ * @param <T> The type of the listed entities.
+ */
+public final class PageRequest<T extends HasId> {
+    private final String sortField;
+    private final Function<T, ? extends Comparable<?>> sortKey;
+    private final int limit;
+    private final boolean firstPage;
+    private final Object lastKey;
+    private final int lastId;
+
+    private PageRequest(String sortField, Function<T, ? extends Comparable<?>> sortKey, int limit,
+                        boolean firstPage, Object lastKey, int lastId) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The page size must be positive.");
+        }
+        this.sortField = sortField;
+        this.sortKey = sortKey;
+        this.limit = limit;
+        this.firstPage = firstPage;
+        this.lastKey = lastKey;
+        this.lastId = lastId;
+    }
+
+    /**
+     * Creates the request for the first page of entities ordered by id.
+     *
+     * @param limit The maximum number of entities per page.
+     * @return The request.
+     */
+    public static <T extends HasId> PageRequest<T> byId(int limit) {
+        return new PageRequest<>(null, null, limit, true, null, 0);
+    }
+
+    /**
+     * Creates the request for the first page of entities ordered by a field, then by id.
+     *
+     * @param field The column name of the field, such as "title".
+     * @param key Reads the value of the field from an entity.
+     * @param limit The maximum number of entities per page.
+     * @return The request.
+     */
+    public static <T extends HasId, K extends Comparable<? super K>> PageRequest<T> sortedBy(String field, Function<T, K> key, int limit) {
+        if (field == null || key == null) {
+            throw new IllegalArgumentException("The sort field and key must not be null.");
+        }
+        return new PageRequest<>(field, key, limit, true, null, 0);
+    }
+
+    /**
+     * Creates the request for the page that starts after the given entity, with the same order and size.
+     *
+     * @param last The last entity of the current page.
+     * @return The request for the next page.
+     */
+    public PageRequest<T> after(T last) {
+        return new PageRequest<>(sortField, sortKey, limit, false, sortField == null ? null : sortKey.apply(last), last.getId());
+    }
+
+    /**
+     * Gets the column the entities are ordered by before their id.
+     *
+     * @return The column name, or null if the entities are ordered by id only.
+     */
+    public String getSortField() {
+        return sortField;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * Tells whether this request starts at the beginning of the listing.
+     *
+     * @return true for the first page.
+     */
+    public boolean isFirstPage() {
+        return firstPage;
+    }
+
+    /**
+     * Gets the sort key of the last entity of the previous page.
+     *
+     * @return The key, or null on the first page or when ordering by id.
+     */
+    public Object getLastKey() {
+        return lastKey;
+    }
+
+    /**
+     * Gets the id of the last entity of the previous page.
+     *
+     * @return The id, or 0 on the first page.
+     */
+    public int getLastId() {
+        return lastId;
+    }
+
+    /**
+     * Returns the order of the listing: by the sort field, then by id.
+     *
+     * @return The comparator.
+     */
+    @SuppressWarnings("unchecked")
+    public Comparator<T> comparator() {
+        Comparator<T> byId = Comparator.comparingInt(HasId::getId);
+        if (sortField == null) {
+            return byId;
+        }
+        Function<T, Comparable<Object>> key = (Function<T, Comparable<Object>>) sortKey;
+        return Comparator.comparing(key).thenComparing(byId);
+    }
+
+    /**
+     * Tells whether an entity comes after the last entity of the previous page, and so may be on this page.
+     *
+     * @param obj The entity.
+     * @return true if the entity is after the position of this request.
+     */
+    @SuppressWarnings("unchecked")
+    public boolean isAfterPosition(T obj) {
+        if (firstPage) {
+            return true;
+        }
+        if (sortField != null) {
+            int order = ((Comparable<Object>) sortKey.apply(obj)).compareTo(lastKey);
+            if (order != 0) {
+                return order > 0;
+            }
+        }
+        return obj.getId() > lastId;
+    }
+}
@@ -0,0 +1,122 @@
+package Repository;
+
+import Domain.HasId;
+import Domain.Listener;
+import Domain.Playlist;
+import Domain.Song;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Codec for playlists. Columns: id, name, song ids separated by ';', listener id.
+ * Songs that no longer exist are left out; a playlist without a known listener gets a default listener.
+ */
+public class PlaylistCodec implements EntityCodec<Playlist> {
+    private final IntFunction<Song> songs;
+    private final IntFunction<Listener> listeners;
+
+    /**
+     * Creates the codec.
+     *
+     * @param songs Looks up a song of the playlist by id; returns null if the song does not exist.
+     * @param listeners Looks up the owner of the playlist by id; returns null if the listener does not exist.
+     */
+    public PlaylistCodec(IntFunction<Song> songs, IntFunction<Listener> listeners) {
+        this.songs = songs;
+        this.listeners = listeners;
+    }
+
+    /**
+     * Creates the codec with references resolved through a registry.
+     *
+     * @param registry The registry of the file repositories that store the songs and listeners.
+     */
+    public PlaylistCodec(EntityRegistry registry) {
+        this(registry.resolver(Song.class), registry.resolver(Listener.class));
+    }
+
+    @Override
+    public List<Class<? extends HasId>> dependencies() {
+        return List.of(Song.class, Listener.class);
+    }
+
+    @Override
+    public Playlist decode(CsvRecord record) {
+        if (record.size() < 2) {
+            return null;
+        }
+        List<Song> playlistSongs = new ArrayList<>();
+        if (record.size() > 2 && !record.isEmpty(2)) {
+            for (String songIdStr : record.getString(2).split(";")) {
+                try {
+                    Song song = songs.apply(Integer.parseInt(songIdStr.trim()));
+                    if (song != null) {
+                        playlistSongs.add(song);
+                    }
+                } catch (NumberFormatException e) {
+                    System.out.println("Invalid song ID in playlist: " + songIdStr);
+                }
+            }
+        }
+        Listener listener = null;
+        if (record.size() > 3) {
+            try {
+                listener = listeners.apply(record.getInt(3));
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid Listener ID in playlist: " + record.getString(3));
+            }
+        }
+        if (listener == null) {
+            listener = new Listener("Default Listener", "default@example.com");
+        }
+        Playlist playlist = new Playlist(record.getString(1), listener);
+        playlist.setSongs(playlistSongs);
+        playlist.setId(record.getInt(0));
+        return playlist;
+    }
+
+    @Override
+    public void encode(Playlist playlist, CsvLine line) {
+        String songIds = playlist.getSongs().stream()
+                .map(song -> String.valueOf(song.getId()))
+                .collect(Collectors.joining(";"));
+        line.add(playlist.getId()).add(playlist.getName()).add(songIds).addReference(playlist.getUser());
+    }
+
+    @Override
+    public Playlist read(SnapshotInput in) {
+        int id = in.readInt();
+        String name = in.readString();
+        int songCount = in.readInt();
+        List<Song> playlistSongs = new ArrayList<>(songCount);
+        for (int i = 0; i < songCount; i++) {
+            Song song = songs.apply(in.readInt());
+            if (song != null) {
+                playlistSongs.add(song);
+            }
+        }
+        Listener listener = listeners.apply(in.readInt());
+        if (listener == null) {
+            listener = new Listener("Default Listener", "default@example.com");
+        }
+        Playlist playlist = new Playlist(name, listener);
+        playlist.setSongs(playlistSongs);
+        playlist.setId(id);
+        return playlist;
+    }
+
+    @Override
+    public void write(Playlist playlist, SnapshotOutput out) throws IOException {
+        out.writeInt(playlist.getId());
+        out.writeString(playlist.getName());
+        out.writeInt(playlist.getSongs().size());
+        for (Song song : playlist.getSongs()) {
+            out.writeReference(song);
+        }
+        out.writeReference(playlist.getUser());
+    }
+}
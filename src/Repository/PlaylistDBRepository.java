@@ -4,6 +4,7 @@ import Domain.*;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -13,48 +14,64 @@ import java.util.Map;
  * Repository for Playlist
  */
 public class PlaylistDBRepository extends DBRepository<Playlist> {
+    private static final String INSERT_SQL = "INSERT INTO Playlist (name, user_id) VALUES (?, ?)";
+    private static final String INSERT_SONG_SQL = "INSERT INTO PlaylistSongs (playlist_id, song_id) VALUES (?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Playlist SET name = ?, user_id = ? WHERE id = ?";
+
     private SongDBRepository songDBRepository;
     private ListenerDBRepository listenerDBRepository;
-    public PlaylistDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
-        this.songDBRepository = new SongDBRepository(DBUrl, DBUser, DBPassword);
-        this.listenerDBRepository = new ListenerDBRepository(DBUrl, DBUser, DBPassword);
+    public PlaylistDBRepository(ConnectionPool pool) {
+        super(pool);
+        this.songDBRepository = new SongDBRepository(pool);
+        this.listenerDBRepository = new ListenerDBRepository(pool);
 
     }
+    @Override
+    protected String getTableName() {
+        return "Playlist";
+    }
+
     @Override
     public void create(Playlist obj) {
-        String SQL = "INSERT INTO Playlist (name, user_id) VALUES (?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getName());
-            statement.setInt(2, obj.getUser().getId());
-            statement.executeUpdate();
-            addSongsToPlaylist(obj);
-        } catch (SQLException e) {
-            throw new RuntimeException("Error adding Playlist", e);
-        }
+        createAll(List.of(obj));
     }
-    private void addSongsToPlaylist(Playlist playlist) {
-        String SQL = "INSERT INTO PlaylistSongs (playlist_id, song_id) VALUES (?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            for (Song song : playlist.getSongs()) {
-                statement.setInt(1, playlist.getId());
-                statement.setInt(2, song.getId());
-                statement.executeUpdate();
-            }
+
+    /**
+     * Inserts the playlists and their PlaylistSongs rows with JDBC batches in one transaction
+     * and sets the ids generated for the playlists.
+     *
+     * @param playlists The playlists to insert.
+     */
+    @Override
+    public void createAll(Collection<Playlist> playlists) {
+        try {
+            inTransaction(connection -> {
+                insertBatch(connection, INSERT_SQL, playlists, this::bindInsert);
+                List<int[]> playlistSongs = new ArrayList<>();
+                for (Playlist playlist : playlists) {
+                    for (Song song : playlist.getSongs()) {
+                        playlistSongs.add(new int[]{playlist.getId(), song.getId()});
+                    }
+                }
+                executeBatch(connection, INSERT_SONG_SQL, playlistSongs, (statement, row) -> {
+                    statement.setInt(1, row[0]);
+                    statement.setInt(2, row[1]);
+                });
+            });
         } catch (SQLException e) {
-            throw new RuntimeException("Error adding songs to playlist", e);
+            throw new RuntimeException("Error adding Playlist", e);
         }
     }
-
     @Override
     public Playlist read(int id) {
         String SQL = "SELECT * FROM Playlist WHERE id = ?";
         Playlist playlist = null;
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
-                    playlist = readFromResultSet(rs);
+                    playlist = extractFromResultSet(rs);
                     playlist.setSongs(songDBRepository.getSongsForPlaylist(id));
                 }
             }
@@ -71,21 +88,44 @@ public class PlaylistDBRepository extends DBRepository<Playlist> {
 
     @Override
     public void update(Playlist obj) {
-        String SQL = "UPDATE Playlist SET name = ?, user_id = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getName());
-            statement.setInt(2, obj.getUser().getId());
-            statement.setInt(3, obj.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, obj);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error update Playlist", e);
         }
     }
 
+    /**
+     * Updates the playlists with JDBC batches in one transaction.
+     *
+     * @param playlists The playlists to update.
+     */
+    @Override
+    public void updateAll(Collection<Playlist> playlists) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, playlists, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error update Playlist", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Playlist obj) throws SQLException {
+        statement.setString(1, obj.getName());
+        statement.setInt(2, obj.getUser().getId());
+    }
+
+    private void bindUpdate(PreparedStatement statement, Playlist obj) throws SQLException {
+        bindInsert(statement, obj);
+        statement.setInt(3, obj.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Playlist WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -97,10 +137,11 @@ public class PlaylistDBRepository extends DBRepository<Playlist> {
     public Map<Integer, Playlist> getAll() {
         String SQL = "SELECT * FROM Playlist";
         Map<Integer, Playlist> playlistMap = new HashMap<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
-                Playlist playlist = readFromResultSet(resultSet);
+                Playlist playlist = extractFromResultSet(resultSet);
                 playlistMap.put(playlist.getId(), playlist);
             }
         } catch (SQLException e) {
@@ -109,8 +150,8 @@ public class PlaylistDBRepository extends DBRepository<Playlist> {
         return playlistMap;
     }
 
-
-    private Playlist readFromResultSet(ResultSet rs) throws SQLException {
+    @Override
+    protected Playlist extractFromResultSet(ResultSet rs) throws SQLException {
         String name = rs.getString("name");
         int userId = rs.getInt("user_id");
         Listener user=listenerDBRepository.read(userId);
@@ -0,0 +1,163 @@
+package Repository;
+
+/**
+ * A snapshot of the statistics of a ConnectionPool.
+ */
+public final class PoolMetrics {
+    private final int maxSize;
+    private final int activeCount;
+    private final int idleCount;
+    private final int waitingCount;
+    private final long borrowCount;
+    private final long timeoutCount;
+    private final long createdCount;
+    private final long discardedCount;
+    private final long leakCount;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long statementCacheHits;
+    private final long statementCacheMisses;
+
+    PoolMetrics(int maxSize, int activeCount, int idleCount, int waitingCount, long borrowCount, long timeoutCount,
+                long createdCount, long discardedCount, long leakCount, long totalWaitNanos, long maxWaitNanos,
+                long statementCacheHits, long statementCacheMisses) {
+        this.maxSize = maxSize;
+        this.activeCount = activeCount;
+        this.idleCount = idleCount;
+        this.waitingCount = waitingCount;
+        this.borrowCount = borrowCount;
+        this.timeoutCount = timeoutCount;
+        this.createdCount = createdCount;
+        this.discardedCount = discardedCount;
+        this.leakCount = leakCount;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.statementCacheHits = statementCacheHits;
+        this.statementCacheMisses = statementCacheMisses;
+    }
+
+    /**
+     * Gets the largest number of connections the pool may open.
+     *
+     * @return The pool size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of connections currently borrowed.
+     *
+     * @return The number of borrowed connections.
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * Gets the number of open connections waiting in the pool.
+     *
+     * @return The number of idle connections.
+     */
+    public int getIdleCount() {
+        return idleCount;
+    }
+
+    /**
+     * Gets the number of threads waiting for a connection to become free.
+     *
+     * @return The number of waiting threads, as estimated by the pool.
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    /**
+     * Gets the number of connections handed out so far, not counting nested borrows by the same thread.
+     *
+     * @return The number of borrows.
+     */
+    public long getBorrowCount() {
+        return borrowCount;
+    }
+
+    /**
+     * Gets the number of borrows that failed because no connection became free in time.
+     *
+     * @return The number of timeouts.
+     */
+    public long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * Gets the number of physical connections opened so far.
+     *
+     * @return The number of opened connections.
+     */
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    /**
+     * Gets the number of physical connections closed because they failed validation or could not be reset.
+     *
+     * @return The number of discarded connections.
+     */
+    public long getDiscardedCount() {
+        return discardedCount;
+    }
+
+    /**
+     * Gets the number of borrows reported as possible leaks.
+     *
+     * @return The number of leak reports.
+     */
+    public long getLeakCount() {
+        return leakCount;
+    }
+
+    /**
+     * Gets the average time a borrower waited for a connection.
+     *
+     * @return The average wait in milliseconds, or 0 if nothing was borrowed yet.
+     */
+    public double getAverageWaitMillis() {
+        return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+    }
+
+    /**
+     * Gets the longest time a borrower waited for a connection.
+     *
+     * @return The largest wait in milliseconds.
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos / 1_000_000.0;
+    }
+
+    /**
+     * Gets the number of prepareStatement calls served by a cached statement.
+     *
+     * @return The number of statement cache hits.
+     */
+    public long getStatementCacheHits() {
+        return statementCacheHits;
+    }
+
+    /**
+     * Gets the number of prepareStatement calls that had to prepare a new statement.
+     *
+     * @return The number of statement cache misses.
+     */
+    public long getStatementCacheMisses() {
+        return statementCacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PoolMetrics{max=%d, active=%d, idle=%d, waiting=%d, borrows=%d, timeouts=%d, created=%d, "
+                        + "discarded=%d, leaks=%d, avgWait=%.3f ms, maxWait=%.3f ms, statementHits=%d, statementMisses=%d}",
+                maxSize, activeCount, idleCount, waitingCount, borrowCount, timeoutCount, createdCount, discardedCount,
+                leakCount, getAverageWaitMillis(), getMaxWaitMillis(), statementCacheHits, statementCacheMisses);
+    }
+}
@@ -0,0 +1,116 @@
+package Repository;
+
+import Domain.Album;
+import Domain.Artist;
+import Domain.Genre;
+import Domain.Song;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Builds songs, albums, artists and genres from rows that were loaded together with joins,
+ * instead of reading every referenced entity with its own query.
+ * A hydrator keeps one instance per id, so all rows that reference the same album, artist or genre
+ * share one object, and a song is added only once to the song list of its album.
+ * It lives for one load and is not thread-safe.
+ */
+class RowHydrator {
+    /** Columns of an album (alias a) with its artist (alias ar) and genre (alias ag). */
+    static final String ALBUM_COLUMNS = "a.id AS album_id, a.title AS album_title, a.release_date AS album_release_date, "
+            + "ar.id AS artist_id, ar.name AS artist_name, ar.email AS artist_email, "
+            + "ag.id AS album_genre_id, ag.name AS album_genre_name";
+    /** Joins the artist and genre of the album with alias a. */
+    static final String ALBUM_JOINS = " LEFT JOIN Artist ar ON ar.id = a.artist_id"
+            + " LEFT JOIN Genre ag ON ag.id = a.genre_id";
+    /** Columns of a song (alias s) with its genre (alias g) and everything in ALBUM_COLUMNS. */
+    static final String SONG_COLUMNS = "s.id AS song_id, s.title AS song_title, s.duration AS song_duration, "
+            + "g.id AS song_genre_id, g.name AS song_genre_name, " + ALBUM_COLUMNS;
+    /** Joins the genre and album of the song with alias s, then everything in ALBUM_JOINS. */
+    static final String SONG_JOINS = " LEFT JOIN Genre g ON g.id = s.genre_id"
+            + " LEFT JOIN Album a ON a.id = s.album_id" + ALBUM_JOINS;
+
+    private final IntObjectMap<Song> songs = new IntObjectMap<>();
+    private final IntObjectMap<Album> albums = new IntObjectMap<>();
+    private final IntObjectMap<Artist> artists = new IntObjectMap<>();
+    private final IntObjectMap<Genre> genres = new IntObjectMap<>();
+
+    /**
+     * Returns the song of the current row, selected with SONG_COLUMNS.
+     *
+     * @param rs The result set, positioned on a row.
+     * @return The song, or null if the row references no song.
+     * @throws IllegalArgumentException if the song references no album, as the Song constructor requires one.
+     */
+    Song song(ResultSet rs) throws SQLException {
+        int id = rs.getInt("song_id");
+        if (rs.wasNull()) {
+            return null;
+        }
+        Song song = songs.get(id);
+        if (song == null) {
+            song = new Song(rs.getString("song_title"), rs.getFloat("song_duration"), album(rs));
+            song.setId(id);
+            song.setGenre(genre(rs, "song_genre_id", "song_genre_name"));
+            songs.put(id, song);
+        }
+        return song;
+    }
+
+    /**
+     * Returns the album of the current row, selected with ALBUM_COLUMNS.
+     *
+     * @param rs The result set, positioned on a row.
+     * @return The album, or null if the row references no album.
+     */
+    Album album(ResultSet rs) throws SQLException {
+        int id = rs.getInt("album_id");
+        if (rs.wasNull()) {
+            return null;
+        }
+        Album album = albums.get(id);
+        if (album == null) {
+            Date releaseDate = rs.getDate("album_release_date");
+            album = new Album(rs.getString("album_title"), releaseDate == null ? null : releaseDate.toLocalDate(), artist(rs));
+            album.setId(id);
+            album.setGenre(genre(rs, "album_genre_id", "album_genre_name"));
+            albums.put(id, album);
+        }
+        return album;
+    }
+
+    /**
+     * Returns the artist of the current row, selected with ALBUM_COLUMNS.
+     *
+     * @param rs The result set, positioned on a row.
+     * @return The artist, or null if the row references no artist.
+     */
+    Artist artist(ResultSet rs) throws SQLException {
+        int id = rs.getInt("artist_id");
+        if (rs.wasNull()) {
+            return null;
+        }
+        Artist artist = artists.get(id);
+        if (artist == null) {
+            artist = new Artist(rs.getString("artist_name"), rs.getString("artist_email"));
+            artist.setId(id);
+            artists.put(id, artist);
+        }
+        return artist;
+    }
+
+    private Genre genre(ResultSet rs, String idColumn, String nameColumn) throws SQLException {
+        int id = rs.getInt(idColumn);
+        if (rs.wasNull()) {
+            return null;
+        }
+        Genre genre = genres.get(id);
+        if (genre == null) {
+            genre = new Genre(rs.getString(nameColumn));
+            genre.setId(id);
+            genres.put(id, genre);
+        }
+        return genre;
+    }
+}
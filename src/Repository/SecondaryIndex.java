@@ -0,0 +1,166 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A case-insensitive secondary index over one field of the entities in a repository.
+ * Keys are normalized once when an entity is indexed, so a lookup is a single hash probe.
+ * A unique index additionally rejects a write whose normalized key already belongs to another entity.
+ * The index remembers which key every id was stored under, which lets it move an entity
+ * to its new key on update even when the entity was modified in place before the update.
+ * All methods are synchronized, so one index can be shared by concurrent repository calls.
+ *
+ * @param <T> The type of the indexed entities.
+ */
+public class SecondaryIndex<T extends HasId> {
+    private final Function<T, String> keyExtractor;
+    private final boolean unique;
+    private final Map<String, List<T>> entitiesByKey = new HashMap<>();
+    private final IntObjectMap<String> keysById = new IntObjectMap<>();
+
+    /**
+     * Creates an empty index.
+     *
+     * @param keyExtractor Function that reads the indexed value from an entity.
+     * @param unique Whether two entities may not share the same normalized key.
+     */
+    public SecondaryIndex(Function<T, String> keyExtractor, boolean unique) {
+        this.keyExtractor = keyExtractor;
+        this.unique = unique;
+    }
+
+    /**
+     * Normalizes a key for case-insensitive comparison.
+     *
+     * @param key The key to normalize, may be null.
+     * @return The normalized key, or null if the key was null.
+     */
+    public static String normalize(String key) {
+        return key == null ? null : key.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Adds an entity to the index under the current value of its indexed field.
+     *
+     * @param entity The entity to index.
+     * @throws IllegalArgumentException if the index is unique and the key is already taken.
+     */
+    public synchronized void add(T entity) {
+        String key = normalize(keyExtractor.apply(entity));
+        checkUnique(key, entity.getId());
+        put(key, entity);
+    }
+
+    /**
+     * Adds an entity that is already stored in the repository, without the uniqueness check.
+     * Used when an index is registered on a repository that already holds data.
+     *
+     * @param entity The entity to index.
+     */
+    public synchronized void load(T entity) {
+        put(normalize(keyExtractor.apply(entity)), entity);
+    }
+
+    /**
+     * Re-indexes an entity after it was updated.
+     * For a unique index the new key is checked before the old entry is removed,
+     * so a rejected update leaves the index unchanged.
+     *
+     * @param entity The updated entity.
+     * @throws IllegalArgumentException if the index is unique and the new key belongs to another entity.
+     */
+    public synchronized void update(T entity) {
+        String key = normalize(keyExtractor.apply(entity));
+        checkUnique(key, entity.getId());
+        remove(entity.getId());
+        put(key, entity);
+    }
+
+    /**
+     * Checks that writing the entity would not violate the uniqueness of this index.
+     *
+     * @param entity The entity about to be created or updated.
+     * @throws IllegalArgumentException if the index is unique and the key belongs to another entity.
+     */
+    public synchronized void check(T entity) {
+        checkUnique(normalize(keyExtractor.apply(entity)), entity.getId());
+    }
+
+    /**
+     * Removes the entity with the given id from the index.
+     *
+     * @param id The id of the entity to remove.
+     */
+    public synchronized void remove(int id) {
+        String key = keysById.remove(id);
+        if (key == null) {
+            return;
+        }
+        List<T> entities = entitiesByKey.get(key);
+        entities.removeIf(entity -> entity.getId() == id);
+        if (entities.isEmpty()) {
+            entitiesByKey.remove(key);
+        }
+    }
+
+    /**
+     * Finds the first entity stored under the given key.
+     *
+     * @param key The value to look up, compared case-insensitively.
+     * @return The first matching entity, or null if there is none.
+     */
+    public synchronized T findFirst(String key) {
+        List<T> entities = entitiesByKey.get(normalize(key));
+        return entities == null ? null : entities.get(0);
+    }
+
+    /**
+     * Finds all entities stored under the given key.
+     *
+     * @param key The value to look up, compared case-insensitively.
+     * @return The matching entities, or an empty list if there are none.
+     */
+    public synchronized List<T> findAll(String key) {
+        List<T> entities = entitiesByKey.get(normalize(key));
+        return entities == null ? Collections.emptyList() : new ArrayList<>(entities);
+    }
+
+    private void put(String key, T entity) {
+        if (key == null) {
+            return;
+        }
+        entitiesByKey.computeIfAbsent(key, k -> new ArrayList<>(1)).add(entity);
+        keysById.put(entity.getId(), key);
+    }
+
+    private void checkUnique(String key, int id) {
+        if (!unique || key == null) {
+            return;
+        }
+        List<T> entities = entitiesByKey.get(key);
+        if (entities != null) {
+            for (T existing : entities) {
+                if (existing.getId() != id) {
+                    throw new IllegalArgumentException("Duplicate value '" + keyExtractor.apply(existing)
+                            + "': already used by the entity with id " + existing.getId() + ".");
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every entry from the index.
+     */
+    public synchronized void clear() {
+        entitiesByKey.clear();
+        keysById.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * The set of secondary indexes registered on one in-memory or file repository.
+ * The owning repository forwards every create, update and delete so that all indexes stay in sync.
+ * Creates and updates are forwarded before the entity is stored, so a write rejected by a unique index
+ * never reaches the repository.
+ *
+ * @param <T> The type of the indexed entities.
+ */
+class SecondaryIndexes<T extends HasId> {
+    private final Map<String, SecondaryIndex<T>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * Registers an index on a field and fills it with the entities already in the repository.
+     * Registering the same field again replaces the previous index.
+     * Uniqueness is enforced for writes made after registration; entities that are already stored are indexed as they are.
+     *
+     * @param field The name of the indexed field.
+     * @param keyExtractor Function that reads the indexed value from an entity.
+     * @param unique Whether the index rejects duplicate keys.
+     * @param existing The entities currently stored in the repository.
+     */
+    void add(String field, Function<T, String> keyExtractor, boolean unique, Collection<T> existing) {
+        SecondaryIndex<T> index = new SecondaryIndex<>(keyExtractor, unique);
+        for (T entity : existing) {
+            index.load(entity);
+        }
+        indexes.put(field, index);
+    }
+
+    /**
+     * Indexes a new entity in every index.
+     *
+     * @param entity The entity about to be stored.
+     * @throws IllegalArgumentException if a unique index already holds the key; no index is changed in that case.
+     */
+    void onCreate(T entity) {
+        List<SecondaryIndex<T>> added = new ArrayList<>(indexes.size());
+        try {
+            for (SecondaryIndex<T> index : indexes.values()) {
+                index.add(entity);
+                added.add(index);
+            }
+        } catch (IllegalArgumentException e) {
+            for (SecondaryIndex<T> index : added) {
+                index.remove(entity.getId());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Re-indexes an updated entity in every index.
+     *
+     * @param entity The entity about to be stored.
+     * @throws IllegalArgumentException if a unique index holds the new key for another entity.
+     */
+    void onUpdate(T entity) {
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.check(entity);
+        }
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.update(entity);
+        }
+    }
+
+    void onDelete(int id) {
+        for (SecondaryIndex<T> index : indexes.values()) {
+            index.remove(id);
+        }
+    }
+
+    /**
+     * Looks up the first entity whose indexed field matches the value.
+     *
+     * @param field The name of the indexed field.
+     * @param value The value to look up, compared case-insensitively.
+     * @return The first matching entity, or null if there is none.
+     * @throws IllegalArgumentException if no index is registered for the field.
+     */
+    T findFirst(String field, String value) {
+        SecondaryIndex<T> index = indexes.get(field);
+        if (index == null) {
+            throw new IllegalArgumentException("No index registered for field '" + field + "'.");
+        }
+        return index.findFirst(value);
+    }
+
+    /**
+     * Finds the entities that match criteria. If a condition compares an indexed field with a single text value,
+     * only the entities stored under that value are checked; otherwise every stored entity is.
+     *
+     * @param criteria The conditions, order and limit.
+     * @param all The entities currently stored in the repository.
+     * @return The matching entities, in the order of the criteria.
+     */
+    List<T> find(Criteria<T> criteria, Collection<T> all) {
+        for (Criteria.Condition<T> condition : criteria.getConditions()) {
+            SecondaryIndex<T> index = indexes.get(condition.getField().getColumn());
+            boolean equality = condition.getOperator() == Criteria.Operator.EQUAL
+                    || condition.getOperator() == Criteria.Operator.EQUAL_IGNORING_CASE;
+            if (index != null && equality && condition.getValues().get(0) instanceof String) {
+                return criteria.select(index.findAll((String) condition.getValues().get(0)));
+            }
+        }
+        return criteria.select(all);
+    }
+}
@@ -0,0 +1,138 @@
+package Repository;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Reads a binary snapshot written by SnapshotOutput.
+ * The checksum and header are verified when the snapshot is opened, so the codec methods
+ * only run on complete, uncorrupted data.
+ */
+public class SnapshotInput {
+    private final ByteBuffer buffer;
+    private final int entityCount;
+    private final int nextId;
+
+    /**
+     * Verifies the checksum and header of a snapshot.
+     *
+     * @param snapshot The complete snapshot.
+     * @param codecName The name of the codec that is expected to have written it.
+     * @throws IOException if the snapshot is truncated, corrupted, of another version or written by another codec.
+     */
+    SnapshotInput(byte[] snapshot, String codecName) throws IOException {
+        if (snapshot.length < 16) {
+            throw new IOException("The snapshot is truncated.");
+        }
+        int bodyLength = snapshot.length - 4;
+        CRC32 checksum = new CRC32();
+        checksum.update(snapshot, 0, bodyLength);
+        buffer = ByteBuffer.wrap(snapshot, 0, bodyLength);
+        if (ByteBuffer.wrap(snapshot, bodyLength, 4).getInt() != (int) checksum.getValue()) {
+            throw new IOException("The snapshot checksum does not match.");
+        }
+        try {
+            if (buffer.getInt() != SnapshotOutput.MAGIC) {
+                throw new IOException("The file is not a repository snapshot.");
+            }
+            int version = buffer.getInt();
+            if (version != SnapshotOutput.VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ".");
+            }
+            String writtenBy = readString();
+            if (!codecName.equals(writtenBy)) {
+                throw new IOException("The snapshot was written by " + writtenBy + ", not " + codecName + ".");
+            }
+            entityCount = buffer.getInt();
+            nextId = buffer.getInt();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("The snapshot header is truncated.", e);
+        }
+    }
+
+    /**
+     * Gets the number of entities in the snapshot.
+     *
+     * @return The entity count from the header.
+     */
+    public int getEntityCount() {
+        return entityCount;
+    }
+
+    /**
+     * Gets the id the repository was going to hand out next when the snapshot was written.
+     * Keeping it prevents ids of deleted entities from being reused.
+     *
+     * @return The next id from the header.
+     */
+    public int getNextId() {
+        return nextId;
+    }
+
+    /**
+     * Reads an int.
+     *
+     * @return The value.
+     */
+    public int readInt() {
+        return buffer.getInt();
+    }
+
+    /**
+     * Reads a float.
+     *
+     * @return The value.
+     */
+    public float readFloat() {
+        return buffer.getFloat();
+    }
+
+    /**
+     * Reads a boolean.
+     *
+     * @return The value.
+     */
+    public boolean readBoolean() {
+        return buffer.get() != 0;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @return The value, or null if null was written.
+     */
+    public String readString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    /**
+     * Reads a date written as an epoch day.
+     *
+     * @return The date, or null if null was written.
+     */
+    public LocalDate readLocalDate() {
+        long epochDay = buffer.getLong();
+        return epochDay == SnapshotOutput.NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Reads a point in time written as milliseconds since the epoch.
+     *
+     * @return The date, or null if null was written.
+     */
+    public Date readDate() {
+        long millis = buffer.getLong();
+        return millis == SnapshotOutput.NO_DATE ? null : new Date(millis);
+    }
+}
@@ -0,0 +1,129 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Builds a binary snapshot of a repository in memory.
+ * A snapshot starts with a header (magic number, format version, codec name, entity count and next id),
+ * followed by one record per entity as written by the codec, and ends with a CRC32 checksum of all
+ * preceding bytes. Numbers are big-endian, strings are length-prefixed UTF-8, references are stored
+ * as integer ids and dates as epoch values.
+ */
+public class SnapshotOutput {
+    /** Marks a file as a repository snapshot ("MTFY"). */
+    public static final int MAGIC = 0x4D544659;
+    /** The current snapshot format version. */
+    public static final int VERSION = 1;
+    static final long NO_DATE = Long.MIN_VALUE;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 16);
+    private final DataOutputStream out = new DataOutputStream(bytes);
+
+    SnapshotOutput(String codecName, int entityCount, int nextId) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(codecName);
+        out.writeInt(entityCount);
+        out.writeInt(nextId);
+    }
+
+    /**
+     * Writes an int.
+     *
+     * @param value The value to write.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeInt(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    /**
+     * Writes a float.
+     *
+     * @param value The value to write.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeFloat(float value) throws IOException {
+        out.writeFloat(value);
+    }
+
+    /**
+     * Writes a boolean as one byte.
+     *
+     * @param value The value to write.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    /**
+     * Writes a string as its UTF-8 length followed by its UTF-8 bytes; null is written as length -1.
+     *
+     * @param value The value to write, may be null.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * Writes a date as its epoch day.
+     *
+     * @param date The date to write, may be null.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeDate(LocalDate date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.toEpochDay());
+    }
+
+    /**
+     * Writes a point in time as milliseconds since the epoch.
+     *
+     * @param date The date to write, may be null.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeDate(Date date) throws IOException {
+        out.writeLong(date == null ? NO_DATE : date.getTime());
+    }
+
+    /**
+     * Writes the id of a referenced entity, or 0 if there is no reference.
+     *
+     * @param reference The referenced entity, may be null.
+     * @throws IOException if the value cannot be written.
+     */
+    public void writeReference(HasId reference) throws IOException {
+        out.writeInt(reference == null ? 0 : reference.getId());
+    }
+
+    /**
+     * Finishes the snapshot by appending the checksum.
+     *
+     * @return The complete snapshot.
+     * @throws IOException if the checksum cannot be written.
+     */
+    byte[] finish() throws IOException {
+        out.flush();
+        CRC32 checksum = new CRC32();
+        byte[] body = bytes.toByteArray();
+        checksum.update(body);
+        out.writeInt((int) checksum.getValue());
+        out.flush();
+        return bytes.toByteArray();
+    }
+}
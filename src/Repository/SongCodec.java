@@ -0,0 +1,91 @@
+package Repository;
+
+import Domain.Album;
+import Domain.HasId;
+import Domain.Song;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Codec for songs. Columns: id, title, duration in minutes, album id.
+ */
+public class SongCodec implements EntityCodec<Song> {
+    private final IntFunction<Album> albums;
+
+    /**
+     * Creates the codec.
+     *
+     * @param albums Looks up the album of a song by id; returns null if the album does not exist.
+     */
+    public SongCodec(IntFunction<Album> albums) {
+        this.albums = albums;
+    }
+
+    /**
+     * Creates the codec with references resolved through a registry.
+     *
+     * @param registry The registry of the file repositories that stores the albums.
+     */
+    public SongCodec(EntityRegistry registry) {
+        this(registry.resolver(Album.class));
+    }
+
+    @Override
+    public List<Class<? extends HasId>> dependencies() {
+        return List.of(Album.class);
+    }
+
+    @Override
+    public Song decode(CsvRecord record) {
+        if (record.size() < 4) {
+            return null;
+        }
+        String title = record.getString(1);
+        float duration;
+        try {
+            duration = record.getFloat(2);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid duration format for song: " + record.getString(2));
+            return null;
+        }
+        int albumId = record.getInt(3);
+        Album album = albums.apply(albumId);
+        if (album == null) {
+            System.out.println("Unknown album " + albumId + " for song: " + title);
+            return null;
+        }
+        Song song = new Song(title, duration, album);
+        song.setId(record.getInt(0));
+        return song;
+    }
+
+    @Override
+    public void encode(Song song, CsvLine line) {
+        line.add(song.getId()).add(song.getTitle()).add(song.getDuration()).addReference(song.getAlbum());
+    }
+
+    @Override
+    public Song read(SnapshotInput in) {
+        int id = in.readInt();
+        String title = in.readString();
+        float duration = in.readFloat();
+        Album album = albums.apply(in.readInt());
+        if (album == null) {
+            System.out.println("Unknown album for song: " + title);
+            return null;
+        }
+        Song song = new Song(title, duration, album);
+        song.setId(id);
+        return song;
+    }
+
+    @Override
+    public void write(Song song, SnapshotOutput out) throws IOException {
+        out.writeInt(song.getId());
+        out.writeString(song.getTitle());
+        out.writeFloat(song.getDuration());
+        out.writeReference(song.getAlbum());
+    }
+}
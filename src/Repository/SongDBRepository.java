@@ -4,6 +4,7 @@ import Domain.Song;
 import Domain.Album;
 import Domain.Genre;
 import java.sql.*;
+import java.util.Collection;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -14,22 +15,35 @@ import java.time.LocalDate;
  * Repository for Song
  */
 public class SongDBRepository extends DBRepository<Song> {
-    private AlbumDBRepository albumDBRepository;
-    public SongDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
-        this.albumDBRepository = new AlbumDBRepository(DBUrl, DBUser, DBPassword);
+    private static final String INSERT_SQL = "INSERT INTO Song (title, duration, album_id, genre_id) VALUES (?, ?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Song SET title = ?, duration = ?, album_id = ?, genre_id = ? WHERE id = ?";
+    /** Loads songs together with their genre, album, album artist and album genre in one query. */
+    private static final String SELECT_SQL = "SELECT " + RowHydrator.SONG_COLUMNS + " FROM Song s" + RowHydrator.SONG_JOINS;
 
+    public SongDBRepository(ConnectionPool pool) {
+        super(pool);
 
+
+    }
+    @Override
+    protected String getTableName() {
+        return "Song";
     }
+
     @Override
     public void create(Song obj) {
-        String SQL = "INSERT INTO Song (title, duration, album_id, genre_id) VALUES (?, ?, ?, ?)";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getTitle());
-            statement.setFloat(2, obj.getDuration());
-            statement.setInt(3, obj.getAlbum().getId());
-            statement.setInt(4, obj.getGenre().getId());
-            statement.executeUpdate();
+        createAll(List.of(obj));
+    }
+
+    /**
+     * Inserts the songs with JDBC batches in one transaction and sets the ids generated for them.
+     *
+     * @param songs The songs to insert.
+     */
+    @Override
+    public void createAll(Collection<Song> songs) {
+        try {
+            inTransaction(connection -> insertBatch(connection, INSERT_SQL, songs, this::bindInsert));
         } catch (SQLException e) {
             throw new RuntimeException("Error adding Song", e);
         }
@@ -37,13 +51,14 @@ public class SongDBRepository extends DBRepository<Song> {
 
     @Override
     public Song read(int id) {
-        String SQL = "SELECT * FROM Song WHERE id = ?";
+        String SQL = SELECT_SQL + " WHERE s.id = ?";
         Song song = null;
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             try (ResultSet rs = statement.executeQuery()) {
                 if (rs.next()) {
-                    song = readFromResultSet(rs);
+                    song = extractFromResultSet(rs);
                 }
             }
         } catch (SQLException e) {
@@ -59,23 +74,46 @@ public class SongDBRepository extends DBRepository<Song> {
 
     @Override
     public void update(Song obj) {
-        String SQL = "UPDATE Song SET title = ?, duration = ?, album_id = ?, genre_id = ? WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, obj.getTitle());
-            statement.setFloat(2, obj.getDuration());
-            statement.setInt(3, obj.getAlbum().getId());
-            statement.setInt(4, obj.getGenre().getId());
-            statement.setInt(5, obj.getId());
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, obj);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error updating Song", e);
         }
     }
 
+    /**
+     * Updates the songs with JDBC batches in one transaction.
+     *
+     * @param songs The songs to update.
+     */
+    @Override
+    public void updateAll(Collection<Song> songs) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, songs, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating Song", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Song obj) throws SQLException {
+        statement.setString(1, obj.getTitle());
+        statement.setFloat(2, obj.getDuration());
+        statement.setInt(3, obj.getAlbum().getId());
+        statement.setInt(4, obj.getGenre().getId());
+    }
+
+    private void bindUpdate(PreparedStatement statement, Song obj) throws SQLException {
+        bindInsert(statement, obj);
+        statement.setInt(5, obj.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Song WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -85,31 +123,33 @@ public class SongDBRepository extends DBRepository<Song> {
 
     @Override
     public Map<Integer, Song> getAll() {
-        String SQL = "SELECT * FROM Song";
         Map<Integer, Song> songMap = new HashMap<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        RowHydrator hydrator = new RowHydrator();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SELECT_SQL)) {
             ResultSet resultSet = statement.executeQuery();
             while (resultSet.next()) {
-                Song song = readFromResultSet(resultSet);
+                Song song = hydrator.song(resultSet);
                 songMap.put(song.getId(), song);
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error getting all songs", e);
         }
-        System.out.println("Songs retrieved: " + songMap.size());
         return songMap;
     }
 
     public List<Song> getSongsForPlaylist(int playlistId) {
-        String SQL = "SELECT s.* FROM Song s " +
-                "JOIN PlaylistSongs ps ON s.ID = ps.song_id " +
-                "WHERE ps.playlist_id = ?";
+        String SQL = "SELECT " + RowHydrator.SONG_COLUMNS + " FROM PlaylistSongs ps " +
+                "JOIN Song s ON s.ID = ps.song_id" + RowHydrator.SONG_JOINS +
+                " WHERE ps.playlist_id = ?";
         List<Song> songs = new ArrayList<>();
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        RowHydrator hydrator = new RowHydrator();
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, playlistId);
             ResultSet rs = statement.executeQuery();
             while (rs.next()) {
-                songs.add(readFromResultSet(rs));
+                songs.add(hydrator.song(rs));
             }
         } catch (SQLException e) {
             throw new RuntimeException("Error reading songs for playlist", e);
@@ -117,15 +157,22 @@ public class SongDBRepository extends DBRepository<Song> {
         return songs;
     }
 
+    @Override
+    protected String getSelectSql() {
+        return SELECT_SQL;
+    }
+
+    @Override
+    protected String getColumnPrefix() {
+        return "s.";
+    }
 
-    private  Song readFromResultSet(ResultSet rs) throws SQLException {
-        String title = rs.getString("title");
-        float duration = rs.getFloat("duration");
-        int albumId = rs.getInt("album_id");
-        Album album = albumDBRepository.read(albumId);
-        Song song = new Song(title, duration, album);
-        song.setId(rs.getInt("id"));
-        return song;
+    /**
+     * Builds the song of a row selected with RowHydrator.SONG_COLUMNS, including its album, artist and genres.
+     */
+    @Override
+    protected Song extractFromResultSet(ResultSet rs) throws SQLException {
+        return new RowHydrator().song(rs);
     }
 
 
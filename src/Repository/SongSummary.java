@@ -0,0 +1,70 @@
+package Repository;
+
+import Domain.Song;
+
+/**
+ * The fields of a song that listings show: its id, title and duration and the id and title of its album.
+ * A summary holds no references to other objects, so listing songs does not load their albums and artists.
+ */
+public final class SongSummary {
+    private final int id;
+    private final String title;
+    private final float duration;
+    private final int albumId;
+    private final String albumTitle;
+
+    SongSummary(int id, String title, float duration, int albumId, String albumTitle) {
+        this.id = id;
+        this.title = title;
+        this.duration = duration;
+        this.albumId = albumId;
+        this.albumTitle = albumTitle;
+    }
+
+    /**
+     * Summarizes a song that is already loaded.
+     *
+     * @param song The song.
+     * @return The summary of the song.
+     */
+    public static SongSummary of(Song song) {
+        return song.getAlbum() == null
+                ? new SongSummary(song.getId(), song.getTitle(), song.getDuration(), 0, null)
+                : new SongSummary(song.getId(), song.getTitle(), song.getDuration(), song.getAlbum().getId(), song.getAlbum().getTitle());
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public float getDuration() {
+        return duration;
+    }
+
+    /**
+     * Gets the id of the song's album.
+     *
+     * @return The album id, or 0 if the song has no album.
+     */
+    public int getAlbumId() {
+        return albumId;
+    }
+
+    /**
+     * Gets the title of the song's album.
+     *
+     * @return The album title, or null if the song has no album.
+     */
+    public String getAlbumTitle() {
+        return albumTitle;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SongSummary{id=%d, title=%s, duration=%.2f, album=%s}", id, title, duration, albumTitle);
+    }
+}
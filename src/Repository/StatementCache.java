@@ -0,0 +1,172 @@
+package Repository;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The prepared statements of one physical connection, keyed by SQL text and evicted least recently used first.
+ * Statements are handed out wrapped: closing the wrapper clears the parameters and keeps the statement open
+ * for the next caller with the same SQL. Reusing the statement object is what lets the PostgreSQL driver switch
+ * to a server-side prepared statement after a few executions, so later executions are neither parsed nor planned again.
+ * A cached statement is never handed out twice at the same time; a nested caller preparing the same SQL while
+ * the statement is in use gets a fresh statement that is closed normally.
+ * Not thread-safe: a connection is used by one borrower at a time.
+ */
+class StatementCache {
+    private final Map<String, CachedStatement> statements;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity The largest number of statements kept open; 0 disables caching.
+     * @param hits Counts the statements served from the cache.
+     * @param misses Counts the statements that had to be prepared.
+     */
+    StatementCache(int capacity, LongAdder hits, LongAdder misses) {
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Returns a prepared statement for the SQL, reusing a cached one if it is free.
+     *
+     * @param physical The connection the statements belong to.
+     * @param handle The pooled connection seen by the caller, returned by getConnection on the statement.
+     * @param sql The SQL text.
+     * @return A statement whose close() keeps the underlying statement cached.
+     * @throws SQLException if the statement cannot be prepared.
+     */
+    PreparedStatement prepare(Connection physical, Connection handle, String sql) throws SQLException {
+        CachedStatement cached = statements.get(sql);
+        if (cached != null && !cached.inUse) {
+            hits.increment();
+            return cached.borrow(handle);
+        }
+        misses.increment();
+        PreparedStatement statement = physical.prepareStatement(sql);
+        if (cached != null || capacity == 0) {
+            return statement;
+        }
+        cached = new CachedStatement(statement);
+        statements.put(sql, cached);
+        return cached.borrow(handle);
+    }
+
+    /**
+     * Closes every cached statement. Called before the connection itself is closed.
+     */
+    void closeAll() {
+        for (CachedStatement cached : new ArrayList<>(statements.values())) {
+            cached.evict();
+        }
+        statements.clear();
+    }
+
+    private final class CachedStatement {
+        private final PreparedStatement statement;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+        }
+
+        PreparedStatement borrow(Connection handle) {
+            inUse = true;
+            boolean[] closed = new boolean[1];
+            ResultSet[] lastResult = new ResultSet[1];
+            return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "close":
+                                if (!closed[0]) {
+                                    closed[0] = true;
+                                    giveBack(lastResult[0]);
+                                }
+                                return null;
+                            case "isClosed":
+                                return closed[0] || statement.isClosed();
+                            case "getConnection":
+                                return handle;
+                            case "equals":
+                                return proxy == args[0];
+                            case "hashCode":
+                                return System.identityHashCode(proxy);
+                            case "toString":
+                                return "Cached " + statement;
+                            default:
+                                if (closed[0]) {
+                                    throw new SQLException("The statement is closed.");
+                                }
+                                try {
+                                    Object result = method.invoke(statement, args);
+                                    if (result instanceof ResultSet) {
+                                        lastResult[0] = (ResultSet) result;
+                                    }
+                                    return result;
+                                } catch (InvocationTargetException e) {
+                                    throw e.getCause();
+                                }
+                        }
+                    });
+        }
+
+        /**
+         * Makes the statement available again once its borrower closes it, without the parameters and the batched rows
+         * the borrower left on it. A statement that cannot be reset, or was evicted while in use, is closed instead.
+         */
+        private void giveBack(ResultSet lastResult) {
+            inUse = false;
+            try {
+                if (lastResult != null) {
+                    lastResult.close();
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                statements.values().remove(this);
+                evicted = true;
+            }
+            if (evicted) {
+                closeQuietly();
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
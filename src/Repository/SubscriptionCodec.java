@@ -0,0 +1,77 @@
+package Repository;
+
+import Domain.HasId;
+import Domain.Listener;
+import Domain.Subscription;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Codec for subscriptions. Columns: id, type, price, listener id.
+ */
+public class SubscriptionCodec implements EntityCodec<Subscription> {
+    private final IntFunction<Listener> listeners;
+
+    /**
+     * Creates the codec.
+     *
+     * @param listeners Looks up the listener of a subscription by id; returns null if the listener does not exist.
+     */
+    public SubscriptionCodec(IntFunction<Listener> listeners) {
+        this.listeners = listeners;
+    }
+
+    /**
+     * Creates the codec with references resolved through a registry.
+     *
+     * @param registry The registry of the file repositories that stores the listeners.
+     */
+    public SubscriptionCodec(EntityRegistry registry) {
+        this(registry.resolver(Listener.class));
+    }
+
+    @Override
+    public List<Class<? extends HasId>> dependencies() {
+        return List.of(Listener.class);
+    }
+
+    @Override
+    public Subscription decode(CsvRecord record) {
+        if (record.size() < 4) {
+            return null;
+        }
+        float price;
+        try {
+            price = record.getFloat(2);
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid price format for subscription: " + record.getString(2));
+            return null;
+        }
+        Subscription subscription = new Subscription(record.getString(1), price, listeners.apply(record.getInt(3)));
+        subscription.setId(record.getInt(0));
+        return subscription;
+    }
+
+    @Override
+    public void encode(Subscription subscription, CsvLine line) {
+        line.add(subscription.getId()).add(subscription.getType()).add(subscription.getPrice()).addReference(subscription.getUser());
+    }
+
+    @Override
+    public Subscription read(SnapshotInput in) {
+        int id = in.readInt();
+        Subscription subscription = new Subscription(in.readString(), in.readFloat(), listeners.apply(in.readInt()));
+        subscription.setId(id);
+        return subscription;
+    }
+
+    @Override
+    public void write(Subscription subscription, SnapshotOutput out) throws IOException {
+        out.writeInt(subscription.getId());
+        out.writeString(subscription.getType());
+        out.writeFloat(subscription.getPrice());
+        out.writeReference(subscription.getUser());
+    }
+}
@@ -4,6 +4,8 @@ import Domain.Subscription;
 import Domain.Listener;
 
 import java.sql.*;
+import java.util.List;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -11,20 +13,33 @@ import java.util.Map;
  * Repository for Subscription
  */
 public class SubscriptionDBRepository extends DBRepository<Subscription> {
+    private static final String INSERT_SQL = "INSERT INTO Subscription (type, price, user_id) VALUES (?, ?, ?)";
+    private static final String UPDATE_SQL = "UPDATE Subscription SET type = ?, price = ?, user_id = ? WHERE id = ?";
 
-    public SubscriptionDBRepository(String DBUrl, String DBUser, String DBPassword) {
-        super(DBUrl, DBUser, DBPassword);
+
+    public SubscriptionDBRepository(ConnectionPool pool) {
+        super(pool);
 
     }
+    @Override
+    protected String getTableName() {
+        return "Subscription";
+    }
+
     @Override
     public void create(Subscription subscription) {
-        String SQL = "INSERT INTO Subscription (type, price, user_id) VALUES (?, ?, ?)";
+        createAll(List.of(subscription));
+    }
 
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, subscription.getType());
-            statement.setFloat(2, subscription.getPrice());
-            statement.setInt(3, subscription.getUser().getId());
-            statement.executeUpdate();
+    /**
+     * Inserts the subscriptions with JDBC batches in one transaction and sets the ids generated for them.
+     *
+     * @param subscriptions The subscriptions to insert.
+     */
+    @Override
+    public void createAll(Collection<Subscription> subscriptions) {
+        try {
+            inTransaction(connection -> insertBatch(connection, INSERT_SQL, subscriptions, this::bindInsert));
         } catch (SQLException e) {
             throw new RuntimeException("Error creating subscription", e);
         }
@@ -34,12 +49,13 @@ public class SubscriptionDBRepository extends DBRepository<Subscription> {
     public Subscription read(int id) {
         String SQL = "SELECT * FROM Subscription WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             ResultSet rs = statement.executeQuery();
 
             if (rs.next()) {
-                return readFromResultSet(rs);
+                return extractFromResultSet(rs);
             } else {
                 return null;
             }
@@ -48,7 +64,8 @@ public class SubscriptionDBRepository extends DBRepository<Subscription> {
         }
     }
 
-    private Subscription readFromResultSet(ResultSet rs) throws SQLException {
+    @Override
+    protected Subscription extractFromResultSet(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         String type = rs.getString("type");
         float price = rs.getFloat("price");
@@ -62,7 +79,8 @@ public class SubscriptionDBRepository extends DBRepository<Subscription> {
 
     private Listener getListenerById(int userId) {
         String SQL = "SELECT * FROM Listener WHERE id = ?";
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, userId);
             ResultSet rs = statement.executeQuery();
             if (rs.next()) {
@@ -80,25 +98,46 @@ public class SubscriptionDBRepository extends DBRepository<Subscription> {
 
     @Override
     public void update(Subscription subscription) {
-        String SQL = "UPDATE Subscription SET type = ?, price = ?, user_id = ? WHERE id = ?";
-
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
-            statement.setString(1, subscription.getType());
-            statement.setFloat(2, subscription.getPrice());
-            statement.setInt(3, subscription.getUser().getId());
-            statement.setInt(4, subscription.getId());
-
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(UPDATE_SQL)) {
+            bindUpdate(statement, subscription);
             statement.executeUpdate();
         } catch (SQLException e) {
             throw new RuntimeException("Error updating subscription", e);
         }
     }
 
+    /**
+     * Updates the subscriptions with JDBC batches in one transaction.
+     *
+     * @param subscriptions The subscriptions to update.
+     */
+    @Override
+    public void updateAll(Collection<Subscription> subscriptions) {
+        try {
+            inTransaction(connection -> executeBatch(connection, UPDATE_SQL, subscriptions, this::bindUpdate));
+        } catch (SQLException e) {
+            throw new RuntimeException("Error updating subscription", e);
+        }
+    }
+
+    private void bindInsert(PreparedStatement statement, Subscription subscription) throws SQLException {
+        statement.setString(1, subscription.getType());
+        statement.setFloat(2, subscription.getPrice());
+        statement.setInt(3, subscription.getUser().getId());
+    }
+
+    private void bindUpdate(PreparedStatement statement, Subscription subscription) throws SQLException {
+        bindInsert(statement, subscription);
+        statement.setInt(4, subscription.getId());
+    }
+
     @Override
     public void delete(int id) {
         String SQL = "DELETE FROM Subscription WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             statement.setInt(1, id);
             statement.executeUpdate();
         } catch (SQLException e) {
@@ -111,11 +150,12 @@ public class SubscriptionDBRepository extends DBRepository<Subscription> {
         String SQL = "SELECT * FROM Subscription";
         Map<Integer, Subscription> subscriptionMap = new HashMap<>();
 
-        try (PreparedStatement statement = connection.prepareStatement(SQL)) {
+        try (Connection connection = pool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(SQL)) {
             ResultSet resultSet = statement.executeQuery();
 
             while (resultSet.next()) {
-                Subscription subscription = readFromResultSet(resultSet);
+                Subscription subscription = extractFromResultSet(resultSet);
                 subscriptionMap.put(subscription.getId(), subscription);
             }
         } catch (SQLException e) {
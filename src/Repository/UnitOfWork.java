@@ -0,0 +1,232 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the creates, updates and deletes of an operation that spans several repositories
+ * and writes them together on commit. With a connection pool, commit borrows one connection for the current thread
+ * and runs all writes in one transaction on it: the database repositories borrow from the same pool on the same
+ * thread, so they receive that connection and their own transactions join the outer one. Either every write is
+ * stored or, if one fails, none is. Without a pool the writes are applied in the same order without a transaction,
+ * which suits the in-memory and file repositories.
+ * <p>
+ * Writes are flushed in dependency order, as one batch per repository and kind: first the creates of every
+ * repository in the order the repositories were first registered, then the updates in the same order,
+ * then the deletes in the reverse order. Register the parent repository of a change before its children,
+ * for example albums before their songs, so parents are inserted first and deleted last.
+ * Repeated updates of one object are written once, and a delete drops a registered update of the same id.
+ * The repositories must write on the calling thread; a write-behind buffer does not take part in the transaction.
+ * Ids assigned by a create stay set on the objects if the transaction is rolled back.
+ * A unit of work is not thread-safe and can be committed once.
+ */
+public final class UnitOfWork {
+    private final ConnectionPool pool;
+    private final Map<IRepository<?>, Changes<?>> changes = new IdentityHashMap<>();
+    private final List<Changes<?>> order = new ArrayList<>();
+    private boolean committed;
+
+    private UnitOfWork(ConnectionPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Starts a unit of work that commits in one transaction on a connection of the pool.
+     *
+     * @param pool The pool shared by the database repositories the unit of work writes to.
+     * @return The unit of work.
+     */
+    public static UnitOfWork on(ConnectionPool pool) {
+        if (pool == null) {
+            throw new IllegalArgumentException("The connection pool must not be null.");
+        }
+        return new UnitOfWork(pool);
+    }
+
+    /**
+     * Starts a unit of work for repositories that do not use a database, applying the writes in order on commit.
+     *
+     * @return The unit of work.
+     */
+    public static UnitOfWork withoutTransaction() {
+        return new UnitOfWork(null);
+    }
+
+    /**
+     * Registers an object to create.
+     *
+     * @param repository The repository that stores the object.
+     * @param obj The object to create.
+     * @return This unit of work.
+     */
+    public <T extends HasId> UnitOfWork registerNew(IRepository<T> repository, T obj) {
+        Changes<T> changes = changesOf(repository);
+        changes.creates.add(obj);
+        changes.createdObjects.add(obj);
+        return this;
+    }
+
+    /**
+     * Registers an object to update. Objects registered as new are created with their current state instead.
+     *
+     * @param repository The repository that stores the object.
+     * @param obj The object to update.
+     * @return This unit of work.
+     */
+    public <T extends HasId> UnitOfWork registerDirty(IRepository<T> repository, T obj) {
+        Changes<T> changes = changesOf(repository);
+        if (!changes.createdObjects.contains(obj)) {
+            changes.updates.put(obj.getId(), obj);
+        }
+        return this;
+    }
+
+    /**
+     * Registers the id of an object to delete.
+     *
+     * @param repository The repository that stores the object.
+     * @param id The unique identifier of the object.
+     * @return This unit of work.
+     */
+    public <T extends HasId> UnitOfWork registerDeleted(IRepository<T> repository, int id) {
+        Changes<T> changes = changesOf(repository);
+        changes.updates.remove(id);
+        changes.deletes.add(id);
+        return this;
+    }
+
+    /**
+     * Registers the objects that match criteria to delete. They are looked up on commit, inside the transaction and
+     * just before the deletes of the repository are written, so objects stored after the registration are deleted too.
+     *
+     * @param repository The repository that stores the objects.
+     * @param criteria The conditions the objects to delete match.
+     * @return This unit of work.
+     */
+    public <T extends HasId> UnitOfWork registerDeleted(IRepository<T> repository, Criteria<T> criteria) {
+        if (criteria == null) {
+            throw new IllegalArgumentException("The criteria must not be null.");
+        }
+        changesOf(repository).deleteCriteria.add(criteria);
+        return this;
+    }
+
+    /**
+     * Writes the registered changes, in one transaction if the unit of work has a connection pool.
+     * If the current thread is already in a transaction on a connection of the pool, the writes join it.
+     *
+     * @throws IllegalStateException if the unit of work was already committed.
+     * @throws RuntimeException if a write, the commit or the rollback fails; the transaction is rolled back.
+     */
+    public void commit() {
+        if (committed) {
+            throw new IllegalStateException("The unit of work was already committed.");
+        }
+        committed = true;
+        if (pool == null) {
+            flush();
+            return;
+        }
+        try (Connection connection = pool.getConnection()) {
+            if (!connection.getAutoCommit()) {
+                flush();
+                return;
+            }
+            connection.setAutoCommit(false);
+            try {
+                flush();
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Error committing the unit of work", e);
+        }
+    }
+
+    private void flush() {
+        for (Changes<?> repositoryChanges : order) {
+            repositoryChanges.writeCreates();
+        }
+        for (Changes<?> repositoryChanges : order) {
+            repositoryChanges.writeUpdates();
+        }
+        for (int i = order.size() - 1; i >= 0; i--) {
+            order.get(i).writeDeletes();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends HasId> Changes<T> changesOf(IRepository<T> repository) {
+        if (committed) {
+            throw new IllegalStateException("The unit of work was already committed.");
+        }
+        if (repository == null) {
+            throw new IllegalArgumentException("The repository must not be null.");
+        }
+        Changes<T> repositoryChanges = (Changes<T>) changes.get(repository);
+        if (repositoryChanges == null) {
+            repositoryChanges = new Changes<>(repository);
+            changes.put(repository, repositoryChanges);
+            order.add(repositoryChanges);
+        }
+        return repositoryChanges;
+    }
+
+    /**
+     * The changes registered for one repository.
+     */
+    private static final class Changes<T extends HasId> {
+        final IRepository<T> repository;
+        final List<T> creates = new ArrayList<>();
+        final Set<T> createdObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<Integer, T> updates = new LinkedHashMap<>();
+        final Set<Integer> deletes = new LinkedHashSet<>();
+        final List<Criteria<T>> deleteCriteria = new ArrayList<>();
+
+        Changes(IRepository<T> repository) {
+            this.repository = repository;
+        }
+
+        void writeCreates() {
+            if (!creates.isEmpty()) {
+                repository.createAll(creates);
+            }
+        }
+
+        void writeUpdates() {
+            if (!updates.isEmpty()) {
+                repository.updateAll(new ArrayList<>(updates.values()));
+            }
+        }
+
+        void writeDeletes() {
+            for (Criteria<T> criteria : deleteCriteria) {
+                for (T obj : repository.find(criteria)) {
+                    updates.remove(obj.getId());
+                    deletes.add(obj.getId());
+                }
+            }
+            if (!deletes.isEmpty()) {
+                repository.deleteAll(new ArrayList<>(deletes));
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package Repository;
+
+/**
+ * A snapshot of the statistics of a WriteBehindRepository.
+ */
+public final class WriteBehindMetrics {
+    private final int pendingCount;
+    private final int maxPending;
+    private final long writeCount;
+    private final long coalescedCount;
+    private final long flushCount;
+    private final long blockedCount;
+    private final long failedFlushCount;
+    private final long droppedCount;
+
+    WriteBehindMetrics(int pendingCount, int maxPending, long writeCount, long coalescedCount, long flushCount,
+                       long blockedCount, long failedFlushCount, long droppedCount) {
+        this.pendingCount = pendingCount;
+        this.maxPending = maxPending;
+        this.writeCount = writeCount;
+        this.coalescedCount = coalescedCount;
+        this.flushCount = flushCount;
+        this.blockedCount = blockedCount;
+        this.failedFlushCount = failedFlushCount;
+        this.droppedCount = droppedCount;
+    }
+
+    /**
+     * Gets the number of writes queued or being flushed.
+     *
+     * @return The number of pending writes.
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Gets the largest number of writes that may be queued before writers block.
+     *
+     * @return The queue size.
+     */
+    public int getMaxPending() {
+        return maxPending;
+    }
+
+    /**
+     * Gets the number of writes accepted so far.
+     *
+     * @return The number of writes.
+     */
+    public long getWriteCount() {
+        return writeCount;
+    }
+
+    /**
+     * Gets the number of writes merged into a write of the same object that was still queued.
+     *
+     * @return The number of coalesced writes.
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Gets the number of batches passed to the underlying repository.
+     *
+     * @return The number of flushes.
+     */
+    public long getFlushCount() {
+        return flushCount;
+    }
+
+    /**
+     * Gets the number of writes that had to wait because the queue was full.
+     *
+     * @return The number of blocked writes.
+     */
+    public long getBlockedCount() {
+        return blockedCount;
+    }
+
+    /**
+     * Gets the number of attempts to write a batch that failed and were retried or followed by one-at-a-time writes.
+     *
+     * @return The number of failed flushes.
+     */
+    public long getFailedFlushCount() {
+        return failedFlushCount;
+    }
+
+    /**
+     * Gets the number of writes dropped because the underlying repository still rejected them on their own.
+     *
+     * @return The number of dropped writes.
+     */
+    public long getDroppedCount() {
+        return droppedCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WriteBehindMetrics{pending=%d, max=%d, writes=%d, coalesced=%d, flushes=%d, blocked=%d, "
+                        + "failed=%d, dropped=%d}",
+                pendingCount, maxPending, writeCount, coalescedCount, flushCount, blockedCount, failedFlushCount,
+                droppedCount);
+    }
+}
@@ -0,0 +1,540 @@
+package Repository;
+
+import Domain.HasId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * A write-behind buffer in front of another repository, for frequent writes whose callers should not wait
+ * for a database round trip, such as recorded plays. create, update and delete only queue the write and return;
+ * a flusher thread passes the queued writes to the underlying repository with createAll, updateAll and deleteAll
+ * once maxBatchSize writes are queued or the oldest one has waited maxFlushDelayMillis.
+ * <p>
+ * Repeated updates of one id are coalesced, so only the last state is written, and a delete replaces the queued
+ * update of its id. At most maxPending writes are queued: a write that would queue more blocks until the flusher
+ * has caught up, which slows producers down to the speed of the underlying repository instead of growing the queue.
+ * <p>
+ * get and read see the queued writes; getAll, stream, findPage, find and findByIndex flush first and then read the
+ * underlying repository. Entities whose ids are assigned by the underlying repository receive them when their create
+ * is flushed, so callers that need the id must call flush.
+ * <p>
+ * A batch the underlying repository fails to write is kept, logged and retried with a delay that doubles after
+ * every attempt, so a database that is briefly unavailable only delays the writes. flush rethrows the error to the
+ * callers waiting for the failing batch, while later writes keep being queued. After maxAttempts failures the writes
+ * of the batch are applied one at a time, and the ones that are still rejected, for example by a unique index, are
+ * logged and dropped so they cannot hold back the rest of the queue. close flushes everything queued and stops the
+ * flusher thread; it must be called before the application exits, for example from a shutdown hook.
+ *
+ * @param <T> The type of objects stored in the repository, which must implement HasId.
+ */
+public class WriteBehindRepository<T extends HasId> implements IRepository<T>, AutoCloseable {
+    private static final int DEFAULT_MAX_ATTEMPTS = 8;
+    private static final long DEFAULT_RETRY_DELAY_MILLIS = 100;
+    private static final long MAX_RETRY_DELAY_MILLIS = 10_000;
+
+    private final IRepository<T> delegate;
+    private final int maxBatchSize;
+    private final int maxPending;
+    private final long maxFlushDelayNanos;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+    private final Object lock = new Object();
+    private final Thread flusherThread;
+
+    private Batch<T> queued = new Batch<>();
+    private Batch<T> flushing = new Batch<>();
+    private long oldestQueuedNanos;
+    private long queuedSequence;
+    private long flushedSequence;
+    private boolean flushRequested;
+    private RuntimeException lastError;
+    private long failedSequence;
+    private boolean closed;
+
+    private long writeCount;
+    private long coalescedCount;
+    private long flushCount;
+    private long blockedCount;
+    private long failedFlushCount;
+    private long droppedCount;
+
+    /**
+     * Creates the buffer and starts its flusher thread.
+     *
+     * @param delegate The repository the writes are flushed to.
+     * @param maxBatchSize The number of queued writes that triggers a flush.
+     * @param maxPending The largest number of queued writes before writers block; at least maxBatchSize.
+     * @param maxFlushDelayMillis The longest time a write stays queued before it is flushed.
+     */
+    public WriteBehindRepository(IRepository<T> delegate, int maxBatchSize, int maxPending, long maxFlushDelayMillis) {
+        this(delegate, maxBatchSize, maxPending, maxFlushDelayMillis, DEFAULT_MAX_ATTEMPTS, DEFAULT_RETRY_DELAY_MILLIS);
+    }
+
+    /**
+     * Creates the buffer with its own retry policy and starts its flusher thread.
+     *
+     * @param delegate The repository the writes are flushed to.
+     * @param maxBatchSize The number of queued writes that triggers a flush.
+     * @param maxPending The largest number of queued writes before writers block; at least maxBatchSize.
+     * @param maxFlushDelayMillis The longest time a write stays queued before it is flushed.
+     * @param maxAttempts The number of times a failing batch is written before its writes are applied one at a time.
+     * @param retryDelayMillis The wait before the first retry of a failing batch; it doubles after every retry.
+     */
+    public WriteBehindRepository(IRepository<T> delegate, int maxBatchSize, int maxPending, long maxFlushDelayMillis,
+                                 int maxAttempts, long retryDelayMillis) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("The buffered repository must not be null.");
+        }
+        if (maxBatchSize < 1 || maxPending < maxBatchSize || maxFlushDelayMillis < 0) {
+            throw new IllegalArgumentException("Batch size must be positive, the queue must hold at least one batch "
+                    + "and flush delay cannot be negative.");
+        }
+        if (maxAttempts < 1 || retryDelayMillis < 0) {
+            throw new IllegalArgumentException("A batch must be attempted at least once and the retry delay cannot be negative.");
+        }
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxPending = maxPending;
+        this.maxFlushDelayNanos = TimeUnit.MILLISECONDS.toNanos(maxFlushDelayMillis);
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+        this.flusherThread = new Thread(this::run, "write-behind-flusher");
+        this.flusherThread.setDaemon(true);
+        this.flusherThread.start();
+    }
+
+    /**
+     * Queues the creation of an object. The object receives its id when the create is flushed,
+     * unless the underlying repository takes the id from the object itself.
+     *
+     * @param obj The object to create.
+     */
+    @Override
+    public void create(T obj) {
+        synchronized (lock) {
+            awaitRoom(1);
+            queued.creates.add(obj);
+            queued.createdObjects.add(obj);
+            accepted();
+        }
+    }
+
+    /**
+     * Queues the update of an object, replacing an update of the same id that is still queued.
+     *
+     * @param obj The object to update.
+     */
+    @Override
+    public void update(T obj) {
+        synchronized (lock) {
+            checkOpen();
+            if (queued.createdObjects.contains(obj)) {
+                coalescedCount++;
+                accepted();
+                return;
+            }
+            int id = obj.getId();
+            boolean coalesced = queued.updates.containsKey(id);
+            awaitRoom(coalesced ? 0 : 1);
+            queued.deletes.remove(id);
+            if (queued.updates.put(id, obj) != null) {
+                coalescedCount++;
+            }
+            accepted();
+        }
+    }
+
+    /**
+     * Queues the deletion of an object, replacing an update of the same id that is still queued.
+     *
+     * @param id The unique identifier of the object to delete.
+     */
+    @Override
+    public void delete(int id) {
+        synchronized (lock) {
+            boolean coalesced = queued.updates.containsKey(id) || queued.deletes.contains(id);
+            awaitRoom(coalesced ? 0 : 1);
+            if (queued.updates.remove(id) != null || !queued.deletes.add(id)) {
+                coalescedCount++;
+            }
+            accepted();
+        }
+    }
+
+    @Override
+    public void createAll(Collection<T> objects) {
+        for (T obj : objects) {
+            create(obj);
+        }
+    }
+
+    @Override
+    public void updateAll(Collection<T> objects) {
+        for (T obj : objects) {
+            update(obj);
+        }
+    }
+
+    @Override
+    public void deleteAll(Collection<Integer> ids) {
+        for (int id : ids) {
+            delete(id);
+        }
+    }
+
+    /**
+     * Retrieves an object by its id, as it will be once the queued writes are flushed.
+     *
+     * @param id The unique identifier of the object to retrieve.
+     * @return The object, or null if it is not found or its deletion is queued.
+     */
+    @Override
+    public T get(int id) {
+        return readThrough(id, delegate::get);
+    }
+
+    /**
+     * Reads an object by its id, as it will be once the queued writes are flushed.
+     *
+     * @param id The unique identifier of the object to read.
+     * @return The object, or null if it is not found or its deletion is queued.
+     */
+    @Override
+    public T read(int id) {
+        return readThrough(id, delegate::read);
+    }
+
+    @Override
+    public Map<Integer, T> getAll() {
+        flush();
+        return delegate.getAll();
+    }
+
+    @Override
+    public Stream<T> stream() {
+        flush();
+        return delegate.stream();
+    }
+
+    @Override
+    public Page<T> findPage(PageRequest<T> request) {
+        flush();
+        return delegate.findPage(request);
+    }
+
+    @Override
+    public List<T> find(Criteria<T> criteria) {
+        flush();
+        return delegate.find(criteria);
+    }
+
+    @Override
+    public void addIndex(String field, Function<T, String> keyExtractor) {
+        delegate.addIndex(field, keyExtractor);
+    }
+
+    @Override
+    public void addUniqueIndex(String field, Function<T, String> keyExtractor) {
+        delegate.addUniqueIndex(field, keyExtractor);
+    }
+
+    @Override
+    public T findByIndex(String field, String value) {
+        flush();
+        return delegate.findByIndex(field, value);
+    }
+
+    /**
+     * Flushes the writes queued so far without waiting for the batch to fill, and blocks until they are written.
+     *
+     * @throws RuntimeException if writing the batch holding these writes failed, in which case it is still retried
+     *         in the background, or if the wait was interrupted.
+     */
+    public void flush() {
+        synchronized (lock) {
+            long sequence = queuedSequence;
+            flushRequested = true;
+            lock.notifyAll();
+            while (flushedSequence < sequence) {
+                if (lastError != null && failedSequence >= sequence) {
+                    throw new RuntimeException("Error flushing the write-behind buffer", lastError);
+                }
+                if (closed && flusherThread.getState() == Thread.State.TERMINATED) {
+                    throw new IllegalStateException("The write-behind buffer was closed before the writes were flushed.");
+                }
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the write-behind buffer to be flushed.", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets a snapshot of the buffer statistics.
+     *
+     * @return The current statistics.
+     */
+    public WriteBehindMetrics getMetrics() {
+        synchronized (lock) {
+            return new WriteBehindMetrics(queued.size() + flushing.size(), maxPending, writeCount, coalescedCount,
+                    flushCount, blockedCount, failedFlushCount, droppedCount);
+        }
+    }
+
+    /**
+     * Flushes the queued writes and stops the flusher thread. Writes made after close are rejected.
+     *
+     * A batch that keeps failing delays close until its retries are exhausted.
+     *
+     * @throws InterruptedException if interrupted while waiting for the flusher thread.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        synchronized (lock) {
+            if (!closed) {
+                closed = true;
+                lock.notifyAll();
+            }
+        }
+        flusherThread.join();
+    }
+
+    private void run() {
+        while (true) {
+            Batch<T> batch;
+            long batchSequence;
+            synchronized (lock) {
+                try {
+                    while (!closed && !batchDue()) {
+                        if (queued.isEmpty()) {
+                            lock.wait();
+                        } else {
+                            long remaining = maxFlushDelayNanos - (System.nanoTime() - oldestQueuedNanos);
+                            TimeUnit.NANOSECONDS.timedWait(lock, Math.max(remaining, 1));
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                flushRequested = false;
+                if (queued.isEmpty()) {
+                    flushedSequence = queuedSequence;
+                    lock.notifyAll();
+                    if (closed) {
+                        return;
+                    }
+                    continue;
+                }
+                batch = queued;
+                batchSequence = queuedSequence;
+                flushing = batch;
+                queued = new Batch<>();
+                lock.notifyAll();
+            }
+            if (!write(batch, batchSequence)) {
+                return;
+            }
+            synchronized (lock) {
+                flushCount++;
+                flushedSequence = batchSequence;
+                flushing = new Batch<>();
+                lastError = null;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch, retrying it with a doubling delay while the underlying repository fails. Once maxAttempts
+     * are used up, the writes are applied one at a time and the ones that still fail are dropped.
+     *
+     * @return false if the flusher thread was interrupted while waiting to retry.
+     */
+    private boolean write(Batch<T> batch, long batchSequence) {
+        long delay = retryDelayMillis;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                writeRemaining(batch);
+                return true;
+            } catch (RuntimeException e) {
+                synchronized (lock) {
+                    failedFlushCount++;
+                    lastError = e;
+                    failedSequence = batchSequence;
+                    lock.notifyAll();
+                }
+                if (attempt >= maxAttempts) {
+                    System.err.println("Write-behind batch failed " + attempt + " times, writing it one write at a time: "
+                            + e.getMessage());
+                    writeOneByOne(batch);
+                    return true;
+                }
+                System.err.println("Write-behind batch failed, retrying in " + delay + " ms: " + e.getMessage());
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_DELAY_MILLIS);
+        }
+    }
+
+    /**
+     * Writes the parts of a batch not written yet. Every part is removed once written,
+     * so a retry does not repeat the creates of a batch whose updates failed.
+     */
+    private void writeRemaining(Batch<T> batch) {
+        if (!batch.creates.isEmpty()) {
+            delegate.createAll(new ArrayList<>(batch.creates));
+            synchronized (lock) {
+                batch.creates.clear();
+            }
+        }
+        if (!batch.updates.isEmpty()) {
+            delegate.updateAll(new ArrayList<>(batch.updates.values()));
+            synchronized (lock) {
+                batch.updates.clear();
+            }
+        }
+        if (!batch.deletes.isEmpty()) {
+            delegate.deleteAll(new ArrayList<>(batch.deletes));
+            synchronized (lock) {
+                batch.deletes.clear();
+            }
+        }
+    }
+
+    private void writeOneByOne(Batch<T> batch) {
+        for (T obj : new ArrayList<>(batch.creates)) {
+            try {
+                delegate.create(obj);
+            } catch (RuntimeException e) {
+                dropped("create", e);
+            }
+        }
+        for (T obj : new ArrayList<>(batch.updates.values())) {
+            try {
+                delegate.update(obj);
+            } catch (RuntimeException e) {
+                dropped("update of id " + obj.getId(), e);
+            }
+        }
+        for (int id : new ArrayList<>(batch.deletes)) {
+            try {
+                delegate.delete(id);
+            } catch (RuntimeException e) {
+                dropped("delete of id " + id, e);
+            }
+        }
+    }
+
+    private void dropped(String write, RuntimeException e) {
+        System.err.println("Dropped the write-behind " + write + ": " + e.getMessage());
+        synchronized (lock) {
+            droppedCount++;
+        }
+    }
+
+    /**
+     * Returns the queued state of an object, or loads it from the underlying repository if no write of its id is queued.
+     */
+    private T readThrough(int id, IntFunction<T> loader) {
+        synchronized (lock) {
+            if (queued.deletes.contains(id) || (flushing.deletes.contains(id) && !queued.updates.containsKey(id))) {
+                return null;
+            }
+            T pending = queued.updates.get(id);
+            if (pending == null) {
+                pending = flushing.updates.get(id);
+            }
+            if (pending != null) {
+                return pending;
+            }
+        }
+        return loader.apply(id);
+    }
+
+    private boolean batchDue() {
+        return flushRequested || queued.size() >= maxBatchSize
+                || (!queued.isEmpty() && System.nanoTime() - oldestQueuedNanos >= maxFlushDelayNanos);
+    }
+
+    /**
+     * Blocks until the queue has room for the given number of new writes.
+     * Must be called while holding lock.
+     */
+    private void awaitRoom(int writes) {
+        checkOpen();
+        if (writes > 0 && queued.size() + writes > maxPending) {
+            blockedCount++;
+            lock.notifyAll();
+        }
+        while (writes > 0 && queued.size() + writes > maxPending) {
+            try {
+                lock.wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for room in the write-behind buffer.", e);
+            }
+            checkOpen();
+        }
+        if (queued.isEmpty()) {
+            oldestQueuedNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * Records a write that was queued and wakes the flusher when it starts a batch or fills one.
+     * Must be called while holding lock.
+     */
+    private void accepted() {
+        writeCount++;
+        queuedSequence++;
+        if (queued.size() == 1 || queued.size() >= maxBatchSize) {
+            lock.notifyAll();
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The write-behind buffer is closed.");
+        }
+    }
+
+    /**
+     * The writes of one flush: creates in the order they were made, then the latest update of every id,
+     * then the deleted ids.
+     */
+    private static final class Batch<T> {
+        final List<T> creates = new ArrayList<>();
+        final Set<T> createdObjects = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Map<Integer, T> updates = new LinkedHashMap<>();
+        final Set<Integer> deletes = new LinkedHashSet<>();
+
+        int size() {
+            return creates.size() + updates.size() + deletes.size();
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+    }
+}
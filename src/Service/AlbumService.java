@@ -4,10 +4,20 @@ import Domain.Artist;
 import Domain.Genre;
 import Domain.Song;
 import Exceptions.DatabaseException;
+import Repository.AlbumSummary;
+import Repository.CatalogFields;
+import Repository.CatalogSummaries;
+import Repository.Criteria;
 import Repository.IRepository;
+import Repository.InMemoryCatalogSummaries;
+import Repository.PageRequest;
+import Repository.Page;
+import Repository.SongSummary;
+import Repository.UnitOfWork;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import Exceptions.BusinessLogicException;
@@ -22,14 +32,48 @@ import Exceptions.ValidationException;
  */
 public class AlbumService {
     private final IRepository<Album> albumRepository;
+    private final IRepository<Song> songRepository;
+    private final Supplier<UnitOfWork> unitOfWork;
+    private final CatalogSummaries catalogSummaries;
 
     /**
      * Constructor that initializes the AlbumService with the given album repository.
+     * Deleting an album then leaves its songs in place.
      *
      * @param albumRepository The repository used to store and manage album data.
      */
     public AlbumService(IRepository<Album> albumRepository) {
+        this(albumRepository, null, UnitOfWork::withoutTransaction);
+    }
+
+    /**
+     * Constructor that initializes the AlbumService with the album and song repositories.
+     * Deleting an album also deletes its songs, in one unit of work.
+     *
+     * @param albumRepository The repository used to store and manage album data.
+     * @param songRepository The repository that stores the songs of the albums, or null to leave songs in place.
+     * @param unitOfWork Starts the unit of work of an operation that writes to several repositories.
+     */
+    public AlbumService(IRepository<Album> albumRepository, IRepository<Song> songRepository, Supplier<UnitOfWork> unitOfWork) {
+        this(albumRepository, songRepository, unitOfWork, new InMemoryCatalogSummaries(albumRepository, songRepository));
+    }
+
+    /**
+     * Constructor that initializes the AlbumService with the album and song repositories
+     * and with the summaries the album list screens show.
+     *
+     * @param albumRepository The repository used to store and manage album data.
+     * @param songRepository The repository that stores the songs of the albums, or null to leave songs in place.
+     * @param unitOfWork Starts the unit of work of an operation that writes to several repositories.
+     * @param catalogSummaries Reads the summaries of the albums and their songs.
+     */
+    public AlbumService(IRepository<Album> albumRepository, IRepository<Song> songRepository, Supplier<UnitOfWork> unitOfWork,
+                        CatalogSummaries catalogSummaries) {
         this.albumRepository = albumRepository;
+        this.songRepository = songRepository;
+        this.unitOfWork = unitOfWork;
+        this.catalogSummaries = catalogSummaries;
+        this.albumRepository.addIndex("title", Album::getTitle);
     }
 
     /**
@@ -49,6 +93,54 @@ public class AlbumService {
         }
     }
 
+    /**
+     * Retrieves the first page of the available albums.
+     *
+     * @param pageSize The maximum number of albums on the page.
+     * @param sortBy "title", "release_date", or null to list the albums in the order they were added.
+     * @return The first page of albums; its next() request leads to the following page.
+     * @throws ValidationException if the page size is not positive or the order is unknown.
+     * @throws EntityNotFoundException if no albums are found.
+     */
+    public Page<Album> getAvailableAlbums(int pageSize, String sortBy) {
+        if (pageSize <= 0) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        PageRequest<Album> request;
+        if (sortBy == null) {
+            request = PageRequest.byId(pageSize);
+        } else if (sortBy.equals("title")) {
+            request = PageRequest.sortedBy("title", Album::getTitle, pageSize);
+        } else if (sortBy.equals("release_date")) {
+            request = PageRequest.sortedBy("release_date", Album::getReleaseDate, pageSize);
+        } else {
+            throw new ValidationException("Albums cannot be sorted by " + sortBy + ".");
+        }
+        Page<Album> page = getAvailableAlbums(request);
+        if (page.isEmpty()) {
+            throw new EntityNotFoundException("No albums available in the repository.");
+        }
+        return page;
+    }
+
+    /**
+     * Retrieves a page of the available albums, usually the next() request of a previous page.
+     *
+     * @param request The order, size and position of the page.
+     * @return The page of albums.
+     * @throws ValidationException if the request is null.
+     */
+    public Page<Album> getAvailableAlbums(PageRequest<Album> request) {
+        if (request == null) {
+            throw new ValidationException("Page request cannot be null.");
+        }
+        try {
+            return albumRepository.findPage(request);
+        } catch (DatabaseException e) {
+            throw new DatabaseException("Database error while retrieving available albums: " + e.getMessage());
+        }
+    }
+
     /**
      * Retrieves the list of songs that belong to a specific album.
      *
@@ -63,6 +155,45 @@ public class AlbumService {
         return album.getSongs();
     }
 
+    /**
+     * Retrieves the summaries of a page of albums in title order, without loading their songs and artists.
+     *
+     * @param after The last album of the previous page, or null for the first page.
+     * @param limit The largest number of albums on the page.
+     * @return The summaries of the albums.
+     * @throws ValidationException if the limit is not positive.
+     * @throws DatabaseException if a database error occurs while reading the albums.
+     */
+    public List<AlbumSummary> getAlbumSummaries(AlbumSummary after, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        try {
+            return catalogSummaries.listAlbums(after, limit);
+        } catch (RuntimeException e) {
+            throw new DatabaseException("Database error while listing albums: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Retrieves the summaries of the songs in an album, without loading the album or the songs themselves.
+     *
+     * @param albumTitle The title of the album.
+     * @return The summaries of the songs, empty if there is no such album or it has no songs.
+     * @throws ValidationException if the album title is null or empty.
+     * @throws DatabaseException if a database error occurs while reading the songs.
+     */
+    public List<SongSummary> getSongSummariesInAlbum(String albumTitle) {
+        if (albumTitle == null || albumTitle.trim().isEmpty()) {
+            throw new ValidationException("Album name cannot be null or empty.");
+        }
+        try {
+            return catalogSummaries.listSongsInAlbum(albumTitle);
+        } catch (RuntimeException e) {
+            throw new DatabaseException("Database error while listing the songs of the album: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Removes a specific song from an album.
      * Prints a message confirming whether the song was removed or not.
@@ -148,10 +279,9 @@ public class AlbumService {
             throw new ValidationException("Album name cannot be null or empty.");
         }
         try {
-            for (Album album : albumRepository.getAll().values()) {
-                if (album.getTitle().equalsIgnoreCase(albumName)) {
-                    return album;
-                }
+            Album album = albumRepository.findByIndex("title", albumName);
+            if (album != null) {
+                return album;
             }
             throw new EntityNotFoundException("Album with name '" + albumName + "' not found.");
         }catch (DatabaseException e){
@@ -180,9 +310,22 @@ public class AlbumService {
             throw new DatabaseException("Database error while retrieving album for sorting: " + e.getMessage());
         }
     }
+    /**
+     * Deletes an album together with its songs. The album and the songs are deleted in one unit of work,
+     * so with a database either all of them are deleted or none is. The songs are looked up by their album id
+     * when the unit of work commits, inside its transaction.
+     *
+     * @param albumId The id of the album to delete.
+     * @return true once the album is deleted.
+     * @throws DatabaseException if the album or one of its songs cannot be deleted.
+     */
     public boolean deleteAlbum(int albumId) throws DatabaseException {
         try {
-            albumRepository.delete(albumId);
+            UnitOfWork work = unitOfWork.get().registerDeleted(albumRepository, albumId);
+            if (songRepository != null) {
+                work.registerDeleted(songRepository, Criteria.<Song>all().equalTo(CatalogFields.SONG_ALBUM_ID, albumId));
+            }
+            work.commit();
             return true;
         } catch (Exception e) {
             throw new DatabaseException("An error occurred while deleting the album: " + e.getMessage());
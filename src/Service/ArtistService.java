@@ -6,10 +6,15 @@ import Domain.Listener;
 import Domain.Song;
 import Exceptions.BusinessLogicException;
 import Exceptions.DatabaseException;
+import Repository.ArtistStatistics;
+import Repository.CatalogFields;
+import Repository.CatalogStatistics;
+import Repository.Criteria;
 import Repository.IRepository;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import Exceptions.EntityNotFoundException;
 import Exceptions.ValidationException;
@@ -21,14 +26,48 @@ import Exceptions.ValidationException;
  */
 public class ArtistService {
     private final IRepository<Artist> artistRepository;
+    private final IRepository<Album> albumRepository;
+    private final IRepository<Song> songRepository;
+    private final CatalogStatistics catalogStatistics;
 
     /**
      * Constructor that initializes the ArtistService with the given artist repository.
+     * Albums and songs of an artist are then filtered from the artist's discography in memory.
      *
      * @param artistRepository The repository used to store and manage artist data.
      */
     public ArtistService(IRepository<Artist> artistRepository) {
+        this(artistRepository, null, null);
+    }
+
+    /**
+     * Constructor that initializes the ArtistService with the artist, album and song repositories.
+     * Albums and songs of an artist are then filtered by queries on their repositories.
+     *
+     * @param artistRepository The repository used to store and manage artist data.
+     * @param albumRepository The repository that stores the albums, or null to filter the artist's albums in memory.
+     * @param songRepository The repository that stores the songs, or null to filter the artist's songs in memory.
+     */
+    public ArtistService(IRepository<Artist> artistRepository, IRepository<Album> albumRepository, IRepository<Song> songRepository) {
+        this(artistRepository, albumRepository, songRepository, null);
+    }
+
+    /**
+     * Constructor that initializes the ArtistService with the artist, album and song repositories
+     * and with the statistics of the catalog they store.
+     *
+     * @param artistRepository The repository used to store and manage artist data.
+     * @param albumRepository The repository that stores the albums, or null to filter the artist's albums in memory.
+     * @param songRepository The repository that stores the songs, or null to filter the artist's songs in memory.
+     * @param catalogStatistics The counts of albums and songs per artist, or null to count them from the artists' discographies.
+     */
+    public ArtistService(IRepository<Artist> artistRepository, IRepository<Album> albumRepository, IRepository<Song> songRepository,
+                         CatalogStatistics catalogStatistics) {
         this.artistRepository = artistRepository;
+        this.albumRepository = albumRepository;
+        this.songRepository = songRepository;
+        this.catalogStatistics = catalogStatistics;
+        this.artistRepository.addIndex("name", Artist::getName);
     }
 
     /**
@@ -83,14 +122,16 @@ public class ArtistService {
         if (name == null || name.isEmpty()) {
             throw new ValidationException("Artist name cannot be null or empty.");
         }
+        Artist artist;
         try {
-            return artistRepository.getAll().values().stream()
-                    .filter(a -> a.getName().equalsIgnoreCase(name))
-                    .findFirst()
-                    .orElseThrow(() -> new EntityNotFoundException("Artist with name '" + name + "' not found."));
+            artist = artistRepository.findByIndex("name", name);
         }catch (DatabaseException e){
             throw new DatabaseException("Database error while retrieving artist by name: " + e.getMessage());
         }
+        if (artist == null) {
+            throw new EntityNotFoundException("Artist with name '" + name + "' not found.");
+        }
+        return artist;
     }
 
     /**
@@ -107,14 +148,13 @@ public class ArtistService {
         }
         Artist artist;
         try {
-            artist = artistRepository.getAll().values()
-                    .stream()
-                    .filter(a -> a.getName().equalsIgnoreCase(artistName))
-                    .findFirst()
-                    .orElseThrow(()-> new EntityNotFoundException("Artist with name '" + artistName + "' not found."));
+            artist = artistRepository.findByIndex("name", artistName);
         }catch(DatabaseException e){
             throw new DatabaseException("Database error while retrieving artist discography: " + e.getMessage());
         }
+        if (artist == null) {
+            throw new EntityNotFoundException("Artist with name '" + artistName + "' not found.");
+        }
         List<Album> albums = artist.getAlbums();
         if (albums.isEmpty()) {
             System.out.println("No albums found for this artist.");
@@ -148,6 +188,11 @@ public class ArtistService {
             throw new EntityNotFoundException("Artist with ID '" + artistId + "' not found.");
         }
 
+        if (albumRepository != null) {
+            return albumRepository.find(Criteria.<Album>all()
+                    .equalTo(CatalogFields.ALBUM_ARTIST_ID, artistId)
+                    .equalToIgnoringCase(CatalogFields.ALBUM_GENRE_NAME, genreName));
+        }
         return artist.getAlbums().stream()
                 .filter(album -> album.getGenre().getName().equalsIgnoreCase(genreName))
                 .collect(Collectors.toList());
@@ -172,6 +217,11 @@ public class ArtistService {
             throw new EntityNotFoundException("Artist with ID '" + artistId + "' not found.");
         }
 
+        if (songRepository != null) {
+            return songRepository.find(Criteria.<Song>all()
+                    .equalTo(CatalogFields.SONG_ARTIST_ID, artistId)
+                    .atLeast(CatalogFields.SONG_DURATION, minDuration));
+        }
         return artist.getAlbums().stream()
                 .flatMap(album -> album.getSongs().stream())
                 .filter(song -> song.getDuration() >= minDuration)
@@ -198,21 +248,17 @@ public class ArtistService {
     /**
      * Calculates the total number of songs for each artist and sorts them by the number of songs.
      * It also considers the total number of albums for each artist.
+     * The artists are read from the repository stream, so the repository does not build a map of all of them first.
      *
      * @return List of artists sorted by the total number of songs and albums.
      * @throws DatabaseException if a database error occurs while retrieving the data.
      */
     public List<Artist> getArtistsWithMostSongsAndAlbums() {
-        try {
-            Map<Artist, Integer> artistSongCountMap = new HashMap<>();
-            for (Artist artist : artistRepository.getAll().values()) {
-                int totalSongs = artist.getAlbums().stream()
-                        .mapToInt(album -> album.getSongs().size())
-                        .sum();
-                artistSongCountMap.put(artist, totalSongs);
-            }
-
-            return artistSongCountMap.entrySet().stream()
+        try (Stream<Artist> artists = artistRepository.stream()) {
+            return artists
+                    .map(artist -> new AbstractMap.SimpleEntry<>(artist, artist.getAlbums().stream()
+                            .mapToInt(album -> album.getSongs().size())
+                            .sum()))
                     .sorted((entry1, entry2) -> entry2.getValue().compareTo(entry1.getValue()))
                     .map(Map.Entry::getKey)
                     .collect(Collectors.toList());
@@ -221,4 +267,35 @@ public class ArtistService {
         }
     }
 
+    /**
+     * Returns the artists with the most songs, then the most albums, with their counts and total song duration.
+     * With catalog statistics the counts come from a GROUP BY query or from maintained counters,
+     * so no artist, album or song is loaded; otherwise they are counted from the artists' discographies.
+     *
+     * @param limit The largest number of artists to return.
+     * @return The statistics of the top artists, best first.
+     * @throws ValidationException if the limit is not positive.
+     * @throws DatabaseException if a database error occurs while counting.
+     */
+    public List<ArtistStatistics> getArtistLeaderboard(int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("The number of artists must be positive.");
+        }
+        try {
+            if (catalogStatistics != null) {
+                return catalogStatistics.getTopArtists(limit);
+            }
+            try (Stream<Artist> artists = artistRepository.stream()) {
+                return artists
+                        .map(ArtistStatistics::of)
+                        .sorted(Comparator.comparingInt(ArtistStatistics::getSongCount).reversed()
+                                .thenComparing(Comparator.comparingInt(ArtistStatistics::getAlbumCount).reversed())
+                                .thenComparingInt(ArtistStatistics::getArtistId))
+                        .limit(limit)
+                        .collect(Collectors.toList());
+            }
+        } catch (RuntimeException e) {
+            throw new DatabaseException("Database error while reading the artist leaderboard: " + e.getMessage(), e);
+        }
+    }
 }
@@ -2,6 +2,8 @@ package Service;
 import Domain.Genre;
 import Exceptions.DatabaseException;
 import Repository.IRepository;
+import Repository.PageRequest;
+import Repository.Page;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,6 +19,7 @@ public class GenreService {
             throw new ValidationException("Genre repository cannot be null.");
         }
         this.genreRepository = genreRepository;
+        this.genreRepository.addUniqueIndex("name", Genre::getName);
     }
 
     /**
@@ -40,12 +43,47 @@ public class GenreService {
         }
     }
 
+    /**
+     * Retrieves the first page of the genres, ordered by name.
+     *
+     * @param pageSize The maximum number of genres on the page.
+     * @return The first page of genres; its next() request leads to the following page.
+     * @throws ValidationException if the page size is not positive.
+     * @throws EntityNotFoundException if no genres are found in the repository.
+     */
+    public Page<Genre> getAllGenres(int pageSize) {
+        if (pageSize <= 0) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        Page<Genre> page = getAllGenres(PageRequest.sortedBy("name", Genre::getName, pageSize));
+        if (page.isEmpty()) {
+            throw new EntityNotFoundException("No genres found in the repository.");
+        }
+        return page;
+    }
+
+    /**
+     * Retrieves a page of the genres, usually the next() request of a previous page.
+     *
+     * @param request The order, size and position of the page.
+     * @return The page of genres.
+     * @throws ValidationException if the request is null.
+     * @throws DatabaseException if there is an error accessing the repository.
+     */
+    public Page<Genre> getAllGenres(PageRequest<Genre> request) {
+        if (request == null) {
+            throw new ValidationException("Page request cannot be null.");
+        }
+        try {
+            return genreRepository.findPage(request);
+        } catch (DatabaseException e) {
+            throw new DatabaseException("Error while retrieving genres from the repository: " + e.getMessage());
+        }
+    }
+
     public Genre getGenreByName(String genreName) {
         try {
-            return genreRepository.getAll().values().stream()
-                    .filter(genre -> genre.getName().equalsIgnoreCase(genreName))
-                    .findFirst()
-                    .orElse(null);
+            return genreRepository.findByIndex("name", genreName);
         } catch (Exception e) {
             throw new DatabaseException("Failed to retrieve genres: " + e.getMessage());
         }
@@ -55,12 +93,14 @@ public class GenreService {
         if (genre == null || genre.getName() == null || genre.getName().isEmpty()) {
             throw new ValidationException("Genre name cannot be null or empty.");
         }
-        if (genreRepository.getAll().values().stream().anyMatch(existingGenre -> existingGenre.getName().equalsIgnoreCase(genre.getName()))) {
+        if (genreRepository.findByIndex("name", genre.getName()) != null) {
             throw new ValidationException("Genre '" + genre.getName() + "' already exists.");
         }
         try {
             genreRepository.create(genre);
             System.out.println("Genre '" + genre.getName() + "' added successfully.");
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Genre '" + genre.getName() + "' already exists.");
         } catch (DatabaseException e) {
             throw new DatabaseException("Error while adding genre to the repository: " + e.getMessage());
         }
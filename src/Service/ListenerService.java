@@ -1,13 +1,18 @@
 package Service;
 
+import Domain.History;
 import Domain.Listener;
+import Domain.Song;
 import Domain.Subscription;
 import Exceptions.DatabaseException;
+import Repository.AsyncExecutors;
 import Repository.IRepository;
 
 import Exceptions.EntityNotFoundException;
 import Exceptions.ValidationException;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The ListenerService class provides methods for managing listeners (users) in the music system.
  * It allows for adding new listeners, retrieving listener data, upgrading or canceling subscriptions,
@@ -16,19 +21,36 @@ import Exceptions.ValidationException;
 public class ListenerService {
     private final IRepository<Listener> listenerRepository;
     private final IRepository<Subscription> subscriptionRepository;
+    private final IRepository<History> historyRepository;
 
     /**
      * Constructor that initializes the ListenerService with the given listener and subscription repositories.
+     * Listening histories are kept in memory only.
      *
      * @param listenerRepository The repository used to store and manage listener data.
      * @param subscriptionRepository The repository used to store and manage subscription data.
      */
     public ListenerService(IRepository<Listener> listenerRepository, IRepository<Subscription> subscriptionRepository) {
+        this(listenerRepository, subscriptionRepository, null);
+    }
+
+    /**
+     * Constructor that initializes the ListenerService with the given repositories, storing listening histories
+     * in the history repository.
+     *
+     * @param listenerRepository The repository used to store and manage listener data.
+     * @param subscriptionRepository The repository used to store and manage subscription data.
+     * @param historyRepository The repository the listening histories are saved to, or null to keep them in memory only.
+     */
+    public ListenerService(IRepository<Listener> listenerRepository, IRepository<Subscription> subscriptionRepository,
+                           IRepository<History> historyRepository) {
         if (listenerRepository == null || subscriptionRepository == null) {
             throw new ValidationException("Listener or Subscription repository cannot be null.");
         }
         this.listenerRepository = listenerRepository;
         this.subscriptionRepository = subscriptionRepository;
+        this.historyRepository = historyRepository;
+        this.listenerRepository.addIndex("name", Listener::getName);
     }
 
     /**
@@ -49,6 +71,35 @@ public class ListenerService {
         }
     }
 
+    /**
+     * Adds a played song to the history of a listener and stores the play.
+     * The play is stored as a history that holds only this song, so the repository appends one row
+     * and never rewrites the plays stored before, which the listener's history in memory may not hold.
+     * Plays are frequent, so the history repository is expected to buffer the write instead of waiting for the database.
+     *
+     * @param listener The listener who played the song.
+     * @param song The song that was played.
+     * @throws ValidationException if the listener or the song is null.
+     * @throws DatabaseException if there is an error while saving the history.
+     */
+    public void recordPlay(Listener listener, Song song) {
+        if (listener == null || song == null) {
+            throw new ValidationException("Listener and song cannot be null.");
+        }
+        History history = listener.getHistory();
+        history.addSongToHistory(song);
+        if (historyRepository == null) {
+            return;
+        }
+        History play = new History(listener);
+        play.getSongHistory().put(song, history.getSongHistory().get(song));
+        try {
+            historyRepository.create(play);
+        } catch (Exception e) {
+            throw new DatabaseException("Error while saving the history: " + e.getMessage(), e);
+        }
+    }
+
     /**
      * Retrieves a listener by their name from the repository.
      *
@@ -64,13 +115,7 @@ public class ListenerService {
         }
         try {
 
-            Listener listener = null;
-            for (Listener currentListener : listenerRepository.getAll().values()) {
-                if (currentListener.getName().equalsIgnoreCase(name)) {
-                    listener = currentListener;
-                    break;
-                }
-            }
+            Listener listener = listenerRepository.findByIndex("name", name);
 
             if (listener == null) {
                 throw new EntityNotFoundException("Listener with name " + name + " not found.");
@@ -82,4 +127,15 @@ public class ListenerService {
         }
     }
 
+    /**
+     * Runs getListenerByName on the shared executor of AsyncExecutors, so the caller can wait for
+     * several lookups at once. The future fails with the exceptions getListenerByName throws.
+     *
+     * @param name The name of the listener.
+     * @return A future for the result.
+     */
+    public CompletableFuture<Listener> getListenerByNameAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> getListenerByName(name), AsyncExecutors.shared());
+    }
+
 }
@@ -4,6 +4,8 @@ import Domain.LiveConcert;
 import Domain.Listener;
 import Exceptions.DatabaseException;
 import Repository.IRepository;
+import Repository.PageRequest;
+import Repository.Page;
 
 import java.util.ArrayList;
 import java.util.Date;
@@ -30,6 +32,7 @@ public class LiveConcertService {
             throw new ValidationException("Concert repository cannot be null.");
         }
         this.concertRepository = concertRepository;
+        this.concertRepository.addIndex("title", LiveConcert::getTitle);
     }
 
     /**
@@ -46,10 +49,7 @@ public class LiveConcertService {
             throw new ValidationException("Concert title cannot be null or empty.");
         }
         try {
-            LiveConcert concert = concertRepository.getAll().values().stream()
-                    .filter(c -> c.getTitle().equalsIgnoreCase(concertTitle))
-                    .findFirst()
-                    .orElse(null);
+            LiveConcert concert = concertRepository.findByIndex("title", concertTitle);
 
             if (concert == null) {
                 throw new EntityNotFoundException("Concert with title " + concertTitle + " not found.");
@@ -74,11 +74,7 @@ public class LiveConcertService {
             throw new ValidationException("Concert title cannot be null or empty.");
         }
         try {
-            LiveConcert concert = getAvailableConcerts()
-                    .stream()
-                    .filter(c -> c.getTitle().equalsIgnoreCase(concertTitle))
-                    .findFirst()
-                    .orElse(null);
+            LiveConcert concert = concertRepository.findByIndex("title", concertTitle);
 
             if (concert == null) {
                 throw new EntityNotFoundException("Concert not found.");
@@ -142,6 +138,44 @@ public class LiveConcertService {
         return new ArrayList<>(concertRepository.getAll().values());
     }
 
+    /**
+     * Retrieves the first page of the available concerts.
+     *
+     * @param pageSize The maximum number of concerts on the page.
+     * @param sortBy "title", "date", or null to list the concerts in the order they were added.
+     * @return The first page of concerts; its next() request leads to the following page.
+     * @throws ValidationException if the page size is not positive or the order is unknown.
+     */
+    public Page<LiveConcert> getAvailableConcerts(int pageSize, String sortBy) {
+        if (pageSize <= 0) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        if (sortBy == null) {
+            return getAvailableConcerts(PageRequest.byId(pageSize));
+        }
+        if (sortBy.equals("title")) {
+            return getAvailableConcerts(PageRequest.sortedBy("title", LiveConcert::getTitle, pageSize));
+        }
+        if (sortBy.equals("date")) {
+            return getAvailableConcerts(PageRequest.sortedBy("date", LiveConcert::getDate, pageSize));
+        }
+        throw new ValidationException("Concerts cannot be sorted by " + sortBy + ".");
+    }
+
+    /**
+     * Retrieves a page of the available concerts, usually the next() request of a previous page.
+     *
+     * @param request The order, size and position of the page.
+     * @return The page of concerts.
+     * @throws ValidationException if the request is null.
+     */
+    public Page<LiveConcert> getAvailableConcerts(PageRequest<LiveConcert> request) {
+        if (request == null) {
+            throw new ValidationException("Page request cannot be null.");
+        }
+        return concertRepository.findPage(request);
+    }
+
     /**
      * Adds a listener as an attendee to a concert, either to the early access list (if they have a premium subscription)
      * or the regular access list (if they have a basic subscription).
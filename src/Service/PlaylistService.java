@@ -2,11 +2,14 @@ package Service;
 
 import Domain.Playlist;
 import Domain.Song;
+import Repository.AsyncExecutors;
 import Repository.IRepository;
 
 import Exceptions.EntityNotFoundException;
 import Exceptions.ValidationException;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * The PlaylistService class provides methods for managing playlists in the system.
  * It allows for adding songs to playlists, removing songs from playlists, and playing,
@@ -25,6 +28,7 @@ public class PlaylistService {
             throw new ValidationException("Playlist repository cannot be null.");
         }
         this.playlistRepository = playlistRepository;
+        this.playlistRepository.addUniqueIndex("name", Playlist::getName);
     }
 
     /**
@@ -126,10 +130,14 @@ public class PlaylistService {
         if (playlist == null) {
             throw new ValidationException("Playlist cannot be null.");
         }
-        if (playlistRepository.getAll().values().stream().anyMatch(p -> p.getName().equalsIgnoreCase(playlist.getName()))) {
+        if (playlistRepository.findByIndex("name", playlist.getName()) != null) {
+            throw new ValidationException("A playlist with the same name already exists.");
+        }
+        try {
+            playlistRepository.create(playlist);
+        } catch (IllegalArgumentException e) {
             throw new ValidationException("A playlist with the same name already exists.");
         }
-        playlistRepository.create(playlist);
     }
 
 
@@ -146,11 +154,21 @@ public class PlaylistService {
             throw new ValidationException("Playlist name cannot be null or empty.");
         }
 
-        for (Playlist playlist : playlistRepository.getAll().values()) {
-            if (playlist.getName().equalsIgnoreCase(name)) {
-                return playlist;
-            }
+        Playlist playlist = playlistRepository.findByIndex("name", name);
+        if (playlist != null) {
+            return playlist;
         }
         throw new EntityNotFoundException("Playlist with name " + name + " not found.");
     }
+
+    /**
+     * Runs getPlaylistByName on the shared executor of AsyncExecutors, so the caller can wait for
+     * several lookups at once. The future fails with the exceptions getPlaylistByName throws.
+     *
+     * @param name The name of the playlist.
+     * @return A future for the result.
+     */
+    public CompletableFuture<Playlist> getPlaylistByNameAsync(String name) {
+        return CompletableFuture.supplyAsync(() -> getPlaylistByName(name), AsyncExecutors.shared());
+    }
 }
@@ -2,9 +2,16 @@ package Service;
 import Domain.Genre;
 import Domain.Song;
 import Exceptions.DatabaseException;
+import Repository.AsyncExecutors;
+import Repository.CatalogSummaries;
 import Repository.IRepository;
+import Repository.InMemoryCatalogSummaries;
+import Repository.PageRequest;
+import Repository.Page;
+import Repository.SongSummary;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import Exceptions.EntityNotFoundException;
 import Exceptions.ValidationException;
@@ -17,6 +24,7 @@ import Exceptions.ValidationException;
 
 public class SongService {
     private final IRepository<Song> songRepository;
+    private final CatalogSummaries catalogSummaries;
 
     /**
      * Constructor that initializes the SongService with a song repository.
@@ -25,10 +33,23 @@ public class SongService {
      * @throws ValidationException if the repository is null.
      */
     public SongService(IRepository<Song> songRepository) {
+        this(songRepository, new InMemoryCatalogSummaries(null, songRepository));
+    }
+
+    /**
+     * Constructor that initializes the SongService with a song repository and with the summaries the song list screens show.
+     *
+     * @param songRepository The repository used to store and retrieve songs.
+     * @param catalogSummaries Reads the summaries of the songs.
+     * @throws ValidationException if the repository is null.
+     */
+    public SongService(IRepository<Song> songRepository, CatalogSummaries catalogSummaries) {
         if (songRepository == null) {
             throw new ValidationException("Song repository cannot be null.");
         }
         this.songRepository = songRepository;
+        this.catalogSummaries = catalogSummaries;
+        this.songRepository.addUniqueIndex("title", Song::getTitle);
     }
 
 
@@ -45,15 +66,25 @@ public class SongService {
             throw new ValidationException("Song title cannot be null or empty.");
         }
 
-        for (Song song : songRepository.getAll().values()) {
-            if (song.getTitle().equalsIgnoreCase(title)) {
-                return song;
-            }
+        Song song = songRepository.findByIndex("title", title);
+        if (song != null) {
+            return song;
         }
 
         throw new EntityNotFoundException("Song with title " + title + " not found.");
     }
 
+    /**
+     * Runs getSongByTitle on the shared executor of AsyncExecutors, so the caller can wait for
+     * several lookups at once. The future fails with the exceptions getSongByTitle throws.
+     *
+     * @param title The title of the song.
+     * @return A future for the result.
+     */
+    public CompletableFuture<Song> getSongByTitleAsync(String title) {
+        return CompletableFuture.supplyAsync(() -> getSongByTitle(title), AsyncExecutors.shared());
+    }
+
     /**
      * Adds a new song to the song repository.
      * The song is stored in the repository for later retrieval and management.
@@ -65,10 +96,14 @@ public class SongService {
         if (song == null) {
             throw new ValidationException("Song cannot be null.");
         }
-        if (songRepository.getAll().values().stream().anyMatch(existingSong -> existingSong.getTitle().equalsIgnoreCase(song.getTitle()))) {
+        if (songRepository.findByIndex("title", song.getTitle()) != null) {
+            throw new ValidationException("A song with the same title already exists in the repository.");
+        }
+        try {
+            songRepository.create(song);
+        } catch (IllegalArgumentException e) {
             throw new ValidationException("A song with the same title already exists in the repository.");
         }
-        songRepository.create(song);
     }
 
 
@@ -82,6 +117,61 @@ public class SongService {
         return new ArrayList<>(songRepository.getAll().values());
     }
 
+    /**
+     * Retrieves the first page of the songs in the repository.
+     *
+     * @param pageSize The maximum number of songs on the page.
+     * @param sortBy "title", or null to list the songs in the order they were added.
+     * @return The first page of songs; its next() request leads to the following page.
+     * @throws ValidationException if the page size is not positive or the order is unknown.
+     */
+    public Page<Song> getAllSongs(int pageSize, String sortBy) {
+        if (pageSize <= 0) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        if (sortBy == null) {
+            return getAllSongs(PageRequest.byId(pageSize));
+        }
+        if (sortBy.equals("title")) {
+            return getAllSongs(PageRequest.sortedBy("title", Song::getTitle, pageSize));
+        }
+        throw new ValidationException("Songs cannot be sorted by " + sortBy + ".");
+    }
+
+    /**
+     * Retrieves a page of the songs, usually the next() request of a previous page.
+     *
+     * @param request The order, size and position of the page.
+     * @return The page of songs.
+     * @throws ValidationException if the request is null.
+     */
+    public Page<Song> getAllSongs(PageRequest<Song> request) {
+        if (request == null) {
+            throw new ValidationException("Page request cannot be null.");
+        }
+        return songRepository.findPage(request);
+    }
+
+    /**
+     * Retrieves the summaries of a page of songs in title order, without loading their albums and artists.
+     *
+     * @param after The last song of the previous page, or null for the first page.
+     * @param limit The largest number of songs on the page.
+     * @return The summaries of the songs.
+     * @throws ValidationException if the limit is not positive.
+     * @throws DatabaseException if a database error occurs while reading the songs.
+     */
+    public List<SongSummary> getSongSummaries(SongSummary after, int limit) {
+        if (limit <= 0) {
+            throw new ValidationException("Page size must be positive.");
+        }
+        try {
+            return catalogSummaries.listSongs(after, limit);
+        } catch (RuntimeException e) {
+            throw new DatabaseException("Database error while listing songs: " + e.getMessage(), e);
+        }
+    }
+
 
     /**
      * Starts playing the specified song.
@@ -0,0 +1,558 @@
+import Domain.Album;
+import Domain.Artist;
+import Domain.LiveConcert;
+import Domain.Song;
+import Repository.ArtistCodec;
+import Repository.ArtistDBRepository;
+import Repository.ConnectionPool;
+import Repository.CsvLine;
+import Repository.CsvReader;
+import Repository.CsvRecord;
+import Repository.DurabilityMode;
+import Repository.EntityRegistry;
+import Repository.FileRepository;
+import Repository.FlushMetrics;
+import Repository.InMemoryRepository;
+import Repository.IntObjectMap;
+import Repository.LazyFileRepository;
+import Repository.LiveConcertCodec;
+import Repository.SongCodec;
+import Service.SongService;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Small stand-alone benchmarks for the storage layer.
+ * Run with the name of a benchmark as the first argument, or without arguments to run all of them.
+ * The numbers are indicative only: they come from a single JVM run without a benchmarking harness.
+ */
+public class Storage_benchmarks {
+
+    public static void main(String[] args) {
+        String benchmark = args.length > 0 ? args[0] : "all";
+        if (benchmark.equals("all") || benchmark.equals("footprint")) {
+            footprint(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+        }
+        if (benchmark.equals("all") || benchmark.equals("bulkinsert")) {
+            bulkInsert();
+        }
+        if (benchmark.equals("all") || benchmark.equals("groupcommit")) {
+            groupCommit();
+        }
+        if (benchmark.equals("all") || benchmark.equals("batchwrite")) {
+            batchWrite(args.length > 1 ? Integer.parseInt(args[1]) : 20_000);
+        }
+        if (benchmark.equals("all") || benchmark.equals("csvload")) {
+            csvLoad(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+        }
+        if (benchmark.equals("all") || benchmark.equals("coldstart")) {
+            coldStart(args.length > 1 ? Integer.parseInt(args[1]) : 500_000);
+        }
+        if (benchmark.equals("all") || benchmark.equals("lazyopen")) {
+            lazyOpen(args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000);
+        }
+        if (benchmark.equals("statementcache")) {
+            if (args.length < 4) {
+                System.out.println("Usage: statementcache <jdbc url> <user> <password>");
+            } else {
+                statementCache(args[1], args[2], args[3]);
+            }
+        }
+    }
+
+    /**
+     * Compares the retained heap of the old HashMap&lt;Integer, T&gt; layout with IntObjectMap.
+     * All entries share one value object, so only the map overhead is measured.
+     */
+    private static void footprint(int entries) {
+        Object value = new Object();
+        System.out.println("Footprint for " + entries + " entries (ids 1.." + entries + "):");
+
+        long before = usedHeap();
+        Map<Integer, Object> hashMap = new HashMap<>();
+        for (int id = 1; id <= entries; id++) {
+            hashMap.put(id, value);
+        }
+        long hashMapBytes = usedHeap() - before;
+        System.out.printf("  HashMap<Integer, T>: %,d bytes (%.1f bytes/entry)%n", hashMapBytes, (double) hashMapBytes / entries);
+        hashMap = null;
+
+        before = usedHeap();
+        IntObjectMap<Object> intMap = new IntObjectMap<>();
+        for (int id = 1; id <= entries; id++) {
+            intMap.put(id, value);
+        }
+        long intMapBytes = usedHeap() - before;
+        System.out.printf("  IntObjectMap<T>:     %,d bytes (%.1f bytes/entry)%n", intMapBytes, (double) intMapBytes / entries);
+        System.out.printf("  IntObjectMap uses %.0f%% of the HashMap footprint for its %,d entries.%n",
+                100.0 * intMapBytes / hashMapBytes, intMap.size());
+    }
+
+    /**
+     * Times inserting N songs with distinct titles, once with the old uniqueness check that scans
+     * every stored song, and once through SongService, which checks the unique title index.
+     * Doubling N should roughly quadruple the scanning time but only double the indexed time.
+     * The songs are built before timing starts, with console output muted, because the Song
+     * constructor registers every song with its album.
+     */
+    private static void bulkInsert() {
+        System.out.println("Bulk insert of N songs with a case-insensitive title uniqueness check:");
+        for (int n = 5_000; n <= 40_000; n *= 2) {
+            List<Song> songs = buildSongs(n);
+            InMemoryRepository<Song> scanned = new InMemoryRepository<>();
+            long start = System.nanoTime();
+            for (Song song : songs) {
+                if (scanned.getAll().values().stream().anyMatch(existing -> existing.getTitle().equalsIgnoreCase(song.getTitle()))) {
+                    throw new IllegalStateException("Unexpected duplicate " + song.getTitle());
+                }
+                scanned.create(song);
+            }
+            long scanMillis = (System.nanoTime() - start) / 1_000_000;
+
+            songs = buildSongs(n);
+            SongService songService = new SongService(new InMemoryRepository<>());
+            start = System.nanoTime();
+            for (Song song : songs) {
+                songService.addSong(song);
+            }
+            long indexMillis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("  N=%,7d  scan: %,7d ms  unique index: %,5d ms%n", n, scanMillis, indexMillis);
+        }
+    }
+
+    /**
+     * Times 8 threads creating artists in a FileRepository, once per durability mode,
+     * and prints how many records each fsync committed.
+     */
+    private static void groupCommit() {
+        int threads = 8;
+        int artistsPerThread = 2_000;
+        System.out.println("File repository writes from " + threads + " threads, " + artistsPerThread + " artists each:");
+        for (DurabilityMode mode : DurabilityMode.values()) {
+            try {
+                Path directory = Files.createTempDirectory("group-commit");
+                String file = directory.resolve("artists.csv").toString();
+                FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), mode);
+                ExecutorService executor = Executors.newFixedThreadPool(threads);
+                long start = System.nanoTime();
+                for (int t = 0; t < threads; t++) {
+                    int thread = t;
+                    executor.submit(() -> {
+                        for (int i = 0; i < artistsPerThread; i++) {
+                            repository.create(new Artist("Artist " + thread + "-" + i, "artist@example.com"));
+                        }
+                    });
+                }
+                executor.shutdown();
+                executor.awaitTermination(10, TimeUnit.MINUTES);
+                repository.close();
+                FlushMetrics metrics = repository.getFlushMetrics();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                System.out.printf("  %-7s %,6d ms (%,.0f writes/s)  %s%n", mode, millis,
+                        threads * artistsPerThread * 1000.0 / Math.max(millis, 1), metrics);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the same artists to a SYNC file repository one create at a time and with one createAll,
+     * which queues every record under one lock and waits for the log once.
+     */
+    private static void batchWrite(int artists) {
+        System.out.println("SYNC file repository, " + artists + " artists from one thread:");
+        for (boolean batched : new boolean[]{false, true}) {
+            try {
+                Path directory = Files.createTempDirectory("batch-write");
+                String file = directory.resolve("artists.csv").toString();
+                List<Artist> batch = new ArrayList<>(artists);
+                for (int i = 0; i < artists; i++) {
+                    batch.add(new Artist("Artist " + i, "artist@example.com"));
+                }
+                FileRepository<Artist> repository = new FileRepository<>(file, new ArtistCodec(), DurabilityMode.SYNC);
+                long start = System.nanoTime();
+                if (batched) {
+                    repository.createAll(batch);
+                } else {
+                    for (Artist artist : batch) {
+                        repository.create(artist);
+                    }
+                }
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                repository.close();
+                System.out.printf("  %-9s %,6d ms (%,.0f writes/s)  %s%n", batched ? "createAll" : "create", millis,
+                        artists * 1000.0 / Math.max(millis, 1), repository.getFlushMetrics());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    /**
+     * Loads a synthetic songs.csv with the line-splitting loader FileRepository used before the codecs,
+     * and with CsvReader and SongCodec. Each loader first runs once to warm up, then is timed;
+     * the allocated bytes are those of the loading thread.
+     * Both loaders resolve albums from the same map, so only reading and parsing differ.
+     */
+    private static void csvLoad(int rows) {
+        PrintStream console = System.out;
+        try {
+            Path file = Files.createTempFile("songs", ".csv");
+            Map<Integer, Album> albums = new HashMap<>();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Artist artist = new Artist("Adele", "adele@example.com");
+            for (int id = 1; id <= rows / 100 + 1; id++) {
+                albums.put(id, new Album("Album " + id, LocalDate.of(2015, 11, 20), artist));
+            }
+            System.setOut(console);
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                for (int id = 1; id <= rows; id++) {
+                    writer.write(id + ",Song number " + id + "," + (2 + id % 300 / 100f) + "," + (id / 100 + 1) + "\n");
+                }
+            }
+            System.out.printf("Loading %,d songs from a %,d byte songs.csv:%n", rows, Files.size(file));
+            for (int run = 0; run < 2; run++) {
+                boolean timed = run == 1;
+                System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                int loaded = loadWithSplit(file, albums);
+                long splitMillis = (System.nanoTime() - start) / 1_000_000;
+                long splitBytes = allocatedBytes() - allocated;
+                for (Album album : albums.values()) {
+                    album.getSongs().clear();
+                }
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                int decoded = loadWithCodec(file, albums);
+                long codecMillis = (System.nanoTime() - start) / 1_000_000;
+                long codecBytes = allocatedBytes() - allocated;
+                for (Album album : albums.values()) {
+                    album.getSongs().clear();
+                }
+                System.setOut(console);
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                long splitChecksum = parseWithSplit(file);
+                long splitParseMillis = (System.nanoTime() - start) / 1_000_000;
+                long splitParseBytes = allocatedBytes() - allocated;
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                long readerChecksum = parseWithReader(file);
+                long readerParseMillis = (System.nanoTime() - start) / 1_000_000;
+                long readerParseBytes = allocatedBytes() - allocated;
+                if (splitChecksum != readerChecksum) {
+                    throw new IllegalStateException("The parsers disagree: " + splitChecksum + " != " + readerChecksum);
+                }
+                if (timed) {
+                    System.out.println("  Full load into Song objects:");
+                    System.out.printf("    readLine + split:  %,6d ms, %,5d MB allocated (%,d songs)%n", splitMillis, splitBytes >> 20, loaded);
+                    System.out.printf("    CsvReader + codec: %,6d ms, %,5d MB allocated (%,d songs)%n", codecMillis, codecBytes >> 20, decoded);
+                    System.out.println("  Parsing the fields only:");
+                    System.out.printf("    readLine + split:  %,6d ms, %,5d MB allocated%n", splitParseMillis, splitParseBytes >> 20);
+                    System.out.printf("    CsvReader:         %,6d ms, %,5d MB allocated%n", readerParseMillis, readerParseBytes >> 20);
+                }
+            }
+            Files.delete(file);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Times opening file repositories of artists and live concerts, once from the CSV snapshots and once
+     * from the binary snapshots that the first open writes next to them.
+     * Live concerts are used because their dates are stored as text in the CSV file and parsed with SimpleDateFormat.
+     */
+    private static void coldStart(int concerts) {
+        PrintStream console = System.out;
+        try {
+            Path directory = Files.createTempDirectory("coldstart");
+            String artistFile = directory.resolve("artist.csv").toString();
+            String concertFile = directory.resolve("liveconcert.csv").toString();
+            int artistCount = concerts / 100 + 1;
+            List<Artist> artists = new ArrayList<>();
+            try (BufferedWriter writer = Files.newBufferedWriter(Path.of(artistFile))) {
+                ArtistCodec codec = new ArtistCodec();
+                CsvLine line = new CsvLine();
+                for (int id = 1; id <= artistCount; id++) {
+                    Artist artist = new Artist("Artist " + id, "artist" + id + "@example.com");
+                    artist.setId(id);
+                    artists.add(artist);
+                    codec.encode(artist, line.reset());
+                    writer.write(line + "\n");
+                }
+            }
+            try (BufferedWriter writer = Files.newBufferedWriter(Path.of(concertFile))) {
+                LiveConcertCodec codec = new LiveConcertCodec(id -> null);
+                CsvLine line = new CsvLine();
+                long day = 24L * 60 * 60 * 1000;
+                for (int id = 1; id <= concerts; id++) {
+                    LiveConcert concert = new LiveConcert("Concert " + id, new Date(1_600_000_000_000L + id % 1000 * day),
+                            artists.get(id % artistCount), 100 + id % 5000, id % 2 == 0, "Tour");
+                    concert.setId(id);
+                    codec.encode(concert, line.reset());
+                    writer.write(line + "\n");
+                }
+            }
+            System.out.printf("Opening %,d artists and %,d live concerts (%,d byte CSV files):%n",
+                    artistCount, concerts, Files.size(Path.of(artistFile)) + Files.size(Path.of(concertFile)));
+            for (int run = 0; run < 2; run++) {
+                Files.deleteIfExists(Path.of(artistFile + ".snap"));
+                Files.deleteIfExists(Path.of(concertFile + ".snap"));
+                long csvMillis = openCatalog(artistFile, concertFile);
+                long binaryMillis = openCatalog(artistFile, concertFile);
+                if (run == 1) {
+                    System.out.printf("  From CSV:             %,6d ms%n", csvMillis);
+                    System.out.printf("  From binary snapshot: %,6d ms (%,d bytes)%n", binaryMillis,
+                            Files.size(Path.of(artistFile + ".snap")) + Files.size(Path.of(concertFile + ".snap")));
+                }
+            }
+            try (var files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    Files.delete(file);
+                }
+            }
+            Files.delete(directory);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    /**
+     * Opens the catalog, checks it is complete and returns the time it took to open, without the time
+     * spent closing, which waits for the binary snapshots to be written.
+     */
+    private static long openCatalog(String artistFile, String concertFile) throws Exception {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        EntityRegistry registry = new EntityRegistry();
+        long start = System.nanoTime();
+        FileRepository<Artist> artists = new FileRepository<>(artistFile, new ArtistCodec(), Artist.class, registry);
+        FileRepository<LiveConcert> concerts = new FileRepository<>(concertFile, new LiveConcertCodec(registry), LiveConcert.class, registry);
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.setOut(console);
+        if (concerts.get(1).getArtist() == null) {
+            throw new IllegalStateException("The artist of a concert was not resolved.");
+        }
+        concerts.close();
+        artists.close();
+        return millis;
+    }
+
+    /**
+     * Compares FileRepository with LazyFileRepository on a large artist file: the time to open it,
+     * the heap retained once it is open, and the time of random reads by id.
+     */
+    private static void lazyOpen(int rows) {
+        try {
+            Path directory = Files.createTempDirectory("lazyopen");
+            Path file = directory.resolve("artist.csv");
+            try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+                ArtistCodec codec = new ArtistCodec();
+                CsvLine line = new CsvLine();
+                for (int id = 1; id <= rows; id++) {
+                    Artist artist = new Artist("Artist " + id, "artist" + id + "@example.com");
+                    artist.setId(id);
+                    codec.encode(artist, line.reset());
+                    writer.write(line + "\n");
+                }
+            }
+            System.out.printf("Opening %,d artists (%,d byte CSV file) and reading 100,000 random ids:%n", rows, Files.size(file));
+            int[] ids = new Random(42).ints(100_000, 1, rows + 1).toArray();
+            for (int run = 0; run < 2; run++) {
+                long before = usedHeap();
+                long start = System.nanoTime();
+                FileRepository<Artist> eager = new FileRepository<>(file.toString(), new ArtistCodec());
+                long openMillis = (System.nanoTime() - start) / 1_000_000;
+                long heap = usedHeap() - before;
+                start = System.nanoTime();
+                for (int id : ids) {
+                    eager.get(id).getName();
+                }
+                long readMillis = (System.nanoTime() - start) / 1_000_000;
+                eager.close();
+                eager = null;
+                if (run == 1) {
+                    System.out.printf("  FileRepository:     open %,6d ms, %,5d MB retained, reads %,5d ms%n", openMillis, heap >> 20, readMillis);
+                }
+                Files.deleteIfExists(Path.of(file + ".snap"));
+
+                before = usedHeap();
+                start = System.nanoTime();
+                LazyFileRepository<Artist> lazy = new LazyFileRepository<>(file.toString(), new ArtistCodec(),
+                        LazyFileRepository.DEFAULT_CACHE_CAPACITY);
+                openMillis = (System.nanoTime() - start) / 1_000_000;
+                heap = usedHeap() - before;
+                start = System.nanoTime();
+                for (int id : ids) {
+                    lazy.get(id).getName();
+                }
+                readMillis = (System.nanoTime() - start) / 1_000_000;
+                long heapAfterReads = usedHeap() - before;
+                lazy.close();
+                if (run == 1) {
+                    System.out.printf("  LazyFileRepository: open %,6d ms, %,5d MB retained, reads %,5d ms (%,d MB retained with a full cache of %,d)%n",
+                            openMillis, heap >> 20, readMillis, heapAfterReads >> 20, LazyFileRepository.DEFAULT_CACHE_CAPACITY);
+                }
+            }
+            try (var files = Files.list(directory)) {
+                for (Path path : files.toList()) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(directory);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Times single-row reads through ArtistDBRepository with the statement cache disabled and enabled,
+     * on a pool of one connection. Needs a PostgreSQL database with the application schema and at least
+     * one artist, so it is not part of "all".
+     */
+    private static void statementCache(String url, String user, String password) {
+        int reads = 20_000;
+        System.out.printf("%,d ArtistDBRepository.read calls against %s:%n", reads, url);
+        for (int cacheSize : new int[]{0, ConnectionPool.DEFAULT_STATEMENT_CACHE_SIZE}) {
+            try (ConnectionPool pool = new ConnectionPool(() -> DriverManager.getConnection(url, user, password), 1,
+                    ConnectionPool.DEFAULT_BORROW_TIMEOUT_MILLIS, ConnectionPool.DEFAULT_VALIDATION_INTERVAL_MILLIS,
+                    ConnectionPool.DEFAULT_LEAK_THRESHOLD_MILLIS, cacheSize)) {
+                ArtistDBRepository artists = new ArtistDBRepository(pool);
+                List<Integer> ids = new ArrayList<>(artists.getAll().keySet());
+                if (ids.isEmpty()) {
+                    System.out.println("  The Artist table is empty; add an artist first.");
+                    return;
+                }
+                for (int i = 0; i < 2_000; i++) {
+                    artists.read(ids.get(i % ids.size()));
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < reads; i++) {
+                    artists.read(ids.get(i % ids.size()));
+                }
+                double micros = (System.nanoTime() - start) / 1_000.0 / reads;
+                System.out.printf("  Statement cache size %2d: %8.1f us per read, %s%n", cacheSize, micros, pool.getMetrics());
+            } catch (RuntimeException e) {
+                System.out.println("  Skipped: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static int loadWithSplit(Path file, Map<Integer, Album> albums) throws IOException {
+        IntObjectMap<Song> songs = new IntObjectMap<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] dataFields = line.split(",");
+                if (dataFields.length > 3) {
+                    int id = Integer.parseInt(dataFields[0]);
+                    float duration = Float.parseFloat(dataFields[2]);
+                    Album album = albums.get(Integer.parseInt(dataFields[3]));
+                    Song song = new Song(dataFields[1], duration, album);
+                    song.setId(id);
+                    songs.put(id, song);
+                }
+            }
+        }
+        return songs.size();
+    }
+
+    private static int loadWithCodec(Path file, Map<Integer, Album> albums) throws IOException {
+        IntObjectMap<Song> songs = new IntObjectMap<>();
+        SongCodec codec = new SongCodec(albums::get);
+        try (CsvReader reader = new CsvReader(file)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                Song song = codec.decode(record);
+                songs.put(song.getId(), song);
+            }
+        }
+        return songs.size();
+    }
+
+    private static long parseWithSplit(Path file) throws IOException {
+        long checksum = 0;
+        try (BufferedReader reader = new BufferedReader(new FileReader(file.toFile()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] dataFields = line.split(",");
+                checksum += Integer.parseInt(dataFields[0]) + dataFields[1].length()
+                        + (long) (Float.parseFloat(dataFields[2]) * 100) + Integer.parseInt(dataFields[3]);
+            }
+        }
+        return checksum;
+    }
+
+    private static long parseWithReader(Path file) throws IOException {
+        long checksum = 0;
+        try (CsvReader reader = new CsvReader(file)) {
+            CsvRecord record;
+            while ((record = reader.next()) != null) {
+                checksum += record.getInt(0) + record.getString(1).length()
+                        + (long) (record.getFloat(2) * 100) + record.getInt(3);
+            }
+        }
+        return checksum;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static List<Song> buildSongs(int n) {
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Artist artist = new Artist("Adele", "adele@example.com");
+            List<Song> songs = new ArrayList<>(n);
+            Album album = null;
+            for (int i = 0; i < n; i++) {
+                if (i % 100 == 0) {
+                    album = new Album("Album " + i / 100, LocalDate.of(2015, 11, 20), artist);
+                }
+                songs.add(new Song("Song " + i, 3.5f, album));
+            }
+            return songs;
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,103 @@
+import Domain.Artist;
+import Domain.HasId;
+import Domain.Listener;
+import Repository.ConnectionPool;
+import Repository.IRepository;
+import Repository.InMemoryRepository;
+import Repository.UnitOfWork;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Unit_of_work_tests {
+
+    /**
+     * An in-memory repository whose batch writes borrow a connection like the database repositories do,
+     * recording whether each of them ran inside a transaction.
+     */
+    private static <T extends HasId> IRepository<T> transactionalRepository(ConnectionPool pool, List<String> writes, String name) {
+        return new InMemoryRepository<T>() {
+            @Override
+            public void createAll(Collection<T> objects) {
+                record("create");
+                super.createAll(objects);
+            }
+
+            @Override
+            public void deleteAll(Collection<Integer> ids) {
+                record("delete");
+                if (ids.contains(-1)) {
+                    throw new IllegalArgumentException("Cannot delete: Entity with id -1 does not exist.");
+                }
+                super.deleteAll(ids);
+            }
+
+            private void record(String kind) {
+                try (Connection connection = pool.getConnection()) {
+                    writes.add(kind + " " + name + (connection.getAutoCommit() ? "" : " in transaction"));
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testUnitOfWorkCommitsEveryRepositoryInOneTransaction() throws Exception {
+        AtomicInteger commits = new AtomicInteger();
+        AtomicInteger rollbacks = new AtomicInteger();
+        AtomicBoolean autoCommit = new AtomicBoolean(true);
+        Connection physical = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "isValid": return true;
+                        case "isClosed": return false;
+                        case "getAutoCommit": return autoCommit.get();
+                        case "setAutoCommit": autoCommit.set((Boolean) args[0]); return null;
+                        case "commit": commits.incrementAndGet(); return null;
+                        case "rollback": rollbacks.incrementAndGet(); return null;
+                        case "hashCode": return System.identityHashCode(proxy);
+                        case "equals": return proxy == args[0];
+                        default: return null;
+                    }
+                });
+        try (ConnectionPool pool = new ConnectionPool(() -> physical, 1, 50, 60_000, 60_000)) {
+            List<String> writes = new ArrayList<>();
+            IRepository<Artist> artists = transactionalRepository(pool, writes, "artists");
+            IRepository<Listener> listeners = transactionalRepository(pool, writes, "listeners");
+
+            Artist oldArtist = new Artist("Old artist", "old@example.com");
+            Listener oldListener = new Listener("Old listener", "old@example.com");
+            artists.create(oldArtist);
+            listeners.create(oldListener);
+            UnitOfWork.on(pool)
+                    .registerNew(artists, new Artist("Artist", "artist@example.com"))
+                    .registerNew(listeners, new Listener("Listener", "listener@example.com"))
+                    .registerDeleted(artists, oldArtist.getId())
+                    .registerDeleted(listeners, oldListener.getId())
+                    .commit();
+            assertEquals(List.of("create artists in transaction", "create listeners in transaction",
+                    "delete listeners in transaction", "delete artists in transaction"), writes,
+                    "Creates should run parents first and deletes children first, all on the transaction of the unit of work.");
+            assertEquals(1, commits.get(), "The unit of work should commit once.");
+            assertTrue(autoCommit.get());
+
+            UnitOfWork failing = UnitOfWork.on(pool)
+                    .registerNew(listeners, new Listener("Other", "other@example.com"))
+                    .registerDeleted(artists, -1);
+            assertThrows(IllegalArgumentException.class, failing::commit);
+            assertEquals(1, commits.get());
+            assertEquals(1, rollbacks.get(), "A failed write should roll the whole unit of work back.");
+            assertEquals(0, pool.getMetrics().getActiveCount(), "The connection should be returned after a rollback.");
+        }
+    }
+}